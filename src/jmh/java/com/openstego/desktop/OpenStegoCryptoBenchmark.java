@@ -0,0 +1,72 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.BenchmarkData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for encryption and decryption of the payload using {@link OpenStegoCrypto}. A new instance is created per
+ * invocation (as in a bulk run), so this includes the key setup. AESGCM derives the key per message, and an instance
+ * can be used for one message only
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OpenStegoCryptoBenchmark {
+
+    /**
+     * Encryption algorithm
+     */
+    @Param({OpenStegoCrypto.ALGO_AES128, OpenStegoCrypto.ALGO_AESGCM})
+    public String algorithm;
+
+    /**
+     * Size of the payload in KB
+     */
+    @Param({"16", "1024", "16384"})
+    public int payloadKB;
+
+    private byte[] payload;
+
+    private byte[] encrypted;
+
+    /**
+     * Prepare the payload and its encrypted form
+     *
+     * @throws OpenStegoException Processing issues
+     */
+    @Setup
+    public void setup() throws OpenStegoException {
+        this.payload = BenchmarkData.createPayload(this.payloadKB * 1024);
+        this.encrypted = new OpenStegoCrypto("benchmark", this.algorithm).encrypt(this.payload);
+    }
+
+    /**
+     * Benchmark for encryption
+     *
+     * @return Encrypted data
+     * @throws OpenStegoException Processing issues
+     */
+    @Benchmark
+    public byte[] encrypt() throws OpenStegoException {
+        return new OpenStegoCrypto("benchmark", this.algorithm).encrypt(this.payload);
+    }
+
+    /**
+     * Benchmark for decryption
+     *
+     * @return Decrypted data
+     * @throws OpenStegoException Processing issues
+     */
+    @Benchmark
+    public byte[] decrypt() throws OpenStegoException {
+        return new OpenStegoCrypto("benchmark", this.algorithm).decrypt(this.encrypted);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin;
+
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.plugin.dwtdugad.DWTDugadPlugin;
+import com.openstego.desktop.plugin.dwtkim.DWTKimPlugin;
+import com.openstego.desktop.plugin.randlsb.RandomLSBPlugin;
+import com.openstego.desktop.util.BenchmarkData;
+import com.openstego.desktop.util.UserPreferences;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark (including image decoding and encoding) for every plugin. For data hiding plugins, the payload
+ * is embedded and extracted, while for watermarking plugins, the signature is embedded and checked
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PluginBenchmark {
+
+    private static final int PAYLOAD_SIZE = 64 * 1024;
+
+    /**
+     * Name of the plugin
+     */
+    @Param({"RandomLSB", "DWTDugad", "DWTKim"})
+    public String pluginName;
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"1", "12", "48"})
+    public int megaPixels;
+
+    /**
+     * Format of the cover image
+     */
+    @Param({"png", "bmp"})
+    public String format;
+
+    private OpenStegoPlugin<?> plugin;
+
+    private boolean watermarking;
+
+    private byte[] payload;
+
+    private byte[] cover;
+
+    private byte[] stego;
+
+    /**
+     * Prepare the synthetic cover image, payload (or signature) and stego image
+     *
+     * @throws Exception Processing issues
+     */
+    @Setup
+    public void setup() throws Exception {
+        UserPreferences.init();
+        switch (this.pluginName) {
+            case "RandomLSB":
+                this.plugin = new RandomLSBPlugin();
+                break;
+            case "DWTDugad":
+                this.plugin = new DWTDugadPlugin();
+                break;
+            case "DWTKim":
+                this.plugin = new DWTKimPlugin();
+                break;
+            default:
+                throw new IllegalArgumentException(this.pluginName);
+        }
+        this.plugin.resetConfig();
+        this.plugin.getConfig().setPassword("benchmark");
+        this.watermarking = this.plugin.getPurposes().contains(OpenStegoPlugin.Purpose.WATERMARKING);
+
+        this.payload = this.watermarking ? this.plugin.generateSignature() : BenchmarkData.createPayload(PAYLOAD_SIZE);
+        this.cover = BenchmarkData.createImageData(this.megaPixels, this.format);
+        this.stego = embed();
+    }
+
+    /**
+     * Benchmark for embedding the payload (or signature)
+     *
+     * @return Stego image data
+     * @throws OpenStegoException Processing issues
+     */
+    @Benchmark
+    public byte[] embed() throws OpenStegoException {
+        return this.plugin.embedData(this.payload, this.watermarking ? null : "payload.bin", this.cover, "cover." + this.format,
+                "stego." + this.format);
+    }
+
+    /**
+     * Benchmark for extracting the payload (or checking the watermark)
+     *
+     * @return Extracted payload, or the watermark strength
+     * @throws OpenStegoException Processing issues
+     */
+    @Benchmark
+    public Object extractOrCheck() throws OpenStegoException {
+        if (this.watermarking) {
+            return this.plugin.checkMark(this.stego, "stego." + this.format, this.payload);
+        }
+        return this.plugin.extractData(this.stego, "stego." + this.format, null);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.dwtkim;
+
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.util.UserPreferences;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for watermark detection using {@link DWTKimPlugin}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DWTKimDetectBenchmark {
+
+    /**
+     * Width of the cover image
+     */
+    @Param({"512", "1024"})
+    public int width;
+
+    private DWTKimPlugin plugin;
+
+    private byte[] signature;
+
+    private byte[] stegoData;
+
+    /**
+     * Prepare a watermarked image from a deterministic synthetic cover image
+     *
+     * @throws Exception Processing issues
+     */
+    @Setup
+    public void setup() throws Exception {
+        UserPreferences.init();
+        this.plugin = new DWTKimPlugin();
+        this.plugin.resetConfig();
+        this.plugin.getConfig().setPassword("benchmark");
+        this.signature = this.plugin.generateSignature();
+        this.stegoData = this.plugin.embedData(this.signature, null, createCover(this.width, this.width * 3 / 4), "cover.png",
+                "stego.png");
+    }
+
+    /**
+     * Benchmark for extraction and correlation of the watermark
+     *
+     * @return Correlation value
+     * @throws OpenStegoException Processing issues
+     */
+    @Benchmark
+    public double checkMark() throws OpenStegoException {
+        return this.plugin.checkMark(this.stegoData, "stego.png", this.signature);
+    }
+
+    /**
+     * Creates a smooth synthetic image with some noise, which has enough significant wavelet coefficients
+     *
+     * @param cols Width of the image
+     * @param rows Height of the image
+     * @return Image data in PNG format
+     * @throws IOException Processing issues
+     */
+    private static byte[] createCover(int cols, int rows) throws IOException {
+        BufferedImage image = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Random rand = new Random(1);
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                double v = 128 + 60 * Math.sin(x / 17.0) * Math.cos(y / 23.0) + 30 * Math.sin((x + y) / 5.0) + rand.nextGaussian() * 8;
+                int c = Math.max(0, Math.min(255, (int) v));
+                image.setRGB(x, y, (c << 16) | (c << 8) | (255 - c));
+            }
+        }
+        ImageIO.write(image, "png", os);
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.dwtkim;
+
+import com.openstego.desktop.util.dwt.DWT;
+import com.openstego.desktop.util.dwt.DWTUtil;
+import com.openstego.desktop.util.dwt.Filter;
+import com.openstego.desktop.util.dwt.ImageTree;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark to compare the sub-band marking of {@link DWTKimPlugin} against the released implementation, which scanned
+ * each sub-band twice (once for the max coefficient and once for marking) in column-major order via
+ * {@link DWTUtil#getPixel(com.openstego.desktop.util.dwt.Image, int, int)}. The legacy loops are copied as is from the
+ * released <code>DWTKimPlugin</code> (including the running watermark index), and both variants use the same forward
+ * transform
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DWTKimEmbedBenchmark {
+
+    private static final double ALPHA = 0.1;
+
+    private static final int WATERMARK_LENGTH = 1000;
+
+    /**
+     * Width of the cover image
+     */
+    @Param({"512", "1024"})
+    public int width;
+
+    private int[][] luminance;
+
+    private double[] watermark;
+
+    private DWT dwt;
+
+    /**
+     * Prepare deterministic luminance data and watermark
+     */
+    @Setup
+    public void setup() {
+        Random rand = new Random(1);
+        int rows = this.width * 3 / 4;
+
+        this.luminance = new int[rows][this.width];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < this.width; x++) {
+                double v = 128 + 60 * Math.sin(x / 17.0) * Math.cos(y / 23.0) + rand.nextGaussian() * 8;
+                this.luminance[y][x] = Math.max(0, Math.min(255, (int) v));
+            }
+        }
+
+        this.watermark = new double[WATERMARK_LENGTH];
+        for (int i = 0; i < WATERMARK_LENGTH; i++) {
+            this.watermark[i] = rand.nextGaussian();
+        }
+
+        this.dwt = new DWT(this.width, rows, 2, 3, Filter.METHOD_PERIODICAL);
+    }
+
+    /**
+     * Forward transform, then max coefficient search and marking as separate column-major passes, as in the released
+     * <code>DWTKimPlugin.embedData()</code>
+     *
+     * @return Marked image tree
+     */
+    @Benchmark
+    public ImageTree legacy() {
+        ImageTree tree = this.dwt.forwardDWT(this.luminance);
+        ImageTree p = tree;
+        int w = 0;
+
+        while (p.getCoarse() != null) {
+            double threshold = DWTKimPlugin.calcLevelThreshold(legacyLevelMaxCoeff(p));
+
+            w = legacyMark(p.getHorizontal(), threshold, w);
+            w = legacyMark(p.getVertical(), threshold, w);
+            w = legacyMark(p.getDiagonal(), threshold, w);
+            p = p.getCoarse();
+        }
+        legacyMark(p, DWTKimPlugin.calcLevelThreshold(legacyMaxCoeff(p)), w);
+
+        return tree;
+    }
+
+    /**
+     * Forward transform collecting the max coefficients, then a single row-major marking pass
+     *
+     * @return Marked image tree
+     */
+    @Benchmark
+    public ImageTree current() {
+        ImageTree tree = this.dwt.forwardDWT(this.luminance, DWTKimPlugin.BORDER);
+        ImageTree p = tree;
+        int w = 0;
+
+        while (p.getCoarse() != null) {
+            double max = Math.max(p.getHorizontal().getMaxCoeff(), Math.max(p.getVertical().getMaxCoeff(), p.getDiagonal().getMaxCoeff()));
+            double threshold = DWTKimPlugin.calcLevelThreshold(max);
+
+            w = DWTKimPlugin.markSubBand(p.getHorizontal(), ALPHA, this.watermark, threshold, w, WATERMARK_LENGTH);
+            w = DWTKimPlugin.markSubBand(p.getVertical(), ALPHA, this.watermark, threshold, w, WATERMARK_LENGTH);
+            w = DWTKimPlugin.markSubBand(p.getDiagonal(), ALPHA, this.watermark, threshold, w, WATERMARK_LENGTH);
+            p = p.getCoarse();
+        }
+        DWTKimPlugin.markSubBand(p, ALPHA, this.watermark, DWTKimPlugin.calcLevelThreshold(p.getMaxCoeff()), w, WATERMARK_LENGTH);
+
+        return tree;
+    }
+
+    private static double legacyMaxCoeff(ImageTree imgTree) {
+        double max = 0.0;
+        double coeff;
+
+        for (int i = 5; i < imgTree.getImage().getHeight() - 5; i++) {
+            for (int j = 5; j < imgTree.getImage().getWidth() - 5; j++) {
+                coeff = Math.abs(DWTUtil.getPixel(imgTree.getImage(), i, j));
+                if (coeff > max) {
+                    max = coeff;
+                }
+            }
+        }
+
+        return max;
+    }
+
+    private static double legacyLevelMaxCoeff(ImageTree imgTree) {
+        double h;
+        double v;
+        double d;
+
+        h = legacyMaxCoeff(imgTree.getHorizontal());
+        v = legacyMaxCoeff(imgTree.getVertical());
+        d = legacyMaxCoeff(imgTree.getDiagonal());
+
+        return Math.max(h, Math.max(v, d));
+    }
+
+    private int legacyMark(ImageTree imgTree, double threshold, int w) {
+        double coeff;
+        double newCoeff;
+
+        for (int i = 5; i < imgTree.getImage().getHeight() - 5; i++) {
+            for (int j = 5; j < imgTree.getImage().getWidth() - 5; j++) {
+                coeff = DWTUtil.getPixel(imgTree.getImage(), i, j);
+                if (Math.abs(coeff) > threshold) {
+                    newCoeff = coeff + ALPHA * coeff * this.watermark[w % WATERMARK_LENGTH];
+                    DWTUtil.setPixel(imgTree.getImage(), i, j, newCoeff);
+                    w++;
+                }
+            }
+        }
+
+        return w;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.plugin.randlsb.RandomLSBInputStream;
+import com.openstego.desktop.plugin.randlsb.RandomLSBOutputStream;
+import com.openstego.desktop.util.BenchmarkData;
+import com.openstego.desktop.util.ImageHolder;
+import com.openstego.desktop.util.UserPreferences;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the LSB streams of {@link LSBPlugin} and {@link com.openstego.desktop.plugin.randlsb.RandomLSBPlugin},
+ * without the image decoding and encoding. The payload is capped at half the capacity of the image for the given
+ * <code>maxBitsUsedPerChannel</code>, as random placement slows down heavily when the image is nearly full
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LSBStreamBenchmark {
+
+    private static final String FILE_NAME = "payload.bin";
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"1", "12", "48"})
+    public int megaPixels;
+
+    /**
+     * Size of the payload in KB
+     */
+    @Param({"16", "256", "1024"})
+    public int payloadKB;
+
+    /**
+     * Max bits used per color channel
+     */
+    @Param({"1", "3", "8"})
+    public int maxBitsUsedPerChannel;
+
+    private LSBConfig config;
+
+    private ImageHolder cover;
+
+    private byte[] payload;
+
+    private ImageHolder stego;
+
+    private ImageHolder randomStego;
+
+    /**
+     * Prepare the synthetic cover image, payload and stego images
+     *
+     * @throws Exception Processing issues
+     */
+    @Setup
+    public void setup() throws Exception {
+        UserPreferences.init();
+        this.config = new LSBConfig();
+        this.config.setMaxBitsUsedPerChannel(this.maxBitsUsedPerChannel);
+        this.config.setPassword("benchmark");
+        this.cover = new ImageHolder(BenchmarkData.createImage(this.megaPixels), null);
+
+        long capacity = (long) this.cover.getImage().getWidth() * this.cover.getImage().getHeight() * 3 * this.maxBitsUsedPerChannel / 8;
+        this.payload = BenchmarkData.createPayload((int) Math.min(this.payloadKB * 1024L, capacity / 2));
+        this.stego = writeLsb();
+        this.randomStego = writeRandomLsb();
+    }
+
+    /**
+     * Benchmark for writing the payload using {@link LSBOutputStream}
+     *
+     * @return Stego image
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    @Benchmark
+    public ImageHolder writeLsb() throws OpenStegoException, IOException {
+        LSBOutputStream os = new LSBOutputStream(this.cover, this.payload.length, FILE_NAME, this.config);
+        write(os);
+        return os.getImage();
+    }
+
+    /**
+     * Benchmark for reading the payload using {@link LSBInputStream}
+     *
+     * @return Payload
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    @Benchmark
+    public byte[] readLsb() throws OpenStegoException, IOException {
+        return read(new LSBInputStream(this.stego, this.config));
+    }
+
+    /**
+     * Benchmark for writing the payload using {@link RandomLSBOutputStream}
+     *
+     * @return Stego image
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    @Benchmark
+    public ImageHolder writeRandomLsb() throws OpenStegoException, IOException {
+        RandomLSBOutputStream os = new RandomLSBOutputStream(new ImageHolder(copy(this.cover), null), this.payload.length, FILE_NAME, this.config);
+        write(os);
+        return os.getImage();
+    }
+
+    /**
+     * Benchmark for reading the payload using {@link RandomLSBInputStream}
+     *
+     * @return Payload
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    @Benchmark
+    public byte[] readRandomLsb() throws OpenStegoException, IOException {
+        return read(new RandomLSBInputStream(this.randomStego, this.config));
+    }
+
+    private void write(OutputStream os) throws IOException {
+        try (OutputStream out = os) {
+            out.write(this.payload);
+        }
+    }
+
+    private byte[] read(InputStream is) throws IOException {
+        byte[] data = new byte[this.payload.length];
+        int off = 0;
+        int n;
+
+        try (InputStream in = is) {
+            while (off < data.length && (n = in.read(data, off, data.length - off)) > 0) {
+                off += n;
+            }
+        }
+        return data;
+    }
+
+    // RandomLSBOutputStream writes into the given image itself, so the cover needs to be copied
+    private static BufferedImage copy(ImageHolder image) {
+        BufferedImage src = image.getImage();
+        BufferedImage dest = new BufferedImage(src.getWidth(), src.getHeight(), src.getType());
+        src.copyData(dest.getRaster());
+        return dest;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Generator of deterministic synthetic inputs for the benchmarks, so that the results do not depend on any files and
+ * are comparable across runs and releases
+ */
+public final class BenchmarkData {
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a smooth synthetic image with some noise, in 4:3 aspect ratio. The dimensions are rounded to multiples of
+     * 256 (and hence the size is approximate), so that the image allows enough wavelet decomposition levels
+     *
+     * @param megaPixels Size of the image in megapixels
+     * @return Image
+     */
+    public static BufferedImage createImage(int megaPixels) {
+        int cols = (int) Math.max(1, Math.round(Math.sqrt(megaPixels * 1000000.0 * 4 / 3) / 256)) * 256;
+        int rows = cols * 3 / 4;
+        BufferedImage image = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[cols];
+        Random rand = new Random(1);
+
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                double v = 128 + 60 * Math.sin(x / 17.0) * Math.cos(y / 23.0) + 30 * Math.sin((x + y) / 5.0) + rand.nextGaussian() * 8;
+                int c = Math.max(0, Math.min(255, (int) v));
+                row[x] = (c << 16) | (((c + x) & 0xFF) << 8) | (255 - c);
+            }
+            image.setRGB(0, y, cols, 1, row, 0, cols);
+        }
+        return image;
+    }
+
+    /**
+     * Creates a synthetic image and encodes it in the given format
+     *
+     * @param megaPixels Size of the image in megapixels
+     * @param format     Image format (e.g. png or bmp)
+     * @return Encoded image data
+     * @throws IOException Processing issues
+     */
+    public static byte[] createImageData(int megaPixels, String format) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        if (!ImageIO.write(createImage(megaPixels), format, os)) {
+            throw new IOException("No writer for image format: " + format);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Creates random (and hence incompressible) payload
+     *
+     * @param size Size of the payload in bytes
+     * @return Payload
+     */
+    public static byte[] createPayload(int size) {
+        byte[] payload = new byte[size];
+        new Random(2).nextBytes(payload);
+        return payload;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the color space conversions of {@link ImageUtil}, which are used by all the watermarking plugins
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImageUtilBenchmark {
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"1", "12", "48"})
+    public int megaPixels;
+
+    private BufferedImage image;
+
+    private List<int[][]> yuv;
+
+    /**
+     * Prepare the synthetic image
+     */
+    @Setup
+    public void setup() {
+        this.image = BenchmarkData.createImage(this.megaPixels);
+        this.yuv = ImageUtil.getYuvFromImage(this.image);
+    }
+
+    /**
+     * Benchmark for conversion from RGB to YUV
+     *
+     * @return YUV data
+     */
+    @Benchmark
+    public List<int[][]> getYuvFromImage() {
+        return ImageUtil.getYuvFromImage(this.image);
+    }
+
+    /**
+     * Benchmark for conversion from YUV to RGB
+     *
+     * @return Image
+     */
+    @Benchmark
+    public BufferedImage getImageFromYuv() {
+        return ImageUtil.getImageFromYuv(this.yuv, BufferedImage.TYPE_INT_RGB);
+    }
+}
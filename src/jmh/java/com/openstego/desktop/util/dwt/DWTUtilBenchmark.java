@@ -0,0 +1,105 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import com.openstego.desktop.util.BenchmarkData;
+import com.openstego.desktop.util.ImageUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the forward and inverse wavelet transforms of {@link DWTUtil}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DWTUtilBenchmark {
+
+    private static final int LEVEL = 3;
+
+    /**
+     * Size of the image in megapixels
+     */
+    @Param({"1", "12", "48"})
+    public int megaPixels;
+
+    /**
+     * Filter to use (1 - biorthogonal, 3 - Daubechies 4, 9 - Daubechies 20)
+     */
+    @Param({"1", "3", "9"})
+    public int filterID;
+
+    private FilterGH[] filters;
+
+    private double[] luminance;
+
+    private int cols;
+
+    private int rows;
+
+    private Image image;
+
+    private ImageTree tree;
+
+    /**
+     * Prepare the luminance of the synthetic image
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int[][] y = ImageUtil.getYuvFromImage(BenchmarkData.createImage(this.megaPixels)).get(0);
+
+        this.rows = y.length;
+        this.cols = y[0].length;
+        this.luminance = new double[this.cols * this.rows];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                this.luminance[i * this.cols + j] = y[i][j];
+            }
+        }
+
+        this.filters = new FilterGH[LEVEL + 1];
+        for (int i = 0; i <= LEVEL; i++) {
+            this.filters[i] = FilterRegistry.getFilterGH(this.filterID);
+        }
+        this.tree = DWTUtil.waveletTransform(newImage(), LEVEL, this.filters, Filter.METHOD_PERIODICAL);
+    }
+
+    /**
+     * Fresh copy of the input for each invocation, as the transform may modify it
+     */
+    @Setup(Level.Invocation)
+    public void prepareImage() {
+        this.image = newImage();
+    }
+
+    /**
+     * Benchmark for the forward transform
+     *
+     * @return Image tree
+     */
+    @Benchmark
+    public ImageTree waveletTransform() {
+        return DWTUtil.waveletTransform(this.image, LEVEL, this.filters, Filter.METHOD_PERIODICAL);
+    }
+
+    /**
+     * Benchmark for the inverse transform
+     *
+     * @return Image
+     */
+    @Benchmark
+    public Image inverseTransform() {
+        return DWTUtil.inverseTransform(this.tree, this.filters, Filter.METHOD_PERIODICAL);
+    }
+
+    private Image newImage() {
+        Image img = new Image(this.cols, this.rows);
+        img.setData(this.luminance.clone());
+        return img;
+    }
+}
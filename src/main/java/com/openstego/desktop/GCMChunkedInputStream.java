@@ -0,0 +1,205 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Input stream which decrypts the data written by {@link GCMChunkedOutputStream}. Data of a chunk is made available
+ * only after the chunk has been authenticated. If authentication of any chunk fails, then an {@link IOException} is
+ * thrown with the cause set to the underlying {@link GeneralSecurityException}.
+ */
+class GCMChunkedInputStream extends FilterInputStream {
+    /**
+     * Cipher to use
+     */
+    private final Cipher cipher;
+
+    /**
+     * Secret key for decryption
+     */
+    private final SecretKey key;
+
+    /**
+     * IV for the current chunk (nonce prefix followed by the chunk counter)
+     */
+    private final byte[] iv;
+
+    /**
+     * Data stream to read the chunks from
+     */
+    private final DataInputStream dataIn;
+
+    /**
+     * Decrypted data of the current chunk
+     */
+    private byte[] chunk = new byte[0];
+
+    /**
+     * Read position in the current chunk
+     */
+    private int chunkPos = 0;
+
+    /**
+     * Counter for the chunks
+     */
+    private int counter = 0;
+
+    /**
+     * Flag to indicate whether the last chunk has been read
+     */
+    private boolean lastRead = false;
+
+    /**
+     * Default constructor
+     *
+     * @param in          Input stream to read the encrypted data from
+     * @param key         AES key
+     * @param noncePrefix Nonce prefix for the message (8 bytes)
+     * @throws GeneralSecurityException Processing issues
+     */
+    GCMChunkedInputStream(InputStream in, SecretKey key, byte[] noncePrefix) throws GeneralSecurityException {
+        super(in);
+        this.dataIn = new DataInputStream(in);
+        this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        this.key = key;
+        this.iv = new byte[GCMChunkedOutputStream.IV_LENGTH];
+        System.arraycopy(noncePrefix, 0, this.iv, 0, GCMChunkedOutputStream.IV_LENGTH - 4);
+    }
+
+    /**
+     * Read a byte
+     *
+     * @return Byte read, or -1 at the end of data
+     * @throws IOException Processing issues
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fillChunk()) {
+            return -1;
+        }
+        return this.chunk[this.chunkPos++] & 0xFF;
+    }
+
+    /**
+     * Read bytes into the given array
+     *
+     * @param b   Array to read into
+     * @param off Offset in the array
+     * @param len Max no. of bytes to read
+     * @return No. of bytes read, or -1 at the end of data
+     * @throws IOException Processing issues
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n;
+
+        if (len == 0) {
+            return 0;
+        }
+        if (!fillChunk()) {
+            return -1;
+        }
+
+        n = Math.min(len, this.chunk.length - this.chunkPos);
+        System.arraycopy(this.chunk, this.chunkPos, b, off, n);
+        this.chunkPos += n;
+        return n;
+    }
+
+    /**
+     * Skip bytes
+     *
+     * @param n No. of bytes to skip
+     * @return No. of bytes skipped
+     * @throws IOException Processing issues
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        int len;
+
+        while (skipped < n && fillChunk()) {
+            len = (int) Math.min(n - skipped, this.chunk.length - this.chunkPos);
+            this.chunkPos += len;
+            skipped += len;
+        }
+        return skipped;
+    }
+
+    /**
+     * Get the no. of bytes which can be read without blocking
+     *
+     * @return No. of bytes available in the current chunk
+     */
+    @Override
+    public int available() {
+        return this.chunk.length - this.chunkPos;
+    }
+
+    /**
+     * Mark is not supported
+     *
+     * @return false
+     */
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Utility method to read and decrypt the next chunk, if the current chunk has been consumed
+     *
+     * @return false if there is no more data
+     * @throws IOException Processing issues
+     */
+    private boolean fillChunk() throws IOException {
+        int len;
+        boolean last;
+        byte[] encData;
+
+        while (this.chunkPos >= this.chunk.length) {
+            if (this.lastRead) {
+                return false;
+            }
+
+            try {
+                len = this.dataIn.readInt();
+            } catch (EOFException eofEx) {
+                throw new IOException("Encrypted data is truncated", eofEx);
+            }
+            last = (len & GCMChunkedOutputStream.LAST_CHUNK_FLAG) != 0;
+            len &= ~GCMChunkedOutputStream.LAST_CHUNK_FLAG;
+            if (len > GCMChunkedOutputStream.CHUNK_SIZE + GCMChunkedOutputStream.TAG_BITS / 8) {
+                throw new IOException("Invalid chunk length: " + len);
+            }
+
+            encData = new byte[len];
+            this.dataIn.readFully(encData);
+
+            try {
+                GCMChunkedOutputStream.setCounter(this.iv, this.counter++);
+                this.cipher.init(Cipher.DECRYPT_MODE, this.key, new GCMParameterSpec(GCMChunkedOutputStream.TAG_BITS, this.iv));
+                this.cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+                this.chunk = this.cipher.doFinal(encData);
+            } catch (GeneralSecurityException gsEx) {
+                throw new IOException(gsEx);
+            }
+            this.chunkPos = 0;
+            this.lastRead = last;
+        }
+        return true;
+    }
+}
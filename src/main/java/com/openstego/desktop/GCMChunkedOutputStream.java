@@ -0,0 +1,211 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * Output stream which encrypts the data in chunks using AES-GCM. Each chunk is authenticated separately, so the data
+ * can be encrypted (and later decrypted) incrementally using constant memory. The IV of each chunk is made up of the
+ * random nonce prefix of the message and the chunk counter, and the last chunk is flagged (as part of the authenticated
+ * data), so that reordering or truncation of chunks is detected while decrypting.
+ * <p>
+ * Each chunk is written as the length of the encrypted chunk (with the highest bit set for the last chunk) followed by
+ * the encrypted data (including the authentication tag).
+ *
+ * @see GCMChunkedInputStream
+ */
+class GCMChunkedOutputStream extends FilterOutputStream {
+    /**
+     * Size of the plain text chunk
+     */
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Length of the authentication tag in bits
+     */
+    static final int TAG_BITS = 128;
+
+    /**
+     * Length of the IV in bytes
+     */
+    static final int IV_LENGTH = 12;
+
+    /**
+     * Flag in the chunk length to indicate the last chunk
+     */
+    static final int LAST_CHUNK_FLAG = 0x80000000;
+
+    /**
+     * Cipher to use
+     */
+    private final Cipher cipher;
+
+    /**
+     * Secret key for encryption
+     */
+    private final SecretKey key;
+
+    /**
+     * IV for the current chunk (nonce prefix followed by the chunk counter)
+     */
+    private final byte[] iv;
+
+    /**
+     * Buffer for the plain text chunk
+     */
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+
+    /**
+     * Data stream to write the chunks to
+     */
+    private final DataOutputStream dataOut;
+
+    /**
+     * No. of bytes in the buffer
+     */
+    private int bufferLen = 0;
+
+    /**
+     * Counter for the chunks
+     */
+    private int counter = 0;
+
+    /**
+     * Flag to indicate whether the stream is closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Default constructor
+     *
+     * @param out         Output stream to write the encrypted data to
+     * @param key         AES key
+     * @param noncePrefix Random nonce prefix for the message (8 bytes)
+     * @throws GeneralSecurityException Processing issues
+     */
+    GCMChunkedOutputStream(OutputStream out, SecretKey key, byte[] noncePrefix) throws GeneralSecurityException {
+        super(out);
+        this.dataOut = new DataOutputStream(out);
+        this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        this.key = key;
+        this.iv = new byte[IV_LENGTH];
+        System.arraycopy(noncePrefix, 0, this.iv, 0, IV_LENGTH - 4);
+    }
+
+    /**
+     * Write a byte
+     *
+     * @param b Byte to write
+     * @throws IOException Processing issues
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    /**
+     * Write the given bytes
+     *
+     * @param b   Data to write
+     * @param off Offset in the data
+     * @param len No. of bytes to write
+     * @throws IOException Processing issues
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int n;
+
+        if (this.closed) {
+            throw new IOException("Stream closed");
+        }
+
+        while (len > 0) {
+            // Chunk is written only when more data is available, as the last chunk needs to be flagged
+            if (this.bufferLen == CHUNK_SIZE) {
+                writeChunk(false);
+            }
+            n = Math.min(len, CHUNK_SIZE - this.bufferLen);
+            System.arraycopy(b, off, this.buffer, this.bufferLen, n);
+            this.bufferLen += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flush the stream. Buffered data is not flushed, as chunks are written only when they are complete
+     *
+     * @throws IOException Processing issues
+     */
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**
+     * Close the stream after writing the last chunk
+     *
+     * @throws IOException Processing issues
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            writeChunk(true);
+            this.out.flush();
+        } finally {
+            this.closed = true;
+            this.out.close();
+        }
+    }
+
+    /**
+     * Encrypt and write the buffered chunk
+     *
+     * @param last Flag to indicate whether this is the last chunk
+     * @throws IOException Processing issues
+     */
+    private void writeChunk(boolean last) throws IOException {
+        byte[] encData;
+
+        try {
+            setCounter(this.iv, this.counter++);
+            this.cipher.init(Cipher.ENCRYPT_MODE, this.key, new GCMParameterSpec(TAG_BITS, this.iv));
+            this.cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+            encData = this.cipher.doFinal(this.buffer, 0, this.bufferLen);
+        } catch (GeneralSecurityException gsEx) {
+            throw new IOException(gsEx);
+        }
+
+        this.dataOut.writeInt(last ? (encData.length | LAST_CHUNK_FLAG) : encData.length);
+        this.dataOut.write(encData);
+        this.bufferLen = 0;
+    }
+
+    /**
+     * Set the chunk counter in the last four bytes of the IV
+     *
+     * @param iv      IV
+     * @param counter Chunk counter
+     */
+    static void setCounter(byte[] iv, int counter) {
+        iv[IV_LENGTH - 4] = (byte) (counter >>> 24);
+        iv[IV_LENGTH - 3] = (byte) (counter >>> 16);
+        iv[IV_LENGTH - 2] = (byte) (counter >>> 8);
+        iv[IV_LENGTH - 1] = (byte) counter;
+    }
+}
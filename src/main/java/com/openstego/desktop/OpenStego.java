@@ -8,6 +8,7 @@ package com.openstego.desktop;
 
 import com.openstego.desktop.ui.OpenStegoUI;
 import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.ImageDiff;
 import com.openstego.desktop.util.LabelUtil;
 import com.openstego.desktop.util.PluginManager;
 import com.openstego.desktop.util.UserPreferences;
@@ -15,10 +16,10 @@ import com.openstego.desktop.util.UserPreferences;
 import javax.swing.*;
 import java.io.*;
 import java.nio.file.Files;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.CancellationException;
 
 /**
  * This is the main class for OpenStego. It includes the {@link #main(String[])} method which provides the
@@ -33,7 +34,8 @@ public class OpenStego {
     public static final String NAMESPACE = "OpenStego";
 
     /**
-     * Configuration data
+     * Configuration data. A copy of it is bound to the plugin for each call, so that changes done to it by the plugin
+     * (e.g. while reading the header of the embedded data) or by the caller during the call do not affect other calls
      */
     private final OpenStegoConfig config;
 
@@ -81,29 +83,31 @@ public class OpenStego {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_DH);
         }
 
-        try {
-            // Compress data, if requested
-            if (this.config.isUseCompression()) {
-                try (ByteArrayOutputStream bos = new ByteArrayOutputStream(); GZIPOutputStream zos = new GZIPOutputStream(bos)) {
-                    zos.write(msg);
-                    zos.finish();
-                    zos.flush();
-                    msg = bos.toByteArray();
-                }
+        OpenStegoConfig callConfig = this.config.copy();
+        return withCall("embed", OpenStegoEvents.Type.EMBED, callConfig, sizes -> {
+            sizes.payload = msg.length;
+
+            // Reject oversize message before doing any expensive work. Size is known upfront only if the message is
+            // not going to be compressed, and it is checked again after compression and encryption
+            long capacity = this.plugin.estimateCapacity(cover, coverFileName, msgFileName);
+            skipUselessCompression(msg, callConfig);
+            if (capacity >= 0 && !callConfig.isUseCompression()) {
+                checkCapacity(capacity, msg.length, coverFileName);
             }
 
-            // Encrypt data, if requested
-            if (this.config.isUseEncryption()) {
-                OpenStegoCrypto crypto = new OpenStegoCrypto(this.config.getPassword(), this.config.getEncryptionAlgorithm());
-                msg = crypto.encrypt(msg);
+            // Compress and encrypt data, if requested
+            byte[] data = prepareMessage(msg, callConfig);
+
+            if (capacity >= 0) {
+                checkCapacity(capacity, data.length, coverFileName);
             }
 
-            return this.plugin.embedData(msg, msgFileName, cover, coverFileName, stegoFileName);
-        } catch (OpenStegoException osEx) {
-            throw osEx;
-        } catch (Exception ex) {
-            throw new OpenStegoException(ex);
-        }
+            OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
+            byte[] stegoData = this.plugin.embedData(data, msgFileName, cover, coverFileName, stegoFileName);
+            OpenStegoStats.endStage(stage, data.length);
+            sizes.processed = data.length;
+            return stegoData;
+        });
     }
 
     /**
@@ -132,6 +136,74 @@ public class OpenStego {
         }
     }
 
+    /**
+     * Method to embed the message data into the cover file, and write the stego data directly to the stego file. This
+     * lets the plugin process large cover images in parts, instead of holding the complete image in memory (see
+     * {@link OpenStegoPlugin#embedData(byte[], String, File, File)}). Oversize messages are rejected upfront, same as
+     * {@link #embedData(byte[], String, byte[], String, String)}, using {@link OpenStegoPlugin#estimateCapacity(File, String)}
+     *
+     * @param msgFile   File containing the message data to be embedded (null to read the data from stdin)
+     * @param coverFile Cover file into which data needs to be embedded (null to generate a random cover image)
+     * @param stegoFile Output stego file
+     * @throws OpenStegoException Processing issues
+     */
+    public void embedDataToFile(File msgFile, File coverFile, File stegoFile) throws OpenStegoException {
+        if (!this.plugin.getPurposes().contains(OpenStegoPlugin.Purpose.DATA_HIDING)) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_DH);
+        }
+
+        OpenStegoConfig callConfig = this.config.copy();
+        String msgFileName = msgFile == null ? null : msgFile.getName();
+        String coverFileName = coverFile == null ? null : coverFile.getName();
+        withCall("embed", OpenStegoEvents.Type.EMBED, callConfig, sizes -> {
+            byte[] msg;
+            try (InputStream is = (msgFile == null ? System.in : Files.newInputStream(msgFile.toPath()))) {
+                msg = CommonUtil.streamToBytes(is);
+            }
+            sizes.payload = msg.length;
+
+            long capacity = this.plugin.estimateCapacity(coverFile, msgFileName);
+            skipUselessCompression(msg, callConfig);
+            if (capacity >= 0 && !callConfig.isUseCompression()) {
+                checkCapacity(capacity, msg.length, coverFileName);
+            }
+
+            msg = prepareMessage(msg, callConfig);
+
+            if (capacity >= 0) {
+                checkCapacity(capacity, msg.length, coverFileName);
+            }
+
+            OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
+            this.plugin.embedData(msg, msgFileName, coverFile, stegoFile);
+            OpenStegoStats.endStage(stage, msg.length);
+            sizes.processed = msg.length;
+            return null;
+        });
+    }
+
+    /**
+     * Method to estimate the capacity of the cover file, i.e. the maximum size of the message (after compression and
+     * encryption) which can be embedded into it
+     *
+     * @param coverFile   Cover file for which capacity needs to be estimated
+     * @param msgFileName Name of the message file
+     * @return Capacity in bytes, or -1 if the capacity can not be estimated
+     * @throws OpenStegoException Processing issues
+     */
+    public long estimateCapacity(File coverFile, String msgFileName) throws OpenStegoException {
+        if (!this.plugin.getPurposes().contains(OpenStegoPlugin.Purpose.DATA_HIDING)) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_DH);
+        }
+
+        OpenStegoConfig previous = this.plugin.bindConfig(this.config.copy());
+        try {
+            return this.plugin.estimateCapacity(coverFile, msgFileName);
+        } finally {
+            this.plugin.restoreConfig(previous);
+        }
+    }
+
     /**
      * Method to embed the watermark signature data into the cover data
      *
@@ -148,14 +220,16 @@ public class OpenStego {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_WM);
         }
 
-        try {
+        return withCall("embedmark", OpenStegoEvents.Type.EMBED, this.config.copy(), sizes -> {
+            sizes.payload = sig.length;
+
             // No compression and encryption should be done as this is signature data
-            return this.plugin.embedData(sig, sigFileName, cover, coverFileName, stegoFileName);
-        } catch (OpenStegoException osEx) {
-            throw osEx;
-        } catch (Exception ex) {
-            throw new OpenStegoException(ex);
-        }
+            OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
+            byte[] stegoData = this.plugin.embedData(sig, sigFileName, cover, coverFileName, stegoFileName);
+            OpenStegoStats.endStage(stage, sig.length);
+            sizes.processed = sig.length;
+            return stegoData;
+        });
     }
 
     /**
@@ -196,38 +270,28 @@ public class OpenStego {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_DH);
         }
 
-        byte[] msg;
-        List<Object> output = new ArrayList<>();
+        // Reading the header of the embedded data updates the compression and encryption flags in the bound config
+        OpenStegoConfig callConfig = this.config.copy();
+        return withCall("extract", OpenStegoEvents.Type.EXTRACT, callConfig, sizes -> {
+            List<Object> output = new ArrayList<>();
+            byte[] msg;
 
-        try {
             // Add file name as first element of output list
+            OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
             output.add(this.plugin.extractMsgFileName(stegoData, stegoFileName));
             msg = this.plugin.extractData(stegoData, stegoFileName, null);
+            OpenStegoStats.endStage(stage, msg.length);
+            sizes.payload = msg.length;
 
-            // Decrypt data, if required
-            if (this.config.isUseEncryption()) {
-                OpenStegoCrypto crypto = new OpenStegoCrypto(this.config.getPassword(), this.config.getEncryptionAlgorithm());
-                msg = crypto.decrypt(msg);
-            }
-
-            // Decompress data, if required
-            if (this.config.isUseCompression()) {
-                try (ByteArrayInputStream bis = new ByteArrayInputStream(msg); GZIPInputStream zis = new GZIPInputStream(bis)) {
-                    msg = CommonUtil.streamToBytes(zis);
-                } catch (IOException ioEx) {
-                    throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
-                }
-            }
+            // Decrypt and decompress data, if required
+            msg = restoreMessage(msg, callConfig);
+            sizes.payload = msg.length;
 
             // Add message as second element of output list
             output.add(msg);
-        } catch (OpenStegoException osEx) {
-            throw osEx;
-        } catch (Exception ex) {
-            throw new OpenStegoException(ex);
-        }
-
-        return output;
+            sizes.processed = msg.length;
+            return output;
+        });
     }
 
     /**
@@ -255,11 +319,18 @@ public class OpenStego {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_WM);
         }
 
-        double correl = this.plugin.checkMark(stegoData, stegoFileName, origSigData);
-        if (Double.isNaN(correl)) {
-            correl = 0.0;
-        }
-        return correl;
+        return withCall("checkmark", OpenStegoEvents.Type.WATERMARK_CHECK, this.config.copy(), sizes -> {
+            sizes.payload = origSigData.length;
+
+            OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
+            double correl = this.plugin.checkMark(stegoData, stegoFileName, origSigData);
+            OpenStegoStats.endStage(stage, origSigData.length);
+            if (Double.isNaN(correl)) {
+                correl = 0.0;
+            }
+            sizes.processed = origSigData.length;
+            return correl;
+        });
     }
 
     /**
@@ -285,11 +356,17 @@ public class OpenStego {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_WM);
         }
 
-        if (this.config.getPassword() == null || this.config.getPassword().trim().length() == 0) {
+        OpenStegoConfig callConfig = this.config.copy();
+        if (callConfig.getPassword() == null || callConfig.getPassword().trim().length() == 0) {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PWD_MANDATORY_FOR_GENSIG);
         }
 
-        return this.plugin.generateSignature();
+        OpenStegoConfig previous = this.plugin.bindConfig(callConfig);
+        try {
+            return this.plugin.generateSignature();
+        } finally {
+            this.plugin.restoreConfig(previous);
+        }
     }
 
     /**
@@ -305,7 +382,12 @@ public class OpenStego {
      */
     public byte[] getDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName, String diffFileName)
             throws OpenStegoException {
-        return this.plugin.getDiff(stegoData, stegoFileName, coverData, coverFileName, diffFileName);
+        OpenStegoConfig previous = this.plugin.bindConfig(this.config.copy());
+        try {
+            return this.plugin.getDiff(stegoData, stegoFileName, coverData, coverFileName, diffFileName);
+        } finally {
+            this.plugin.restoreConfig(previous);
+        }
     }
 
     /**
@@ -321,6 +403,46 @@ public class OpenStego {
         return getDiff(CommonUtil.fileToBytes(stegoFile), stegoFile.getName(), CommonUtil.fileToBytes(coverFile), coverFile.getName(), diffFileName);
     }
 
+    /**
+     * Method to compare the stego data with the original cover data, and to compute the quality metrics (MSE, PSNR
+     * and SSIM) of the stego data
+     *
+     * @param stegoData     Stego data containing the embedded data
+     * @param stegoFileName Name of the stego file
+     * @param coverData     Original cover data
+     * @param coverFileName Name of the cover file
+     * @return Difference and quality metrics
+     * @throws OpenStegoException Processing issues
+     */
+    public ImageDiff getImageDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName) throws OpenStegoException {
+        ImageDiff diff;
+
+        OpenStegoConfig previous = this.plugin.bindConfig(this.config.copy());
+        try {
+            diff = this.plugin.getImageDiff(stegoData, stegoFileName, coverData, coverFileName);
+        } finally {
+            this.plugin.restoreConfig(previous);
+        }
+
+        if (diff == null) {
+            throw new OpenStegoException(null, NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_QUALITY);
+        }
+        return diff;
+    }
+
+    /**
+     * Method to compare the stego file with the original cover file, and to compute the quality metrics (MSE, PSNR
+     * and SSIM) of the stego file
+     *
+     * @param stegoFile Stego file containing the embedded data
+     * @param coverFile Original cover file
+     * @return Difference and quality metrics
+     * @throws OpenStegoException Processing issues
+     */
+    public ImageDiff getImageDiff(File stegoFile, File coverFile) throws OpenStegoException {
+        return getImageDiff(CommonUtil.fileToBytes(stegoFile), stegoFile.getName(), CommonUtil.fileToBytes(coverFile), coverFile.getName());
+    }
+
     /**
      * Get method for configuration data
      *
@@ -330,6 +452,181 @@ public class OpenStego {
         return this.config;
     }
 
+    /**
+     * Get method for the plugin
+     *
+     * @return Plugin
+     */
+    public OpenStegoPlugin<?> getPlugin() {
+        return this.plugin;
+    }
+
+    /**
+     * Method to run an operation with the given configuration bound to the plugin. The stats and the event of the
+     * operation are recorded, the expected progress phases are set up, and any unexpected exception is wrapped in
+     * {@link OpenStegoException}
+     *
+     * @param operation  Name of the operation (used for both stats and event)
+     * @param type       Type of the event
+     * @param callConfig Configuration data of the call
+     * @param call       Operation to be run
+     * @param <T>        Type of the result
+     * @return Result of the operation
+     * @throws OpenStegoException Processing issues
+     */
+    private <T> T withCall(String operation, OpenStegoEvents.Type type, OpenStegoConfig callConfig, Call<T> call)
+            throws OpenStegoException {
+        OpenStegoConfig previous = this.plugin.bindConfig(callConfig);
+        OpenStegoStats stats = OpenStegoStats.begin(operation, this.plugin.getName());
+        Object event = OpenStegoEvents.begin(type, this.plugin.getName());
+        OpenStegoProgress.expectPhases(this.plugin.getProgressPhaseCount(type));
+        CallSizes sizes = new CallSizes();
+        try {
+            T result = call.run(sizes);
+            OpenStegoStats.succeed(stats, sizes.processed);
+            return result;
+        } catch (OpenStegoException | CancellationException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new OpenStegoException(ex);
+        } finally {
+            this.plugin.restoreConfig(previous);
+            OpenStegoStats.end(stats);
+            OpenStegoEvents.end(event, 0, 0, sizes.payload, operation);
+        }
+    }
+
+    /**
+     * Method to turn off compression for the call if the message would be stored as is, i.e. if codec is NONE or the
+     * message already looks compressed. The message is then embedded without the codec byte and flagged as not
+     * compressed in the header, so that older versions (which always decompress using GZIP) can still extract it
+     *
+     * @param msg        Message data
+     * @param callConfig Configuration data of the call
+     */
+    private static void skipUselessCompression(byte[] msg, OpenStegoConfig callConfig) {
+        if (callConfig.isUseCompression() && OpenStegoCompressor.isStoredAsIs(callConfig.getCompressionCodec(), msg)) {
+            callConfig.setUseCompression(false);
+        }
+    }
+
+    /**
+     * Method to compress and encrypt the message data before embedding, as per the configuration of the call
+     *
+     * @param msg        Message data
+     * @param callConfig Configuration data of the call
+     * @return Message data to be embedded
+     * @throws OpenStegoException Processing issues
+     */
+    private static byte[] prepareMessage(byte[] msg, OpenStegoConfig callConfig) throws OpenStegoException {
+        OpenStegoStats.Stage.Run stage;
+
+        OpenStegoCompressor compressor = null;
+        OpenStegoCrypto crypto = null;
+
+        if (callConfig.isUseCompression()) {
+            compressor = new OpenStegoCompressor(callConfig.getCompressionCodec(), callConfig.getCompressionLevel(),
+                    callConfig.getCompressionStrategy());
+        }
+        if (callConfig.isUseEncryption()) {
+            crypto = new OpenStegoCrypto(callConfig.getPassword(), callConfig.getEncryptionAlgorithm());
+        }
+
+        // Compress and encrypt in one pass if the algorithm supports streaming, so that the compressed data is not
+        // buffered separately. Time for both is reported under the encrypt stage in this case
+        if (compressor != null && crypto != null && crypto.isStreamingSupported()) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_ENCRYPT);
+            int len = msg.length;
+            ByteArrayOutputStream bos = new ByteArrayOutputStream((len >> 1) + 64);
+            compressor.compress(msg, crypto.encryptStream(bos));
+            OpenStegoStats.endStage(stage, len);
+            return bos.toByteArray();
+        }
+
+        // Compress data, if requested
+        if (compressor != null) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_COMPRESS);
+            int len = msg.length;
+            msg = compressor.compress(msg);
+            OpenStegoStats.endStage(stage, len);
+        }
+
+        // Encrypt data, if requested
+        if (crypto != null) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_ENCRYPT);
+            int len = msg.length;
+            msg = crypto.encrypt(msg);
+            OpenStegoStats.endStage(stage, len);
+        }
+        return msg;
+    }
+
+    /**
+     * Method to decrypt and decompress the extracted message data, as per the configuration of the call
+     *
+     * @param msg        Extracted message data
+     * @param callConfig Configuration data of the call
+     * @return Original message data
+     * @throws OpenStegoException Processing issues
+     */
+    private static byte[] restoreMessage(byte[] msg, OpenStegoConfig callConfig) throws OpenStegoException {
+        OpenStegoStats.Stage.Run stage;
+        OpenStegoCrypto crypto = null;
+
+        if (callConfig.isUseEncryption()) {
+            crypto = new OpenStegoCrypto(callConfig.getPassword(), callConfig.getEncryptionAlgorithm());
+        }
+
+        // Decrypt and decompress in one pass if the algorithm supports streaming, so that the decrypted data is not
+        // buffered separately. Time for both is reported under the decrypt stage in this case
+        if (crypto != null && callConfig.isUseCompression() && crypto.isStreamingSupported()) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECRYPT);
+            int len = msg.length;
+            try {
+                msg = OpenStegoCompressor.decompress(crypto.decryptStream(new ByteArrayInputStream(msg)), len << 1);
+            } catch (IOException ioEx) {
+                if (ioEx.getCause() instanceof GeneralSecurityException) {
+                    throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_PASSWORD);
+                }
+                throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
+            }
+            OpenStegoStats.endStage(stage, len);
+            return msg;
+        }
+
+        // Decrypt data, if required
+        if (crypto != null) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECRYPT);
+            int len = msg.length;
+            msg = crypto.decrypt(msg);
+            OpenStegoStats.endStage(stage, len);
+        }
+
+        // Decompress data, if required
+        if (callConfig.isUseCompression()) {
+            stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECOMPRESS);
+            int len = msg.length;
+            msg = OpenStegoCompressor.decompress(msg);
+            OpenStegoStats.endStage(stage, len);
+        }
+        return msg;
+    }
+
+    /**
+     * Method to check that the message fits into the cover
+     *
+     * @param capacity      Capacity of the cover
+     * @param msgLength     Length of the message
+     * @param coverFileName Name of the cover file
+     * @throws OpenStegoException If message does not fit into the cover
+     */
+    private static void checkCapacity(long capacity, int msgLength, String coverFileName) throws OpenStegoException {
+        if (msgLength > capacity) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.COVER_CAPACITY_INSUFFICIENT, coverFileName, capacity,
+                    msgLength);
+        }
+    }
+
     /**
      * Main method for calling openstego from command line.
      *
@@ -366,4 +663,35 @@ public class OpenStego {
         }
     }
 
+    /**
+     * Operation run using {@link #withCall(String, OpenStegoEvents.Type, OpenStegoConfig, Call)}
+     *
+     * @param <T> Type of the result
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+        /**
+         * Method to run the operation
+         *
+         * @param sizes Sizes to be reported for the operation
+         * @return Result of the operation
+         * @throws Exception Processing issues
+         */
+        T run(CallSizes sizes) throws Exception;
+    }
+
+    /**
+     * Sizes reported for an operation, which are filled in by the operation as they become known
+     */
+    private static class CallSizes {
+        /**
+         * Size of the payload, reported in the event even if the operation fails
+         */
+        private long payload = 0;
+
+        /**
+         * Number of bytes processed, reported in the stats when the operation succeeds
+         */
+        private long processed = 0;
+    }
 }
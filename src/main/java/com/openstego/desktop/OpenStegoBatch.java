@@ -0,0 +1,309 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.cmd.CmdLineOptions;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch processor for OpenStego, which embeds data (or watermark) into the cover files listed in a manifest.
+ * <p>
+ * Each entry of the manifest has tab-separated cover file, output stego file and optional message (or signature)
+ * file. If the output file is empty, then the cover file is overwritten, and if the message file is not provided, then
+ * the default one is used. Entries are separated by newlines, or by NUL characters (which allows any file name).
+ * <p>
+ * The manifest is read lazily, and the entries are processed by a fixed number of threads with a bounded queue, so
+ * that the memory used does not depend on the size of the manifest. One JSON object is printed per entry (in the
+ * order of completion) with the result of the entry.
+ * <p>
+ * Output files are written atomically. If a journal is provided, then the completed entries are recorded in it, and
+ * the entries which are already recorded are skipped, so that an interrupted batch can be resumed by running it again.
+ */
+public class OpenStegoBatch {
+    /**
+     * Default size of the job queue
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 256;
+
+    /**
+     * {@link OpenStego} instance used by all the threads. The plugin is stateless and the configuration is copied for
+     * each call, so it can be shared between threads
+     */
+    private final OpenStego stego;
+
+    /**
+     * Flag to indicate whether watermark is to be embedded instead of data
+     */
+    private final boolean watermark;
+
+    /**
+     * Default message (or signature) file
+     */
+    private final File defaultPayloadFile;
+
+    /**
+     * Data of the default message (or signature) file
+     */
+    private final byte[] defaultPayload;
+
+    /**
+     * Journal of the completed jobs. Can be null
+     */
+    private final OpenStegoJournal journal;
+
+    /**
+     * Max number of jobs to process concurrently
+     */
+    private final int threads;
+
+    /**
+     * Max number of jobs to queue
+     */
+    private final int queueSize;
+
+    /**
+     * Default constructor
+     *
+     * @param stego              {@link OpenStego} object, whose plugin and password are used for all the jobs
+     * @param options            Command-line options for the configuration of the plugin
+     * @param watermark          true to embed watermark, false to embed data
+     * @param defaultPayloadFile Message (or signature) file to use for the jobs which do not provide one. Can be null
+     * @param journal            Journal of the completed jobs, which are skipped. Can be null
+     * @param threads            Max number of jobs to process concurrently
+     * @param queueSize          Max number of jobs to queue
+     * @throws OpenStegoException Processing issues
+     */
+    public OpenStegoBatch(OpenStego stego, CmdLineOptions options, boolean watermark, File defaultPayloadFile, OpenStegoJournal journal,
+                          int threads, int queueSize) throws OpenStegoException {
+        if (threads < 1) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, threads);
+        }
+        if (queueSize < 1) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, queueSize);
+        }
+
+        // Password may have been prompted for, and hence is not part of the options
+        OpenStegoConfig config = stego.getPlugin().newConfig(options);
+        config.setPassword(stego.getConfig().getPassword());
+        this.stego = new OpenStego(stego.getPlugin(), config);
+        this.watermark = watermark;
+        this.defaultPayloadFile = defaultPayloadFile;
+        this.defaultPayload = defaultPayloadFile == null ? null : CommonUtil.fileToBytes(defaultPayloadFile);
+        this.journal = journal;
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Method to process all the entries of the manifest. Results are printed as one JSON object per line
+     *
+     * @param manifest      Stream to read the manifest from
+     * @param nullDelimited true if the entries are separated by NUL characters instead of newlines
+     * @param out           Stream to print the results to
+     * @return Number of jobs which failed
+     * @throws OpenStegoException Processing issues
+     */
+    public int run(InputStream manifest, boolean nullDelimited, PrintStream out) throws OpenStegoException {
+        Reader reader = new BufferedReader(new InputStreamReader(manifest, StandardCharsets.UTF_8));
+        AtomicInteger failed = new AtomicInteger();
+        String entry;
+        int jobNo = 0;
+
+        // Once the queue is full, reading of the manifest blocks until a job completes
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueSize), (r, ex) -> {
+            try {
+                ex.getQueue().put(r);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException(e);
+            }
+        });
+
+        try {
+            while ((entry = readEntry(reader, nullDelimited ? '\0' : '\n')) != null) {
+                if (entry.trim().isEmpty()) {
+                    continue;
+                }
+                final int job = ++jobNo;
+                final String[] fields = entry.split("\t", -1);
+                executor.execute(() -> out.println(process(job, fields, failed)));
+            }
+
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // Wait till all the jobs are completed
+            }
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        } catch (InterruptedException | RejectedExecutionException ex) {
+            Thread.currentThread().interrupt();
+            throw new OpenStegoException(ex);
+        } finally {
+            executor.shutdownNow();
+        }
+        return failed.get();
+    }
+
+    /**
+     * Method to process one job
+     *
+     * @param job    Job number (starting from 1)
+     * @param fields Fields of the manifest entry
+     * @param failed Counter for the failed jobs
+     * @return Result of the job as JSON
+     */
+    private String process(int job, String[] fields, AtomicInteger failed) {
+        String coverFileName = fields[0];
+        String stegoFileName = fields.length > 1 && !fields[1].isEmpty() ? fields[1] : coverFileName;
+        long start = System.nanoTime();
+        File payloadFile;
+        byte[] payload;
+        byte[] stegoData;
+
+        try {
+            if (coverFileName.isEmpty() || fields.length > 3) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_MANIFEST_ENTRY, String.join("\t", fields));
+            }
+            if (fields.length > 2 && !fields[2].isEmpty()) {
+                payloadFile = new File(fields[2]);
+                payload = CommonUtil.fileToBytes(payloadFile);
+            } else if (this.defaultPayload != null) {
+                payloadFile = this.defaultPayloadFile;
+                payload = this.defaultPayload;
+            } else {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_MANIFEST_ENTRY, String.join("\t", fields));
+            }
+
+            String key = String.join("\t", fields);
+            if (this.journal != null && this.journal.isCompleted(key)) {
+                return toJson(job, coverFileName, stegoFileName, "SKIPPED", null, start);
+            }
+
+            File coverFile = new File(coverFileName);
+            if (this.watermark) {
+                stegoData = this.stego.embedMark(payload, payloadFile.getName(), CommonUtil.fileToBytes(coverFile), coverFile.getName(), stegoFileName);
+            } else {
+                stegoData = this.stego.embedData(payload, payloadFile.getName(), CommonUtil.fileToBytes(coverFile), coverFile.getName(), stegoFileName);
+            }
+            CommonUtil.writeFileAtomic(stegoData, stegoFileName);
+            if (this.journal != null) {
+                this.journal.markCompleted(key);
+            }
+            return toJson(job, coverFileName, stegoFileName, "OK", null, start);
+        } catch (OpenStegoException osEx) {
+            failed.incrementAndGet();
+            return toJson(job, coverFileName, stegoFileName, "ERROR", osEx.getMessage(), start);
+        } catch (RuntimeException | OutOfMemoryError ex) {
+            failed.incrementAndGet();
+            return toJson(job, coverFileName, stegoFileName, "ERROR", ex.toString(), start);
+        }
+    }
+
+    /**
+     * Method to read the next entry of the manifest
+     *
+     * @param reader    Reader for the manifest
+     * @param delimiter Delimiter for the entries
+     * @return Next entry, or null if there are no more entries
+     * @throws IOException Processing issues
+     */
+    private static String readEntry(Reader reader, char delimiter) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int ch;
+
+        while ((ch = reader.read()) != -1 && ch != delimiter) {
+            sb.append((char) ch);
+        }
+        if (ch == -1 && sb.length() == 0) {
+            return null;
+        }
+        // Allow manifests with Windows line endings
+        if (delimiter == '\n' && sb.length() > 0 && sb.charAt(sb.length() - 1) == '\r') {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Method to generate the JSON result of a job
+     *
+     * @param job    Job number
+     * @param cover  Cover file name
+     * @param output Output file name
+     * @param status Status of the job
+     * @param error  Error message (can be null)
+     * @param start  Start time of the job (from {@link System#nanoTime()})
+     * @return JSON object
+     */
+    private static String toJson(int job, String cover, String output, String status, String error, long start) {
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"job\":").append(job);
+        sb.append(",\"cover\":");
+        appendJsonString(sb, cover);
+        sb.append(",\"output\":");
+        appendJsonString(sb, output);
+        sb.append(",\"status\":\"").append(status).append('"');
+        if (error != null) {
+            sb.append(",\"error\":");
+            appendJsonString(sb, error);
+        }
+        sb.append(",\"millis\":").append((System.nanoTime() - start) / 1000000L);
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Method to append the given string to the builder as a JSON string
+     *
+     * @param sb  String builder
+     * @param str String to append
+     */
+    static void appendJsonString(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char ch = str.charAt(i);
+            switch (ch) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        sb.append(ch);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -7,6 +7,7 @@
 package com.openstego.desktop;
 
 import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.ImageDiff;
 import com.openstego.desktop.util.LabelUtil;
 import com.openstego.desktop.util.PluginManager;
 import com.openstego.desktop.util.cmd.CmdLineOption;
@@ -15,7 +16,25 @@ import com.openstego.desktop.util.cmd.CmdLineParser;
 import com.openstego.desktop.util.cmd.PasswordInput;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This is the main class for OpenStego command line
@@ -60,23 +79,22 @@ public class OpenStegoCmd {
             }
             // Try to auto-select plugin
             else {
-                List<OpenStegoPlugin<?>> plugins = PluginManager.getPlugins();
-                if (plugins.size() == 1) {
-                    plugin = plugins.get(0);
-                } else if (plugins.size() > 1) {
+                // Plugin names and purposes are known from the descriptors, so only the selected plugin is instantiated
+                List<String> pluginNames = PluginManager.getPluginNames();
+                if (pluginNames.size() == 1) {
+                    plugin = PluginManager.getPluginByName(pluginNames.get(0));
+                } else if (pluginNames.size() > 1) {
                     optionList = parser.getParsedOptionsAsList();
                     if (optionList.size() > 0) {
                         command = (optionList.get(0)).getName();
-                        if (command.equals("embed") || command.equals("extract")) {
-                            plugins = PluginManager.getDataHidingPlugins();
-                            if (plugins.size() == 1) {
-                                plugin = plugins.get(0);
-                            }
+                        String defaultName = null;
+                        if (command.equals("embed") || command.equals("extract") || command.equals("capacity")) {
+                            defaultName = PluginManager.getDefaultPluginName(OpenStegoPlugin.Purpose.DATA_HIDING);
                         } else if (command.equals("gensig") || command.equals("embedmark") || command.equals("checkmark")) {
-                            plugins = PluginManager.getWatermarkingPlugins();
-                            if (plugins.size() == 1) {
-                                plugin = plugins.get(0);
-                            }
+                            defaultName = PluginManager.getDefaultPluginName(OpenStegoPlugin.Purpose.WATERMARKING);
+                        }
+                        if (defaultName != null) {
+                            plugin = PluginManager.getPluginByName(defaultName);
                         }
                     }
                 }
@@ -108,9 +126,9 @@ public class OpenStegoCmd {
                 return;
             }
 
-            // Check that algorithm is selected
+            // Check that algorithm is selected ("scan" uses all the data hiding plugins if algorithm is not selected)
             assert command != null;
-            if (!command.equals("help") && !command.equals("algorithms")) {
+            if (!command.equals("help") && !command.equals("algorithms") && !command.equals("serve") && (plugin != null || !command.equals("scan"))) {
                 if (plugin == null) {
                     throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.NO_PLUGIN_SPECIFIED);
                 } else {
@@ -120,6 +138,12 @@ public class OpenStegoCmd {
                 }
             }
 
+            // Print the statistics of each operation, if requested
+            if (options.getOption("-ss") != null || options.getOption("-sa") != null) {
+                OpenStegoStats.setAllocationTracked(options.getOption("-sa") != null);
+                OpenStegoStats.addListener(OpenStegoCmd::printStats);
+            }
+
             switch (command) {
                 case "embed":
                     executeEmbed(options, stego);
@@ -139,6 +163,18 @@ public class OpenStegoCmd {
                 case "diff":
                     executeDiff(options, stego);
                     break;
+                case "quality":
+                    executeQuality(options, stego);
+                    break;
+                case "capacity":
+                    executeCapacity(options, stego);
+                    break;
+                case "scan":
+                    executeScan(options, plugin);
+                    break;
+                case "serve":
+                    executeServe(options);
+                    break;
                 case "readformats": {
                     List<String> formats = plugin.getReadableFileExtensions();
                     formats.forEach(System.out::println);
@@ -207,6 +243,21 @@ public class OpenStegoCmd {
         }
 
         File msgFile = (msgFileName == null || msgFileName.equals("-")) ? null : new File(msgFileName);
+        if (options.getOption("-mn") != null) {
+            executeBatch(options, stego, false, msgFile);
+            return;
+        }
+        // Cover file can be read from stdin only if message is read from file
+        if (isStdio(coverFileName)) {
+            if (msgFile == null) {
+                System.err.println(labelUtil.getString("cmd.msg.stdinConflict"));
+                return;
+            }
+            String stegoFile = isStdio(stegoFileName) ? null : stegoFileName;
+            CommonUtil.writeFile(stego.embedData(CommonUtil.fileToBytes(msgFile), msgFile.getName(), readStdin(), null, stegoFile), stegoFile);
+            return;
+        }
+
         coverFileList = CommonUtil.parseFileList(coverFileName, ";");
         // If no coverfile or only one coverfile is provided then use stegofile name given by the user
         if (coverFileList.size() <= 1) {
@@ -215,10 +266,13 @@ public class OpenStegoCmd {
                 return;
             }
 
-            String stegoFile = (stegoFileName == null || stegoFileName.equals("-")) ? null : stegoFileName;
-            CommonUtil.writeFile(
-                    stego.embedData(msgFile, coverFileList.size() == 0 ? null : coverFileList.get(0), stegoFile),
-                    stegoFile);
+            File coverFile = coverFileList.size() == 0 ? null : coverFileList.get(0);
+            if (stegoFileName == null || stegoFileName.equals("-")) {
+                CommonUtil.writeFile(stego.embedData(msgFile, coverFile, null), (String) null);
+            } else {
+                // Stego image is written directly to the file, so that the plugin need not hold it in memory
+                stego.embedDataToFile(msgFile, coverFile, new File(stegoFileName));
+            }
         }
         // Else loop through all coverfiles and overwrite the same coverfiles with generated stegofiles
         else {
@@ -229,14 +283,25 @@ public class OpenStegoCmd {
 
             OpenStegoBulkException bulkException = new OpenStegoBulkException();
             // Loop through all cover files
-            for (File file : coverFileList) {
-                coverFileName = file.getName();
-                try {
-                    CommonUtil.writeFile(stego.embedData(msgFile, file, coverFileName), coverFileName);
-                    System.err.println(labelUtil.getString("cmd.msg.coverProcessed", coverFileName));
-                } catch (OpenStegoException e) {
-                    bulkException.add(coverFileName, e);
+            try (OpenStegoJournal journal = openJournal(options)) {
+                for (File file : coverFileList) {
+                    coverFileName = file.getName();
+                    if (journal != null && journal.isCompleted(file.getPath())) {
+                        System.err.println(labelUtil.getString("cmd.msg.coverSkipped", coverFileName));
+                        continue;
+                    }
+                    try {
+                        CommonUtil.writeFileAtomic(stego.embedData(msgFile, file, coverFileName), coverFileName);
+                        if (journal != null) {
+                            journal.markCompleted(file.getPath());
+                        }
+                        System.err.println(labelUtil.getString("cmd.msg.coverProcessed", coverFileName));
+                    } catch (OpenStegoException e) {
+                        bulkException.add(coverFileName, e);
+                    }
                 }
+            } catch (IOException ioEx) {
+                throw new OpenStegoException(ioEx);
             }
             bulkException.throwIfRequired();
         }
@@ -257,6 +322,21 @@ public class OpenStegoCmd {
         String stegoFileName = options.getStringValue("-sf");
 
         File sigFile = (sigFileName == null || sigFileName.equals("-")) ? null : new File(sigFileName);
+        if (options.getOption("-mn") != null) {
+            executeBatch(options, stego, true, sigFile);
+            return;
+        }
+        // Cover file can be read from stdin only if signature is read from file
+        if (isStdio(coverFileName)) {
+            if (sigFile == null) {
+                System.err.println(labelUtil.getString("cmd.msg.stdinConflict"));
+                return;
+            }
+            String stegoFile = isStdio(stegoFileName) ? null : stegoFileName;
+            CommonUtil.writeFile(stego.embedMark(CommonUtil.fileToBytes(sigFile), sigFile.getName(), readStdin(), null, stegoFile), stegoFile);
+            return;
+        }
+
         List<File> coverFileList = CommonUtil.parseFileList(coverFileName, ";");
         // If no coverfile or only one coverfile is provided then use stegofile name given by the user
         if (coverFileList.size() <= 1) {
@@ -279,14 +359,25 @@ public class OpenStegoCmd {
 
             OpenStegoBulkException bulkException = new OpenStegoBulkException();
             // Loop through all cover files
-            for (File file : coverFileList) {
-                coverFileName = file.getName();
-                try {
-                    CommonUtil.writeFile(stego.embedMark(sigFile, file, coverFileName), coverFileName);
-                    System.err.println(labelUtil.getString("cmd.msg.coverProcessed", coverFileName));
-                } catch (OpenStegoException e) {
-                    bulkException.add(coverFileName, e);
+            try (OpenStegoJournal journal = openJournal(options)) {
+                for (File file : coverFileList) {
+                    coverFileName = file.getName();
+                    if (journal != null && journal.isCompleted(file.getPath())) {
+                        System.err.println(labelUtil.getString("cmd.msg.coverSkipped", coverFileName));
+                        continue;
+                    }
+                    try {
+                        CommonUtil.writeFileAtomic(stego.embedMark(sigFile, file, coverFileName), coverFileName);
+                        if (journal != null) {
+                            journal.markCompleted(file.getPath());
+                        }
+                        System.err.println(labelUtil.getString("cmd.msg.coverProcessed", coverFileName));
+                    } catch (OpenStegoException e) {
+                        bulkException.add(coverFileName, e);
+                    }
                 }
+            } catch (IOException ioEx) {
+                throw new OpenStegoException(ioEx);
             }
             bulkException.throwIfRequired();
         }
@@ -304,21 +395,32 @@ public class OpenStegoCmd {
         String extractDir = options.getStringValue("-xd");
         String extractFileName;
         List<?> msgData;
+        byte[] stegoData;
 
         if (stegoFileName == null) {
             displayUsage();
             return;
         }
 
+        // Stego data is read upfront, as stdin can not be read again in case password needs to be prompted
+        if (isStdio(stegoFileName)) {
+            stegoData = readStdin();
+            stegoFileName = null;
+        } else {
+            File stegoFile = new File(stegoFileName);
+            stegoData = CommonUtil.fileToBytes(stegoFile);
+            stegoFileName = stegoFile.getName();
+        }
+
         try {
-            msgData = stego.extractData(new File(stegoFileName));
+            msgData = stego.extractData(stegoData, stegoFileName);
         } catch (OpenStegoException osEx) {
             if (osEx.getErrorCode() == OpenStegoErrors.INVALID_PASSWORD || osEx.getErrorCode() == OpenStegoErrors.NO_VALID_PLUGIN) {
                 if (stego.getConfig().getPassword() == null) {
                     stego.getConfig().setPassword(PasswordInput.readPassword(labelUtil.getString("cmd.msg.enterPassword") + " "));
 
                     try {
-                        msgData = stego.extractData(new File(stegoFileName));
+                        msgData = stego.extractData(stegoData, stegoFileName);
                     } catch (OpenStegoException inEx) {
                         if (inEx.getErrorCode() == OpenStegoErrors.INVALID_PASSWORD) {
                             System.err.println(inEx.getMessage());
@@ -337,6 +439,11 @@ public class OpenStegoCmd {
         }
 
         extractFileName = options.getStringValue("-xf");
+        // Extracted data is written to stdout if requested
+        if (isStdio(extractFileName)) {
+            CommonUtil.writeFile((byte[]) msgData.get(1), (File) null);
+            return;
+        }
         if (extractFileName == null) {
             extractFileName = (String) msgData.get(0);
             if (extractFileName == null || extractFileName.equals("")) {
@@ -369,6 +476,12 @@ public class OpenStegoCmd {
             return;
         }
 
+        // Stego data can be read from stdin
+        if (isStdio(stegoFileName)) {
+            System.out.println(stego.checkMark(readStdin(), null, CommonUtil.fileToBytes(new File(sigFileName))));
+            return;
+        }
+
         stegoFileList = CommonUtil.parseFileList(stegoFileName, ";");
         // If only one stegofile is provided then use stegofile name given by the user
         if (stegoFileList.size() == 1) {
@@ -412,12 +525,328 @@ public class OpenStegoCmd {
         String stegoFileName = options.getStringValue("-sf");
         String extractDir = options.getStringValue("-xd");
         String extractFileName = options.getStringValue("-xf");
+        byte[] stegoData;
+        byte[] coverData;
 
-        if (extractDir != null) {
+        // Only one of the stego file or cover file can be read from stdin
+        if (isStdio(stegoFileName) && isStdio(coverFileName)) {
+            System.err.println(labelUtil.getString("cmd.msg.stdinConflict"));
+            return;
+        }
+        stegoData = isStdio(stegoFileName) ? readStdin() : CommonUtil.fileToBytes(new File(stegoFileName));
+        coverData = isStdio(coverFileName) ? readStdin() : CommonUtil.fileToBytes(new File(coverFileName));
+
+        // Diff image is written to stdout if file name is not provided
+        if (isStdio(extractFileName)) {
+            extractFileName = null;
+        } else if (extractDir != null && extractFileName != null) {
             extractFileName = extractDir + File.separator + extractFileName;
         }
 
-        CommonUtil.writeFile(stego.getDiff(new File(stegoFileName), new File(coverFileName), extractFileName), extractFileName);
+        CommonUtil.writeFile(stego.getDiff(stegoData, isStdio(stegoFileName) ? null : new File(stegoFileName).getName(), coverData,
+                isStdio(coverFileName) ? null : new File(coverFileName).getName(), extractFileName), extractFileName);
+    }
+
+    /**
+     * Method to execute "quality" command. The quality metrics of the stego file with respect to the cover file are
+     * printed one per line, with the tab-separated metric name and value
+     *
+     * @param options Command-line options
+     * @param stego   {@link OpenStego} object
+     * @throws OpenStegoException Processing issues
+     */
+    private static void executeQuality(CmdLineOptions options, OpenStego stego) throws OpenStegoException {
+        String coverFileName = options.getStringValue("-cf");
+        String stegoFileName = options.getStringValue("-sf");
+        byte[] stegoData;
+        byte[] coverData;
+
+        if (coverFileName == null || stegoFileName == null) {
+            displayUsage();
+            return;
+        }
+
+        // Only one of the stego file or cover file can be read from stdin
+        if (isStdio(stegoFileName) && isStdio(coverFileName)) {
+            System.err.println(labelUtil.getString("cmd.msg.stdinConflict"));
+            return;
+        }
+        stegoData = isStdio(stegoFileName) ? readStdin() : CommonUtil.fileToBytes(new File(stegoFileName));
+        coverData = isStdio(coverFileName) ? readStdin() : CommonUtil.fileToBytes(new File(coverFileName));
+
+        ImageDiff diff = stego.getImageDiff(stegoData, isStdio(stegoFileName) ? null : new File(stegoFileName).getName(), coverData,
+                isStdio(coverFileName) ? null : new File(coverFileName).getName());
+        System.out.println("MSE\t" + String.format(Locale.ROOT, "%.6f", diff.getMse()));
+        System.out.println("PSNR\t" + String.format(Locale.ROOT, "%.4f", diff.getPsnr()));
+        System.out.println("SSIM\t" + String.format(Locale.ROOT, "%.6f", diff.getSsim()));
+    }
+
+    /**
+     * Method to execute "capacity" command. Capacity of the cover files is estimated in parallel, and printed in the
+     * same order as the cover files
+     *
+     * @param options Command-line options
+     * @param stego   {@link OpenStego} object
+     * @throws OpenStegoException     Processing issues
+     * @throws OpenStegoBulkException Errors for multiple files
+     */
+    private static void executeCapacity(CmdLineOptions options, OpenStego stego) throws OpenStegoException, OpenStegoBulkException {
+        String msgFileName = options.getStringValue("-mf");
+        String coverFileName = options.getStringValue("-cf");
+        List<File> coverFileList = CommonUtil.parseFileList(coverFileName, ";");
+        List<Future<Long>> results = new ArrayList<>();
+        OpenStegoBulkException bulkException = new OpenStegoBulkException();
+
+        if (coverFileList.size() == 0) {
+            System.err.println(labelUtil.getString("cmd.msg.coverFileNotFound", coverFileName));
+            return;
+        }
+
+        // Only the name of the message file gets embedded
+        String msgName = (msgFileName == null || msgFileName.equals("-")) ? null : new File(msgFileName).getName();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(coverFileList.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (File file : coverFileList) {
+                results.add(executor.submit(() -> stego.estimateCapacity(file, msgName)));
+            }
+
+            for (int i = 0; i < coverFileList.size(); i++) {
+                String fileName = coverFileList.get(i).getPath();
+                try {
+                    System.out.println(fileName + "\t" + results.get(i).get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof OpenStegoException) {
+                        bulkException.add(fileName, (OpenStegoException) e.getCause());
+                    } else {
+                        bulkException.add(fileName, new OpenStegoException(e.getCause()));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OpenStegoException(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        bulkException.throwIfRequired();
+    }
+
+    /**
+     * Method to execute "scan" command. All the readable files under the directory are checked in parallel for
+     * embedded data, and one line is printed per file (in the same order as the directory walk) with the tab-separated
+     * file path, status (FOUND, CLEAN, UNKNOWN or ERROR), algorithm name and message file name (or error message).
+     * Status is UNKNOWN if nothing was found, but a plugin which needs the password to locate the data was used
+     * without the password
+     *
+     * @param options Command-line options
+     * @param plugin  Plugin to use. If null, then all the data hiding plugins are used
+     * @throws OpenStegoException Processing issues
+     */
+    private static void executeScan(CmdLineOptions options, OpenStegoPlugin<?> plugin) throws OpenStegoException {
+        String scanDir = options.getStringValue("-sd");
+        List<OpenStegoPlugin<?>> plugins = plugin == null ? PluginManager.getDataHidingPlugins() : Collections.singletonList(plugin);
+        Set<String> extensions = new HashSet<>();
+        List<Path> files;
+        List<Future<String>> results = new ArrayList<>();
+
+        if (plugin != null && !plugin.getPurposes().contains(OpenStegoPlugin.Purpose.DATA_HIDING)) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_DOES_NOT_SUPPORT_DH);
+        }
+        if (scanDir == null) {
+            scanDir = ".";
+        }
+        // Password is needed only by the plugins which use it to spread the data, so it is never prompted
+        for (OpenStegoPlugin<?> p : plugins) {
+            p.resetConfig(options);
+            extensions.addAll(p.getReadableFileExtensions());
+        }
+
+        try (Stream<Path> paths = Files.walk(Paths.get(scanDir))) {
+            files = paths.filter(Files::isRegularFile).filter(path -> {
+                String name = path.getFileName().toString();
+                return extensions.contains(name.substring(name.lastIndexOf('.') + 1).toLowerCase());
+            }).collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException ex) {
+            throw new OpenStegoException(ex);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (Path path : files) {
+                results.add(executor.submit(() -> scanFile(path, plugins)));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    System.out.println(escapeTsv(files.get(i).toString()) + "\t" + results.get(i).get());
+                } catch (ExecutionException e) {
+                    System.out.println(escapeTsv(files.get(i).toString()) + "\tERROR\t\t" + escapeTsv(String.valueOf(e.getCause())));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new OpenStegoException(e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Method to scan a file for embedded data using the given plugins
+     *
+     * @param path    Path of the file
+     * @param plugins Plugins to use
+     * @return Tab-separated status, algorithm name and message file name (or error message)
+     */
+    private static String scanFile(Path path, List<OpenStegoPlugin<?>> plugins) {
+        byte[] data;
+        String msgFileName;
+        String unknownPlugin = null;
+
+        try {
+            data = Files.readAllBytes(path);
+            for (OpenStegoPlugin<?> p : plugins) {
+                msgFileName = p.detectMsgFileName(data, path.getFileName().toString());
+                if (msgFileName != null) {
+                    return "FOUND\t" + p.getName() + "\t" + escapeTsv(msgFileName);
+                }
+                String password = p.getConfig().getPassword();
+                if (unknownPlugin == null && p.isPasswordNeededToDetect() && (password == null || password.isEmpty())) {
+                    unknownPlugin = p.getName();
+                }
+            }
+            // Data embedded with a password can not be located without it, so the file can not be reported as clean
+            return unknownPlugin == null ? "CLEAN\t\t" : "UNKNOWN\t" + unknownPlugin + "\tNEEDS_PASSWORD";
+        } catch (OpenStegoException osEx) {
+            return "ERROR\t\t" + escapeTsv(String.valueOf(osEx.getMessage()));
+        } catch (IOException | RuntimeException ex) {
+            return "ERROR\t\t" + escapeTsv(ex.toString());
+        }
+    }
+
+    /**
+     * Method to escape the backslash, tab and line break characters in the value of a tab-separated output column
+     *
+     * @param value Value of the column
+     * @return Escaped value
+     */
+    private static String escapeTsv(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Method to execute "embed" or "embedmark" command for the jobs listed in the manifest file. Results are printed
+     * as one JSON object per job
+     *
+     * @param options     Command-line options
+     * @param stego       {@link OpenStego} object
+     * @param watermark   true for "embedmark", false for "embed"
+     * @param payloadFile Default message (or signature) file. Can be null
+     * @throws OpenStegoException Processing issues
+     */
+    private static void executeBatch(CmdLineOptions options, OpenStego stego, boolean watermark, File payloadFile) throws OpenStegoException {
+        String manifestFileName = options.getStringValue("-mn");
+        Integer threads = options.getIntegerValue("-st", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM);
+        Integer queueSize = options.getIntegerValue("-sq", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM);
+        int failed;
+
+        try (OpenStegoJournal journal = openJournal(options)) {
+            OpenStegoBatch batch = new OpenStegoBatch(stego, options, watermark, payloadFile, journal,
+                    threads == null ? Runtime.getRuntime().availableProcessors() : threads, queueSize == null ? OpenStegoBatch.DEFAULT_QUEUE_SIZE : queueSize);
+            if (manifestFileName == null || isStdio(manifestFileName)) {
+                failed = batch.run(System.in, options.getOption("-0") != null, System.out);
+            } else {
+                try (InputStream is = new FileInputStream(manifestFileName)) {
+                    failed = batch.run(is, options.getOption("-0") != null, System.out);
+                }
+            }
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+        if (failed > 0) {
+            System.err.println(labelUtil.getString("cmd.msg.batchFailed", String.valueOf(failed)));
+        }
+    }
+
+    /**
+     * Method to execute "serve" command. The server runs until the process is terminated
+     *
+     * @param options Command-line options
+     * @throws OpenStegoException Processing issues
+     */
+    private static void executeServe(CmdLineOptions options) throws OpenStegoException {
+        Integer port = options.getIntegerValue("-sp", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM);
+        Integer threads = options.getIntegerValue("-st", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM);
+        Integer queueSize = options.getIntegerValue("-sq", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM);
+
+        OpenStegoMetrics.register();
+        OpenStegoServer server = new OpenStegoServer(port == null ? OpenStegoServer.DEFAULT_PORT : port,
+                threads == null ? Runtime.getRuntime().availableProcessors() : threads, queueSize == null ? OpenStegoServer.DEFAULT_QUEUE_SIZE : queueSize);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(5)));
+        System.err.println(labelUtil.getString("cmd.msg.serverStarted", String.valueOf(server.getPort()), server.getTokenFile().getPath()));
+    }
+
+    /**
+     * Method to print the statistics of the operation to stderr
+     *
+     * @param stats Statistics of the operation
+     */
+    private static void printStats(OpenStegoStats stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(labelUtil.getString(stats.isFailed() ? "cmd.msg.statsFailed" : "cmd.msg.stats", stats.getOperation(), stats.getPluginName(),
+                formatMillis(stats.getTotalNanos()), String.valueOf(stats.getBytes())));
+        for (OpenStegoStats.Stage stage : stats.getStages()) {
+            sb.append(System.lineSeparator()).append("  ").append(String.format("%-10s ", stage.getName()));
+            sb.append(labelUtil.getString("cmd.msg.statsStage", formatMillis(stage.getNanos()), String.valueOf(stage.getBytes()),
+                    String.valueOf(stage.getCount())));
+            if (stage.getAllocatedBytes() > 0) {
+                sb.append(labelUtil.getString("cmd.msg.statsStageAlloc", String.valueOf(stage.getAllocatedBytes())));
+            }
+        }
+        // Single write, so that the statistics of concurrent operations do not interleave
+        System.err.println(sb);
+    }
+
+    /**
+     * Method to format the time in milliseconds
+     *
+     * @param nanos Time in nanoseconds
+     * @return Formatted time in milliseconds
+     */
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1000000.0);
+    }
+
+    /**
+     * Method to open the journal for the bulk operation, if provided on the command line
+     *
+     * @param options Command-line options
+     * @return Journal, or null if journal is not provided
+     * @throws OpenStegoException Processing issues
+     */
+    private static OpenStegoJournal openJournal(CmdLineOptions options) throws OpenStegoException {
+        String journalFileName = options.getStringValue("-jn");
+        return journalFileName == null ? null : new OpenStegoJournal(new File(journalFileName));
+    }
+
+    /**
+     * Method to check whether the file name refers to stdin / stdout, i.e. it is '-'
+     *
+     * @param fileName File name
+     * @return true if the file name is '-'
+     */
+    private static boolean isStdio(String fileName) {
+        return "-".equals(fileName);
+    }
+
+    /**
+     * Method to read all the data from stdin
+     *
+     * @return Data read from stdin
+     * @throws OpenStegoException Processing issues
+     */
+    private static byte[] readStdin() throws OpenStegoException {
+        return CommonUtil.streamToBytes(System.in);
     }
 
     /**
@@ -440,7 +869,7 @@ public class OpenStegoCmd {
      * @return Standard list of command-line options
      * @throws OpenStegoException Processing issues
      */
-    private static CmdLineOptions getStdCmdLineOptions(OpenStegoPlugin<?> plugin) throws OpenStegoException {
+    static CmdLineOptions getStdCmdLineOptions(OpenStegoPlugin<?> plugin) throws OpenStegoException {
         CmdLineOptions options = new CmdLineOptions();
 
         // Commands
@@ -450,6 +879,10 @@ public class OpenStegoCmd {
         options.add("embedmark", "--embedmark", CmdLineOption.TYPE_COMMAND, false);
         options.add("checkmark", "--checkmark", CmdLineOption.TYPE_COMMAND, false);
         options.add("diff", "--diff", CmdLineOption.TYPE_COMMAND, false);
+        options.add("quality", "--quality", CmdLineOption.TYPE_COMMAND, false);
+        options.add("capacity", "--capacity", CmdLineOption.TYPE_COMMAND, false);
+        options.add("scan", "--scan", CmdLineOption.TYPE_COMMAND, false);
+        options.add("serve", "--serve", CmdLineOption.TYPE_COMMAND, false);
         options.add("readformats", "--readformats", CmdLineOption.TYPE_COMMAND, false);
         options.add("writeformats", "--writeformats", CmdLineOption.TYPE_COMMAND, false);
         options.add("algorithms", "--algorithms", CmdLineOption.TYPE_COMMAND, false);
@@ -465,6 +898,10 @@ public class OpenStegoCmd {
         options.add("-xf", "--extractfile", CmdLineOption.TYPE_OPTION, true);
         options.add("-xd", "--extractdir", CmdLineOption.TYPE_OPTION, true);
         options.add("-gf", "--sigfile", CmdLineOption.TYPE_OPTION, true);
+        options.add("-sd", "--scandir", CmdLineOption.TYPE_OPTION, true);
+        options.add("-mn", "--manifest", CmdLineOption.TYPE_OPTION, true);
+        options.add("-0", "--null", CmdLineOption.TYPE_OPTION, false);
+        options.add("-jn", "--journal", CmdLineOption.TYPE_OPTION, true);
 
         // Command options
         options.add("-c", "--compress", CmdLineOption.TYPE_OPTION, false);
@@ -473,6 +910,18 @@ public class OpenStegoCmd {
         options.add("-E", "--noencrypt", CmdLineOption.TYPE_OPTION, false);
         options.add("-p", "--password", CmdLineOption.TYPE_OPTION, true);
         options.add("-A", "--cryptalgo", CmdLineOption.TYPE_OPTION, true);
+        options.add("-Z", "--compressalgo", CmdLineOption.TYPE_OPTION, true);
+        options.add("-zl", "--compresslevel", CmdLineOption.TYPE_OPTION, true);
+        options.add("-zs", "--compressstrategy", CmdLineOption.TYPE_OPTION, true);
+
+        // Server and batch options
+        options.add("-sp", "--port", CmdLineOption.TYPE_OPTION, true);
+        options.add("-st", "--threads", CmdLineOption.TYPE_OPTION, true);
+        options.add("-sq", "--queuesize", CmdLineOption.TYPE_OPTION, true);
+
+        // Instrumentation options
+        options.add("-ss", "--stats", CmdLineOption.TYPE_OPTION, false);
+        options.add("-sa", "--statsalloc", CmdLineOption.TYPE_OPTION, false);
 
         // Plugin-specific options
         if (plugin != null) {
@@ -0,0 +1,337 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * This is the class for providing compression support to OpenStego.
+ * <p>
+ * The codec used is recorded as the first byte of the compressed data. GZIP data is identified by its own magic byte
+ * (which keeps it compatible with data embedded by older versions), while other codecs are prefixed by their codec id.
+ * Data which already looks compressed (e.g. JPEG, ZIP or video files) is stored as is, as compressing it only wastes
+ * CPU. {@link OpenStego} does not call the compressor at all for such data, and flags it as not compressed instead, so
+ * that older versions can still read it.
+ */
+public class OpenStegoCompressor {
+    /**
+     * Constant for codec - GZIP
+     */
+    public static final String CODEC_GZIP = "GZIP";
+    /**
+     * Constant for codec - Deflate (zlib format)
+     */
+    public static final String CODEC_DEFLATE = "DEFLATE";
+    /**
+     * Constant for codec - None (data is stored as is)
+     */
+    public static final String CODEC_NONE = "NONE";
+
+    /**
+     * Constant for compression strategy - Default
+     */
+    public static final String STRATEGY_DEFAULT = "DEFAULT";
+    /**
+     * Constant for compression strategy - Filtered
+     */
+    public static final String STRATEGY_FILTERED = "FILTERED";
+    /**
+     * Constant for compression strategy - Huffman only
+     */
+    public static final String STRATEGY_HUFFMAN = "HUFFMAN";
+
+    /**
+     * Codec id - Stored
+     */
+    private static final int ID_STORED = 0x00;
+
+    /**
+     * Codec id - Deflate
+     */
+    private static final int ID_DEFLATE = 0x01;
+
+    /**
+     * Codec id - GZIP (first byte of the GZIP magic number)
+     */
+    private static final int ID_GZIP = 0x1F;
+
+    /**
+     * Size of the sample used to probe the entropy of the data
+     */
+    private static final int PROBE_SAMPLE_SIZE = 4096;
+
+    /**
+     * Entropy (in bits per byte) above which data is considered to be already compressed
+     */
+    private static final double PROBE_ENTROPY_THRESHOLD = 7.5;
+
+    /**
+     * Codec id to use
+     */
+    private final int codecId;
+
+    /**
+     * Compression level
+     */
+    private final int level;
+
+    /**
+     * Compression strategy
+     */
+    private final int strategy;
+
+    /**
+     * Default constructor
+     *
+     * @param codec    Compression codec to use. If null or blank value is provided, then it defaults to GZIP
+     * @param level    Compression level (0-9, or -1 for the default level of the codec)
+     * @param strategy Compression strategy. If null or blank value is provided, then it defaults to DEFAULT
+     * @throws OpenStegoException Processing issues
+     */
+    public OpenStegoCompressor(String codec, int level, String strategy) throws OpenStegoException {
+        if (codec == null || codec.trim().equals("") || CODEC_GZIP.equalsIgnoreCase(codec)) {
+            this.codecId = ID_GZIP;
+        } else if (CODEC_DEFLATE.equalsIgnoreCase(codec)) {
+            this.codecId = ID_DEFLATE;
+        } else if (CODEC_NONE.equalsIgnoreCase(codec)) {
+            this.codecId = ID_STORED;
+        } else {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_COMPRESSION_CODEC, codec);
+        }
+
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_COMPRESSION_LEVEL, level);
+        }
+        this.level = level;
+
+        if (strategy == null || strategy.trim().equals("") || STRATEGY_DEFAULT.equalsIgnoreCase(strategy)) {
+            this.strategy = Deflater.DEFAULT_STRATEGY;
+        } else if (STRATEGY_FILTERED.equalsIgnoreCase(strategy)) {
+            this.strategy = Deflater.FILTERED;
+        } else if (STRATEGY_HUFFMAN.equalsIgnoreCase(strategy)) {
+            this.strategy = Deflater.HUFFMAN_ONLY;
+        } else {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_COMPRESSION_STRATEGY, strategy);
+        }
+    }
+
+    /**
+     * Method to compress the data. If the data looks already compressed, then it is stored as is
+     *
+     * @param input Data to be compressed
+     * @return Compressed data
+     * @throws OpenStegoException Processing issues
+     */
+    public byte[] compress(byte[] input) throws OpenStegoException {
+        boolean stored = isCompressed(input);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(stored ? input.length + 1 : (input.length >> 1) + 64);
+
+        compress(input, stored, bos);
+        return bos.toByteArray();
+    }
+
+    /**
+     * Method to compress the data, and write the compressed data to the given stream. The stream is closed after that.
+     * If the data looks already compressed, then it is stored as is
+     *
+     * @param input Data to be compressed
+     * @param out   Stream to write the compressed data to
+     * @throws OpenStegoException Processing issues
+     */
+    public void compress(byte[] input, OutputStream out) throws OpenStegoException {
+        compress(input, isCompressed(input), out);
+    }
+
+    /**
+     * Method to compress the data, and write the compressed data to the given stream
+     *
+     * @param input  Data to be compressed
+     * @param stored Flag to indicate whether the data is to be stored as is
+     * @param out    Stream to write the compressed data to
+     * @throws OpenStegoException Processing issues
+     */
+    private void compress(byte[] input, boolean stored, OutputStream out) throws OpenStegoException {
+        try (OutputStream os = compressStream(out, stored ? ID_STORED : this.codecId)) {
+            os.write(input);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to get the stream which compresses the data written to it, and writes the compressed data to the given
+     * stream. The returned stream must be closed to complete the compression. As the data is not known in advance, it
+     * is always compressed using the configured codec
+     *
+     * @param out Stream to write the compressed data to
+     * @return Stream to write the data to
+     * @throws OpenStegoException Processing issues
+     */
+    public OutputStream compressStream(OutputStream out) throws OpenStegoException {
+        try {
+            return compressStream(out, this.codecId);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to decompress the data. The codec is identified from the data itself
+     *
+     * @param input Data to be decompressed
+     * @return Decompressed data
+     * @throws OpenStegoException Processing issues
+     */
+    public static byte[] decompress(byte[] input) throws OpenStegoException {
+        try {
+            return decompress(new ByteArrayInputStream(input), input.length << 1);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
+        }
+    }
+
+    /**
+     * Method to decompress all the data read from the given stream. The codec is identified from the data itself. The
+     * stream is closed after that
+     *
+     * @param in       Stream to read the compressed data from
+     * @param sizeHint Expected size of the decompressed data
+     * @return Decompressed data
+     * @throws IOException Processing issues
+     */
+    public static byte[] decompress(InputStream in, int sizeHint) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(sizeHint);
+        byte[] buffer = new byte[8192];
+        int n;
+
+        try (InputStream is = decompressStream(in)) {
+            while ((n = is.read(buffer)) != -1) {
+                bos.write(buffer, 0, n);
+            }
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Method to get the stream which decompresses the data read from the given stream. The codec is identified from
+     * the data itself
+     *
+     * @param in Stream to read the compressed data from
+     * @return Stream to read the decompressed data from
+     * @throws IOException Processing issues
+     */
+    public static InputStream decompressStream(InputStream in) throws IOException {
+        PushbackInputStream pis = new PushbackInputStream(in);
+        int id = pis.read();
+
+        switch (id) {
+            case ID_GZIP:
+                pis.unread(id);
+                return new GZIPInputStream(pis);
+            case ID_DEFLATE:
+                return new InflaterInputStream(pis);
+            case ID_STORED:
+                return pis;
+            default:
+                throw new ZipException("Unknown compression codec: " + id);
+        }
+    }
+
+    /**
+     * Method to check whether the data would be stored as is (without compression) by the given codec
+     *
+     * @param codec Compression codec
+     * @param data  Data to check
+     * @return true if codec is NONE or the data looks already compressed
+     */
+    public static boolean isStoredAsIs(String codec, byte[] data) {
+        return CODEC_NONE.equalsIgnoreCase(codec) || isCompressed(data);
+    }
+
+    /**
+     * Method to probe whether the data is already compressed (or encrypted), based on the entropy of its bytes. A
+     * sample from the start and the middle of the data is used, so that the probe is cheap even for large data
+     *
+     * @param data Data to probe
+     * @return true if the data looks already compressed
+     */
+    public static boolean isCompressed(byte[] data) {
+        int[] freq = new int[256];
+        int half = PROBE_SAMPLE_SIZE >> 1;
+        int total;
+        double entropy = 0.0;
+        double p;
+
+        // Too small to judge reliably
+        if (data.length < 256) {
+            return false;
+        }
+
+        if (data.length <= PROBE_SAMPLE_SIZE) {
+            for (byte b : data) {
+                freq[b & 0xFF]++;
+            }
+            total = data.length;
+        } else {
+            int mid = (data.length - half) >> 1;
+            for (int i = 0; i < half; i++) {
+                freq[data[i] & 0xFF]++;
+                freq[data[mid + i] & 0xFF]++;
+            }
+            total = PROBE_SAMPLE_SIZE;
+        }
+
+        for (int f : freq) {
+            if (f > 0) {
+                p = (double) f / total;
+                entropy -= p * Math.log(p);
+            }
+        }
+        entropy /= Math.log(2);
+
+        // Entropy measured on a small sample is biased low (by about 255 / (2 * n * ln 2) bits), so adjust threshold
+        return entropy > PROBE_ENTROPY_THRESHOLD - 255.0 / (2.0 * total * Math.log(2));
+    }
+
+    /**
+     * Utility method to get the compression stream for the given codec
+     *
+     * @param out Stream to write the compressed data to
+     * @param id  Codec id
+     * @return Stream to write the data to
+     * @throws IOException Processing issues
+     */
+    private OutputStream compressStream(OutputStream out, int id) throws IOException {
+        switch (id) {
+            case ID_GZIP:
+                return new GZIPOutputStream(out, 8192) {
+                    {
+                        this.def.setLevel(OpenStegoCompressor.this.level);
+                        this.def.setStrategy(OpenStegoCompressor.this.strategy);
+                    }
+                };
+            case ID_DEFLATE:
+                out.write(ID_DEFLATE);
+                Deflater deflater = new Deflater(this.level);
+                deflater.setStrategy(this.strategy);
+                return new DeflaterOutputStream(out, deflater, 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            this.def.end();
+                        }
+                    }
+                };
+            default:
+                out.write(ID_STORED);
+                return out;
+        }
+    }
+}
@@ -10,11 +10,12 @@ import com.openstego.desktop.util.cmd.CmdLineOptions;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 /**
  * Class to store configuration data for OpenStego
  */
-public class OpenStegoConfig {
+public class OpenStegoConfig implements Cloneable {
     /**
      * Key string for configuration item - useCompression
      * <p>
@@ -43,6 +44,27 @@ public class OpenStegoConfig {
      */
     public static final String ENCRYPTION_ALGORITHM = "encryptionAlgorithm";
 
+    /**
+     * Key string for configuration item - compressionCodec
+     * <p>
+     * Codec to be used for compression
+     */
+    public static final String COMPRESSION_CODEC = "compressionCodec";
+
+    /**
+     * Key string for configuration item - compressionLevel
+     * <p>
+     * Level to be used for compression (0-9, or -1 for the default level of the codec)
+     */
+    public static final String COMPRESSION_LEVEL = "compressionLevel";
+
+    /**
+     * Key string for configuration item - compressionStrategy
+     * <p>
+     * Strategy to be used for compression
+     */
+    public static final String COMPRESSION_STRATEGY = "compressionStrategy";
+
     /**
      * Flag to indicate whether compression should be used or not
      */
@@ -63,6 +85,23 @@ public class OpenStegoConfig {
      */
     private String encryptionAlgorithm = OpenStegoCrypto.ALGO_AES128;
 
+    /**
+     * Codec to be used for compression in case "useCompression" is set to true
+     */
+    private String compressionCodec = OpenStegoCompressor.CODEC_GZIP;
+
+    /**
+     * Level to be used for compression in case "useCompression" is set to true. Defaults to the default level of the
+     * codec, as in older versions. Smaller payload means fewer modified pixels, which matters more than the time saved
+     * by a faster level
+     */
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Strategy to be used for compression in case "useCompression" is set to true
+     */
+    private String compressionStrategy = OpenStegoCompressor.STRATEGY_DEFAULT;
+
     /**
      * Initialize the configuration with map data. Please make sure that only valid keys for configuration items are
      * provided, and the values for those items are also valid.
@@ -118,6 +157,18 @@ public class OpenStegoConfig {
             map.put(ENCRYPTION_ALGORITHM, options.getStringValue("-A"));
         }
 
+        if (options.getOption("-Z") != null) { // compressalgo
+            map.put(COMPRESSION_CODEC, options.getStringValue("-Z"));
+        }
+
+        if (options.getOption("-zl") != null) { // compresslevel
+            map.put(COMPRESSION_LEVEL, options.getIntegerValue("-zl", OpenStego.NAMESPACE, OpenStegoErrors.INVALID_COMPRESSION_LEVEL));
+        }
+
+        if (options.getOption("-zs") != null) { // compressstrategy
+            map.put(COMPRESSION_STRATEGY, options.getStringValue("-zs"));
+        }
+
         return map;
     }
 
@@ -150,6 +201,18 @@ public class OpenStegoConfig {
                 assert value instanceof String;
                 this.encryptionAlgorithm = (String) value;
                 break;
+            case COMPRESSION_CODEC:
+                assert value instanceof String;
+                this.compressionCodec = (String) value;
+                break;
+            case COMPRESSION_LEVEL:
+                assert value instanceof Integer;
+                this.compressionLevel = (int) value;
+                break;
+            case COMPRESSION_STRATEGY:
+                assert value instanceof String;
+                this.compressionStrategy = (String) value;
+                break;
         }
     }
 
@@ -236,4 +299,72 @@ public class OpenStegoConfig {
     public void setEncryptionAlgorithm(String encryptionAlgorithm) {
         this.encryptionAlgorithm = encryptionAlgorithm;
     }
+
+    /**
+     * Get method for configuration item - compressionCodec
+     *
+     * @return compressionCodec
+     */
+    public String getCompressionCodec() {
+        return this.compressionCodec;
+    }
+
+    /**
+     * Set method for configuration item - compressionCodec
+     *
+     * @param compressionCodec Value to be set
+     */
+    public void setCompressionCodec(String compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * Get method for configuration item - compressionLevel
+     *
+     * @return compressionLevel
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
+    /**
+     * Set method for configuration item - compressionLevel
+     *
+     * @param compressionLevel Value to be set
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Get method for configuration item - compressionStrategy
+     *
+     * @return compressionStrategy
+     */
+    public String getCompressionStrategy() {
+        return this.compressionStrategy;
+    }
+
+    /**
+     * Set method for configuration item - compressionStrategy
+     *
+     * @param compressionStrategy Value to be set
+     */
+    public void setCompressionStrategy(String compressionStrategy) {
+        this.compressionStrategy = compressionStrategy;
+    }
+
+    /**
+     * Method to create a copy of this configuration data (of the same class). Subclasses which hold mutable objects
+     * must override this method to copy those objects as well
+     *
+     * @return Copy of the configuration data
+     */
+    public OpenStegoConfig copy() {
+        try {
+            return (OpenStegoConfig) super.clone();
+        } catch (CloneNotSupportedException cnsEx) {
+            throw new IllegalStateException(cnsEx);
+        }
+    }
 }
@@ -12,9 +12,13 @@ import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.PBEParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
 import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
-import java.security.spec.KeySpec;
+import java.util.Arrays;
 
 /**
  * This is the class for providing cryptography support to OpenStego.
@@ -32,6 +36,10 @@ public class OpenStegoCrypto {
      * Constant for algorithm - AES256
      */
     public static final String ALGO_AES256 = "AES256";
+    /**
+     * Constant for algorithm - AES256 in GCM mode, applied in chunks (supports streaming)
+     */
+    public static final String ALGO_AESGCM = "AESGCM";
 
     /**
      * 8-byte Salt for Password-based cryptography
@@ -44,10 +52,45 @@ public class OpenStegoCrypto {
     private final int ITER_COUNT = 7;
 
     /**
-     * Secret key for encryption
+     * Version of the data format for AESGCM algorithm
+     */
+    private static final byte GCM_FORMAT_VERSION = 1;
+
+    /**
+     * Length of the random salt for AESGCM algorithm
+     */
+    private static final int GCM_SALT_LENGTH = 16;
+
+    /**
+     * Length of the random nonce prefix for AESGCM algorithm
+     */
+    private static final int GCM_NONCE_PREFIX_LENGTH = 8;
+
+    /**
+     * Iteration count for key derivation for AESGCM algorithm
+     */
+    private static final int GCM_KDF_ITER_COUNT = 10000;
+
+    /**
+     * Random number generator for salt and nonce
+     */
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Secret key for encryption (null for AESGCM algorithm, where key is derived per message)
      */
     private final SecretKey secretKey;
 
+    /**
+     * Password for encryption (used only for AESGCM algorithm). It is cleared once the key for the message is derived
+     */
+    private final char[] password;
+
+    /**
+     * Flag to indicate whether the password has been used (and cleared) for the AESGCM algorithm
+     */
+    private boolean passwordCleared = false;
+
     /**
      * Default constructor
      *
@@ -56,7 +99,15 @@ public class OpenStegoCrypto {
      * @throws OpenStegoException Processing issues
      */
     public OpenStegoCrypto(String password, String algorithm) throws OpenStegoException {
-        KeySpec keySpec;
+        PBEKeySpec keySpec;
+
+        // Key for AESGCM is derived per message using random salt
+        if (ALGO_AESGCM.equalsIgnoreCase(algorithm)) {
+            this.secretKey = null;
+            this.password = password.toCharArray();
+            return;
+        }
+        this.password = null;
 
         try {
             if (algorithm == null || algorithm.trim().equals("") || ALGO_AES128.equalsIgnoreCase(algorithm)) {
@@ -64,7 +115,7 @@ public class OpenStegoCrypto {
             } else if (ALGO_AES256.equalsIgnoreCase(algorithm)) {
                 algorithm = "PBEWithHmacSHA256AndAES_256";
             } else if (ALGO_DES.equalsIgnoreCase(algorithm)) {
-                System.out.println("Warning: Using insecure algorithm: " + algorithm);
+                System.err.println("Warning: Using insecure algorithm: " + algorithm);
                 algorithm = "PBEWithMD5AndDES";
             } else {
                 throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_CRYPT_ALGO, algorithm);
@@ -72,7 +123,13 @@ public class OpenStegoCrypto {
 
             // Create the key
             keySpec = new PBEKeySpec(password.toCharArray(), this.SALT, this.ITER_COUNT);
-            this.secretKey = SecretKeyFactory.getInstance(algorithm).generateSecret(keySpec);
+            try {
+                this.secretKey = SecretKeyFactory.getInstance(algorithm).generateSecret(keySpec);
+            } finally {
+                keySpec.clearPassword();
+            }
+        } catch (OpenStegoException osEx) {
+            throw osEx;
         } catch (Exception ex) {
             throw new OpenStegoException(ex);
         }
@@ -86,6 +143,16 @@ public class OpenStegoCrypto {
      * @throws OpenStegoException Processing issues
      */
     public byte[] encrypt(byte[] input) throws OpenStegoException {
+        if (isStreamingSupported()) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length + 64);
+            try (OutputStream os = encryptStream(bos)) {
+                os.write(input);
+            } catch (IOException ioEx) {
+                throw new OpenStegoException(ioEx);
+            }
+            return bos.toByteArray();
+        }
+
         try {
             Cipher encryptCipher = Cipher.getInstance(this.secretKey.getAlgorithm());
             AlgorithmParameterSpec algoParamSpec = new PBEParameterSpec(this.SALT, this.ITER_COUNT);
@@ -117,6 +184,24 @@ public class OpenStegoCrypto {
      * @throws OpenStegoException Processing issues
      */
     public byte[] decrypt(byte[] input) throws OpenStegoException {
+        if (isStreamingSupported()) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(input.length);
+            byte[] buffer = new byte[8192];
+            int n;
+
+            try (InputStream is = decryptStream(new ByteArrayInputStream(input))) {
+                while ((n = is.read(buffer)) != -1) {
+                    bos.write(buffer, 0, n);
+                }
+            } catch (IOException ioEx) {
+                if (ioEx.getCause() instanceof GeneralSecurityException) {
+                    throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_PASSWORD);
+                }
+                throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
+            }
+            return bos.toByteArray();
+        }
+
         try {
             // First byte is algo params length
             byte paramLen = input[0];
@@ -138,4 +223,110 @@ public class OpenStegoCrypto {
             throw new OpenStegoException(ex);
         }
     }
+
+    /**
+     * Method to check whether the algorithm supports streaming, i.e. {@link #encryptStream(OutputStream)} and
+     * {@link #decryptStream(InputStream)}
+     *
+     * @return true if streaming is supported
+     */
+    public boolean isStreamingSupported() {
+        return this.password != null;
+    }
+
+    /**
+     * Method to get the stream which encrypts the data written to it, and writes the encrypted data to the given
+     * stream. The data is encrypted in chunks, so memory usage does not depend on the size of the data. The returned
+     * stream must be closed to complete the encryption. This is supported only for {@link #ALGO_AESGCM}. As the key is
+     * derived per message and the password is cleared after that, an instance can be used for one message only
+     *
+     * @param out Stream to write the encrypted data to
+     * @return Stream to write the plain data to
+     * @throws OpenStegoException Processing issues
+     */
+    public OutputStream encryptStream(OutputStream out) throws OpenStegoException {
+        byte[] salt = new byte[GCM_SALT_LENGTH];
+        byte[] noncePrefix = new byte[GCM_NONCE_PREFIX_LENGTH];
+
+        if (!isStreamingSupported()) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.STREAM_CRYPT_NOT_SUPPORTED);
+        }
+        if (this.passwordCleared) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.CRYPT_PASSWORD_CLEARED);
+        }
+
+        try {
+            secureRandom.nextBytes(salt);
+            secureRandom.nextBytes(noncePrefix);
+
+            out.write(GCM_FORMAT_VERSION);
+            out.write(salt);
+            out.write(noncePrefix);
+            return new GCMChunkedOutputStream(out, deriveGcmKey(salt), noncePrefix);
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new OpenStegoException(ex);
+        }
+    }
+
+    /**
+     * Method to get the stream which decrypts the data read from the given stream. The data is decrypted (and
+     * authenticated) in chunks, so memory usage does not depend on the size of the data. If authentication fails, then
+     * read methods of the returned stream throw {@link IOException} with cause set to the security exception. This is
+     * supported only for {@link #ALGO_AESGCM}. As the key is derived per message and the password is cleared after
+     * that, an instance can be used for one message only
+     *
+     * @param in Stream to read the encrypted data from
+     * @return Stream to read the decrypted data from
+     * @throws OpenStegoException Processing issues
+     */
+    public InputStream decryptStream(InputStream in) throws OpenStegoException {
+        DataInputStream dis = new DataInputStream(in);
+        byte[] salt = new byte[GCM_SALT_LENGTH];
+        byte[] noncePrefix = new byte[GCM_NONCE_PREFIX_LENGTH];
+
+        if (!isStreamingSupported()) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.STREAM_CRYPT_NOT_SUPPORTED);
+        }
+        if (this.passwordCleared) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.CRYPT_PASSWORD_CLEARED);
+        }
+
+        try {
+            if (dis.readByte() != GCM_FORMAT_VERSION) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
+            }
+            dis.readFully(salt);
+            dis.readFully(noncePrefix);
+            return new GCMChunkedInputStream(in, deriveGcmKey(salt), noncePrefix);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx, OpenStego.NAMESPACE, OpenStegoErrors.CORRUPT_DATA);
+        } catch (GeneralSecurityException gsEx) {
+            throw new OpenStegoException(gsEx);
+        }
+    }
+
+    /**
+     * Method to derive the AES key for AESGCM algorithm from the password and the salt of the message. The password is
+     * cleared after this
+     *
+     * @param salt Salt for the message
+     * @return AES key
+     * @throws GeneralSecurityException Processing issues
+     */
+    private SecretKey deriveGcmKey(byte[] salt) throws GeneralSecurityException {
+        PBEKeySpec keySpec = new PBEKeySpec(this.password, salt, GCM_KDF_ITER_COUNT, 256);
+        byte[] keyData = null;
+
+        try {
+            keyData = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+            return new SecretKeySpec(keyData, "AES");
+        } finally {
+            keySpec.clearPassword();
+            Arrays.fill(this.password, '\0');
+            this.passwordCleared = true;
+            if (keyData != null) {
+                Arrays.fill(keyData, (byte) 0);
+            }
+        }
+    }
 }
@@ -103,6 +103,51 @@ public class OpenStegoErrors {
      */
     public static final int USERPREF_INVALID_BOOL = 19;
 
+    /**
+     * Error Code - Streaming encryption not supported for the algorithm
+     */
+    public static final int STREAM_CRYPT_NOT_SUPPORTED = 20;
+
+    /**
+     * Error Code - Invalid compression codec
+     */
+    public static final int INVALID_COMPRESSION_CODEC = 21;
+
+    /**
+     * Error Code - Invalid compression level
+     */
+    public static final int INVALID_COMPRESSION_LEVEL = 22;
+
+    /**
+     * Error Code - Invalid compression strategy
+     */
+    public static final int INVALID_COMPRESSION_STRATEGY = 23;
+
+    /**
+     * Error Code - Cover file capacity insufficient for the message
+     */
+    public static final int COVER_CAPACITY_INSUFFICIENT = 24;
+
+    /**
+     * Error Code - Invalid server parameter
+     */
+    public static final int INVALID_SERVER_PARAM = 25;
+
+    /**
+     * Error Code - Invalid entry in batch manifest
+     */
+    public static final int INVALID_MANIFEST_ENTRY = 26;
+
+    /**
+     * Error Code - Plugin does not support image quality metrics
+     */
+    public static final int PLUGIN_DOES_NOT_SUPPORT_QUALITY = 27;
+
+    /**
+     * Error Code - Password of the crypto instance already used and cleared
+     */
+    public static final int CRYPT_PASSWORD_CLEARED = 28;
+
     /**
      * Initialize the error code - message key map
      */
@@ -125,5 +170,14 @@ public class OpenStegoErrors {
         addErrorCode(NAMESPACE, PLUGIN_NOT_FOUND, "err.plugin.notFound");
         addErrorCode(NAMESPACE, IMAGE_SIZE_MISMATCH, "err.image.size.mismatch");
         addErrorCode(NAMESPACE, PWD_MANDATORY_FOR_GENSIG, "err.gensig.pwdMandatory");
+        addErrorCode(NAMESPACE, STREAM_CRYPT_NOT_SUPPORTED, "err.crypt.streamNotSupported");
+        addErrorCode(NAMESPACE, INVALID_COMPRESSION_CODEC, "err.config.invalidCompressCodec");
+        addErrorCode(NAMESPACE, INVALID_COMPRESSION_LEVEL, "err.config.invalidCompressLevel");
+        addErrorCode(NAMESPACE, INVALID_COMPRESSION_STRATEGY, "err.config.invalidCompressStrategy");
+        addErrorCode(NAMESPACE, COVER_CAPACITY_INSUFFICIENT, "err.cover.capacityInsufficient");
+        addErrorCode(NAMESPACE, INVALID_SERVER_PARAM, "err.server.invalidParam");
+        addErrorCode(NAMESPACE, INVALID_MANIFEST_ENTRY, "err.batch.invalidManifestEntry");
+        addErrorCode(NAMESPACE, PLUGIN_DOES_NOT_SUPPORT_QUALITY, "err.plugin.qualityNotSupported");
+        addErrorCode(NAMESPACE, CRYPT_PASSWORD_CLEARED, "err.crypt.passwordCleared");
     }
 }
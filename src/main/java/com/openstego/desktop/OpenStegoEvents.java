@@ -0,0 +1,83 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+/**
+ * Java Flight Recorder (JFR) events for the operations of {@link OpenStego}, image decoding / encoding and the
+ * transforms done by the plugins.
+ * <p>
+ * This is the Java 8 version, where JFR events are not available, so all the methods are no-ops. The Java 11 version
+ * of this class (in <code>META-INF/versions/11</code> of the multi-release JAR) emits the events if the
+ * {@link #ENABLED_PROPERTY} system property is set to <code>true</code> and a JFR recording is in progress. Both the
+ * versions must have the same public API.
+ */
+public class OpenStegoEvents {
+    /**
+     * System property to enable the JFR events
+     */
+    public static final String ENABLED_PROPERTY = "openstego.jfr";
+
+    /**
+     * Types of events
+     */
+    public enum Type {
+        /**
+         * Embedding of message or watermark
+         */
+        EMBED,
+        /**
+         * Extraction of message
+         */
+        EXTRACT,
+        /**
+         * Checking of watermark
+         */
+        WATERMARK_CHECK,
+        /**
+         * Decoding of image
+         */
+        IMAGE_DECODE,
+        /**
+         * Encoding of image
+         */
+        IMAGE_ENCODE,
+        /**
+         * Transform of image data (e.g. DWT or YUV conversion)
+         */
+        TRANSFORM
+    }
+
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private OpenStegoEvents() {
+    }
+
+    /**
+     * Method to begin an event. Events nested within an operation (i.e. {@link Type#EMBED}, {@link Type#EXTRACT} or
+     * {@link Type#WATERMARK_CHECK}) inherit the plugin name from the operation
+     *
+     * @param type       Type of the event
+     * @param pluginName Name of the plugin (null to inherit it from the enclosing operation)
+     * @return Handle for the event, or null if the event is not enabled
+     */
+    public static Object begin(Type type, String pluginName) {
+        return null;
+    }
+
+    /**
+     * Method to end the event and commit it. For operations, this should be called in a finally block
+     *
+     * @param event       Handle for the event (null is allowed)
+     * @param width       Width of the image (0 if not known)
+     * @param height      Height of the image (0 if not known)
+     * @param payloadSize Size of the payload in bytes
+     * @param stage       Stage (e.g. name of the operation or the transform)
+     */
+    public static void end(Object event, int width, int height, long payloadSize, String stage) {
+    }
+}
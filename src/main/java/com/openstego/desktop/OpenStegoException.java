@@ -8,8 +8,8 @@ package com.openstego.desktop;
 
 import com.openstego.desktop.util.LabelUtil;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Custom exception class for OpenStego
@@ -23,9 +23,9 @@ public class OpenStegoException extends Exception {
     static final int UNHANDLED_EXCEPTION = 0;
 
     /**
-     * Map to store error code to message key mapping
+     * Map to store error code to message key mapping (concurrent, as error codes get added by the plugin constructors)
      */
-    private static final Map<String, String> errMsgKeyMap = new HashMap<>();
+    private static final Map<String, String> errMsgKeyMap = new ConcurrentHashMap<>();
 
     /**
      * Error code for the exception
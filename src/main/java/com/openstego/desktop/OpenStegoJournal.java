@@ -0,0 +1,121 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Journal of the completed items of a bulk operation, which allows an interrupted operation to be resumed without
+ * processing the completed items again.
+ * <p>
+ * One line is appended (and synced to disk) per completed item. Each line ends with a newline, so a line which is cut
+ * short by a crash is ignored (and dropped) while loading. Items need to be marked as completed only after their
+ * output has been written completely (see {@link com.openstego.desktop.util.CommonUtil#writeFileAtomic(byte[], String)}).
+ */
+public class OpenStegoJournal implements Closeable {
+    /**
+     * Keys of the completed items
+     */
+    private final Set<String> completed = new HashSet<>();
+
+    /**
+     * Channel to append to the journal
+     */
+    private final FileChannel channel;
+
+    /**
+     * Default constructor. Completed items are loaded from the journal, if it exists
+     *
+     * @param file Journal file
+     * @throws OpenStegoException Processing issues
+     */
+    public OpenStegoJournal(File file) throws OpenStegoException {
+        byte[] data;
+        int len;
+
+        try {
+            data = file.exists() ? Files.readAllBytes(file.toPath()) : new byte[0];
+            // Length of the journal till the last complete line
+            len = data.length;
+            while (len > 0 && data[len - 1] != '\n') {
+                len--;
+            }
+            for (String line : new String(data, 0, len, StandardCharsets.UTF_8).split("\n")) {
+                if (!line.isEmpty()) {
+                    this.completed.add(line);
+                }
+            }
+
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // Drop the partial line, if any, so that the next item starts on a fresh line
+            this.channel.truncate(len);
+            this.channel.position(len);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to check whether the item has already been completed
+     *
+     * @param key Key of the item
+     * @return true if the item has been completed
+     */
+    public synchronized boolean isCompleted(String key) {
+        return this.completed.contains(escape(key));
+    }
+
+    /**
+     * Method to record that the item has been completed. The journal is synced to disk before returning
+     *
+     * @param key Key of the item
+     * @throws OpenStegoException Processing issues
+     */
+    public synchronized void markCompleted(String key) throws OpenStegoException {
+        String line = escape(key);
+        ByteBuffer buf = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+
+        try {
+            while (buf.hasRemaining()) {
+                this.channel.write(buf);
+            }
+            this.channel.force(false);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+        this.completed.add(line);
+    }
+
+    /**
+     * Method to close the journal
+     *
+     * @throws IOException Processing issues
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Utility method to escape the newlines (and backslashes) in the key, so that it fits on one line
+     *
+     * @param key Key of the item
+     * @return Escaped key
+     */
+    private static String escape(String key) {
+        return key.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener which aggregates the statistics of the operations of {@link OpenStego}, and exposes them via JMX
+ */
+public class OpenStegoMetrics implements OpenStegoStatsListener, OpenStegoMetricsMXBean {
+    /**
+     * Name under which the MBean is registered
+     */
+    public static final String OBJECT_NAME = "com.openstego.desktop:type=Metrics";
+
+    /**
+     * Singleton instance, once registered
+     */
+    private static OpenStegoMetrics instance = null;
+
+    /**
+     * Number of operations (or stage runs)
+     */
+    private final ConcurrentMap<String, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Number of failed operations
+     */
+    private final ConcurrentMap<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Total time spent (in nanoseconds)
+     */
+    private final ConcurrentMap<String, AtomicLong> nanos = new ConcurrentHashMap<>();
+
+    /**
+     * Total bytes processed
+     */
+    private final ConcurrentMap<String, AtomicLong> bytes = new ConcurrentHashMap<>();
+
+    /**
+     * Total bytes allocated
+     */
+    private final ConcurrentMap<String, AtomicLong> allocatedBytes = new ConcurrentHashMap<>();
+
+    /**
+     * Flag to indicate whether allocated bytes are measured
+     */
+    private volatile boolean allocationTracked = false;
+
+    /**
+     * Method to register the metrics as a listener and with the platform MBean server. Calling it again returns the
+     * already registered instance
+     *
+     * @return Registered instance
+     * @throws OpenStegoException Processing issues
+     */
+    public static synchronized OpenStegoMetrics register() throws OpenStegoException {
+        if (instance == null) {
+            OpenStegoMetrics metrics = new OpenStegoMetrics();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                throw new OpenStegoException(e);
+            }
+            OpenStegoStats.addListener(metrics);
+            instance = metrics;
+        }
+        return instance;
+    }
+
+    /**
+     * Implementation of {@link OpenStegoStatsListener#operationCompleted(OpenStegoStats)}
+     *
+     * @param stats Statistics of the operation
+     */
+    @Override
+    public void operationCompleted(OpenStegoStats stats) {
+        String op = stats.getOperation();
+        add(this.counts, op, 1);
+        add(this.nanos, op, stats.getTotalNanos());
+        add(this.bytes, op, stats.getBytes());
+        if (stats.isFailed()) {
+            add(this.failures, op, 1);
+        }
+
+        for (OpenStegoStats.Stage stage : stats.getStages()) {
+            String key = op + "." + stage.getName();
+            add(this.counts, key, stage.getCount());
+            add(this.nanos, key, stage.getNanos());
+            add(this.bytes, key, stage.getBytes());
+            add(this.allocatedBytes, key, stage.getAllocatedBytes());
+            add(this.allocatedBytes, op, stage.getAllocatedBytes());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        return snapshot(this.counts, false);
+    }
+
+    @Override
+    public Map<String, Long> getFailures() {
+        return snapshot(this.failures, false);
+    }
+
+    @Override
+    public Map<String, Long> getMillis() {
+        return snapshot(this.nanos, true);
+    }
+
+    @Override
+    public Map<String, Long> getBytes() {
+        return snapshot(this.bytes, false);
+    }
+
+    @Override
+    public Map<String, Long> getAllocatedBytes() {
+        return snapshot(this.allocatedBytes, false);
+    }
+
+    @Override
+    public boolean isAllocationTracked() {
+        return this.allocationTracked;
+    }
+
+    @Override
+    public void setAllocationTracked(boolean tracked) {
+        this.allocationTracked = tracked;
+        OpenStegoStats.setAllocationTracked(tracked);
+    }
+
+    @Override
+    public void reset() {
+        this.counts.clear();
+        this.failures.clear();
+        this.nanos.clear();
+        this.bytes.clear();
+        this.allocatedBytes.clear();
+    }
+
+    /**
+     * Utility method to add the value against the key
+     *
+     * @param map   Map to update
+     * @param key   Key
+     * @param value Value to add
+     */
+    private static void add(ConcurrentMap<String, AtomicLong> map, String key, long value) {
+        AtomicLong total = map.get(key);
+        if (total == null) {
+            total = map.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        total.addAndGet(value);
+    }
+
+    /**
+     * Utility method to take a sorted snapshot of the map
+     *
+     * @param map      Map to copy
+     * @param toMillis Flag to convert the values from nanoseconds to milliseconds
+     * @return Snapshot
+     */
+    private static Map<String, Long> snapshot(ConcurrentMap<String, AtomicLong> map, boolean toMillis) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : map.entrySet()) {
+            long value = entry.getValue().get();
+            result.put(entry.getKey(), toMillis ? TimeUnit.NANOSECONDS.toMillis(value) : value);
+        }
+        return result;
+    }
+}
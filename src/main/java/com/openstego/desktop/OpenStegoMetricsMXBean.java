@@ -0,0 +1,69 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.util.Map;
+
+/**
+ * JMX interface for the aggregated statistics of the operations of {@link OpenStego}. Keys of the maps are of the form
+ * <code>&lt;operation&gt;</code> (for the totals of the operation) or <code>&lt;operation&gt;.&lt;stage&gt;</code>.
+ */
+public interface OpenStegoMetricsMXBean {
+    /**
+     * Get method for the number of operations (or stage runs)
+     *
+     * @return Counts
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * Get method for the number of failed operations
+     *
+     * @return Failure counts
+     */
+    Map<String, Long> getFailures();
+
+    /**
+     * Get method for the total time spent (in milliseconds)
+     *
+     * @return Times in milliseconds
+     */
+    Map<String, Long> getMillis();
+
+    /**
+     * Get method for the total bytes processed
+     *
+     * @return Bytes processed
+     */
+    Map<String, Long> getBytes();
+
+    /**
+     * Get method for the total bytes allocated (only if allocation tracking is enabled)
+     *
+     * @return Allocated bytes
+     */
+    Map<String, Long> getAllocatedBytes();
+
+    /**
+     * Get method for the allocation tracking flag
+     *
+     * @return true if allocated bytes are measured
+     */
+    boolean isAllocationTracked();
+
+    /**
+     * Set method for the allocation tracking flag
+     *
+     * @param tracked true to measure allocated bytes
+     */
+    void setAllocationTracked(boolean tracked);
+
+    /**
+     * Method to reset all the statistics
+     */
+    void reset();
+}
@@ -8,14 +8,22 @@ package com.openstego.desktop;
 
 import com.openstego.desktop.ui.OpenStegoFrame;
 import com.openstego.desktop.ui.PluginEmbedOptionsUI;
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.ImageDiff;
 import com.openstego.desktop.util.LabelUtil;
 import com.openstego.desktop.util.cmd.CmdLineOptions;
 
+import java.io.File;
 import java.util.List;
 
 /**
  * Abstract class for stego plugins for OpenStego. Abstract methods need to be implemented to add support for more
  * steganographic algorithms
+ * <p>
+ * A single plugin instance is shared by all the callers (see {@link com.openstego.desktop.util.PluginManager}), so the
+ * plugins must not keep any per-call state in their fields. The configuration must be read using {@link #getConfig()},
+ * which gives the configuration bound to the current call by {@link OpenStego}, so that one plugin instance can be used
+ * by multiple threads in parallel with different configuration
  *
  * @param <C> Config class for the plugin
  */
@@ -36,9 +44,18 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
     }
 
     /**
-     * Configuration data to be used while embedding / extracting data
+     * Default configuration data, which is used when no configuration is bound to the current call
+     *
+     * @deprecated Kept for compatibility with existing plugins. This does not see the configuration bound to the
+     * current call, so the configuration must be read using {@link #getConfig()} instead
      */
-    protected C config = null;
+    @Deprecated
+    protected volatile C config = null;
+
+    /**
+     * Configuration data bound to the current call (per thread)
+     */
+    private final ThreadLocal<C> callConfig = new ThreadLocal<>();
 
     // ------------- Metadata Methods -------------
 
@@ -106,6 +123,96 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
     public abstract byte[] embedData(byte[] msg, String msgFileName, byte[] cover, String coverFileName, String stegoFileName)
             throws OpenStegoException;
 
+    /**
+     * Method to embed the message into the cover file, and write the stego data directly to the stego file. By default,
+     * the cover file is read in memory and {@link #embedData(byte[], String, byte[], String, String)} is used. Plugins
+     * which can process the cover image in parts (e.g. in strips of rows) should override this, so that large images
+     * do not need to be held in memory
+     *
+     * @param msg         Message to be embedded
+     * @param msgFileName Name of the message file. If this value is provided, then the filename should be embedded in
+     *                    the cover data
+     * @param coverFile   Cover file into which message needs to be embedded (null to generate a random cover image)
+     * @param stegoFile   Output stego file
+     * @throws OpenStegoException Processing issues
+     */
+    public void embedData(byte[] msg, String msgFileName, File coverFile, File stegoFile) throws OpenStegoException {
+        byte[] stegoData = embedData(msg, msgFileName, coverFile == null ? null : CommonUtil.fileToBytes(coverFile),
+                coverFile == null ? null : coverFile.getName(), stegoFile.getName());
+        CommonUtil.writeFile(stegoData, stegoFile);
+    }
+
+    /**
+     * Method to estimate the capacity of the cover data, i.e. the maximum size of the message (after compression and
+     * encryption) which can be embedded into it. The estimate should be cheap to compute, i.e. without decoding the
+     * cover data fully, so that oversize messages can be rejected upfront. This method needs to be overridden only if
+     * the purpose of the plugin is Data Hiding
+     *
+     * @param cover         Cover data for which capacity needs to be estimated
+     * @param coverFileName Name of the cover file
+     * @param msgFileName   Name of the message file (which might need to be embedded along with the message)
+     * @return Capacity in bytes, or -1 if the capacity can not be estimated
+     * @throws OpenStegoException Processing issues
+     */
+    public long estimateCapacity(byte[] cover, String coverFileName, String msgFileName) throws OpenStegoException {
+        return -1;
+    }
+
+    /**
+     * Method to estimate the capacity of the cover file. Default implementation reads the complete cover file and calls
+     * {@link #estimateCapacity(byte[], String, String)}. Plugins which can read only the header of the file should
+     * override this method
+     *
+     * @param coverFile   Cover file for which capacity needs to be estimated (null if random cover image is to be used)
+     * @param msgFileName Name of the message file (which might need to be embedded along with the message)
+     * @return Capacity in bytes, or -1 if the capacity can not be estimated
+     * @throws OpenStegoException Processing issues
+     */
+    public long estimateCapacity(File coverFile, String msgFileName) throws OpenStegoException {
+        if (coverFile == null) {
+            return estimateCapacity(null, null, msgFileName);
+        }
+        return estimateCapacity(CommonUtil.fileToBytes(coverFile), coverFile.getName(), msgFileName);
+    }
+
+    /**
+     * Method to quickly detect whether the stego data contains data embedded by this plugin. Implementations should
+     * decode only as much of the stego data as is needed to read the header of the embedded data, and should not
+     * modify the configuration of the plugin, as this method may be called from multiple threads for scanning. This
+     * method needs to be overridden only if the purpose of the plugin is Data Hiding
+     *
+     * @param stegoData     Stego data to be checked
+     * @param stegoFileName Name of the stego file
+     * @return Name of the embedded message file (empty if no name was embedded), or null if no embedded data is found
+     * @throws OpenStegoException Processing issues
+     */
+    public String detectMsgFileName(byte[] stegoData, String stegoFileName) throws OpenStegoException {
+        return null;
+    }
+
+    /**
+     * Method to check whether the plugin uses the password to decide where the data is embedded in the file. For such
+     * plugins, data embedded using a password can not be detected without the same password. This method needs to be
+     * overridden only if the purpose of the plugin is Data Hiding
+     *
+     * @return true if the password is needed to locate the embedded data
+     */
+    public boolean isPasswordNeededToDetect() {
+        return false;
+    }
+
+    /**
+     * Method to get the no. of phases (i.e. loops reporting progress via {@link OpenStegoProgress#checkpoint}) which
+     * the plugin runs for the operation, including image decoding and encoding. It is used to split the progress evenly
+     * between the phases (see {@link OpenStegoProgress#expectPhases(int)})
+     *
+     * @param operation Type of the operation
+     * @return No. of phases, or 0 if not known
+     */
+    public int getProgressPhaseCount(OpenStegoEvents.Type operation) {
+        return 0;
+    }
+
     /**
      * Method to extract the message file name from the stego data
      *
@@ -189,6 +296,22 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
     public abstract byte[] getDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName, String diffFileName)
             throws OpenStegoException;
 
+    /**
+     * Method to compare the stego data with the original cover data, and to compute the quality metrics (MSE, PSNR
+     * and SSIM) of the stego data. This method needs to be overridden only if the plugin works on images
+     *
+     * @param stegoData     Stego data containing the embedded data
+     * @param stegoFileName Name of the stego file
+     * @param coverData     Original cover data
+     * @param coverFileName Name of the cover file
+     * @return Difference and quality metrics, or null if the plugin does not support it
+     * @throws OpenStegoException Processing issues
+     */
+    public ImageDiff getImageDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName)
+            throws OpenStegoException {
+        return null;
+    }
+
     /**
      * Method to get the list of supported file extensions for reading
      *
@@ -239,16 +362,19 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
     // ------------- Config Related Methods -------------
 
     /**
-     * Method to get current configuration data
+     * Method to get current configuration data. This gives the configuration bound to the current call if any,
+     * otherwise the default configuration of the plugin
      *
      * @return Configuration data
      */
     public C getConfig() {
-        return this.config;
+        C bound = this.callConfig.get();
+        return bound != null ? bound : this.config;
     }
 
     /**
-     * Method to reset configuration data to default
+     * Method to reset configuration data to default. As the default configuration is shared by all the callers of
+     * this plugin, {@link #newConfig()} should be used instead when the plugin is used by multiple threads
      *
      * @throws OpenStegoException Processing issues
      */
@@ -257,7 +383,9 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
     }
 
     /**
-     * Method to reset configuration data to default
+     * Method to reset configuration data to default. As the default configuration is shared by all the callers of
+     * this plugin, {@link #newConfig(CmdLineOptions)} should be used instead when the plugin is used by multiple
+     * threads
      *
      * @param options Command-line options
      * @throws OpenStegoException Processing issues
@@ -266,6 +394,56 @@ public abstract class OpenStegoPlugin<C extends OpenStegoConfig> {
         this.config = createConfig(options);
     }
 
+    /**
+     * Method to create new default configuration data, without changing the configuration of the plugin
+     *
+     * @return Configuration data
+     * @throws OpenStegoException Processing issues
+     */
+    public C newConfig() throws OpenStegoException {
+        return createConfig();
+    }
+
+    /**
+     * Method to create new configuration data based on the command-line options, without changing the configuration
+     * of the plugin
+     *
+     * @param options Command-line options
+     * @return Configuration data
+     * @throws OpenStegoException Processing issues
+     */
+    public C newConfig(CmdLineOptions options) throws OpenStegoException {
+        return createConfig(options);
+    }
+
+    /**
+     * Method to bind the configuration data to the current call (i.e. the current thread), so that it is returned by
+     * {@link #getConfig()} until it is restored using {@link #restoreConfig(OpenStegoConfig)}
+     *
+     * @param config Configuration data for the call
+     * @return Configuration data which was bound earlier (null if none)
+     */
+    @SuppressWarnings("unchecked")
+    OpenStegoConfig bindConfig(OpenStegoConfig config) {
+        C previous = this.callConfig.get();
+        this.callConfig.set((C) config);
+        return previous;
+    }
+
+    /**
+     * Method to restore the configuration data which was bound before {@link #bindConfig(OpenStegoConfig)} was called
+     *
+     * @param previous Configuration data returned by {@link #bindConfig(OpenStegoConfig)}
+     */
+    @SuppressWarnings("unchecked")
+    void restoreConfig(OpenStegoConfig previous) {
+        if (previous == null) {
+            this.callConfig.remove();
+        } else {
+            this.callConfig.set((C) previous);
+        }
+    }
+
     /**
      * Method to create default configuration data (specific to this plugin)
      *
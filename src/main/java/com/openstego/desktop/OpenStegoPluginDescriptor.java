@@ -0,0 +1,92 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lightweight descriptor for a stego plugin. Descriptors are discovered using {@link java.util.ServiceLoader} (listed
+ * in <code>META-INF/services/com.openstego.desktop.OpenStegoPluginDescriptor</code>), so that the plugins can be
+ * listed and selected by name and purpose without loading the plugin classes. The plugin itself is instantiated only
+ * when it is first used.
+ * <p>
+ * Subclasses must have a public no-argument constructor, and must not load the plugin class (e.g. the plugin class
+ * name must be given as a string).
+ */
+public abstract class OpenStegoPluginDescriptor {
+    /**
+     * Name of the plugin
+     */
+    private final String name;
+
+    /**
+     * Fully qualified class name of the plugin
+     */
+    private final String pluginClassName;
+
+    /**
+     * Purpose(s) of the plugin
+     */
+    private final List<OpenStegoPlugin.Purpose> purposes;
+
+    /**
+     * Default constructor
+     *
+     * @param name            Name of the plugin (must be same as {@link OpenStegoPlugin#getName()})
+     * @param pluginClassName Fully qualified class name of the plugin
+     * @param purposes        Purpose(s) of the plugin (must be same as {@link OpenStegoPlugin#getPurposes()})
+     */
+    protected OpenStegoPluginDescriptor(String name, String pluginClassName, OpenStegoPlugin.Purpose... purposes) {
+        this.name = name;
+        this.pluginClassName = pluginClassName;
+        this.purposes = Collections.unmodifiableList(Arrays.asList(purposes));
+    }
+
+    /**
+     * Gives the name of the plugin
+     *
+     * @return Name of the plugin
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gives the fully qualified class name of the plugin
+     *
+     * @return Class name of the plugin
+     */
+    public String getPluginClassName() {
+        return this.pluginClassName;
+    }
+
+    /**
+     * Gives the purpose(s) of the plugin
+     *
+     * @return Purpose(s) of the plugin
+     */
+    public List<OpenStegoPlugin.Purpose> getPurposes() {
+        return this.purposes;
+    }
+
+    /**
+     * Method to create a new instance of the plugin
+     *
+     * @return Plugin instance
+     * @throws OpenStegoException Processing issues
+     */
+    public OpenStegoPlugin<?> createPlugin() throws OpenStegoException {
+        try {
+            return (OpenStegoPlugin<?>) Class.forName(this.pluginClassName, true, getClass().getClassLoader())
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new OpenStegoException(ex);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Token to track the progress of the operations of {@link OpenStego} (and the plugins), and to cancel them.
+ * <p>
+ * The token is attached to the thread running the operation using {@link #attach()}. Long running loops (e.g. in LSB
+ * streams, DWT transforms and YUV conversions) then call {@link #checkpoint(long, long)} or {@link #checkCancelled()}
+ * regularly, which throw {@link CancellationException} once the token is cancelled. If no token is attached, these
+ * calls do nothing.
+ * <p>
+ * An operation runs multiple loops one after the other (phases). The number of upcoming phases is declared using
+ * {@link #expectPhases(int)} (by {@link OpenStego}, as per {@link OpenStegoPlugin#getProgressPhaseCount}), and the
+ * remaining range of the progress is split evenly between them. If the number of phases is not known, then each new
+ * phase covers half of the remaining range, which keeps the progress moving forward without ever reaching the end
+ * before the operation completes.
+ */
+public class OpenStegoProgress {
+    /**
+     * Token attached to the current thread
+     */
+    private static final ThreadLocal<OpenStegoProgress> current = new ThreadLocal<>();
+
+    /**
+     * Listener for the progress (can be null)
+     */
+    private final Listener listener;
+
+    /**
+     * Flag to indicate whether the token has been cancelled
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Progress (from 0.0 to 1.0) at the start of the current phase
+     */
+    private double phaseStart = 0.0;
+
+    /**
+     * Range of the progress covered by the current phase
+     */
+    private double phaseRange = 0.0;
+
+    /**
+     * Work done in the current phase, as per the last checkpoint
+     */
+    private long lastDone = -1;
+
+    /**
+     * Total work of the current phase, as per the last checkpoint
+     */
+    private long lastTotal = -1;
+
+    /**
+     * No. of upcoming phases which are expected (0 if not known)
+     */
+    private int expectedPhases = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param listener Listener for the progress (can be null)
+     */
+    public OpenStegoProgress(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Method to attach the token to the current thread. It must be detached (using {@link #detach()}) once the
+     * operations are done
+     */
+    public void attach() {
+        current.set(this);
+    }
+
+    /**
+     * Method to detach the token from the current thread
+     */
+    public void detach() {
+        current.remove();
+    }
+
+    /**
+     * Method to cancel the operation. This can be called from any thread
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Method to check whether the token has been cancelled
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Method to reset the progress, e.g. before starting the operation on the next file
+     */
+    public void reset() {
+        this.phaseStart = 0.0;
+        this.phaseRange = 0.0;
+        this.lastDone = -1;
+        this.lastTotal = -1;
+        this.expectedPhases = 0;
+    }
+
+    /**
+     * Method to declare the no. of upcoming phases of the operation, so that the remaining range of the progress is
+     * split evenly between them. Phases beyond the declared ones cover half of the remaining range (if any)
+     *
+     * @param count No. of upcoming phases (0 if not known)
+     */
+    public static void expectPhases(int count) {
+        OpenStegoProgress progress = current.get();
+        if (progress != null) {
+            progress.expectedPhases = Math.max(0, count);
+        }
+    }
+
+    /**
+     * Method to report the progress of the current loop, and to check for cancellation. A new phase is assumed if the
+     * total changes or the work done goes backwards
+     *
+     * @param done  Work done in the loop (e.g. rows processed)
+     * @param total Total work of the loop (e.g. no. of rows)
+     * @throws CancellationException If the token has been cancelled
+     */
+    public static void checkpoint(long done, long total) {
+        OpenStegoProgress progress = current.get();
+        if (progress != null) {
+            progress.update(done, total);
+        }
+    }
+
+    /**
+     * Method to check for cancellation, without reporting any progress. This should be used in the inner loops which
+     * run multiple times within a phase
+     *
+     * @throws CancellationException If the token has been cancelled
+     */
+    public static void checkCancelled() {
+        OpenStegoProgress progress = current.get();
+        if (progress != null && progress.cancelled) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Method to update the progress
+     *
+     * @param done  Work done in the loop
+     * @param total Total work of the loop
+     */
+    private void update(long done, long total) {
+        if (this.cancelled) {
+            throw new CancellationException();
+        }
+        if (total <= 0) {
+            return;
+        }
+
+        if (total != this.lastTotal || done < this.lastDone) {
+            // New phase
+            this.phaseStart += this.phaseRange;
+            if (this.expectedPhases > 0) {
+                this.phaseRange = (1.0 - this.phaseStart) / this.expectedPhases;
+                this.expectedPhases--;
+            } else {
+                this.phaseRange = (1.0 - this.phaseStart) / 2;
+            }
+        }
+        this.lastDone = done;
+        this.lastTotal = total;
+
+        if (this.listener != null) {
+            this.listener.progressChanged(this.phaseStart + this.phaseRange * Math.min(done, total) / total);
+        }
+    }
+
+    /**
+     * Listener for the progress
+     */
+    public interface Listener {
+        /**
+         * Method called whenever progress is reported. It is called on the thread running the operation
+         *
+         * @param fraction Progress from 0.0 to 1.0
+         */
+        void progressChanged(double fraction);
+    }
+}
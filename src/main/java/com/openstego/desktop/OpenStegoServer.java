@@ -0,0 +1,544 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.PluginManager;
+import com.openstego.desktop.util.UserPreferences;
+import com.openstego.desktop.util.cmd.CmdLineOptions;
+import com.openstego.desktop.util.cmd.CmdLineParser;
+import com.openstego.desktop.util.dwt.FilterRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident server for OpenStego, which accepts requests over a local HTTP endpoint. This avoids paying for JVM startup
+ * and initialization for every operation, as the plugins, DWT filters and crypto providers are kept warm.
+ * <p>
+ * Following endpoints are supported (using POST), which correspond to the commands of the command line:
+ * <ul>
+ * <li>/embed - Message is read from <code>messagefile</code>, or else from the request body</li>
+ * <li>/extract - Stego data is read from <code>stegofile</code>, or else from the request body</li>
+ * <li>/embedmark - Signature is read from <code>sigfile</code>, or else from the request body</li>
+ * <li>/checkmark - Stego data is read from <code>stegofile</code>, or else from the request body</li>
+ * </ul>
+ * The query parameters are the same as the long options of the command line (without the leading "--"), e.g.
+ * <code>/embed?algorithm=RandomLSB&amp;coverfile=a.png&amp;nocompress</code>. Password can also be provided using the
+ * <code>X-OpenStego-Password</code> header. If the output file is not provided, then the output is returned as the
+ * response body. Endpoint /status (using GET) can be used to check whether the server is up.
+ * <p>
+ * As the requests can read and write local files, every request must carry the access token in the
+ * <code>X-OpenStego-Token</code> header. A new token is generated each time the server is started, and is written to a
+ * file in the config directory which is readable only by the owner (see {@link #getTokenFile()}). Requests carrying an
+ * <code>Origin</code> header are rejected, so that web pages opened in a browser can not use the server.
+ * <p>
+ * Requests are processed by a fixed number of threads, and a bounded number of requests are queued. Once the queue
+ * is full, new requests are rejected with status 503 until a request completes.
+ */
+public class OpenStegoServer {
+    /**
+     * Default port for the server
+     */
+    public static final int DEFAULT_PORT = 8765;
+
+    /**
+     * Default size of the request queue
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * Header for the password
+     */
+    private static final String PASSWORD_HEADER = "X-OpenStego-Password";
+
+    /**
+     * Header for the name of the extracted message file
+     */
+    private static final String FILENAME_HEADER = "X-OpenStego-FileName";
+
+    /**
+     * Header for the access token
+     */
+    private static final String TOKEN_HEADER = "X-OpenStego-Token";
+
+    /**
+     * Flag set for the requests which are rejected because the request queue is full
+     */
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<>();
+
+    /**
+     * HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Executor to process the requests
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Executor to send the response for the requests which are rejected because the request queue is full
+     */
+    private final ThreadPoolExecutor rejectExecutor;
+
+    /**
+     * Access token which must be provided with every request
+     */
+    private byte[] token;
+
+    /**
+     * File to which the access token is written
+     */
+    private Path tokenFile;
+
+    /**
+     * Default constructor
+     *
+     * @param port      Port to listen on (on the loopback interface). If 0, then a free port is chosen
+     * @param threads   Max number of requests to process concurrently
+     * @param queueSize Max number of requests to queue
+     * @throws OpenStegoException Processing issues
+     */
+    public OpenStegoServer(int port, int threads, int queueSize) throws OpenStegoException {
+        if (port < 0 || port > 65535) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, port);
+        }
+        if (threads < 1) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, threads);
+        }
+        if (queueSize < 1) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, queueSize);
+        }
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+        this.rejectExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+        // Requests beyond the queue size are answered with 503 by a separate thread, so that the dispatcher thread of
+        // the server is never blocked. If even that falls behind, then the connection is simply closed by the server
+        this.server.setExecutor(task -> {
+            try {
+                this.executor.execute(task);
+            } catch (RejectedExecutionException reEx) {
+                if (this.executor.isShutdown()) {
+                    throw reEx;
+                }
+                this.rejectExecutor.execute(() -> {
+                    OVERLOADED.set(Boolean.TRUE);
+                    try {
+                        task.run();
+                    } finally {
+                        OVERLOADED.remove();
+                    }
+                });
+            }
+        });
+        this.server.createContext("/status", exchange -> sendResponse(exchange, 200, "OK"));
+        for (String command : new String[]{"embed", "extract", "embedmark", "checkmark"}) {
+            this.server.createContext("/" + command, exchange -> handle(exchange, command));
+        }
+    }
+
+    /**
+     * Method to start the server after warming up the plugins, DWT filters and crypto providers
+     *
+     * @throws OpenStegoException Processing issues
+     */
+    public void start() throws OpenStegoException {
+        warmup();
+        writeToken();
+        this.executor.prestartAllCoreThreads();
+        this.server.start();
+    }
+
+    /**
+     * Method to stop the server. Requests in progress are given the provided time to complete
+     *
+     * @param delay Max time (in seconds) to wait for requests in progress
+     */
+    public void stop(int delay) {
+        this.server.stop(delay);
+        this.executor.shutdown();
+        this.rejectExecutor.shutdown();
+        try {
+            this.executor.awaitTermination(delay, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.tokenFile != null) {
+            try {
+                Files.deleteIfExists(this.tokenFile);
+            } catch (IOException ignore) {
+                // Token is useless once the server is stopped, so failure to delete it is not an issue
+            }
+        }
+    }
+
+    /**
+     * Get method for the port on which the server is listening
+     *
+     * @return Port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Get method for the file containing the access token. This is available only after the server is started
+     *
+     * @return File containing the access token
+     */
+    public File getTokenFile() {
+        return this.tokenFile == null ? null : this.tokenFile.toFile();
+    }
+
+    /**
+     * Method to generate a new access token, and write it to a file which is readable only by the owner
+     *
+     * @throws OpenStegoException Processing issues
+     */
+    private void writeToken() throws OpenStegoException {
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        String tokenStr = Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        try {
+            Path path = UserPreferences.getConfigPath().resolve("server-" + getPort() + ".token");
+            // File is re-created (instead of overwritten) so that it never has looser permissions than the owner only
+            Files.deleteIfExists(path);
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+            } else {
+                File file = Files.createFile(path).toFile();
+                if (!(file.setReadable(false, false) && file.setReadable(true, true) && file.setWritable(false, false) && file.setWritable(true, true))) {
+                    throw new IOException(file.getPath());
+                }
+            }
+            Files.write(path, tokenStr.getBytes(StandardCharsets.UTF_8));
+            this.tokenFile = path;
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+        this.token = tokenStr.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Method to warm up the components which are expensive to initialize
+     *
+     * @throws OpenStegoException Processing issues
+     */
+    private void warmup() throws OpenStegoException {
+        FilterRegistry.warmup();
+        for (String algo : new String[]{OpenStegoCrypto.ALGO_AES128, OpenStegoCrypto.ALGO_AESGCM}) {
+            new OpenStegoCrypto("warmup", algo).encrypt(new byte[1]);
+        }
+    }
+
+    /**
+     * Method to handle the request for a command
+     *
+     * @param exchange HTTP exchange
+     * @param command  Command to execute
+     * @throws IOException Processing issues
+     */
+    private void handle(HttpExchange exchange, String command) throws IOException {
+        try {
+            if (OVERLOADED.get() != null) {
+                sendResponse(exchange, 503, "Server busy");
+                return;
+            }
+            // Browsers always send the origin for cross-origin POST requests, which are never expected from real clients
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                sendResponse(exchange, 403, "Origin not allowed");
+                return;
+            }
+            String reqToken = exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+            if (reqToken == null || !MessageDigest.isEqual(this.token, reqToken.getBytes(StandardCharsets.UTF_8))) {
+                sendResponse(exchange, 401, "Invalid or missing " + TOKEN_HEADER);
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                sendResponse(exchange, 405, exchange.getRequestMethod());
+                return;
+            }
+
+            CmdLineOptions options = parseOptions(exchange);
+            OpenStegoPlugin<?> plugin = getPlugin(options.getStringValue("-a"), command);
+            // Plugins are shared by all the request threads, so the configuration is created for each request
+            OpenStego stego = new OpenStego(plugin, plugin.newConfig(options));
+            byte[] body = CommonUtil.streamToBytes(exchange.getRequestBody());
+
+            switch (command) {
+                case "embed":
+                case "embedmark":
+                    processEmbed(exchange, options, stego, body, command.equals("embedmark"));
+                    break;
+                case "extract":
+                    processExtract(exchange, options, stego, body);
+                    break;
+                case "checkmark":
+                    processCheckMark(exchange, options, stego, body);
+                    break;
+            }
+        } catch (OpenStegoException osEx) {
+            sendResponse(exchange, osEx.getErrorCode() == OpenStegoException.UNHANDLED_EXCEPTION ? 500 : 400, String.valueOf(osEx.getMessage()));
+        } catch (RuntimeException | OutOfMemoryError ex) {
+            sendResponse(exchange, 500, ex.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Method to process "embed" and "embedmark" requests
+     *
+     * @param exchange HTTP exchange
+     * @param options  Request options
+     * @param stego    {@link OpenStego} object
+     * @param body     Request body
+     * @param mark     Flag to indicate whether to embed watermark
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    private void processEmbed(HttpExchange exchange, CmdLineOptions options, OpenStego stego, byte[] body, boolean mark)
+            throws OpenStegoException, IOException {
+        String msgFileName = options.getStringValue(mark ? "-gf" : "-mf");
+        String coverFileName = options.getStringValue("-cf");
+        String stegoFileName = options.getStringValue("-sf");
+        byte[] msg = body;
+        byte[] cover = null;
+        byte[] out;
+
+        if (msgFileName != null) {
+            msg = CommonUtil.fileToBytes(new File(msgFileName));
+            msgFileName = new File(msgFileName).getName();
+        }
+        if (coverFileName != null) {
+            cover = CommonUtil.fileToBytes(new File(coverFileName));
+            coverFileName = new File(coverFileName).getName();
+        }
+
+        if (mark) {
+            out = stego.embedMark(msg, msgFileName, cover, coverFileName, stegoFileName);
+        } else {
+            out = stego.embedData(msg, msgFileName, cover, coverFileName, stegoFileName);
+        }
+        writeOutput(exchange, out, stegoFileName, null);
+    }
+
+    /**
+     * Method to process "extract" request
+     *
+     * @param exchange HTTP exchange
+     * @param options  Request options
+     * @param stego    {@link OpenStego} object
+     * @param body     Request body
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    private void processExtract(HttpExchange exchange, CmdLineOptions options, OpenStego stego, byte[] body) throws OpenStegoException, IOException {
+        String stegoFileName = options.getStringValue("-sf");
+        String extractDir = options.getStringValue("-xd");
+        String extractFileName = options.getStringValue("-xf");
+        List<?> msgData;
+
+        if (stegoFileName != null) {
+            msgData = stego.extractData(new File(stegoFileName));
+        } else {
+            msgData = stego.extractData(body, null);
+        }
+
+        // Output is written to file only if the extract file or directory is provided
+        if (extractDir != null || extractFileName != null) {
+            if (extractFileName == null) {
+                extractFileName = (String) msgData.get(0);
+                if (extractFileName == null || extractFileName.equals("")) {
+                    extractFileName = "untitled";
+                }
+            }
+            if (extractDir != null) {
+                extractFileName = extractDir + File.separator + extractFileName;
+            }
+        }
+        writeOutput(exchange, (byte[]) msgData.get(1), extractFileName, (String) msgData.get(0));
+    }
+
+    /**
+     * Method to process "checkmark" request
+     *
+     * @param exchange HTTP exchange
+     * @param options  Request options
+     * @param stego    {@link OpenStego} object
+     * @param body     Request body
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    private void processCheckMark(HttpExchange exchange, CmdLineOptions options, OpenStego stego, byte[] body)
+            throws OpenStegoException, IOException {
+        String stegoFileName = options.getStringValue("-sf");
+        String sigFileName = options.getStringValue("-gf");
+        byte[] stegoData = body;
+
+        if (sigFileName == null) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, "sigfile");
+        }
+        if (stegoFileName != null) {
+            stegoData = CommonUtil.fileToBytes(new File(stegoFileName));
+            stegoFileName = new File(stegoFileName).getName();
+        }
+
+        double correlation = stego.checkMark(stegoData, stegoFileName, CommonUtil.fileToBytes(new File(sigFileName)));
+        sendResponse(exchange, 200, String.valueOf(correlation));
+    }
+
+    /**
+     * Method to write the output to the file (if provided), or else to the response body
+     *
+     * @param exchange HTTP exchange
+     * @param data     Output data
+     * @param fileName Name of the output file
+     * @param name     Name of the output to be returned in the header (optional)
+     * @throws OpenStegoException Processing issues
+     * @throws IOException        Processing issues
+     */
+    private void writeOutput(HttpExchange exchange, byte[] data, String fileName, String name) throws OpenStegoException, IOException {
+        if (name != null) {
+            exchange.getResponseHeaders().set(FILENAME_HEADER, name);
+        }
+
+        if (fileName != null) {
+            CommonUtil.writeFile(data, fileName);
+            sendResponse(exchange, 200, fileName);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(data);
+            }
+        }
+    }
+
+    /**
+     * Method to convert the query parameters of the request to the command line options
+     *
+     * @param exchange HTTP exchange
+     * @return Command line options
+     * @throws OpenStegoException Processing issues
+     */
+    private CmdLineOptions parseOptions(HttpExchange exchange) throws OpenStegoException {
+        List<String> args = new ArrayList<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        String password = exchange.getRequestHeaders().getFirst(PASSWORD_HEADER);
+        int index;
+
+        try {
+            if (query != null) {
+                for (String param : query.split("&")) {
+                    if (param.isEmpty()) {
+                        continue;
+                    }
+                    index = param.indexOf('=');
+                    if (index < 0 || index == param.length() - 1) {
+                        args.add("--" + URLDecoder.decode(index < 0 ? param : param.substring(0, index), "UTF-8"));
+                    } else {
+                        args.add("--" + URLDecoder.decode(param.substring(0, index), "UTF-8") + "=" + URLDecoder.decode(param.substring(index + 1), "UTF-8"));
+                    }
+                }
+            }
+        } catch (UnsupportedEncodingException | IllegalArgumentException ex) {
+            throw new OpenStegoException(ex, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, query);
+        }
+        if (password != null) {
+            args.add("--password=" + password);
+        }
+
+        // First parse is needed to get the plugin, for the plugin specific options
+        String[] argArray = args.toArray(new String[0]);
+        CmdLineParser parser = new CmdLineParser(OpenStegoCmd.getStdCmdLineOptions(null), argArray);
+        String pluginName = parser.getParsedOptions().getStringValue("-a");
+        if (pluginName != null) {
+            parser = new CmdLineParser(OpenStegoCmd.getStdCmdLineOptions(PluginManager.getPluginByName(pluginName)), argArray);
+        }
+
+        if (parser.getNonStdOptions().size() > 0) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.INVALID_SERVER_PARAM, parser.getNonStdOptions().get(0));
+        }
+        return parser.getParsedOptions();
+    }
+
+    /**
+     * Method to get the plugin instance (shared by all the request threads). If the plugin name is not provided, then
+     * the plugin is auto-selected as per {@link PluginManager#getDefaultPluginName(OpenStegoPlugin.Purpose)}
+     *
+     * @param pluginName Name of the plugin
+     * @param command    Command to execute
+     * @return Plugin instance
+     * @throws OpenStegoException Processing issues
+     */
+    private OpenStegoPlugin<?> getPlugin(String pluginName, String command) throws OpenStegoException {
+        OpenStegoPlugin<?> plugin;
+
+        if (pluginName != null) {
+            plugin = PluginManager.getPluginByName(pluginName);
+            if (plugin == null) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.PLUGIN_NOT_FOUND, pluginName);
+            }
+        } else {
+            String defaultName = PluginManager.getDefaultPluginName(
+                    command.endsWith("mark") ? OpenStegoPlugin.Purpose.WATERMARKING : OpenStegoPlugin.Purpose.DATA_HIDING);
+            if (defaultName == null) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.NO_PLUGIN_SPECIFIED);
+            }
+            plugin = PluginManager.getPluginByName(defaultName);
+        }
+        return plugin;
+    }
+
+    /**
+     * Method to send the text response
+     *
+     * @param exchange HTTP exchange
+     * @param status   HTTP status code
+     * @param text     Response text
+     * @throws IOException Processing issues
+     */
+    private static void sendResponse(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] data = text.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(status, data.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(data);
+        }
+    }
+}
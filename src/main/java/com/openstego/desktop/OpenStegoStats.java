@@ -0,0 +1,485 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Instrumentation for the operations of {@link OpenStego}. Each operation (e.g. embed or extract) records the wall time,
+ * bytes processed and (optionally) bytes allocated by the thread for each of its stages (e.g. image decoding,
+ * compression, encryption, plugin processing and image encoding). Once the operation completes, the statistics are
+ * passed to the registered {@link OpenStegoStatsListener}s.
+ * <p>
+ * Stages can be nested (e.g. image decoding happens within the plugin stage), and the time and allocation of a nested
+ * stage are excluded from the enclosing stage, so that the stages add up to the total of the operation.
+ * <p>
+ * Instrumentation is enabled only while at least one listener is registered. Otherwise, each instrumentation point
+ * costs just a volatile read.
+ */
+public class OpenStegoStats {
+    /**
+     * Stage - Image decoding
+     */
+    public static final String STAGE_DECODE = "decode";
+
+    /**
+     * Stage - Compression
+     */
+    public static final String STAGE_COMPRESS = "compress";
+
+    /**
+     * Stage - Decompression
+     */
+    public static final String STAGE_DECOMPRESS = "decompress";
+
+    /**
+     * Stage - Encryption
+     */
+    public static final String STAGE_ENCRYPT = "encrypt";
+
+    /**
+     * Stage - Decryption
+     */
+    public static final String STAGE_DECRYPT = "decrypt";
+
+    /**
+     * Stage - Plugin processing (excluding the image decoding and encoding done by the plugin)
+     */
+    public static final String STAGE_PLUGIN = "plugin";
+
+    /**
+     * Stage - Image encoding
+     */
+    public static final String STAGE_ENCODE = "encode";
+
+    /**
+     * Registered listeners
+     */
+    private static final List<OpenStegoStatsListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Operation being recorded for the current thread
+     */
+    private static final ThreadLocal<OpenStegoStats> current = new ThreadLocal<>();
+
+    /**
+     * Thread MX bean, if it supports measurement of allocated bytes
+     */
+    private static final com.sun.management.ThreadMXBean allocBean;
+
+    /**
+     * Flag to indicate whether instrumentation is enabled (i.e. there are listeners)
+     */
+    private static volatile boolean enabled = false;
+
+    /**
+     * Flag to indicate whether the allocated bytes need to be measured
+     */
+    private static volatile boolean allocationTracked = false;
+
+    static {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        allocBean = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+
+    /**
+     * Name of the operation
+     */
+    private final String operation;
+
+    /**
+     * Name of the plugin
+     */
+    private final String pluginName;
+
+    /**
+     * Statistics of the stages (in order of first use)
+     */
+    private final Map<String, Stage> stages = new LinkedHashMap<>();
+
+    /**
+     * Start time of the operation (in nanoseconds)
+     */
+    private final long startNanos;
+
+    /**
+     * Total time of the operation (in nanoseconds)
+     */
+    private long totalNanos;
+
+    /**
+     * Bytes processed by the operation
+     */
+    private long bytes;
+
+    /**
+     * Flag to indicate whether the operation failed
+     */
+    private boolean failed = true;
+
+    /**
+     * Stage which is currently running
+     */
+    private Stage.Run currentRun;
+
+    /**
+     * Constructor is private, as operations are started using {@link #begin(String, String)}
+     *
+     * @param operation  Name of the operation
+     * @param pluginName Name of the plugin
+     */
+    private OpenStegoStats(String operation, String pluginName) {
+        this.operation = operation;
+        this.pluginName = pluginName;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Method to register a listener. Instrumentation gets enabled with the first listener
+     *
+     * @param listener Listener
+     */
+    public static synchronized void addListener(OpenStegoStatsListener listener) {
+        listeners.add(listener);
+        enabled = true;
+    }
+
+    /**
+     * Method to unregister a listener. Instrumentation gets disabled once there are no listeners
+     *
+     * @param listener Listener
+     */
+    public static synchronized void removeListener(OpenStegoStatsListener listener) {
+        listeners.remove(listener);
+        enabled = !listeners.isEmpty();
+    }
+
+    /**
+     * Method to enable or disable the measurement of bytes allocated by the thread for each stage. This is ignored
+     * if the JVM does not support it
+     *
+     * @param tracked true to measure the allocated bytes
+     */
+    public static void setAllocationTracked(boolean tracked) {
+        allocationTracked = tracked && allocBean != null && allocBean.isThreadAllocatedMemorySupported();
+        if (allocationTracked) {
+            allocBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Method to start recording an operation for the current thread. If an operation is already being recorded (e.g.
+     * by an alternate API which delegates to another one), then it continues to be used
+     *
+     * @param operation  Name of the operation
+     * @param pluginName Name of the plugin
+     * @return Operation statistics, or null if instrumentation is disabled or operation is already being recorded
+     */
+    static OpenStegoStats begin(String operation, String pluginName) {
+        if (!enabled || current.get() != null) {
+            return null;
+        }
+        OpenStegoStats stats = new OpenStegoStats(operation, pluginName);
+        current.set(stats);
+        return stats;
+    }
+
+    /**
+     * Method to mark the operation as successfully completed
+     *
+     * @param stats Operation statistics (null is allowed)
+     * @param bytes Bytes processed by the operation
+     */
+    static void succeed(OpenStegoStats stats, long bytes) {
+        if (stats != null) {
+            stats.failed = false;
+            stats.bytes = bytes;
+        }
+    }
+
+    /**
+     * Method to finish recording the operation, and notify the listeners. This should be called in a finally block
+     *
+     * @param stats Operation statistics (null is allowed)
+     */
+    static void end(OpenStegoStats stats) {
+        if (stats == null) {
+            return;
+        }
+
+        current.remove();
+        stats.totalNanos = System.nanoTime() - stats.startNanos;
+        for (OpenStegoStatsListener listener : listeners) {
+            listener.operationCompleted(stats);
+        }
+    }
+
+    /**
+     * Method to start a stage of the operation being recorded for the current thread
+     *
+     * @param name Name of the stage
+     * @return Handle for the stage, or null if instrumentation is disabled or no operation is being recorded
+     */
+    public static Stage.Run startStage(String name) {
+        if (!enabled) {
+            return null;
+        }
+        OpenStegoStats stats = current.get();
+        if (stats == null) {
+            return null;
+        }
+
+        Stage stage = stats.stages.get(name);
+        if (stage == null) {
+            stage = new Stage(name);
+            stats.stages.put(name, stage);
+        }
+        stats.currentRun = new Stage.Run(stats, stage, stats.currentRun);
+        return stats.currentRun;
+    }
+
+    /**
+     * Method to end the stage
+     *
+     * @param run   Handle for the stage (null is allowed)
+     * @param bytes Bytes processed by the stage
+     */
+    public static void endStage(Stage.Run run, long bytes) {
+        if (run != null) {
+            run.end(bytes);
+        }
+    }
+
+    /**
+     * Get method for the name of the operation
+     *
+     * @return Name of the operation
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Get method for the name of the plugin
+     *
+     * @return Name of the plugin
+     */
+    public String getPluginName() {
+        return this.pluginName;
+    }
+
+    /**
+     * Get method for the total time of the operation
+     *
+     * @return Total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * Get method for the bytes processed by the operation (i.e. size of the message or stego data)
+     *
+     * @return Bytes processed
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Get method for the failure flag
+     *
+     * @return true if the operation failed
+     */
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    /**
+     * Get method for the statistics of the stages
+     *
+     * @return Stages (in order of first use)
+     */
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(new ArrayList<>(this.stages.values()));
+    }
+
+    /**
+     * Utility method to get the bytes allocated so far by the current thread
+     *
+     * @return Allocated bytes, or 0 if not tracked
+     */
+    private static long allocatedBytes() {
+        return allocationTracked ? allocBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+    }
+
+    /**
+     * Statistics of a stage. If a stage runs multiple times in an operation, then the values are summed up
+     */
+    public static class Stage {
+        /**
+         * Name of the stage
+         */
+        private final String name;
+
+        /**
+         * Number of times the stage ran
+         */
+        private int count;
+
+        /**
+         * Time spent in the stage (in nanoseconds, excluding nested stages)
+         */
+        private long nanos;
+
+        /**
+         * Bytes processed by the stage
+         */
+        private long bytes;
+
+        /**
+         * Bytes allocated by the stage (excluding nested stages)
+         */
+        private long allocatedBytes;
+
+        /**
+         * Default constructor
+         *
+         * @param name Name of the stage
+         */
+        private Stage(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Get method for the name of the stage
+         *
+         * @return Name of the stage
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Get method for the number of times the stage ran
+         *
+         * @return Count
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * Get method for the time spent in the stage (excluding nested stages)
+         *
+         * @return Time in nanoseconds
+         */
+        public long getNanos() {
+            return this.nanos;
+        }
+
+        /**
+         * Get method for the bytes processed by the stage
+         *
+         * @return Bytes processed
+         */
+        public long getBytes() {
+            return this.bytes;
+        }
+
+        /**
+         * Get method for the bytes allocated by the stage (excluding nested stages)
+         *
+         * @return Allocated bytes, or 0 if not tracked
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        /**
+         * Handle for one run of a stage
+         */
+        public static class Run {
+            /**
+             * Operation to which the run belongs
+             */
+            private final OpenStegoStats stats;
+
+            /**
+             * Stage which is running
+             */
+            private final Stage stage;
+
+            /**
+             * Enclosing run, if any
+             */
+            private final Run parent;
+
+            /**
+             * Start time of the run (in nanoseconds)
+             */
+            private final long startNanos;
+
+            /**
+             * Allocated bytes of the thread at the start of the run
+             */
+            private final long startAlloc;
+
+            /**
+             * Time spent in nested runs (in nanoseconds)
+             */
+            private long nestedNanos;
+
+            /**
+             * Bytes allocated by nested runs
+             */
+            private long nestedAlloc;
+
+            /**
+             * Default constructor
+             *
+             * @param stats  Operation to which the run belongs
+             * @param stage  Stage which is running
+             * @param parent Enclosing run, if any
+             */
+            private Run(OpenStegoStats stats, Stage stage, Run parent) {
+                this.stats = stats;
+                this.stage = stage;
+                this.parent = parent;
+                this.startAlloc = allocatedBytes();
+                this.startNanos = System.nanoTime();
+            }
+
+            /**
+             * Method to end the run, and add its values to the stage
+             *
+             * @param bytes Bytes processed by the run
+             */
+            private void end(long bytes) {
+                long elapsed = System.nanoTime() - this.startNanos;
+                long alloc = allocationTracked ? allocatedBytes() - this.startAlloc : 0L;
+
+                this.stage.count++;
+                this.stage.nanos += elapsed - this.nestedNanos;
+                this.stage.allocatedBytes += alloc - this.nestedAlloc;
+                this.stage.bytes += bytes;
+                if (this.parent != null) {
+                    this.parent.nestedNanos += elapsed;
+                    this.parent.nestedAlloc += alloc;
+                }
+                this.stats.currentRun = this.parent;
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+/**
+ * Listener for the statistics of the operations of {@link OpenStego}. Listeners are registered using
+ * {@link OpenStegoStats#addListener(OpenStegoStatsListener)}.
+ */
+public interface OpenStegoStatsListener {
+    /**
+     * Method called once an operation completes (or fails). It is called on the thread which ran the operation, so
+     * it must be quick and thread-safe
+     *
+     * @param stats Statistics of the operation
+     */
+    void operationCompleted(OpenStegoStats stats);
+}
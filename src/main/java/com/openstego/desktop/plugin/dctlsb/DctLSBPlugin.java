@@ -86,7 +86,7 @@ public class DctLSBPlugin extends WMImagePluginTemplate {
                 image = ImageUtil.byteArrayToImage(cover, coverFileName);
             }
             imgType = image.getImage().getType();
-            try (DctLSBOutputStream os = new DctLSBOutputStream(image, msg.length, msgFileName, this.config)) {
+            try (DctLSBOutputStream os = new DctLSBOutputStream(image, msg.length, msgFileName, getConfig())) {
                 os.write(msg);
                 image = os.getImage(imgType);
             }
@@ -113,7 +113,7 @@ public class DctLSBPlugin extends WMImagePluginTemplate {
         int bytesRead;
         ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
 
-        try (DctLSBInputStream is = new DctLSBInputStream(imgHolder, this.config)) {
+        try (DctLSBInputStream is = new DctLSBInputStream(imgHolder, getConfig())) {
             header = is.getDataHeader();
             msg = new byte[header.getDataLength()];
 
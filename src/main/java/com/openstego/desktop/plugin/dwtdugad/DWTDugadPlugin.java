@@ -6,6 +6,7 @@
 
 package com.openstego.desktop.plugin.dwtdugad;
 
+import com.openstego.desktop.OpenStegoEvents;
 import com.openstego.desktop.OpenStegoException;
 import com.openstego.desktop.plugin.template.image.WMImagePluginTemplate;
 import com.openstego.desktop.util.ImageHolder;
@@ -73,6 +74,18 @@ public class DWTDugadPlugin extends WMImagePluginTemplate {
         return labelUtil.getString("plugin.description");
     }
 
+    /**
+     * Method to get the no. of phases which the plugin runs for the operation. Embedding decodes the image, converts it
+     * to YUV, transforms it, converts it back and encodes it. Checking stops after the transform
+     *
+     * @param operation Type of the operation
+     * @return No. of phases
+     */
+    @Override
+    public int getProgressPhaseCount(OpenStegoEvents.Type operation) {
+        return operation == OpenStegoEvents.Type.EMBED ? 5 : 3;
+    }
+
     /**
      * Method to embed the message into the cover data
      *
@@ -214,7 +227,7 @@ public class DWTDugadPlugin extends WMImagePluginTemplate {
         Random rand;
         Signature sig;
 
-        rand = new Random(StringUtil.passwordHash(this.config.getPassword()));
+        rand = new Random(StringUtil.passwordHash(getConfig().getPassword()));
         sig = new Signature(rand);
 
         return sig.getSigData();
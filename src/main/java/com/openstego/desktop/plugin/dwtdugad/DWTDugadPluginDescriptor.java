@@ -0,0 +1,22 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.dwtdugad;
+
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
+
+/**
+ * Descriptor for the DWT Dugad plugin
+ */
+public class DWTDugadPluginDescriptor extends OpenStegoPluginDescriptor {
+    /**
+     * Default constructor
+     */
+    public DWTDugadPluginDescriptor() {
+        super("DWTDugad", "com.openstego.desktop.plugin.dwtdugad.DWTDugadPlugin", OpenStegoPlugin.Purpose.WATERMARKING);
+    }
+}
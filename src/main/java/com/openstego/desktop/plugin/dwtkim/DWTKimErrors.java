@@ -30,7 +30,12 @@ public class DWTKimErrors {
     /**
      * Error Code - file size not enough to embed watermark
      */
-    public static final int ERR_FILE_TOO_SMALL = 3;
+    public static final int ERR_FILE_TOO_SMALL = 4;
+
+    /**
+     * Error Code - Invalid watermark length in the signature file
+     */
+    public static final int ERR_SIG_LENGTH_NOT_VALID = 5;
 
     /**
      * Initialize the error code - message key map
@@ -39,5 +44,7 @@ public class DWTKimErrors {
         OpenStegoException.addErrorCode(DWTKimPlugin.NAMESPACE, ERR_NO_COVER_FILE, "err.cover.missing");
         OpenStegoException.addErrorCode(DWTKimPlugin.NAMESPACE, ERR_DECOMP_LEVEL_NOT_ENOUGH, "err.image.decompLevel.notEnough");
         OpenStegoException.addErrorCode(DWTKimPlugin.NAMESPACE, ERR_SIG_NOT_VALID, "err.signature.invalid");
+        OpenStegoException.addErrorCode(DWTKimPlugin.NAMESPACE, ERR_FILE_TOO_SMALL, "err.file.too.small");
+        OpenStegoException.addErrorCode(DWTKimPlugin.NAMESPACE, ERR_SIG_LENGTH_NOT_VALID, "err.signature.length.invalid");
     }
 }
@@ -6,6 +6,7 @@
 
 package com.openstego.desktop.plugin.dwtkim;
 
+import com.openstego.desktop.OpenStegoEvents;
 import com.openstego.desktop.OpenStegoException;
 import com.openstego.desktop.plugin.template.image.WMImagePluginTemplate;
 import com.openstego.desktop.util.ImageHolder;
@@ -14,6 +15,7 @@ import com.openstego.desktop.util.LabelUtil;
 import com.openstego.desktop.util.StringUtil;
 import com.openstego.desktop.util.dwt.DWT;
 import com.openstego.desktop.util.dwt.DWTUtil;
+import com.openstego.desktop.util.dwt.Image;
 import com.openstego.desktop.util.dwt.ImageTree;
 
 import java.io.*;
@@ -42,6 +44,17 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
      */
     public final static String NAMESPACE = "DWTKIM";
 
+    /**
+     * Stamp at the start of the watermark data (correlation statistics) returned by
+     * {@link #extractData(byte[], String, byte[])}, to distinguish it from the signature data
+     */
+    private static final String WM_MARKER = "KIWM";
+
+    /**
+     * No. of coefficients at each border of the sub-band which are not marked
+     */
+    static final int BORDER = 5;
+
     /**
      * Default constructor
      */
@@ -70,6 +83,18 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
         return labelUtil.getString("plugin.description");
     }
 
+    /**
+     * Method to get the no. of phases which the plugin runs for the operation. Embedding decodes the image, converts it
+     * to YUV, transforms it, converts it back and encodes it. Checking stops after the transform
+     *
+     * @param operation Type of the operation
+     * @return No. of phases
+     */
+    @Override
+    public int getProgressPhaseCount(OpenStegoEvents.Type operation) {
+        return operation == OpenStegoEvents.Type.EMBED ? 5 : 3;
+    }
+
     /**
      * Method to embed the message into the cover data
      *
@@ -122,7 +147,7 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
 
         // Wavelet transform
         dwt = new DWT(cols, rows, sig.filterNumber, sig.decompositionLevel, sig.waveletFilterMethod);
-        dwtTree = dwt.forwardDWT(luminance);
+        dwtTree = dwt.forwardDWT(luminance, BORDER);
 
         p = dwtTree;
         w = 0;
@@ -138,7 +163,7 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
             // Get current decomposition level number
             currLevel = p.getHorizontal().getLevel();
 
-            // Find largest absolute coefficient in detail subbands of current decomposition level
+            // Largest absolute coefficient in detail subbands of current decomposition level (found during transform)
             maxCoeff = findLevelMaxCoeff(p);
 
             // Calculate significance threshold for current decomposition level
@@ -156,7 +181,7 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
         }
 
         // Mark approximation image using calculated significance threshold and embedding strength
-        markSubBand(p, sig.alphaForApproxSubBand, sig.watermark, calcLevelThreshold(findSubBandMaxCoeff(p)), w, sig.watermarkLength);
+        markSubBand(p, sig.alphaForApproxSubBand, sig.watermark, calcLevelThreshold(p.getMaxCoeff()), w, sig.watermarkLength);
 
         dwt.inverseDWT(dwtTree, luminance);
         yuv.set(0, luminance);
@@ -166,16 +191,90 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
     }
 
     /**
-     * Method to extract the message from the stego data
+     * Method to extract the message from the stego data. Kim watermark is not extracted as such, instead the
+     * correlation statistics of each sub-band with the original watermark are returned, which are then used by
+     * {@link #getWatermarkCorrelation(byte[], byte[])}
      *
      * @param stegoData     Stego data containing the message
      * @param stegoFileName Name of the stego file
      * @param origSigData   Optional signature data file for watermark
      * @return Extracted message
+     * @throws OpenStegoException Processing issues
      */
     @Override
-    public byte[] extractData(byte[] stegoData, String stegoFileName, byte[] origSigData) {
-        return null;
+    public byte[] extractData(byte[] stegoData, String stegoFileName, byte[] origSigData) throws OpenStegoException {
+        ImageHolder image;
+        DWT dwt;
+        ImageTree dwtTree;
+        ImageTree p;
+        Signature sig;
+        SubBandStats stats;
+        int[][] luminance;
+        int cols;
+        int rows;
+        int levels;
+        int currLevel;
+        int w;
+        double threshold;
+        double alpha;
+
+        image = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
+
+        cols = image.getImage().getWidth();
+        rows = image.getImage().getHeight();
+        luminance = ImageUtil.getYuvFromImage(image.getImage()).get(0);
+        sig = new Signature(origSigData);
+
+        // Check that level is okay
+        levels = DWTUtil.findDeepestLevel(cols, rows) - 1;
+        if (sig.decompositionLevel > levels) {
+            throw new OpenStegoException(null, NAMESPACE, DWTKimErrors.ERR_DECOMP_LEVEL_NOT_ENOUGH);
+        }
+
+        // Wavelet transform
+        dwt = new DWT(cols, rows, sig.filterNumber, sig.decompositionLevel, sig.waveletFilterMethod);
+        dwtTree = dwt.forwardDWT(luminance, BORDER);
+
+        p = dwtTree;
+        w = 0;
+        stats = new SubBandStats();
+
+        try (
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                ObjectOutputStream oos = new ObjectOutputStream(baos)
+        ) {
+            oos.writeBytes(WM_MARKER);
+            oos.writeInt(sig.decompositionLevel);
+
+            // Process each decomposition level in the same order as embedding
+            while (p.getCoarse() != null) {
+                if (p.getHorizontal() == null || p.getVertical() == null || p.getDiagonal() == null) {
+                    throw new OpenStegoException(null, NAMESPACE, DWTKimErrors.ERR_FILE_TOO_SMALL);
+                }
+
+                currLevel = p.getHorizontal().getLevel();
+                threshold = calcLevelThreshold(findLevelMaxCoeff(p));
+                alpha = calcLevelAlphaDetail(sig.alphaForDetailSubBand, currLevel);
+
+                w = detectSubBand(p.getHorizontal(), sig.watermark, threshold, w, sig.watermarkLength, stats);
+                stats.write(oos, alpha);
+                w = detectSubBand(p.getVertical(), sig.watermark, threshold, w, sig.watermarkLength, stats);
+                stats.write(oos, alpha);
+                w = detectSubBand(p.getDiagonal(), sig.watermark, threshold, w, sig.watermarkLength, stats);
+                stats.write(oos, alpha);
+
+                p = p.getCoarse();
+            }
+
+            // Approximation image
+            detectSubBand(p, sig.watermark, calcLevelThreshold(p.getMaxCoeff()), w, sig.watermarkLength, stats);
+            stats.write(oos, sig.alphaForApproxSubBand);
+
+            oos.flush();
+            return baos.toByteArray();
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
     }
 
     /**
@@ -189,23 +288,97 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
         Random rand;
         Signature sig;
 
-        rand = new Random(StringUtil.passwordHash(this.config.getPassword()));
+        rand = new Random(StringUtil.passwordHash(getConfig().getPassword()));
         sig = new Signature(rand);
 
         return sig.getSigData();
     }
 
     /**
-     * Method to check the correlation between original signature and the extracted watermark
+     * Method to check the correlation between original signature and the extracted watermark. Normalized response of
+     * each sub-band (observed response divided by the response expected for a marked sub-band) is combined using
+     * inverse variance weights. The result is close to 0.0 for an image which is not watermarked using the signature.
+     * For a watermarked image, it stays well below 1.0 (about 0.6 was measured for freshly watermarked images), as
+     * the marks get attenuated when the coefficients are rounded back to 8-bit pixels, and some marked coefficients
+     * fall below the significance threshold during detection. See {@link #getHighWatermarkLevel()} and
+     * {@link #getLowWatermarkLevel()} for the levels matching this scale
      *
      * @param origSigData   Original signature data
      * @param watermarkData Extracted watermark data
      * @return Correlation
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public double getWatermarkCorrelation(byte[] origSigData, byte[] watermarkData) throws OpenStegoException {
+        ObjectInputStream ois;
+        byte[] markArr = new byte[WM_MARKER.length()];
+        int level;
+        int n;
+        int m;
+        double alpha;
+        double z;
+        double e;
+        double q;
+        double expected;
+        double num = 0.0;
+        double den = 0.0;
+
+        try {
+            ois = new ObjectInputStream(new ByteArrayInputStream(watermarkData));
+            n = ois.read(markArr, 0, WM_MARKER.length());
+            if (n == -1 || !WM_MARKER.equals(new String(markArr))) {
+                throw new OpenStegoException(null, NAMESPACE, DWTKimErrors.ERR_SIG_NOT_VALID);
+            }
+
+            level = ois.readInt();
+            n = level * 3 + 1;
+
+            for (int i = 0; i < n; i++) {
+                m = ois.readInt();
+                alpha = ois.readDouble();
+                z = ois.readDouble();
+                e = ois.readDouble();
+                q = ois.readDouble();
+                if (m == 0 || q == 0.0) {
+                    continue;
+                }
+
+                expected = alpha * e;
+                num += expected * z / q;
+                den += expected * expected / q;
+            }
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+
+        if (den == 0.0) {
+            return 0.0;
+        }
+        return Math.max(0.0, Math.min(1.0, num / den));
+    }
+
+    /**
+     * Method to get correlation value above which it can be considered that watermark strength is high. Correlation of
+     * this plugin does not reach 1.0 (see {@link #getWatermarkCorrelation(byte[], byte[])}), so the default levels do
+     * not fit. Measured values: 0.58-0.62 for fresh marks, 0.45-0.48 after JPEG re-encoding at quality 95, and about
+     * 0.3 at quality 90
+     *
+     * @return High watermark
      */
     @Override
-    public double getWatermarkCorrelation(byte[] origSigData, byte[] watermarkData) {
-        // TODO
-        return 0.0;
+    public double getHighWatermarkLevel() {
+        return 0.3;
+    }
+
+    /**
+     * Method to get correlation value below which it can be considered that watermark strength is low. Measured values:
+     * 0.14-0.25 after JPEG re-encoding at quality 75-85, and at most 0.07 for images checked against a wrong signature
+     *
+     * @return Low watermark
+     */
+    @Override
+    public double getLowWatermarkLevel() {
+        return 0.1;
     }
 
     /**
@@ -219,72 +392,85 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
     }
 
     /**
-     * Utility method to mark a wavelet sub-band using the watermark data
+     * Utility method to mark a wavelet sub-band using the watermark data. The watermark value used for a coefficient
+     * depends only on the position of the coefficient (and the offset of the sub-band), so that a coefficient crossing
+     * the threshold during detection does not shift the watermark sequence for the rest of the coefficients. The
+     * sub-band is processed in a single row-major pass
      *
      * @param imgTree   Image data
      * @param alpha     Alpha value
      * @param watermark Watermark data
      * @param threshold Threshold
-     * @param w         Band count
+     * @param w         Watermark offset for the sub-band
      * @param n         Watermark length
-     * @return Updated band count
+     * @return Watermark offset for the next sub-band
      */
-    private int markSubBand(ImageTree imgTree, double alpha, double[] watermark, double threshold, int w, int n) {
+    static int markSubBand(ImageTree imgTree, double alpha, double[] watermark, double threshold, int w, int n) {
+        Image img = imgTree.getImage();
+        double[] data = img.getData();
+        int width = img.getWidth();
+        int height = img.getHeight();
+        int index;
         double coeff;
-        double newCoeff;
 
-        for (int i = 5; i < imgTree.getImage().getHeight() - 5; i++) {
-            for (int j = 5; j < imgTree.getImage().getWidth() - 5; j++) {
-                coeff = DWTUtil.getPixel(imgTree.getImage(), i, j);
+        for (int y = BORDER; y < height - BORDER; y++) {
+            for (int x = BORDER; x < width - BORDER; x++) {
+                index = x + y * width;
+                coeff = data[index];
                 if (Math.abs(coeff) > threshold) {
-                    newCoeff = coeff + alpha * coeff * watermark[w % n];
-                    DWTUtil.setPixel(imgTree.getImage(), i, j, newCoeff);
-                    w++;
+                    data[index] = coeff + alpha * coeff * watermark[(w + index) % n];
                 }
             }
         }
 
-        return w;
+        return (w + width * height) % n;
     }
 
     /**
-     * Utility method to find max coefficient for the sub-band
+     * Utility method to correlate a wavelet sub-band with the watermark data. This mirrors the coefficient selection
+     * of {@link #markSubBand(ImageTree, double, double[], double, int, int)}, and accumulates the statistics in a
+     * single pass
      *
-     * @param imgTree Image data
-     * @return Max coefficient
+     * @param imgTree   Image data
+     * @param watermark Watermark data
+     * @param threshold Threshold
+     * @param w         Watermark offset for the sub-band
+     * @param n         Watermark length
+     * @param stats     Statistics accumulator (gets reset before use)
+     * @return Watermark offset for the next sub-band
      */
-    private double findSubBandMaxCoeff(ImageTree imgTree) {
-        double max = 0.0;
+    private int detectSubBand(ImageTree imgTree, double[] watermark, double threshold, int w, int n, SubBandStats stats) {
+        Image img = imgTree.getImage();
+        double[] data = img.getData();
+        int width = img.getWidth();
+        int height = img.getHeight();
+        int index;
         double coeff;
 
-        for (int i = 5; i < imgTree.getImage().getHeight() - 5; i++) {
-            for (int j = 5; j < imgTree.getImage().getWidth() - 5; j++) {
-                coeff = Math.abs(DWTUtil.getPixel(imgTree.getImage(), i, j));
-                if (coeff > max) {
-                    max = coeff;
+        stats.reset();
+        for (int y = BORDER; y < height - BORDER; y++) {
+            for (int x = BORDER; x < width - BORDER; x++) {
+                index = x + y * width;
+                coeff = Math.abs(data[index]);
+                if (coeff > threshold) {
+                    stats.add(coeff, watermark[(w + index) % n]);
                 }
             }
         }
 
-        return max;
+        return (w + width * height) % n;
     }
 
     /**
-     * Utility method to find the level adaptive max coefficient
+     * Utility method to find the level adaptive max coefficient. This uses the max coefficients of the detail
+     * sub-bands which are calculated during the wavelet transform
      *
      * @param imgTree Image data
      * @return Level adaptive max coefficient
      */
     private double findLevelMaxCoeff(ImageTree imgTree) {
-        double h;
-        double v;
-        double d;
-
-        h = findSubBandMaxCoeff(imgTree.getHorizontal());
-        v = findSubBandMaxCoeff(imgTree.getVertical());
-        d = findSubBandMaxCoeff(imgTree.getDiagonal());
-
-        return Math.max(h, Math.max(v, d));
+        return Math.max(imgTree.getHorizontal().getMaxCoeff(),
+                Math.max(imgTree.getVertical().getMaxCoeff(), imgTree.getDiagonal().getMaxCoeff()));
     }
 
     /**
@@ -293,7 +479,7 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
      * @param maxCoeff Max coefficient
      * @return Level threshold
      */
-    private double calcLevelThreshold(double maxCoeff) {
+    static double calcLevelThreshold(double maxCoeff) {
         return Math.pow(2.0, Math.floor(Math.log(maxCoeff) / Math.log(2.0)) - 1.0);
     }
 
@@ -308,6 +494,86 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
         return alpha / Math.pow(2.0, level - 1);
     }
 
+    /**
+     * Private class to accumulate correlation statistics of a sub-band with the watermark
+     */
+    private static class SubBandStats {
+        /**
+         * Number of significant coefficients
+         */
+        private int m;
+
+        /**
+         * Sum of coefficient magnitude multiplied by watermark value
+         */
+        private double z;
+
+        /**
+         * Sum of coefficient magnitude multiplied by squared watermark value
+         */
+        private double e;
+
+        /**
+         * Sum of squared coefficient multiplied by squared watermark value
+         */
+        private double q;
+
+        /**
+         * Sum of coefficient magnitude
+         */
+        private double s;
+
+        /**
+         * Sum of watermark value
+         */
+        private double v;
+
+        /**
+         * Reset the statistics
+         */
+        private void reset() {
+            this.m = 0;
+            this.z = 0.0;
+            this.e = 0.0;
+            this.q = 0.0;
+            this.s = 0.0;
+            this.v = 0.0;
+        }
+
+        /**
+         * Add a significant coefficient to the statistics
+         *
+         * @param coeff Absolute value of the coefficient
+         * @param wm    Watermark value for the coefficient
+         */
+        private void add(double coeff, double wm) {
+            double cw = coeff * wm;
+
+            this.m++;
+            this.z += cw;
+            this.e += cw * wm;
+            this.q += cw * cw;
+            this.s += coeff;
+            this.v += wm;
+        }
+
+        /**
+         * Write the statistics to the stream. The correlation sum is centered on the mean coefficient magnitude, so
+         * that the host image itself does not bias the correlation with an unrelated watermark
+         *
+         * @param oos   Stream to write to
+         * @param alpha Embedding strength used for the sub-band
+         * @throws IOException Processing issues
+         */
+        private void write(ObjectOutputStream oos, double alpha) throws IOException {
+            oos.writeInt(this.m);
+            oos.writeDouble(alpha);
+            oos.writeDouble(this.m == 0 ? 0.0 : this.z - this.s * this.v / this.m);
+            oos.writeDouble(this.e);
+            oos.writeDouble(this.q);
+        }
+    }
+
     /**
      * Private class for the data structure required for the signature
      */
@@ -366,7 +632,7 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
             double r;
 
             this.watermark = new double[this.watermarkLength];
-            for (int cnt = 0; cnt < (this.watermarkLength >> 1); cnt = cnt + 2) {
+            for (int cnt = 0; cnt < this.watermarkLength; cnt = cnt + 2) {
                 do {
                     x1 = 2.0 * ((rand.nextInt() & Integer.MAX_VALUE) / (Integer.MAX_VALUE + 1.0)) - 1.0;
                     x2 = 2.0 * ((rand.nextInt() & Integer.MAX_VALUE) / (Integer.MAX_VALUE + 1.0)) - 1.0;
@@ -401,6 +667,11 @@ public class DWTKimPlugin extends WMImagePluginTemplate {
                 }
 
                 this.watermarkLength = ois.readInt();
+                // Each watermark value takes 8 bytes, so the length can not exceed the size of the signature data.
+                // Length must be even, as the values are generated in pairs
+                if (this.watermarkLength <= 0 || this.watermarkLength % 2 != 0 || this.watermarkLength > sigData.length / 8) {
+                    throw new OpenStegoException(null, NAMESPACE, DWTKimErrors.ERR_SIG_LENGTH_NOT_VALID, String.valueOf(this.watermarkLength));
+                }
                 this.alphaForDetailSubBand = ois.readDouble();
                 this.alphaForApproxSubBand = ois.readDouble();
                 this.decompositionLevel = ois.readInt();
@@ -0,0 +1,22 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.dwtkim;
+
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
+
+/**
+ * Descriptor for the DWT Kim plugin
+ */
+public class DWTKimPluginDescriptor extends OpenStegoPluginDescriptor {
+    /**
+     * Default constructor
+     */
+    public DWTKimPluginDescriptor() {
+        super("DWTKim", "com.openstego.desktop.plugin.dwtkim.DWTKimPlugin", OpenStegoPlugin.Purpose.WATERMARKING);
+    }
+}
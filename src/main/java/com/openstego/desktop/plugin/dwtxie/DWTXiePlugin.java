@@ -14,6 +14,7 @@ import com.openstego.desktop.util.LabelUtil;
 import com.openstego.desktop.util.StringUtil;
 import com.openstego.desktop.util.dwt.DWT;
 import com.openstego.desktop.util.dwt.DWTUtil;
+import com.openstego.desktop.util.dwt.Image;
 import com.openstego.desktop.util.dwt.ImageTree;
 
 import java.io.*;
@@ -184,8 +185,7 @@ public class DWTXiePlugin extends WMImagePluginTemplate {
         List<Integer> sigBitList = new ArrayList<>();
         ImageHolder image;
         DWT dwt;
-        ImageTree dwtTree;
-        ImageTree p;
+        Image approxImg;
         Signature sig;
         Pixel pixel1;
         Pixel pixel2;
@@ -202,24 +202,17 @@ public class DWTXiePlugin extends WMImagePluginTemplate {
         luminance = ImageUtil.getYuvFromImage(image.getImage()).get(0);
         sig = new Signature(origSigData);
 
-        // Wavelet transform
+        // Wavelet transform (only approximation image is required for extraction)
         dwt = new DWT(cols, rows, sig.filterID, sig.embeddingLevel, sig.waveletFilterMethod);
-        dwtTree = dwt.forwardDWT(luminance);
-
-        p = dwtTree;
-        // Consider each resolution level
-        while (p.getLevel() < sig.embeddingLevel) {
-            // Descend one level
-            p = p.getCoarse();
-        }
+        approxImg = dwt.forwardApproximation(luminance);
 
         // Repeat binary watermark by sliding a 3-pixel window of approximation image
-        for (int row = 0; row < p.getImage().getHeight(); row++) {
-            for (int col = 0; col < p.getImage().getWidth() - 3; col += 3) {
+        for (int row = 0; row < approxImg.getHeight(); row++) {
+            for (int col = 0; col < approxImg.getWidth() - 3; col += 3) {
                 // Get all three approximation pixels in window
-                pixel1 = new Pixel(0, DWTUtil.getPixel(p.getImage(), col, row));
-                pixel2 = new Pixel(1, DWTUtil.getPixel(p.getImage(), col + 1, row));
-                pixel3 = new Pixel(2, DWTUtil.getPixel(p.getImage(), col + 2, row));
+                pixel1 = new Pixel(0, DWTUtil.getPixel(approxImg, col, row));
+                pixel2 = new Pixel(1, DWTUtil.getPixel(approxImg, col + 1, row));
+                pixel3 = new Pixel(2, DWTUtil.getPixel(approxImg, col + 2, row));
 
                 // Bring selected pixels in ascending order
                 if (pixel1.value > pixel2.value) {
@@ -253,7 +246,7 @@ public class DWTXiePlugin extends WMImagePluginTemplate {
         Random rand;
         Signature sig;
 
-        rand = new Random(StringUtil.passwordHash(this.config.getPassword()));
+        rand = new Random(StringUtil.passwordHash(getConfig().getPassword()));
         sig = new Signature(rand);
 
         return sig.getSigData();
@@ -8,9 +8,11 @@ package com.openstego.desktop.plugin.lsb;
 
 import com.openstego.desktop.OpenStegoConfig;
 import com.openstego.desktop.OpenStegoException;
-import com.openstego.desktop.util.CommonUtil;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -80,74 +82,55 @@ public class LSBDataHeader {
     }
 
     /**
-     * This constructor should be used when reading embedded data from an InputStream.
+     * This constructor should be used when reading embedded data from an InputStream. The stamp is read and verified
+     * first, so that data which is not embedded by OpenStego gets rejected after reading just a few bytes, and the
+     * remaining fixed portion of the header is then read in bulk.
      *
      * @param dataInStream Data input stream containing the embedded data
      * @param config       OpenStegoConfig instance to hold the configuration data
      * @throws OpenStegoException Processing issues
      */
     public LSBDataHeader(InputStream dataInStream, OpenStegoConfig config) throws OpenStegoException {
-        int stampLen;
-        int versionLen;
+        ByteBuffer buffer = ByteBuffer.allocate(getFixedHeaderSize()).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] cryptAlgo = new byte[CRYPT_ALGO_LENGTH];
         int fileNameLen;
-        int channelBits;
-        int n;
-        byte[] header;
-        byte[] cryptAlgo;
-        byte[] stamp;
-        byte[] version;
-
-        stampLen = DATA_STAMP.length;
-        versionLen = HEADER_VERSION.length;
-        header = new byte[FIXED_HEADER_LENGTH];
-        cryptAlgo = new byte[CRYPT_ALGO_LENGTH];
-        stamp = new byte[stampLen];
-        version = new byte[versionLen];
 
         try {
-            n = dataInStream.read(stamp, 0, stampLen);
-            if (n == -1 || !(new String(stamp)).equals(new String(DATA_STAMP))) {
+            if (!readFully(dataInStream, buffer.array(), 0, DATA_STAMP.length) || !isDataStamp(buffer.array())) {
+                throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_STEGO_HEADER);
+            }
+            if (!readFully(dataInStream, buffer.array(), DATA_STAMP.length, buffer.capacity() - DATA_STAMP.length)) {
                 throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_STEGO_HEADER);
             }
 
-            n = dataInStream.read(version, 0, versionLen);
-            if (n == -1 || !(new String(version)).equals(new String(HEADER_VERSION))) {
-                throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_HEADER_VERSION);
+            buffer.position(DATA_STAMP.length);
+            for (byte version : HEADER_VERSION) {
+                if (buffer.get() != version) {
+                    throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_HEADER_VERSION);
+                }
             }
 
-            n = dataInStream.read(header, 0, FIXED_HEADER_LENGTH);
-            if (n < FIXED_HEADER_LENGTH) {
+            this.dataLength = buffer.getInt();
+            this.channelBitsUsed = buffer.get();
+            if (this.channelBitsUsed < 1 || this.channelBitsUsed > 8) {
                 throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_STEGO_HEADER);
             }
-            this.dataLength = (CommonUtil.byteToInt(header[0]) + (CommonUtil.byteToInt(header[1]) << 8) + (CommonUtil.byteToInt(header[2]) << 16)
-                    + (CommonUtil.byteToInt(header[3]) << 24));
-            channelBits = header[4];
-            fileNameLen = header[5];
-            config.setUseCompression(header[6] == 1);
-            config.setUseEncryption(header[7] == 1);
-
-            n = dataInStream.read(cryptAlgo, 0, CRYPT_ALGO_LENGTH);
-            if (n < CRYPT_ALGO_LENGTH) {
+            fileNameLen = buffer.get() & 0xFF;
+            config.setUseCompression(buffer.get() == 1);
+            config.setUseEncryption(buffer.get() == 1);
+            buffer.get(cryptAlgo);
+            config.setEncryptionAlgorithm(new String(cryptAlgo, StandardCharsets.UTF_8).trim());
+
+            this.fileName = new byte[fileNameLen];
+            if (!readFully(dataInStream, this.fileName, 0, fileNameLen)) {
                 throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_STEGO_HEADER);
             }
-            config.setEncryptionAlgorithm(new String(cryptAlgo).trim());
-
-            if (fileNameLen == 0) {
-                this.fileName = new byte[0];
-            } else {
-                this.fileName = new byte[fileNameLen];
-                n = dataInStream.read(this.fileName, 0, fileNameLen);
-                if (n < fileNameLen) {
-                    throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.INVALID_STEGO_HEADER);
-                }
-            }
         } catch (OpenStegoException osEx) {
             throw osEx;
         } catch (Exception ex) {
             throw new OpenStegoException(ex);
         }
 
-        this.channelBitsUsed = channelBits;
         this.config = config;
     }
 
@@ -157,42 +140,68 @@ public class LSBDataHeader {
      * @return Header data
      */
     public byte[] getHeaderData() {
-        byte[] out;
-        int stampLen;
-        int versionLen;
-        int currIndex = 0;
-
-        stampLen = DATA_STAMP.length;
-        versionLen = HEADER_VERSION.length;
-        out = new byte[stampLen + versionLen + FIXED_HEADER_LENGTH + CRYPT_ALGO_LENGTH + this.fileName.length];
-
-        System.arraycopy(DATA_STAMP, 0, out, currIndex, stampLen);
-        currIndex += stampLen;
-
-        System.arraycopy(HEADER_VERSION, 0, out, currIndex, versionLen);
-        currIndex += versionLen;
-
-        out[currIndex++] = (byte) ((this.dataLength & 0x000000FF));
-        out[currIndex++] = (byte) ((this.dataLength & 0x0000FF00) >> 8);
-        out[currIndex++] = (byte) ((this.dataLength & 0x00FF0000) >> 16);
-        out[currIndex++] = (byte) ((this.dataLength & 0xFF000000) >> 24);
-        out[currIndex++] = (byte) this.channelBitsUsed;
-        out[currIndex++] = (byte) this.fileName.length;
-        out[currIndex++] = (byte) (this.config.isUseCompression() ? 1 : 0);
-        out[currIndex++] = (byte) (this.config.isUseEncryption() ? 1 : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(getHeaderSize()).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(DATA_STAMP);
+        buffer.put(HEADER_VERSION);
+        buffer.putInt(this.dataLength);
+        buffer.put((byte) this.channelBitsUsed);
+        buffer.put((byte) this.fileName.length);
+        buffer.put((byte) (this.config.isUseCompression() ? 1 : 0));
+        buffer.put((byte) (this.config.isUseEncryption() ? 1 : 0));
 
+        // Encryption algorithm is padded with zeros
         if (this.config.getEncryptionAlgorithm() != null) {
             byte[] encAlgo = this.config.getEncryptionAlgorithm().getBytes(StandardCharsets.UTF_8);
-            System.arraycopy(encAlgo, 0, out, currIndex, encAlgo.length);
+            buffer.put(encAlgo, 0, Math.min(encAlgo.length, CRYPT_ALGO_LENGTH));
         }
-        currIndex += CRYPT_ALGO_LENGTH;
+        buffer.position(getFixedHeaderSize());
+        buffer.put(this.fileName);
 
-        if (this.fileName.length > 0) {
-            System.arraycopy(this.fileName, 0, out, currIndex, this.fileName.length);
-            //currIndex += this.fileName.length;
+        return buffer.array();
+    }
+
+    /**
+     * Method to check whether the given data starts with the OpenStego data stamp. This can be used to quickly reject
+     * data which is not embedded by OpenStego, before reading the rest of the header
+     *
+     * @param data Data to check
+     * @return true if the data starts with the data stamp
+     */
+    public static boolean isDataStamp(byte[] data) {
+        if (data == null || data.length < DATA_STAMP.length) {
+            return false;
+        }
+        for (int i = 0; i < DATA_STAMP.length; i++) {
+            if (data[i] != DATA_STAMP[i]) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        return out;
+    /**
+     * Utility method to read the given number of bytes from the stream
+     *
+     * @param is  Input stream
+     * @param buf Buffer to read into
+     * @param off Offset in the buffer
+     * @param len No. of bytes to read
+     * @return false if the stream ended before reading all the bytes
+     * @throws IOException Processing issues
+     */
+    private static boolean readFully(InputStream is, byte[] buf, int off, int len) throws IOException {
+        int n;
+
+        while (len > 0) {
+            n = is.read(buf, off, len);
+            if (n == -1) {
+                return false;
+            }
+            off += n;
+            len -= n;
+        }
+        return true;
     }
 
     /**
@@ -240,7 +249,16 @@ public class LSBDataHeader {
      * @return Header size
      */
     public int getHeaderSize() {
-        return DATA_STAMP.length + HEADER_VERSION.length + FIXED_HEADER_LENGTH + CRYPT_ALGO_LENGTH + this.fileName.length;
+        return getFixedHeaderSize() + this.fileName.length;
+    }
+
+    /**
+     * Method to get size of the fixed portion of the header, i.e. the header without the file name
+     *
+     * @return Fixed header size
+     */
+    public static int getFixedHeaderSize() {
+        return DATA_STAMP.length + HEADER_VERSION.length + FIXED_HEADER_LENGTH + CRYPT_ALGO_LENGTH;
     }
 
     /**
@@ -250,6 +268,6 @@ public class LSBDataHeader {
      */
     public static int getMaxHeaderSize() {
         // Max file name length assumed to be 256
-        return DATA_STAMP.length + HEADER_VERSION.length + FIXED_HEADER_LENGTH + CRYPT_ALGO_LENGTH + 256;
+        return getFixedHeaderSize() + 256;
     }
 }
@@ -8,6 +8,7 @@ package com.openstego.desktop.plugin.lsb;
 
 import com.openstego.desktop.OpenStegoConfig;
 import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.util.ImageHolder;
 
 import java.io.InputStream;
@@ -61,6 +62,11 @@ public class LSBInputStream extends InputStream {
      */
     private final OpenStegoConfig config;
 
+    /**
+     * Number of bytes read so far (including the header)
+     */
+    private int bytesRead = 0;
+
     /**
      * Default constructor
      *
@@ -109,15 +115,18 @@ public class LSBInputStream extends InputStream {
     @Override
     public int read() {
         int pixel;
-        byte[] bitSet = new byte[8];
+        int data = 0;
 
         if (this.y == this.imgHeight) {
             return -1;
         }
+        if ((++this.bytesRead & 0xFF) == 0 && this.dataHeader != null) {
+            OpenStegoProgress.checkpoint(this.bytesRead, this.dataHeader.getDataLength());
+        }
 
-        for (int i = 0; i < bitSet.length; i++) {
-            pixel = this.image.getImage().getRGB(this.x, this.y);
-            bitSet[i] = getCurrBitFromPixel(pixel);
+        pixel = this.image.getImage().getRGB(this.x, this.y);
+        for (int i = 0; i < 8; i++) {
+            data = (data << 1) | getCurrBitFromPixel(pixel);
 
             this.currBit++;
             if (this.currBit == (3 * this.channelBitsUsed)) {
@@ -126,14 +135,18 @@ public class LSBInputStream extends InputStream {
                 if (this.x == this.imgWidth) {
                     this.x = 0;
                     this.y++;
+                    // Byte which ends exactly at the last pixel is complete
                     if (this.y == this.imgHeight) {
-                        return -1;
+                        return i < 7 ? -1 : data;
                     }
                 }
+                // Pixel is fetched only once for all the bits it holds
+                if (i < 7) {
+                    pixel = this.image.getImage().getRGB(this.x, this.y);
+                }
             }
         }
-        return ((bitSet[0] << 7) + (bitSet[1] << 6) + (bitSet[2] << 5) + (bitSet[3] << 4) + (bitSet[4] << 3)
-                + (bitSet[5] << 2) + (bitSet[6] << 1) + bitSet[7]);
+        return data;
     }
 
     /**
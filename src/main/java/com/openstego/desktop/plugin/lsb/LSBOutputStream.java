@@ -8,6 +8,7 @@ package com.openstego.desktop.plugin.lsb;
 
 import com.openstego.desktop.OpenStegoConfig;
 import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.util.ImageHolder;
 import com.openstego.desktop.util.LabelUtil;
 
@@ -59,6 +60,11 @@ public class LSBOutputStream extends OutputStream {
      */
     private int currBit = 0;
 
+    /**
+     * Number of bytes written so far (including the header)
+     */
+    private int bytesWritten = 0;
+
     /**
      * Bit set to store three bits per pixel
      */
@@ -100,6 +106,7 @@ public class LSBOutputStream extends OutputStream {
         BufferedImage newImg = new BufferedImage(this.imgWidth, this.imgHeight, BufferedImage.TYPE_INT_RGB);
         this.image = new ImageHolder(newImg, image.getMetadata());
         for (int x = 0; x < this.imgWidth; x++) {
+            OpenStegoProgress.checkpoint(x, this.imgWidth);
             for (int y = 0; y < this.imgHeight; y++) {
                 newImg.setRGB(x, y, image.getImage().getRGB(x, y));
             }
@@ -118,17 +125,18 @@ public class LSBOutputStream extends OutputStream {
      */
     private void writeHeader() throws OpenStegoException {
         int channelBits = 1;
-        int noOfPixels;
-        int headerSize;
+        long noOfPixels;
+        long headerPixels;
         LSBDataHeader header;
 
         try {
-            noOfPixels = this.imgWidth * this.imgHeight;
+            noOfPixels = (long) this.imgWidth * this.imgHeight;
             header = new LSBDataHeader(this.dataLength, channelBits, this.fileName, this.config);
-            headerSize = header.getHeaderSize();
+            // Header is always written using 1 bit per channel
+            headerPixels = LSBPlugin.getHeaderPixels(header.getHeaderSize());
 
             while (true) {
-                if ((noOfPixels * 3 * channelBits) / 8.0 < (headerSize + this.dataLength)) {
+                if (((noOfPixels - headerPixels) * 3 * channelBits) / 8.0 < this.dataLength) {
                     channelBits++;
                     if (channelBits > ((LSBConfig) this.config).getMaxBitsUsedPerChannel()) {
                         throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.IMAGE_SIZE_INSUFFICIENT);
@@ -174,16 +182,22 @@ public class LSBOutputStream extends OutputStream {
                 nextPixel();
             }
         }
+        if ((++this.bytesWritten & 0xFF) == 0) {
+            OpenStegoProgress.checkpoint(this.bytesWritten, this.dataLength);
+        }
     }
 
     /**
-     * Flushes the stream
+     * Flushes the stream. Bits of the partially filled pixel (if any) are written to the image
      *
      * @throws IOException Write issues
      */
     @Override
     public void flush() throws IOException {
-        writeCurrentBitSet();
+        // Nothing is pending when the last pixel got filled completely, and the current pixel may be past the image
+        if (this.currBit != 0) {
+            writeCurrentBitSet();
+        }
     }
 
     /**
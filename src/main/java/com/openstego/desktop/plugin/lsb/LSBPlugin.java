@@ -6,18 +6,26 @@
 
 package com.openstego.desktop.plugin.lsb;
 
+import com.openstego.desktop.OpenStegoEvents;
 import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.plugin.template.image.DHImagePluginTemplate;
 import com.openstego.desktop.util.ImageHolder;
 import com.openstego.desktop.util.ImageUtil;
 import com.openstego.desktop.util.LabelUtil;
+import com.openstego.desktop.util.PluginFormatCache;
 import com.openstego.desktop.util.cmd.CmdLineOption;
 import com.openstego.desktop.util.cmd.CmdLineOptions;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
+import java.awt.Dimension;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -35,6 +43,12 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
      */
     public final static String NAMESPACE = "LSB";
 
+    /**
+     * Static list of supported write formats, i.e. the formats with lossless compression (unmodifiable, initialized on
+     * first use). This is kept separate from the list of the template, as that list includes lossy formats too
+     */
+    private static volatile List<String> losslessWriteFormats = null;
+
     /**
      * Default constructor
      */
@@ -63,6 +77,19 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
         return labelUtil.getString("plugin.description");
     }
 
+    /**
+     * Method to get the no. of phases which the plugin runs for the operation. Embedding decodes the cover image,
+     * copies it, writes the data and encodes the image. Extraction decodes the image twice (once for the message file
+     * name) and reads the data
+     *
+     * @param operation Type of the operation
+     * @return No. of phases
+     */
+    @Override
+    public int getProgressPhaseCount(OpenStegoEvents.Type operation) {
+        return operation == OpenStegoEvents.Type.EMBED ? 4 : 3;
+    }
+
     /**
      * Method to embed the message into the cover data
      *
@@ -84,12 +111,12 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
             // Generate random image, if input image is not provided
             if (cover == null) {
                 numOfPixels = (int) (LSBDataHeader.getMaxHeaderSize() * 8 / 3.0);
-                numOfPixels += (int) (msg.length * 8 / (3.0 * this.config.getMaxBitsUsedPerChannel()));
+                numOfPixels += (int) (msg.length * 8 / (3.0 * getConfig().getMaxBitsUsedPerChannel()));
                 image = ImageUtil.generateRandomImage(numOfPixels);
             } else {
                 image = ImageUtil.byteArrayToImage(cover, coverFileName);
             }
-            try (LSBOutputStream lsbOS = new LSBOutputStream(image, msg.length, msgFileName, this.config)) {
+            try (LSBOutputStream lsbOS = new LSBOutputStream(image, msg.length, msgFileName, getConfig())) {
                 lsbOS.write(msg);
                 lsbOS.flush();
                 image = lsbOS.getImage();
@@ -101,6 +128,132 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
         }
     }
 
+    /**
+     * Method to embed the message into the cover file, and write the stego data directly to the stego file. If the data
+     * is embedded sequentially, then the cover image is processed in strips of rows (see {@link LSBStripedImage}), so
+     * large images in formats which can be read region by region are never held in memory completely
+     *
+     * @param msg         Message to be embedded
+     * @param msgFileName Name of the message file. If this value is provided, then the filename should be embedded in
+     *                    the cover data
+     * @param coverFile   Cover file into which message needs to be embedded (null to generate a random cover image)
+     * @param stegoFile   Output stego file
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public void embedData(byte[] msg, String msgFileName, File coverFile, File stegoFile) throws OpenStegoException {
+        // Random cover image is generated in memory anyway, and the cover file can not be read in strips while it is
+        // being overwritten
+        if (coverFile == null || !isEmbeddedSequentially() || isSameFile(coverFile, stegoFile)) {
+            super.embedData(msg, msgFileName, coverFile, stegoFile);
+            return;
+        }
+
+        // Data is embedded while the image writer pulls the strips, so writing is the only phase
+        OpenStegoProgress.expectPhases(1);
+        try (LSBStripedImage image = new LSBStripedImage(coverFile, msg, msgFileName, getConfig())) {
+            ImageUtil.imageToFile(image, image.getMetadata(), stegoFile, this);
+        }
+    }
+
+    /**
+     * Method to check whether both the files are the same
+     *
+     * @param file1 First file
+     * @param file2 Second file (need not exist)
+     * @return true if both the files are the same
+     * @throws OpenStegoException Processing issues
+     */
+    private static boolean isSameFile(File file1, File file2) throws OpenStegoException {
+        try {
+            return file2.exists() && Files.isSameFile(file1.toPath(), file2.toPath());
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to check whether the data gets embedded sequentially, i.e. in the order of the pixels, so that the cover
+     * image can be processed in strips of rows. Plugins which change the order of embedding must override this
+     *
+     * @return true if the data gets embedded sequentially
+     */
+    protected boolean isEmbeddedSequentially() {
+        return true;
+    }
+
+    /**
+     * Method to estimate the capacity of the cover data, i.e. the maximum size of the message (after compression and
+     * encryption) which can be embedded into it. Only the image dimensions are read from the cover data
+     *
+     * @param cover         Cover data for which capacity needs to be estimated
+     * @param coverFileName Name of the cover file
+     * @param msgFileName   Name of the message file (which gets embedded in the header)
+     * @return Capacity in bytes, or -1 if the capacity can not be estimated
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public long estimateCapacity(byte[] cover, String coverFileName, String msgFileName) throws OpenStegoException {
+        // Random image gets generated as per the size of the message
+        if (cover == null) {
+            return -1;
+        }
+
+        return estimateCapacity(ImageUtil.getImageSize(cover, coverFileName), msgFileName);
+    }
+
+    /**
+     * Method to estimate the capacity of the cover file. Only the header of the image is read from the file
+     *
+     * @param coverFile   Cover file for which capacity needs to be estimated (null if random cover image is to be used)
+     * @param msgFileName Name of the message file (which gets embedded in the header)
+     * @return Capacity in bytes, or -1 if the capacity can not be estimated
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public long estimateCapacity(File coverFile, String msgFileName) throws OpenStegoException {
+        // Random image gets generated as per the size of the message
+        if (coverFile == null) {
+            return -1;
+        }
+        return estimateCapacity(ImageUtil.getImageSize(coverFile), msgFileName);
+    }
+
+    /**
+     * Method to estimate the capacity of the cover image of the given size. Header is always written using 1 bit per
+     * channel. When embedded sequentially, the header takes whole pixels and the data after it uses up to the max bits
+     * per channel, else the header takes only its own bits
+     *
+     * @param size        Size of the cover image
+     * @param msgFileName Name of the message file (which gets embedded in the header)
+     * @return Capacity in bytes
+     * @throws OpenStegoException Processing issues
+     */
+    private long estimateCapacity(Dimension size, String msgFileName) throws OpenStegoException {
+        int headerSize = new LSBDataHeader(0, 1, msgFileName, getConfig()).getHeaderSize();
+        long noOfPixels = (long) size.width * size.height;
+        int maxBits = getConfig().getMaxBitsUsedPerChannel();
+        long capacity;
+
+        if (isEmbeddedSequentially()) {
+            capacity = ((noOfPixels - getHeaderPixels(headerSize)) * 3 * maxBits) / 8;
+        } else {
+            capacity = (noOfPixels * 3 * maxBits) / 8 - headerSize;
+        }
+
+        return Math.max(0, Math.min(capacity, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Method to get the no. of pixels taken by the header, which is written using 1 bit per channel
+     *
+     * @param headerSize Size of the header in bytes
+     * @return No. of pixels
+     */
+    static long getHeaderPixels(int headerSize) {
+        return (headerSize * 8L + 2) / 3;
+    }
+
     /**
      * Method to extract the message file name from the stego data
      *
@@ -112,8 +265,33 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
     @Override
     public String extractMsgFileName(byte[] stegoData, String stegoFileName) throws OpenStegoException {
         ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
-        try (LSBInputStream lsbIS = new LSBInputStream(imgHolder, this.config)) {
+        try (LSBInputStream lsbIS = new LSBInputStream(imgHolder, getConfig())) {
+            return lsbIS.getDataHeader().getFileName();
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to quickly detect whether the stego data contains data embedded by this plugin. As the header is embedded
+     * at the start of the image, only the leading rows of the image which can hold the header are decoded
+     *
+     * @param stegoData     Stego data to be checked
+     * @param stegoFileName Name of the stego file
+     * @return Name of the embedded message file (empty if no name was embedded), or null if no embedded data is found
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public String detectMsgFileName(byte[] stegoData, String stegoFileName) throws OpenStegoException {
+        // Header is always embedded using one bit per color channel
+        int noOfPixels = (LSBDataHeader.getMaxHeaderSize() * 8 + 2) / 3;
+        ImageHolder imgHolder = ImageUtil.readImageHead(stegoData, stegoFileName, noOfPixels);
+
+        // Separate config is used, as reading the header updates the config
+        try (LSBInputStream lsbIS = new LSBInputStream(imgHolder, new LSBConfig())) {
             return lsbIS.getDataHeader().getFileName();
+        } catch (OpenStegoException osEx) {
+            return getHeaderError(osEx);
         } catch (IOException ioEx) {
             throw new OpenStegoException(ioEx);
         }
@@ -135,7 +313,7 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
         LSBDataHeader header;
         ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
 
-        try (LSBInputStream lsbIS = new LSBInputStream(imgHolder, this.config)) {
+        try (LSBInputStream lsbIS = new LSBInputStream(imgHolder, getConfig())) {
             header = lsbIS.getDataHeader();
             data = new byte[header.getDataLength()];
 
@@ -158,18 +336,35 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
      */
     @Override
     public List<String> getWritableFileExtensions() throws OpenStegoException {
-        if (writeFormats != null) {
-            return writeFormats;
+        List<String> formats = losslessWriteFormats;
+        if (formats == null) {
+            synchronized (LSBPlugin.class) {
+                if (losslessWriteFormats == null) {
+                    losslessWriteFormats = Collections.unmodifiableList(
+                            PluginFormatCache.getFormats("lsb.write", this::probeWritableFileExtensions));
+                }
+                formats = losslessWriteFormats;
+            }
         }
+        return formats;
+    }
 
-        super.getWritableFileExtensions();
+    /**
+     * Method to find the list of supported file extensions for writing, by probing the image writers for lossless
+     * compression
+     *
+     * @return List of supported file extensions for writing
+     * @throws OpenStegoException Processing issues
+     */
+    private List<String> probeWritableFileExtensions() throws OpenStegoException {
+        List<String> formats = new ArrayList<>(super.getWritableFileExtensions());
         String format;
         String[] compTypes;
         Iterator<ImageWriter> iter;
         ImageWriteParam writeParam;
 
-        for (int i = writeFormats.size() - 1; i >= 0; i--) {
-            format = writeFormats.get(i);
+        for (int i = formats.size() - 1; i >= 0; i--) {
+            format = formats.get(i);
             iter = ImageIO.getImageWritersBySuffix(format);
             while (iter.hasNext()) {
                 writeParam = (iter.next()).getDefaultWriteParam();
@@ -188,18 +383,16 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
                 if (writeParam.isCompressionLossless()) {
                     break;
                 }
-                writeFormats.remove(i);
+                formats.remove(i);
             }
         }
 
-        // Expicilty removing GIF and WBMP formats, as they use unsupported color models
-        writeFormats.remove("gif");
-        writeFormats.remove("wbmp");
-        // Expicilty removing TIF(F) formats, as they are not working correctly - TODO check why
-        writeFormats.remove("tif");
-        writeFormats.remove("tiff");
+        // Expicilty removing GIF and WBMP formats, as they use unsupported color models. TIF(F) formats are supported,
+        // as those are written with lossless compression, without the encoding metadata of the cover image
+        formats.remove("gif");
+        formats.remove("wbmp");
 
-        return writeFormats;
+        return formats;
     }
 
     /**
@@ -246,4 +439,20 @@ public class LSBPlugin extends DHImagePluginTemplate<LSBConfig> {
         LSBConfig defaultConfig = new LSBConfig();
         return labelUtil.getString("plugin.usage", defaultConfig.getMaxBitsUsedPerChannel());
     }
+
+    /**
+     * Utility method to map the error while reading the data header during detection. Errors for invalid header mean
+     * that no embedded data is found, and other errors are rethrown
+     *
+     * @param osEx Error while reading the header
+     * @return null
+     * @throws OpenStegoException Other errors
+     */
+    protected static String getHeaderError(OpenStegoException osEx) throws OpenStegoException {
+        if (NAMESPACE.equals(osEx.getNamespace())
+                && (osEx.getErrorCode() == LSBErrors.INVALID_STEGO_HEADER || osEx.getErrorCode() == LSBErrors.INVALID_HEADER_VERSION)) {
+            return null;
+        }
+        throw osEx;
+    }
 }
@@ -0,0 +1,22 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
+
+/**
+ * Descriptor for the LSB plugin
+ */
+public class LSBPluginDescriptor extends OpenStegoPluginDescriptor {
+    /**
+     * Default constructor
+     */
+    public LSBPluginDescriptor() {
+        super("LSB", "com.openstego.desktop.plugin.lsb.LSBPlugin", OpenStegoPlugin.Purpose.DATA_HIDING);
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoConfig;
+import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Image;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Vector;
+
+/**
+ * Stego image for sequential LSB embedding, which is computed strip by strip from the cover image file. The pixels are
+ * laid out exactly as by {@link LSBOutputStream}, i.e. the header using one bit per color channel, followed by the data
+ * from the next pixel, in row-major order. As each pixel only depends on its position, a strip of rows is computed by
+ * reading just those rows of the cover image (using {@link ImageReadParam#setSourceRegion(Rectangle)}), and embedding
+ * the bits which fall in them.
+ * <p>
+ * The image is meant to be passed to an image writer, which pulls the rows as it encodes them. Only one strip is held
+ * in memory at a time, so the memory used does not depend on the height of the image.
+ * <p>
+ * Striping is limited to cover formats which can be read region by region, i.e. formats which allow random access
+ * (e.g. uncompressed BMP) or which store the image in strips or tiles (e.g. TIFF). For other formats (e.g. PNG, JPEG)
+ * the reader would decode all the rows above the region again for every strip, making the time quadratic in the height
+ * of the image, so the whole image is read as a single strip instead.
+ */
+public class LSBStripedImage implements RenderedImage, Closeable {
+    /**
+     * Max number of pixels in one strip
+     */
+    public static final int STRIP_PIXELS = 1 << 22;
+
+    /**
+     * Masks for the red, green and blue channels of the packed pixels
+     */
+    private static final int[] RGB_MASKS = {0xFF0000, 0x00FF00, 0x0000FF};
+
+    /**
+     * Stream to read the cover image
+     */
+    private final ImageInputStream imageIS;
+
+    /**
+     * Reader for the cover image
+     */
+    private final ImageReader reader;
+
+    /**
+     * Metadata of the cover image
+     */
+    private final IIOMetadata metadata;
+
+    /**
+     * Width of the image
+     */
+    private final int imgWidth;
+
+    /**
+     * Height of the image
+     */
+    private final int imgHeight;
+
+    /**
+     * Number of rows in one strip
+     */
+    private final int stripHeight;
+
+    /**
+     * Header data (embedded using one bit per color channel)
+     */
+    private final byte[] headerData;
+
+    /**
+     * Number of pixels used by the header
+     */
+    private final long headerPixels;
+
+    /**
+     * Data to be embedded after the header
+     */
+    private final byte[] data;
+
+    /**
+     * Number of bits used per color channel for the data
+     */
+    private final int channelBitsUsed;
+
+    /**
+     * Color model of the image
+     */
+    private final ColorModel colorModel = new DirectColorModel(24, RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+
+    /**
+     * Index of the strip held in memory
+     */
+    private int currStrip = -1;
+
+    /**
+     * Strip held in memory
+     */
+    private Raster currRaster = null;
+
+    /**
+     * Default constructor
+     *
+     * @param coverFile Cover image file
+     * @param data      Data to be embedded
+     * @param fileName  Name of the source data file
+     * @param config    Configuration data to use while embedding
+     * @throws OpenStegoException Processing issues
+     */
+    public LSBStripedImage(File coverFile, byte[] data, String fileName, OpenStegoConfig config) throws OpenStegoException {
+        this.data = data;
+        try {
+            this.imageIS = ImageIO.createImageInputStream(coverFile);
+            Iterator<ImageReader> readers = this.imageIS == null ? null : ImageIO.getImageReaders(this.imageIS);
+            if (readers == null || !readers.hasNext()) {
+                close();
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID, coverFile.getName());
+            }
+            this.reader = readers.next();
+            this.reader.setInput(this.imageIS);
+            this.imgWidth = this.reader.getWidth(0);
+            this.imgHeight = this.reader.getHeight(0);
+        } catch (IOException ioEx) {
+            close();
+            throw new OpenStegoException(ioEx);
+        }
+        this.metadata = readMetadata();
+        this.stripHeight = canReadRegions() ? Math.max(1, Math.min(this.imgHeight, STRIP_PIXELS / this.imgWidth)) : this.imgHeight;
+
+        LSBDataHeader header = new LSBDataHeader(data.length, 1, fileName, config);
+        long noOfPixels = (long) this.imgWidth * this.imgHeight;
+        long dataBits = (long) data.length * 8;
+        this.headerPixels = LSBPlugin.getHeaderPixels(header.getHeaderSize());
+
+        // Same number of bits per channel as LSBOutputStream, but checked against the exact number of pixels needed
+        int channelBits = 1;
+        while (noOfPixels < this.headerPixels + (dataBits + 3 * channelBits - 1) / (3 * channelBits)) {
+            channelBits++;
+            if (channelBits > ((LSBConfig) config).getMaxBitsUsedPerChannel()) {
+                close();
+                throw new OpenStegoException(null, LSBPlugin.NAMESPACE, LSBErrors.IMAGE_SIZE_INSUFFICIENT);
+            }
+        }
+        header.setChannelBitsUsed(channelBits);
+        this.headerData = header.getHeaderData();
+        this.channelBitsUsed = channelBits;
+    }
+
+    /**
+     * Method to read the metadata of the cover image. Metadata is optional, so read errors are ignored
+     *
+     * @return Metadata of the cover image (null if it can not be read)
+     */
+    private IIOMetadata readMetadata() {
+        try {
+            return this.reader.getImageMetadata(0);
+        } catch (IOException ioEx) {
+            return null;
+        }
+    }
+
+    /**
+     * Method to check whether the cover image can be read region by region, without decoding the rows above the region
+     *
+     * @return true if the cover image can be read region by region
+     */
+    private boolean canReadRegions() {
+        try {
+            return this.reader.isRandomAccessEasy(0) || this.reader.getTileHeight(0) < this.imgHeight;
+        } catch (IOException ioEx) {
+            return false;
+        }
+    }
+
+    /**
+     * Get method for the metadata of the cover image
+     *
+     * @return Metadata of the cover image (null if not available)
+     */
+    public IIOMetadata getMetadata() {
+        return this.metadata;
+    }
+
+    /**
+     * Closes the cover image file
+     */
+    @Override
+    public void close() {
+        if (this.reader != null) {
+            this.reader.dispose();
+        }
+        if (this.imageIS != null) {
+            try {
+                this.imageIS.close();
+            } catch (IOException ignored) {
+                // Cover file is only read, so nothing is lost
+            }
+        }
+    }
+
+    /**
+     * Method to get the given strip of the stego image. The last strip is kept in memory, as the writers usually ask
+     * for fewer rows at a time
+     *
+     * @param strip Index of the strip
+     * @return Strip of the stego image
+     * @throws UncheckedIOException If the cover image can not be read
+     */
+    private Raster getStrip(int strip) {
+        if (strip != this.currStrip) {
+            // Release the previous strip before reading the next one
+            this.currRaster = null;
+            OpenStegoProgress.checkCancelled();
+            try {
+                this.currRaster = readStrip(strip);
+            } catch (IOException ioEx) {
+                throw new UncheckedIOException(ioEx);
+            }
+            this.currStrip = strip;
+        }
+        return this.currRaster;
+    }
+
+    /**
+     * Method to read the given strip from the cover image, and embed the bits of the header and data which fall in it
+     *
+     * @param strip Index of the strip
+     * @return Strip of the stego image
+     * @throws IOException Read issues
+     */
+    private Raster readStrip(int strip) throws IOException {
+        int y = strip * this.stripHeight;
+        int rows = Math.min(this.stripHeight, this.imgHeight - y);
+        ImageReadParam param = this.reader.getDefaultReadParam();
+        param.setSourceRegion(new Rectangle(0, y, this.imgWidth, rows));
+        BufferedImage cover = this.reader.read(0, param);
+
+        int[] pixels = cover.getRGB(0, 0, this.imgWidth, rows, null, 0, this.imgWidth);
+        embed(pixels, (long) y * this.imgWidth);
+        return Raster.createPackedRaster(new DataBufferInt(pixels, pixels.length), this.imgWidth, rows, this.imgWidth, RGB_MASKS,
+                new Point(0, y));
+    }
+
+    /**
+     * Method to embed the bits of the header and data into the given pixels
+     *
+     * @param pixels     Pixels (in packed RGB format)
+     * @param firstPixel Position of the first of the given pixels in the image
+     */
+    private void embed(int[] pixels, long firstPixel) {
+        int dataMask = (1 << this.channelBitsUsed) - 1;
+        long dataBits = (long) this.data.length * 8;
+
+        for (int i = 0; i < pixels.length; i++) {
+            long pixel = firstPixel + i;
+            int offset = 0;
+            int mask;
+
+            if (pixel < this.headerPixels) {
+                for (int channel = 0; channel < 3; channel++) {
+                    offset = (offset << 8) + getBit(this.headerData, pixel * 3 + channel);
+                }
+                mask = 0x010101;
+            } else {
+                long bit = (pixel - this.headerPixels) * 3 * this.channelBitsUsed;
+                if (bit >= dataBits) {
+                    // Rest of the pixels are not used, and only the alpha channel is dropped
+                    for (int j = i; j < pixels.length; j++) {
+                        pixels[j] &= 0xFFFFFF;
+                    }
+                    return;
+                }
+                for (int channel = 0; channel < 3; channel++) {
+                    int value = 0;
+                    for (int j = 0; j < this.channelBitsUsed; j++) {
+                        value = (value << 1) + getBit(this.data, bit++);
+                    }
+                    offset = (offset << 8) + value;
+                }
+                mask = (dataMask << 16) + (dataMask << 8) + dataMask;
+            }
+            pixels[i] = (pixels[i] & 0xFFFFFF & ~mask) + offset;
+        }
+    }
+
+    /**
+     * Method to get the given bit of the data. Bits beyond the end of the data are zero
+     *
+     * @param data Data
+     * @param bit  Position of the bit (most significant bit of each byte first)
+     * @return Bit value
+     */
+    private static int getBit(byte[] data, long bit) {
+        if (bit >= (long) data.length * 8) {
+            return 0;
+        }
+        return (data[(int) (bit >> 3)] >> (7 - (int) (bit & 7))) & 1;
+    }
+
+    @Override
+    public Vector<RenderedImage> getSources() {
+        return null;
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        return Image.UndefinedProperty;
+    }
+
+    @Override
+    public String[] getPropertyNames() {
+        return null;
+    }
+
+    @Override
+    public ColorModel getColorModel() {
+        return this.colorModel;
+    }
+
+    @Override
+    public SampleModel getSampleModel() {
+        return new SinglePixelPackedSampleModel(DataBuffer.TYPE_INT, this.imgWidth, this.stripHeight, RGB_MASKS);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.imgWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.imgHeight;
+    }
+
+    @Override
+    public int getMinX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinY() {
+        return 0;
+    }
+
+    @Override
+    public int getNumXTiles() {
+        return 1;
+    }
+
+    @Override
+    public int getNumYTiles() {
+        return (this.imgHeight + this.stripHeight - 1) / this.stripHeight;
+    }
+
+    @Override
+    public int getMinTileX() {
+        return 0;
+    }
+
+    @Override
+    public int getMinTileY() {
+        return 0;
+    }
+
+    @Override
+    public int getTileWidth() {
+        return this.imgWidth;
+    }
+
+    @Override
+    public int getTileHeight() {
+        return this.stripHeight;
+    }
+
+    @Override
+    public int getTileGridXOffset() {
+        return 0;
+    }
+
+    @Override
+    public int getTileGridYOffset() {
+        return 0;
+    }
+
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        return getStrip(tileY);
+    }
+
+    /**
+     * Gives the complete stego image. This holds the complete image in memory, so {@link #getData(Rectangle)} should
+     * be used instead
+     *
+     * @return Stego image
+     */
+    @Override
+    public Raster getData() {
+        return getData(new Rectangle(0, 0, this.imgWidth, this.imgHeight));
+    }
+
+    @Override
+    public Raster getData(Rectangle rect) {
+        return copyData(Raster.createPackedRaster(DataBuffer.TYPE_INT, rect.width, rect.height, RGB_MASKS, rect.getLocation()));
+    }
+
+    @Override
+    public WritableRaster copyData(WritableRaster raster) {
+        if (raster == null) {
+            raster = this.colorModel.createCompatibleWritableRaster(this.imgWidth, this.imgHeight);
+        }
+
+        Rectangle bounds = raster.getBounds().intersection(new Rectangle(0, 0, this.imgWidth, this.imgHeight));
+        if (!bounds.isEmpty()) {
+            int lastStrip = (bounds.y + bounds.height - 1) / this.stripHeight;
+            for (int strip = bounds.y / this.stripHeight; strip <= lastStrip; strip++) {
+                raster.setRect(getStrip(strip));
+            }
+        }
+        return raster;
+    }
+}
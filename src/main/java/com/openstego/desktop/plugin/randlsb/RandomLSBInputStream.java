@@ -8,6 +8,7 @@ package com.openstego.desktop.plugin.randlsb;
 
 import com.openstego.desktop.OpenStegoConfig;
 import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.plugin.lsb.LSBDataHeader;
 import com.openstego.desktop.plugin.lsb.LSBErrors;
 import com.openstego.desktop.plugin.lsb.LSBPlugin;
@@ -53,6 +54,11 @@ public class RandomLSBInputStream extends InputStream {
      */
     private final OpenStegoConfig config;
 
+    /**
+     * Number of bytes read so far (including the header)
+     */
+    private int bytesRead = 0;
+
     /**
      * Array for bits in the image
      */
@@ -111,6 +117,9 @@ public class RandomLSBInputStream extends InputStream {
         int bit;
         String key;
 
+        if ((++this.bytesRead & 0xFF) == 0 && this.dataHeader != null) {
+            OpenStegoProgress.checkpoint(this.bytesRead, this.dataHeader.getDataLength());
+        }
         for (int i = 0; i < 8; i++) {
             do {
                 x = this.rand.nextInt(this.imgWidth);
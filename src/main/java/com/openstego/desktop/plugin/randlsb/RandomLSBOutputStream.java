@@ -8,6 +8,7 @@ package com.openstego.desktop.plugin.randlsb;
 
 import com.openstego.desktop.OpenStegoConfig;
 import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.plugin.lsb.LSBConfig;
 import com.openstego.desktop.plugin.lsb.LSBDataHeader;
 import com.openstego.desktop.plugin.lsb.LSBErrors;
@@ -60,6 +61,11 @@ public class RandomLSBOutputStream extends OutputStream {
      */
     private final OpenStegoConfig config;
 
+    /**
+     * Number of bytes written so far (including the header)
+     */
+    private int bytesWritten = 0;
+
     /**
      * Array for bits in the image
      */
@@ -95,6 +101,7 @@ public class RandomLSBOutputStream extends OutputStream {
             BufferedImage newImg = new BufferedImage(this.imgWidth, this.imgHeight, BufferedImage.TYPE_INT_RGB);
             this.image = new ImageHolder(newImg, image.getMetadata());
             for (int x = 0; x < this.imgWidth; x++) {
+                OpenStegoProgress.checkpoint(x, this.imgWidth);
                 for (int y = 0; y < this.imgHeight; y++) {
                     newImg.setRGB(x, y, image.getImage().getRGB(x, y));
                 }
@@ -176,6 +183,9 @@ public class RandomLSBOutputStream extends OutputStream {
 
             setPixelBit(x, y, channel, bit, bitValue);
         }
+        if ((++this.bytesWritten & 0xFF) == 0) {
+            OpenStegoProgress.checkpoint(this.bytesWritten, this.dataLength);
+        }
     }
 
     /**
@@ -76,12 +76,12 @@ public class RandomLSBPlugin extends LSBPlugin {
             // Generate random image, if input image is not provided
             if (cover == null) {
                 numOfPixels = (int) (LSBDataHeader.getMaxHeaderSize() * 8 / 3.0);
-                numOfPixels += (int) (msg.length * 8 / (3.0 * this.config.getMaxBitsUsedPerChannel()));
+                numOfPixels += (int) (msg.length * 8 / (3.0 * getConfig().getMaxBitsUsedPerChannel()));
                 image = ImageUtil.generateRandomImage(numOfPixels);
             } else {
                 image = ImageUtil.byteArrayToImage(cover, coverFileName);
             }
-            try (RandomLSBOutputStream lsbOS = new RandomLSBOutputStream(image, msg.length, msgFileName, this.config)) {
+            try (RandomLSBOutputStream lsbOS = new RandomLSBOutputStream(image, msg.length, msgFileName, getConfig())) {
                 lsbOS.write(msg);
                 lsbOS.flush();
                 image = lsbOS.getImage();
@@ -93,6 +93,16 @@ public class RandomLSBPlugin extends LSBPlugin {
         }
     }
 
+    /**
+     * Data is embedded at random positions over the whole image, so the cover image can not be processed in strips
+     *
+     * @return false
+     */
+    @Override
+    protected boolean isEmbeddedSequentially() {
+        return false;
+    }
+
     /**
      * Method to extract the message file name from the stego data
      *
@@ -104,13 +114,50 @@ public class RandomLSBPlugin extends LSBPlugin {
     @Override
     public String extractMsgFileName(byte[] stegoData, String stegoFileName) throws OpenStegoException {
         ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
-        try (RandomLSBInputStream lsbIS = new RandomLSBInputStream(imgHolder, this.config)) {
+        try (RandomLSBInputStream lsbIS = new RandomLSBInputStream(imgHolder, getConfig())) {
+            return lsbIS.getDataHeader().getFileName();
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to quickly detect whether the stego data contains data embedded by this plugin. As the header is spread
+     * randomly over the image, the whole image needs to be decoded, but the check bails out as soon as the data stamp
+     * does not match
+     *
+     * @param stegoData     Stego data to be checked
+     * @param stegoFileName Name of the stego file
+     * @return Name of the embedded message file (empty if no name was embedded), or null if no embedded data is found
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public String detectMsgFileName(byte[] stegoData, String stegoFileName) throws OpenStegoException {
+        ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
+        // Separate config is used, as reading the header updates the config. Password is needed for the random seed
+        LSBConfig config = new LSBConfig();
+        config.setPassword(getConfig().getPassword());
+
+        try (RandomLSBInputStream lsbIS = new RandomLSBInputStream(imgHolder, config)) {
             return lsbIS.getDataHeader().getFileName();
+        } catch (OpenStegoException osEx) {
+            return getHeaderError(osEx);
         } catch (IOException ioEx) {
             throw new OpenStegoException(ioEx);
         }
     }
 
+    /**
+     * Method to check whether the plugin uses the password to decide where the data is embedded in the file. The
+     * password is the seed for the random positions of the data
+     *
+     * @return true
+     */
+    @Override
+    public boolean isPasswordNeededToDetect() {
+        return true;
+    }
+
     /**
      * Method to extract the message from the stego data
      *
@@ -127,7 +174,7 @@ public class RandomLSBPlugin extends LSBPlugin {
         LSBDataHeader header;
         ImageHolder imgHolder = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
 
-        try (RandomLSBInputStream lsbIS = new RandomLSBInputStream(imgHolder, this.config)) {
+        try (RandomLSBInputStream lsbIS = new RandomLSBInputStream(imgHolder, getConfig())) {
             header = lsbIS.getDataHeader();
             data = new byte[header.getDataLength()];
 
@@ -0,0 +1,22 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.randlsb;
+
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
+
+/**
+ * Descriptor for the Random LSB plugin
+ */
+public class RandomLSBPluginDescriptor extends OpenStegoPluginDescriptor {
+    /**
+     * Default constructor
+     */
+    public RandomLSBPluginDescriptor() {
+        super("RandomLSB", "com.openstego.desktop.plugin.randlsb.RandomLSBPlugin", OpenStegoPlugin.Purpose.DATA_HIDING);
+    }
+}
@@ -11,8 +11,10 @@ import com.openstego.desktop.OpenStegoException;
 import com.openstego.desktop.WatermarkingPlugin;
 import com.openstego.desktop.ui.OpenStegoFrame;
 import com.openstego.desktop.ui.PluginEmbedOptionsUI;
+import com.openstego.desktop.util.ImageDiff;
 import com.openstego.desktop.util.ImageHolder;
 import com.openstego.desktop.util.ImageUtil;
+import com.openstego.desktop.util.PluginFormatCache;
 import com.openstego.desktop.util.cmd.CmdLineOptions;
 
 import javax.imageio.ImageIO;
@@ -25,14 +27,14 @@ import java.util.List;
  */
 public abstract class WMImagePluginTemplate extends WatermarkingPlugin<OpenStegoConfig> {
     /**
-     * Static list of supported read formats
+     * Static list of supported read formats (unmodifiable, initialized on first use)
      */
-    protected static List<String> readFormats = null;
+    protected static volatile List<String> readFormats = null;
 
     /**
-     * Static list of supported write formats
+     * Static list of supported write formats (unmodifiable, initialized on first use)
      */
-    protected static List<String> writeFormats = null;
+    protected static volatile List<String> writeFormats = null;
 
     /**
      * Method to get difference between original cover file and the stegged file
@@ -48,45 +50,48 @@ public abstract class WMImagePluginTemplate extends WatermarkingPlugin<OpenStego
     @Override
     public final byte[] getDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName, String diffFileName)
             throws OpenStegoException {
-        ImageHolder stegoImage;
-        ImageHolder coverImage;
-        ImageHolder diffImage;
-
-        stegoImage = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
-        coverImage = ImageUtil.byteArrayToImage(coverData, coverFileName);
-        diffImage = ImageUtil.getDiffImage(stegoImage, coverImage);
+        ImageDiff diff = getImageDiff(stegoData, stegoFileName, coverData, coverFileName);
+        return ImageUtil.imageToByteArray(diff.getDiffImage(), diffFileName, this);
+    }
 
-        return ImageUtil.imageToByteArray(diffImage, diffFileName, this);
+    /**
+     * Method to compare the stego image with the original cover image, and to compute the quality metrics of the stego
+     * image
+     *
+     * @param stegoData     Stego data containing the embedded data
+     * @param stegoFileName Name of the stego file
+     * @param coverData     Original cover data
+     * @param coverFileName Name of the cover file
+     * @return Difference and quality metrics
+     * @throws OpenStegoException Processing issues
+     */
+    @Override
+    public final ImageDiff getImageDiff(byte[] stegoData, String stegoFileName, byte[] coverData, String coverFileName)
+            throws OpenStegoException {
+        ImageHolder coverImage = ImageUtil.byteArrayToImage(coverData, coverFileName);
+        ImageHolder stegoImage = ImageUtil.byteArrayToImage(stegoData, stegoFileName);
+        return ImageDiff.compute(coverImage, stegoImage);
     }
 
     /**
      * Method to get the list of supported file extensions for reading
      *
      * @return List of supported file extensions for reading
+     * @throws OpenStegoException Processing issues
      */
     @Override
-    public List<String> getReadableFileExtensions() {
-        if (readFormats != null) {
-            return readFormats;
-        }
-
-        String format;
-        String[] formats;
-        readFormats = new ArrayList<>();
-
-        formats = ImageIO.getReaderFormatNames();
-        for (String s : formats) {
-            format = s.toLowerCase();
-            if (format.contains("jpeg") && format.contains("2000")) {
-                format = "jp2";
-            }
-            if (!readFormats.contains(format)) {
-                readFormats.add(format);
+    public List<String> getReadableFileExtensions() throws OpenStegoException {
+        List<String> formats = readFormats;
+        if (formats == null) {
+            synchronized (WMImagePluginTemplate.class) {
+                if (readFormats == null) {
+                    readFormats = Collections.unmodifiableList(
+                            PluginFormatCache.getFormats("image.read", () -> getExtensions(ImageIO.getReaderFormatNames())));
+                }
+                formats = readFormats;
             }
         }
-
-        Collections.sort(readFormats);
-        return readFormats;
+        return formats;
     }
 
     /**
@@ -97,27 +102,41 @@ public abstract class WMImagePluginTemplate extends WatermarkingPlugin<OpenStego
      */
     @Override
     public List<String> getWritableFileExtensions() throws OpenStegoException {
-        if (writeFormats != null) {
-            return writeFormats;
+        List<String> formats = writeFormats;
+        if (formats == null) {
+            synchronized (WMImagePluginTemplate.class) {
+                if (writeFormats == null) {
+                    writeFormats = Collections.unmodifiableList(
+                            PluginFormatCache.getFormats("image.write", () -> getExtensions(ImageIO.getWriterFormatNames())));
+                }
+                formats = writeFormats;
+            }
         }
+        return formats;
+    }
 
+    /**
+     * Method to convert the ImageIO format names to the list of file extensions
+     *
+     * @param formats ImageIO format names
+     * @return Sorted list of file extensions
+     */
+    private static List<String> getExtensions(String[] formats) {
         String format;
-        String[] formats;
-        writeFormats = new ArrayList<>();
+        List<String> extensions = new ArrayList<>();
 
-        formats = ImageIO.getWriterFormatNames();
         for (String s : formats) {
             format = s.toLowerCase();
             if (format.contains("jpeg") && format.contains("2000")) {
                 format = "jp2";
             }
-            if (!writeFormats.contains(format)) {
-                writeFormats.add(format);
+            if (!extensions.contains(format)) {
+                extensions.add(format);
             }
         }
 
-        Collections.sort(writeFormats);
-        return writeFormats;
+        Collections.sort(extensions);
+        return extensions;
     }
 
     /**
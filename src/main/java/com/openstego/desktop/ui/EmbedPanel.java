@@ -226,7 +226,8 @@ public class EmbedPanel extends JPanel {
         if (this.encryptionAlgoComboBox == null) {
             this.encryptionAlgoComboBox = new JComboBox<>(new String[]{
                     OpenStegoCrypto.ALGO_AES128,
-                    OpenStegoCrypto.ALGO_AES256
+                    OpenStegoCrypto.ALGO_AES256,
+                    OpenStegoCrypto.ALGO_AESGCM
             });
         }
         return this.encryptionAlgoComboBox;
@@ -8,6 +8,7 @@ package com.openstego.desktop.ui;
 import com.openstego.desktop.*;
 import com.openstego.desktop.util.CommonUtil;
 import com.openstego.desktop.util.LabelUtil;
+import com.openstego.desktop.util.ui.BatchTask;
 import com.openstego.desktop.util.ui.WorkerTask;
 
 import javax.swing.*;
@@ -24,7 +25,11 @@ import java.net.URL;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -116,9 +121,8 @@ public class OpenStegoUI extends OpenStegoFrame {
         getEmbedPanel().getMsgFileTextField().requestFocus();
 
         try {
-            dhPlugin.resetConfig();
             if (getEmbedPanel().getPluginOptionPanel() != null) {
-                getEmbedPanel().getPluginOptionPanel().setGUIFromConfig(dhPlugin.getConfig());
+                getEmbedPanel().getPluginOptionPanel().setGUIFromConfig(dhPlugin.newConfig());
             }
         } catch (OpenStegoException e) {
             handleException(e);
@@ -194,9 +198,15 @@ public class OpenStegoUI extends OpenStegoFrame {
             return;
         }
 
-        WorkerTask task = new WorkerTask(this, coverFileList, coverFileList.size() > 1) {
+        // Multiple cover files are processed concurrently as a batch
+        if (coverFileList.size() > 1) {
+            embedDataBatch(coverFileList);
+            return;
+        }
+
+        WorkerTask task = new WorkerTask(this, coverFileList, true) {
             @Override
-            protected Object doInBackground() throws Exception {
+            protected Object runTask() throws Exception {
                 OpenStego openStego;
                 OpenStegoConfig config;
                 String outputFileName;
@@ -218,8 +228,7 @@ public class OpenStegoUI extends OpenStegoFrame {
                 outputFileName = getEmbedPanel().getStegoFileTextField().getText();
                 outputFile = new File(outputFileName);
 
-                dhPlugin.resetConfig();
-                config = dhPlugin.getConfig();
+                config = dhPlugin.newConfig();
                 config.setUseCompression(true);
                 config.setUseEncryption(true);
                 config.setEncryptionAlgorithm(cryptAlgo);
@@ -236,7 +245,7 @@ public class OpenStegoUI extends OpenStegoFrame {
 
                 OpenStegoBulkException bulkException = new OpenStegoBulkException();
                 for (int i = 0; i < coverFileList.size(); i++) {
-                    setProgress(i * 100 / coverFileList.size());
+                    startUnit(i, coverFileList.size());
                     cvrFile = coverFileList.get(i);
 
                     if (outputFile.isDirectory()) {
@@ -319,9 +328,9 @@ public class OpenStegoUI extends OpenStegoFrame {
         }
         // END: Input Validations
 
-        WorkerTask task = new WorkerTask(this, null, false) {
+        WorkerTask task = new WorkerTask(this, null, true) {
             @Override
-            protected Object doInBackground() throws Exception {
+            protected Object runTask() throws Exception {
                 OpenStego openStego;
                 OpenStegoConfig config;
                 String stegoFileName;
@@ -330,8 +339,7 @@ public class OpenStegoUI extends OpenStegoFrame {
                 File file;
                 List<?> stegoOutput;
 
-                dhPlugin.resetConfig();
-                config = dhPlugin.getConfig();
+                config = dhPlugin.newConfig();
                 openStego = new OpenStego(dhPlugin, config);
                 config.setPassword(new String(getExtractPanel().getExtractPwdTextField().getPassword()));
                 stegoFileName = getExtractPanel().getInputStegoFileTextField().getText();
@@ -395,8 +403,7 @@ public class OpenStegoUI extends OpenStegoFrame {
         File sigFile;
         OpenStegoConfig config;
 
-        wmPlugin.resetConfig();
-        config = wmPlugin.getConfig();
+        config = wmPlugin.newConfig();
 
         inputKey = getGenSigPanel().getInputKeyTextField().getText();
         sigFileName = getGenSigPanel().getSignatureFileTextField().getText();
@@ -482,9 +489,15 @@ public class OpenStegoUI extends OpenStegoFrame {
         }
         // END: Input Validations
 
-        WorkerTask task = new WorkerTask(this, inputFileList, inputFileList.size() > 1) {
+        // Multiple input files are processed concurrently as a batch
+        if (inputFileList.size() > 1) {
+            embedMarkBatch(inputFileList);
+            return;
+        }
+
+        WorkerTask task = new WorkerTask(this, inputFileList, true) {
             @Override
-            protected Object doInBackground() throws Exception {
+            protected Object runTask() throws Exception {
                 OpenStego openStego;
                 byte[] wmData;
                 String sigFileName;
@@ -497,8 +510,7 @@ public class OpenStegoUI extends OpenStegoFrame {
                 @SuppressWarnings("unchecked")
                 List<File> inputFileList = (List<File>) this.data;
 
-                wmPlugin.resetConfig();
-                openStego = new OpenStego(wmPlugin, wmPlugin.getConfig());
+                openStego = new OpenStego(wmPlugin, wmPlugin.newConfig());
 
                 sigFileName = getEmbedWmPanel().getSignatureFileTextField().getText();
                 outputFileName = getEmbedWmPanel().getOutputWmFileTextField().getText();
@@ -506,7 +518,7 @@ public class OpenStegoUI extends OpenStegoFrame {
 
                 OpenStegoBulkException bulkException = new OpenStegoBulkException();
                 for (int i = 0; i < inputFileList.size(); i++) {
-                    setProgress(i * 100 / inputFileList.size());
+                    startUnit(i, inputFileList.size());
                     inputFile = inputFileList.get(i);
 
                     if (outputFile.isDirectory()) {
@@ -603,36 +615,32 @@ public class OpenStegoUI extends OpenStegoFrame {
         }
         // END: Input Validations
 
-        WorkerTask task = new WorkerTask(this, inputFileList, inputFileList.size() > 1) {
+        // Multiple input files are processed concurrently as a batch
+        if (inputFileList.size() > 1) {
+            checkMarkBatch(inputFileList);
+            return;
+        }
+
+        WorkerTask task = new WorkerTask(this, inputFileList, true) {
             @Override
-            protected Object doInBackground() throws Exception {
+            protected Object runTask() throws Exception {
                 File sigFile;
                 OpenStego openStego;
-                NumberFormat formatter = NumberFormat.getPercentInstance();
                 double correlation;
 
                 @SuppressWarnings("unchecked")
                 List<File> inputFileList = (List<File>) this.data;
 
-                wmPlugin.resetConfig();
-                openStego = new OpenStego(wmPlugin, wmPlugin.getConfig());
+                openStego = new OpenStego(wmPlugin, wmPlugin.newConfig());
                 sigFile = new File(getVerifyWmPanel().getSignatureFileTextField().getText());
 
                 Object[][] tblData = new Object[inputFileList.size()][2];
                 for (int i = 0; i < inputFileList.size(); i++) {
-                    setProgress(i * 100 / inputFileList.size());
+                    startUnit(i, inputFileList.size());
                     File inputFile = inputFileList.get(i);
                     correlation = openStego.checkMark(inputFile, sigFile);
                     tblData[i][0] = inputFile.getName();
-                    String color;
-                    if (correlation > wmPlugin.getHighWatermarkLevel()) {
-                        color = "green";
-                    } else if (correlation > wmPlugin.getLowWatermarkLevel()) {
-                        color = "#FFBF00";
-                    } else {
-                        color = "red";
-                    }
-                    tblData[i][1] = "<html><span style='color:" + color + "'>\u25cf " + formatter.format(correlation) + "</span></html>";
+                    tblData[i][1] = formatCorrelation(correlation);
                 }
                 setProgress(100);
 
@@ -693,6 +701,209 @@ public class OpenStegoUI extends OpenStegoFrame {
         task.start();
     }
 
+    /**
+     * This method embeds the selected data file into multiple cover files concurrently
+     *
+     * @param coverFileList List of cover files
+     */
+    private void embedDataBatch(List<File> coverFileList) {
+        final String dataFileName = getEmbedPanel().getMsgFileTextField().getText();
+        final Map<File, String> outputFileNames;
+        final Set<File> skipFiles;
+        OpenStego stego;
+
+        try {
+            outputFileNames = getOutputFileNames(coverFileList, new File(getEmbedPanel().getStegoFileTextField().getText()), dhPlugin);
+            skipFiles = resolveOverwrite(outputFileNames);
+            if (skipFiles == null) {
+                return;
+            }
+
+            OpenStegoConfig config = dhPlugin.newConfig();
+            config.setUseCompression(true);
+            config.setUseEncryption(true);
+            config.setEncryptionAlgorithm((String) getEmbedPanel().getEncryptionAlgoComboBox().getSelectedItem());
+            config.setPassword(new String(getEmbedPanel().getPasswordTextField().getPassword()));
+            if (getEmbedPanel().getPluginOptionPanel() != null) {
+                getEmbedPanel().getPluginOptionPanel().setConfigFromGUI(config);
+            }
+            stego = new OpenStego(dhPlugin, config);
+        } catch (OpenStegoException e) {
+            handleException(e);
+            return;
+        }
+
+        BatchTask task = new BatchTask(this, labelUtil.getString("gui.msg.title.results"),
+                labelUtil.getString("gui.label.batch.header.output"), coverFileList, stego) {
+            @Override
+            protected String processFile(OpenStego stego, File file) throws Exception {
+                if (skipFiles.contains(file)) {
+                    return null;
+                }
+                String outputFileName = outputFileNames.get(file);
+                CommonUtil.writeFile(stego.embedData(new File(dataFileName), file, outputFileName), outputFileName);
+                return new File(outputFileName).getName();
+            }
+
+            @Override
+            protected void finished(int okCount, int skipCount, int errorCount) {
+                if (errorCount == 0) {
+                    ((OpenStegoUI) this.parent).resetGUI();
+                }
+            }
+        };
+        task.start();
+    }
+
+    /**
+     * This method embeds the watermark into multiple files concurrently
+     *
+     * @param inputFileList List of files to be watermarked
+     */
+    private void embedMarkBatch(List<File> inputFileList) {
+        final String sigFileName = getEmbedWmPanel().getSignatureFileTextField().getText();
+        final Map<File, String> outputFileNames;
+        final Set<File> skipFiles;
+        OpenStego stego;
+
+        try {
+            outputFileNames = getOutputFileNames(inputFileList, new File(getEmbedWmPanel().getOutputWmFileTextField().getText()), wmPlugin);
+            skipFiles = resolveOverwrite(outputFileNames);
+            if (skipFiles == null) {
+                return;
+            }
+
+            stego = new OpenStego(wmPlugin, wmPlugin.newConfig());
+        } catch (OpenStegoException e) {
+            handleException(e);
+            return;
+        }
+
+        BatchTask task = new BatchTask(this, labelUtil.getString("gui.msg.title.results"),
+                labelUtil.getString("gui.label.batch.header.output"), inputFileList, stego) {
+            @Override
+            protected String processFile(OpenStego stego, File file) throws Exception {
+                if (skipFiles.contains(file)) {
+                    return null;
+                }
+                String outputFileName = outputFileNames.get(file);
+                CommonUtil.writeFile(stego.embedMark(new File(sigFileName), file, outputFileName), outputFileName);
+                return new File(outputFileName).getName();
+            }
+
+            @Override
+            protected void finished(int okCount, int skipCount, int errorCount) {
+                if (errorCount == 0) {
+                    getEmbedWmPanel().getFileForWmTextField().setText("");
+                    getEmbedWmPanel().getSignatureFileTextField().setText("");
+                    getEmbedWmPanel().getOutputWmFileTextField().setText("");
+                    getEmbedWmPanel().getFileForWmTextField().requestFocus();
+                }
+            }
+        };
+        task.start();
+    }
+
+    /**
+     * This method checks for watermark in multiple files concurrently
+     *
+     * @param inputFileList List of files to be checked
+     */
+    private void checkMarkBatch(List<File> inputFileList) {
+        final File sigFile = new File(getVerifyWmPanel().getSignatureFileTextField().getText());
+        OpenStego stego;
+
+        try {
+            stego = new OpenStego(wmPlugin, wmPlugin.newConfig());
+        } catch (OpenStegoException e) {
+            handleException(e);
+            return;
+        }
+
+        BatchTask task = new BatchTask(this, labelUtil.getString("gui.msg.title.results"),
+                labelUtil.getString("gui.label.wmVerify.result.header.strength"), inputFileList, stego) {
+            @Override
+            protected String processFile(OpenStego stego, File file) throws Exception {
+                return formatCorrelation(stego.checkMark(file, sigFile));
+            }
+        };
+        task.start();
+    }
+
+    /**
+     * Method to format the watermark correlation for display, colored as per the watermark levels of the plugin
+     *
+     * @param correlation Correlation
+     * @return Formatted correlation (HTML)
+     * @throws OpenStegoException Processing issues
+     */
+    private String formatCorrelation(double correlation) throws OpenStegoException {
+        String color;
+        if (correlation > wmPlugin.getHighWatermarkLevel()) {
+            color = "green";
+        } else if (correlation > wmPlugin.getLowWatermarkLevel()) {
+            color = "#FFBF00";
+        } else {
+            color = "red";
+        }
+        return "<html><span style='color:" + color + "'>\u25cf " + NumberFormat.getPercentInstance().format(correlation)
+                + "</span></html>";
+    }
+
+    /**
+     * Method to get the output file names for multiple input files. The output files are created in the given folder
+     * with the same name as the input file, and with an extension which the plugin can write
+     *
+     * @param inputFileList List of input files
+     * @param outputDir     Output folder
+     * @param plugin        Plugin to be used
+     * @return Map of input file to output file name
+     * @throws OpenStegoException Processing issues
+     */
+    private static Map<File, String> getOutputFileNames(List<File> inputFileList, File outputDir, OpenStegoPlugin<?> plugin)
+            throws OpenStegoException {
+        Map<File, String> outputFileNames = new LinkedHashMap<>();
+        List<String> writableExts = plugin.getWritableFileExtensions();
+        for (File inputFile : inputFileList) {
+            String outputFileName = outputDir.getPath() + File.separator + inputFile.getName();
+            if (!writableExts.contains(outputFileName.substring(outputFileName.lastIndexOf('.') + 1).toLowerCase())) {
+                outputFileName = outputFileName + "." + writableExts.get(0);
+            }
+            outputFileNames.put(inputFile, outputFileName);
+        }
+        return outputFileNames;
+    }
+
+    /**
+     * Method to ask the user once, before a batch is started, whether the existing output files should be overwritten
+     *
+     * @param outputFileNames Map of input file to output file name
+     * @return Input files to be skipped, or null if the user cancelled the batch
+     */
+    private Set<File> resolveOverwrite(Map<File, String> outputFileNames) {
+        Set<File> existing = new HashSet<>();
+        for (Map.Entry<File, String> entry : outputFileNames.entrySet()) {
+            if (new File(entry.getValue()).exists()) {
+                existing.add(entry.getKey());
+            }
+        }
+        if (existing.isEmpty()) {
+            return existing;
+        }
+
+        Object[] options = new Object[]{labelUtil.getString("gui.label.batch.overwriteAll"),
+                labelUtil.getString("gui.label.batch.skipExisting"), labelUtil.getString("gui.label.progress.cancel")};
+        int choice = JOptionPane.showOptionDialog(this, labelUtil.getString("gui.msg.warn.batch.filesExist", existing.size()),
+                labelUtil.getString("gui.msg.title.warn"), JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.WARNING_MESSAGE, null,
+                options, options[1]);
+        if (choice == JOptionPane.YES_OPTION) {
+            return Collections.emptySet();
+        } else if (choice == JOptionPane.NO_OPTION) {
+            return existing;
+        }
+        return null;
+    }
+
     /**
      * This method shows the file chooser and updates the text field based on the selection
      *
@@ -11,10 +11,21 @@ import com.openstego.desktop.OpenStegoException;
 import javax.swing.*;
 import java.awt.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Common utilities for OpenStego
@@ -34,7 +45,7 @@ public class CommonUtil {
      * @throws OpenStegoException Processing issues
      */
     public static byte[] streamToBytes(InputStream is) throws OpenStegoException {
-        final int BUF_SIZE = 512;
+        final int BUF_SIZE = 8192;
         int bytesRead;
         byte[] data;
 
@@ -93,8 +104,62 @@ public class CommonUtil {
         // If file is not provided, then write the data to stdout
         try (OutputStream os = (file == null ? System.out : new FileOutputStream(file))) {
             os.write(fileData);
+            // PrintStream does not throw errors (e.g. broken pipe), so those need to be checked explicitly
+            if (file == null && System.out.checkError()) {
+                throw new IOException("Error while writing to stdout");
+            }
+        } catch (IOException ioEx) {
+            throw new OpenStegoException(ioEx);
+        }
+    }
+
+    /**
+     * Method to write file data to disk atomically. Data is first written (and synced) to a temporary file in the
+     * same directory, which is then renamed to the given file, so that the file never has partial data even if the
+     * process is killed. The temporary file is created with the default permissions (as per umask), and if the file
+     * already exists, then its permissions are retained
+     *
+     * @param fileData File data
+     * @param fileName File name
+     * @throws OpenStegoException Processing issues
+     */
+    public static void writeFileAtomic(byte[] fileData, String fileName) throws OpenStegoException {
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path temp = null;
+
+        try {
+            // Files.createTempFile() is not used, as it creates the file readable only by the owner
+            while (temp == null) {
+                temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(fileData);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(true);
+                } catch (FileAlreadyExistsException faeEx) {
+                    temp = null;
+                }
+            }
+            if (Files.exists(target) && Files.getFileStore(temp).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(temp, Files.getPosixFilePermissions(target));
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException amnsEx) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
         } catch (IOException ioEx) {
             throw new OpenStegoException(ioEx);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // Nothing can be done, so the temporary file is left behind
+                }
+            }
         }
     }
 
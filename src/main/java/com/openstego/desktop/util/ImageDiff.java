@@ -0,0 +1,258 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.stream.IntStream;
+
+/**
+ * Difference between two images of the same size, along with the quality metrics (MSE, PSNR and SSIM) of the right
+ * image with respect to the left image. The images are compared per channel (red, green and blue) in a single pass,
+ * and the rows are processed in parallel in bands of {@value #BLOCK_SIZE} rows.
+ * <p>
+ * The difference image holds the absolute difference of each channel, stretched so that the largest difference is
+ * shown at full intensity. SSIM is computed on the luma of non-overlapping blocks of {@value #BLOCK_SIZE} x
+ * {@value #BLOCK_SIZE} pixels, and averaged over all the blocks.
+ */
+public class ImageDiff {
+    /**
+     * Size of the blocks used for SSIM (which is also the height of the bands of rows processed in parallel)
+     */
+    public static final int BLOCK_SIZE = 8;
+
+    /**
+     * Max value of a channel
+     */
+    private static final double MAX_VALUE = 255.0;
+
+    /**
+     * Constant to stabilize SSIM when the means are close to zero
+     */
+    private static final double C1 = (0.01 * MAX_VALUE) * (0.01 * MAX_VALUE);
+
+    /**
+     * Constant to stabilize SSIM when the variances are close to zero
+     */
+    private static final double C2 = (0.03 * MAX_VALUE) * (0.03 * MAX_VALUE);
+
+    /**
+     * Difference image
+     */
+    private final ImageHolder diffImage;
+
+    /**
+     * Mean squared error (per channel value)
+     */
+    private final double mse;
+
+    /**
+     * Peak signal-to-noise ratio in dB
+     */
+    private final double psnr;
+
+    /**
+     * Mean structural similarity index
+     */
+    private final double ssim;
+
+    /**
+     * Default constructor
+     *
+     * @param diffImage Difference image
+     * @param mse       Mean squared error
+     * @param ssim      Mean structural similarity index
+     */
+    private ImageDiff(ImageHolder diffImage, double mse, double ssim) {
+        this.diffImage = diffImage;
+        this.mse = mse;
+        this.psnr = mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(MAX_VALUE * MAX_VALUE / mse);
+        this.ssim = ssim;
+    }
+
+    /**
+     * Method to compare the given images
+     *
+     * @param leftImage  Left input image (e.g. the cover image)
+     * @param rightImage Right input image (e.g. the stego image)
+     * @return Difference and quality metrics
+     * @throws OpenStegoException If the images are not of the same size
+     */
+    public static ImageDiff compute(ImageHolder leftImage, ImageHolder rightImage) throws OpenStegoException {
+        BufferedImage left = leftImage.getImage();
+        BufferedImage right = rightImage.getImage();
+        int width = left.getWidth();
+        int height = left.getHeight();
+
+        if (width != right.getWidth() || height != right.getHeight()) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_SIZE_MISMATCH);
+        }
+        OpenStegoProgress.checkCancelled();
+
+        BufferedImage diffImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] diff = ((DataBufferInt) diffImage.getRaster().getDataBuffer()).getData();
+        int bands = (height + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        Band[] results = new Band[bands];
+
+        IntStream.range(0, bands).parallel().forEach(band -> results[band] = compareBand(left, right, diff, band));
+
+        long sse = 0;
+        int maxDiff = 0;
+        double ssimSum = 0;
+        for (Band result : results) {
+            sse += result.sse;
+            maxDiff = Math.max(maxDiff, result.maxDiff);
+            ssimSum += result.ssimSum;
+        }
+        OpenStegoProgress.checkCancelled();
+
+        // Stretch the differences to the full range, using a lookup table for the channel values
+        if (maxDiff > 0) {
+            int[] scale = new int[maxDiff + 1];
+            for (int i = 0; i <= maxDiff; i++) {
+                scale[i] = (int) Math.round(i * MAX_VALUE / maxDiff);
+            }
+            IntStream.range(0, bands).parallel().forEach(band -> {
+                int end = Math.min(height, (band + 1) * BLOCK_SIZE) * width;
+                for (int i = band * BLOCK_SIZE * width; i < end; i++) {
+                    int d = diff[i];
+                    diff[i] = (scale[(d >> 16) & 0xFF] << 16) | (scale[(d >> 8) & 0xFF] << 8) | scale[d & 0xFF];
+                }
+            });
+        }
+
+        int blocks = bands * ((width + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        return new ImageDiff(new ImageHolder(diffImage, null), (double) sse / (3.0 * width * height), ssimSum / blocks);
+    }
+
+    /**
+     * Method to compare one band of rows of the images. The raw channel differences are written to the difference
+     * buffer, and the error and SSIM of the band are returned
+     *
+     * @param left  Left image
+     * @param right Right image
+     * @param diff  Buffer for the difference image
+     * @param band  Index of the band
+     * @return Error and SSIM of the band
+     */
+    private static Band compareBand(BufferedImage left, BufferedImage right, int[] diff, int band) {
+        int width = left.getWidth();
+        int y0 = band * BLOCK_SIZE;
+        int rows = Math.min(BLOCK_SIZE, left.getHeight() - y0);
+        int blocksX = (width + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] leftRgb = left.getRGB(0, y0, width, rows, null, 0, width);
+        int[] rightRgb = right.getRGB(0, y0, width, rows, null, 0, width);
+
+        // Sums of the luma values for each block of the band
+        double[] sumL = new double[blocksX];
+        double[] sumR = new double[blocksX];
+        double[] sumLL = new double[blocksX];
+        double[] sumRR = new double[blocksX];
+        double[] sumLR = new double[blocksX];
+
+        Band result = new Band();
+        int offset = y0 * width;
+        for (int i = 0; i < rows * width; i++) {
+            int l = leftRgb[i];
+            int r = rightRgb[i];
+            int lr = (l >> 16) & 0xFF;
+            int lg = (l >> 8) & 0xFF;
+            int lb = l & 0xFF;
+            int rr = (r >> 16) & 0xFF;
+            int rg = (r >> 8) & 0xFF;
+            int rb = r & 0xFF;
+            int dr = Math.abs(lr - rr);
+            int dg = Math.abs(lg - rg);
+            int db = Math.abs(lb - rb);
+
+            diff[offset + i] = (dr << 16) | (dg << 8) | db;
+            result.sse += dr * dr + dg * dg + db * db;
+            result.maxDiff = Math.max(result.maxDiff, Math.max(dr, Math.max(dg, db)));
+
+            int block = (i % width) / BLOCK_SIZE;
+            double yl = 0.299 * lr + 0.587 * lg + 0.114 * lb;
+            double yr = 0.299 * rr + 0.587 * rg + 0.114 * rb;
+            sumL[block] += yl;
+            sumR[block] += yr;
+            sumLL[block] += yl * yl;
+            sumRR[block] += yr * yr;
+            sumLR[block] += yl * yr;
+        }
+
+        for (int block = 0; block < blocksX; block++) {
+            double n = (double) rows * Math.min(BLOCK_SIZE, width - block * BLOCK_SIZE);
+            double meanL = sumL[block] / n;
+            double meanR = sumR[block] / n;
+            double varL = sumLL[block] / n - meanL * meanL;
+            double varR = sumRR[block] / n - meanR * meanR;
+            double cov = sumLR[block] / n - meanL * meanR;
+            result.ssimSum += ((2 * meanL * meanR + C1) * (2 * cov + C2)) / ((meanL * meanL + meanR * meanR + C1) * (varL + varR + C2));
+        }
+        return result;
+    }
+
+    /**
+     * Get method for the difference image
+     *
+     * @return Difference image
+     */
+    public ImageHolder getDiffImage() {
+        return this.diffImage;
+    }
+
+    /**
+     * Get method for the mean squared error (per channel value)
+     *
+     * @return Mean squared error
+     */
+    public double getMse() {
+        return this.mse;
+    }
+
+    /**
+     * Get method for the peak signal-to-noise ratio
+     *
+     * @return PSNR in dB ({@link Double#POSITIVE_INFINITY} if the images are identical)
+     */
+    public double getPsnr() {
+        return this.psnr;
+    }
+
+    /**
+     * Get method for the mean structural similarity index
+     *
+     * @return SSIM (1.0 if the images are identical)
+     */
+    public double getSsim() {
+        return this.ssim;
+    }
+
+    /**
+     * Error and SSIM of one band of rows
+     */
+    private static class Band {
+        /**
+         * Sum of squared errors
+         */
+        private long sse;
+
+        /**
+         * Max difference of a channel value
+         */
+        private int maxDiff;
+
+        /**
+         * Sum of SSIM of the blocks
+         */
+        private double ssimSum;
+    }
+}
@@ -8,21 +8,37 @@ package com.openstego.desktop.util;
 
 import com.openstego.desktop.OpenStego;
 import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.OpenStegoEvents;
 import com.openstego.desktop.OpenStegoException;
 import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoProgress;
+import com.openstego.desktop.OpenStegoStats;
 import org.w3c.dom.Node;
 
 import javax.imageio.*;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.event.IIOWriteProgressListener;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.FileImageOutputStream;
 import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.RenderedImage;
 import java.io.*;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
 
 /**
  * Image utilities
@@ -41,40 +57,94 @@ public class ImageUtil {
     public static final String DEFAULT_IMAGE_TYPE = "png";
 
     /**
-     * Method to generate a random image filled with noise.
+     * System property to generate the random cover images using {@link SecureRandom} for every pixel, instead of the
+     * faster generator which is only seeded from {@link SecureRandom}
+     */
+    public static final String SECURE_NOISE_PROPERTY = "openstego.secureNoise";
+
+    /**
+     * Lossless compression type used for writing TIFF images
+     */
+    private static final String TIFF_COMPRESSION_TYPE = "Deflate";
+
+    /**
+     * Number of rows of the random image filled by one task
+     */
+    private static final int NOISE_ROWS_PER_TASK = 64;
+
+    /**
+     * Method to generate a random image filled with noise. The noise is generated using {@link SplittableRandom}
+     * seeded from {@link SecureRandom}, unless the system property {@value #SECURE_NOISE_PROPERTY} is set to
+     * <code>true</code>
      *
      * @param numOfPixels Number of pixels required in the image
      * @return Random image filled with noise
      * @throws OpenStegoException Processing issues
      */
     public static ImageHolder generateRandomImage(int numOfPixels) throws OpenStegoException {
+        return generateRandomImage(numOfPixels, Boolean.getBoolean(SECURE_NOISE_PROPERTY));
+    }
+
+    /**
+     * Method to generate a random image filled with noise. The pixels are written directly to the data buffer of the
+     * image. With the fast generator, the rows are filled in parallel chunks, each with its own generator split from
+     * one seeded from {@link SecureRandom}. The noise only needs to look random, as it just hides the absence of a
+     * real cover image.
+     *
+     * @param numOfPixels Number of pixels required in the image
+     * @param secure      true to use {@link SecureRandom} for every pixel (much slower)
+     * @return Random image filled with noise
+     * @throws OpenStegoException Processing issues
+     */
+    public static ImageHolder generateRandomImage(int numOfPixels, boolean secure) throws OpenStegoException {
         final double ASPECT_RATIO = 4.0 / 3.0;
         int width;
         int height;
-        byte[] rgbValue = new byte[3];
         BufferedImage image;
+        int[] pixels;
         SecureRandom random;
 
         try {
             random = SecureRandom.getInstance("SHA1PRNG");
+        } catch (NoSuchAlgorithmException nsaEx) {
+            throw new OpenStegoException(nsaEx);
+        }
 
-            width = (int) Math.ceil(Math.sqrt(numOfPixels * ASPECT_RATIO));
-            height = (int) Math.ceil(numOfPixels / (double) width);
+        width = (int) Math.ceil(Math.sqrt(numOfPixels * ASPECT_RATIO));
+        height = (int) Math.ceil(numOfPixels / (double) width);
 
-            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
-                    random.nextBytes(rgbValue);
-                    image.setRGB(x, y, CommonUtil.byteToInt(rgbValue[0]) +
-                            (CommonUtil.byteToInt(rgbValue[1]) << 8) +
-                            (CommonUtil.byteToInt(rgbValue[2]) << 16));
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        if (secure) {
+            byte[] rgbValues = new byte[width * 3];
+            for (int y = 0; y < height; y++) {
+                random.nextBytes(rgbValues);
+                for (int x = 0, i = 0; x < width; x++, i += 3) {
+                    pixels[y * width + x] = CommonUtil.byteToInt(rgbValues[i]) + (CommonUtil.byteToInt(rgbValues[i + 1]) << 8)
+                            + (CommonUtil.byteToInt(rgbValues[i + 2]) << 16);
                 }
+                OpenStegoProgress.checkCancelled();
+            }
+        } else {
+            // Generators are split upfront (in order), so that the tasks do not share any state
+            SplittableRandom seeded = new SplittableRandom(random.nextLong());
+            SplittableRandom[] generators = new SplittableRandom[(height + NOISE_ROWS_PER_TASK - 1) / NOISE_ROWS_PER_TASK];
+            for (int i = 0; i < generators.length; i++) {
+                generators[i] = seeded.split();
             }
 
-            return new ImageHolder(image, null);
-        } catch (NoSuchAlgorithmException nsaEx) {
-            throw new OpenStegoException(nsaEx);
+            IntStream.range(0, generators.length).parallel().forEach(task -> {
+                SplittableRandom generator = generators[task];
+                int end = Math.min(height, (task + 1) * NOISE_ROWS_PER_TASK) * width;
+                for (int i = task * NOISE_ROWS_PER_TASK * width; i < end; i++) {
+                    pixels[i] = generator.nextInt() & 0xFFFFFF;
+                }
+            });
+            OpenStegoProgress.checkCancelled();
         }
+
+        return new ImageHolder(image, null);
     }
 
     /**
@@ -89,6 +159,8 @@ public class ImageUtil {
     public static byte[] imageToByteArray(ImageHolder image, String imageFileName, OpenStegoPlugin<?> plugin) throws OpenStegoException {
         ByteArrayOutputStream barrOS = new ByteArrayOutputStream();
         String imageType;
+        OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_ENCODE);
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.IMAGE_ENCODE, null);
 
         if (imageFileName != null) {
             imageType = imageFileName.substring(imageFileName.lastIndexOf('.') + 1).toLowerCase();
@@ -102,9 +174,58 @@ public class ImageUtil {
         } else {
             writeImage(image, DEFAULT_IMAGE_TYPE, barrOS);
         }
+        OpenStegoStats.endStage(stage, barrOS.size());
+        OpenStegoEvents.end(event, image.getImage().getWidth(), image.getImage().getHeight(), barrOS.size(), OpenStegoStats.STAGE_ENCODE);
         return barrOS.toByteArray();
     }
 
+    /**
+     * Method to write the image directly to the file. The image can be any {@link RenderedImage}, e.g. one which
+     * computes its pixels on demand, as the image writer pulls the pixels a few rows at a time while encoding. So the
+     * complete image never needs to be held in memory. If writing fails, then the partially written file is deleted
+     *
+     * @param image     Image data
+     * @param metadata  Metadata of the image (optional)
+     * @param imageFile Output image file
+     * @param plugin    Reference to the plugin
+     * @throws OpenStegoException Processing issues
+     */
+    public static void imageToFile(RenderedImage image, IIOMetadata metadata, File imageFile, OpenStegoPlugin<?> plugin) throws OpenStegoException {
+        String fileName = imageFile.getName();
+        String imageType = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersBySuffix(imageType);
+        if (!plugin.getWritableFileExtensions().contains(imageType) || !writers.hasNext()) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_TYPE_INVALID, imageType);
+        }
+
+        OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_ENCODE);
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.IMAGE_ENCODE, null);
+        ImageWriter writer = writers.next();
+        boolean written = false;
+        try (RandomAccessFile file = new RandomAccessFile(imageFile, "rw");
+             ImageOutputStream imageOS = new FileImageOutputStream(file)) {
+            // Existing file needs to be truncated, as the image stream only overwrites it
+            file.setLength(0);
+            writer.setOutput(imageOS);
+            writer.addIIOWriteProgressListener(new ProgressListener());
+            writer.write(null, new IIOImage(image, null, isTiff(imageType) ? null : metadata), getWriteParam(writer, imageType));
+            OpenStegoProgress.checkCancelled();
+            written = true;
+        } catch (IOException e) {
+            throw new OpenStegoException(e);
+        } catch (UncheckedIOException e) {
+            // Errors while computing the pixels of the image
+            throw new OpenStegoException(e.getCause());
+        } finally {
+            writer.dispose();
+            if (!written && !imageFile.delete()) {
+                imageFile.deleteOnExit();
+            }
+        }
+        OpenStegoStats.endStage(stage, imageFile.length());
+        OpenStegoEvents.end(event, image.getWidth(), image.getHeight(), imageFile.length(), OpenStegoStats.STAGE_ENCODE);
+    }
+
     /**
      * Method to convert byte array to image
      *
@@ -118,13 +239,110 @@ public class ImageUtil {
             return null;
         }
 
+        OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECODE);
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.IMAGE_DECODE, null);
         ImageHolder image = readImage(new ByteArrayInputStream(imageData));
         if (image == null) {
             throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID, imgFileName);
         }
+        OpenStegoStats.endStage(stage, imageData.length);
+        OpenStegoEvents.end(event, image.getImage().getWidth(), image.getImage().getHeight(), imageData.length, OpenStegoStats.STAGE_DECODE);
         return image;
     }
 
+    /**
+     * Method to get the dimensions of the image without decoding the pixel data. Only the header of the image is read
+     *
+     * @param imageData   Image data as byte array
+     * @param imgFileName Name of the image file
+     * @return Dimensions of the image
+     * @throws OpenStegoException Processing issues
+     */
+    public static Dimension getImageSize(byte[] imageData, String imgFileName) throws OpenStegoException {
+        try (ImageInputStream imageIS = ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))) {
+            return getImageSize(imageIS, imgFileName);
+        } catch (IOException e) {
+            throw new OpenStegoException(e);
+        }
+    }
+
+    /**
+     * Method to get the dimensions of the image file without decoding the pixel data. Only the header of the image is
+     * read from the file
+     *
+     * @param imageFile Image file
+     * @return Dimensions of the image
+     * @throws OpenStegoException Processing issues
+     */
+    public static Dimension getImageSize(File imageFile) throws OpenStegoException {
+        try (ImageInputStream imageIS = ImageIO.createImageInputStream(imageFile)) {
+            if (imageIS == null) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID, imageFile.getName());
+            }
+            return getImageSize(imageIS, imageFile.getName());
+        } catch (IOException e) {
+            throw new OpenStegoException(e);
+        }
+    }
+
+    private static Dimension getImageSize(ImageInputStream imageIS, String imgFileName) throws OpenStegoException, IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIS);
+        if (!readers.hasNext()) {
+            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID, imgFileName);
+        }
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(imageIS, true, true);
+            return new Dimension(reader.getWidth(0), reader.getHeight(0));
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Method to decode only the leading rows of the image, which are needed to hold the given number of pixels (in
+     * row-major order). Rows after that are not decoded, which makes it cheap to read data stored at the start of the
+     * image (e.g. the header of the embedded data)
+     *
+     * @param imageData   Image data as byte array
+     * @param imgFileName Name of the image file
+     * @param noOfPixels  Number of leading pixels needed
+     * @return Image containing the leading rows
+     * @throws OpenStegoException Processing issues
+     */
+    public static ImageHolder readImageHead(byte[] imageData, String imgFileName, int noOfPixels) throws OpenStegoException {
+        try (ImageInputStream imageIS = ImageIO.createImageInputStream(new ByteArrayInputStream(imageData))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIS);
+            if (!readers.hasNext()) {
+                throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID, imgFileName);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIS, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int rows = (int) Math.min(height, (noOfPixels + (long) width - 1) / width);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle(0, 0, width, rows));
+                // Some readers (e.g. PNG) decode the whole image even for a region, so abort once the rows are decoded
+                reader.addIIOReadUpdateListener(new RowLimitListener(rows));
+                OpenStegoStats.Stage.Run stage = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECODE);
+                Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.IMAGE_DECODE, null);
+                ImageHolder image = new ImageHolder(reader.read(0, param), null);
+                OpenStegoStats.endStage(stage, imageData.length);
+                OpenStegoEvents.end(event, width, rows, imageData.length, OpenStegoStats.STAGE_DECODE);
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new OpenStegoException(e);
+        }
+    }
+
     /**
      * Get RGB data array from given image
      *
@@ -181,6 +399,7 @@ public class ImageUtil {
         int width;
         int height;
 
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
         width = image.getWidth();
         height = image.getHeight();
 
@@ -190,6 +409,7 @@ public class ImageUtil {
         aa = new int[height][width];
 
         for (int i = 0; i < height; i++) {
+            OpenStegoProgress.checkpoint(i, height);
             for (int j = 0; j < width; j++) {
                 a = (image.getRGB(j, i) >> 24) & 0xFF;
                 r = (image.getRGB(j, i) >> 16) & 0xFF;
@@ -209,6 +429,7 @@ public class ImageUtil {
         yuv.add(v);
         yuv.add(aa);
 
+        OpenStegoEvents.end(event, width, height, 4L * width * height, "rgbToYuv");
         return yuv;
     }
 
@@ -264,6 +485,7 @@ public class ImageUtil {
         int[][] v;
         int[][] aa;
 
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
         y = yuv.get(0);
         u = yuv.get(1);
         v = yuv.get(2);
@@ -274,6 +496,7 @@ public class ImageUtil {
         image = new BufferedImage(width, height, (imgType == 0 ? BufferedImage.TYPE_INT_RGB : imgType));
 
         for (int i = 0; i < height; i++) {
+            OpenStegoProgress.checkpoint(i, height);
             for (int j = 0; j < width; j++) {
                 // Convert YUV back to RGB
                 r = pixelRange(y[i][j] + 1.140 * v[i][j]);
@@ -285,6 +508,7 @@ public class ImageUtil {
             }
         }
 
+        OpenStegoEvents.end(event, width, height, 4L * width * height, "yuvToRgb");
         return image;
     }
 
@@ -352,7 +576,8 @@ public class ImageUtil {
     }
 
     /**
-     * Method generate difference image between two given images
+     * Method generate difference image between two given images. The difference is computed per channel, and is
+     * stretched to the full range (see {@link ImageDiff})
      *
      * @param leftImage  Left input image
      * @param rightImage Right input image
@@ -360,65 +585,61 @@ public class ImageUtil {
      * @throws OpenStegoException Processing issues
      */
     public static ImageHolder getDiffImage(ImageHolder leftImage, ImageHolder rightImage) throws OpenStegoException {
-        int leftW;
-        int leftH;
-        int rightW;
-        int rightH;
-        int min;
-        int max;
-        int diff;
-        BufferedImage diffImage;
-
-        leftW = leftImage.getImage().getWidth();
-        leftH = leftImage.getImage().getHeight();
-        rightW = rightImage.getImage().getWidth();
-        rightH = rightImage.getImage().getHeight();
-        if (leftW != rightW || leftH != rightH) {
-            throw new OpenStegoException(null, OpenStego.NAMESPACE, OpenStegoErrors.IMAGE_FILE_INVALID);
-        }
-        diffImage = new BufferedImage(leftW, leftH, BufferedImage.TYPE_INT_RGB);
-
-        min = Math.abs(leftImage.getImage().getRGB(0, 0) - rightImage.getImage().getRGB(0, 0));
-        max = min;
-
-        for (int i = 0; i < leftW; i++) {
-            for (int j = 0; j < leftH; j++) {
-                diff = Math.abs(leftImage.getImage().getRGB(i, j) - rightImage.getImage().getRGB(i, j));
-                // error += diff * diff;
-                if (diff < min) {
-                    min = diff;
-                }
-                if (diff > max) {
-                    max = diff;
-                }
-            }
-        }
-
-        for (int i = 0; i < leftW; i++) {
-            for (int j = 0; j < leftH; j++) {
-                diff = Math.abs(leftImage.getImage().getRGB(i, j) - rightImage.getImage().getRGB(i, j));
-                diffImage.setRGB(i, j, pixelRange((double) (diff - min) / (double) (max - min) * Math.pow(2, 32)));
-                // TODO
-            }
-        }
-
-        return new ImageHolder(diffImage, null);
+        return ImageDiff.compute(leftImage, rightImage).getDiffImage();
     }
 
     private static void writeImage(ImageHolder image, String imageType, OutputStream os) throws OpenStegoException {
         if ("jpeg".equals(imageType) || "jpg".equals(imageType)) {
             writeJpegImage(image, os);
         } else {
-            try {
+            // Image stream needs to be closed, so that the data cached by it (e.g. TIFF image data) is flushed
+            try (ImageOutputStream imageOS = ImageIO.createImageOutputStream(os)) {
                 ImageWriter writer = ImageIO.getImageWritersByFormatName(imageType).next();
-                writer.setOutput(ImageIO.createImageOutputStream(os));
-                writer.write(null, new IIOImage(image.getImage(), null, image.getMetadata()), null);
+                writer.setOutput(imageOS);
+                writer.addIIOWriteProgressListener(new ProgressListener());
+                writer.write(null, new IIOImage(image.getImage(), null, isTiff(imageType) ? null : image.getMetadata()),
+                        getWriteParam(writer, imageType));
+                OpenStegoProgress.checkCancelled();
             } catch (IOException e) {
                 throw new OpenStegoException(e);
             }
         }
     }
 
+    /**
+     * Method to check whether the image type is TIFF. The metadata of TIFF images describes how the image data is
+     * encoded (e.g. compression and photometric interpretation), which could be lossy (e.g. JPEG compression with YCbCr
+     * color space) for the cover image. So TIFF images are written without the metadata of the cover image, and with
+     * lossless compression
+     *
+     * @param imageType Type of the image
+     * @return true if the image type is TIFF
+     */
+    private static boolean isTiff(String imageType) {
+        return "tif".equals(imageType) || "tiff".equals(imageType);
+    }
+
+    /**
+     * Method to get the parameters for the image writer. Lossless compression is set explicitly for TIFF images, as the
+     * default compression of the TIFF writer depends on the metadata
+     *
+     * @param writer    Image writer
+     * @param imageType Type of the image
+     * @return Parameters for the image writer, or null to use the default parameters
+     */
+    private static ImageWriteParam getWriteParam(ImageWriter writer, String imageType) {
+        if (!isTiff(imageType)) {
+            return null;
+        }
+
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed() && Arrays.asList(param.getCompressionTypes()).contains(TIFF_COMPRESSION_TYPE)) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType(TIFF_COMPRESSION_TYPE);
+        }
+        return param;
+    }
+
     private static void writeJpegImage(ImageHolder image, OutputStream os) throws OpenStegoException {
         try {
             JPEGImageWriteParam jpegParams = new JPEGImageWriteParam(null);
@@ -456,7 +677,9 @@ public class ImageUtil {
             }
             metadata.mergeTree(metadataFormatName, mdRoot);
 
+            writer.addIIOWriteProgressListener(new ProgressListener());
             writer.write(null, new IIOImage(image.getImage(), null, metadata), jpegParams);
+            OpenStegoProgress.checkCancelled();
         } catch (IOException e) {
             throw new OpenStegoException(e);
         }
@@ -472,7 +695,9 @@ public class ImageUtil {
 
             ImageReader reader = readers.next();
             reader.setInput(imageIS);
+            reader.addIIOReadProgressListener(new ProgressListener());
             BufferedImage image = reader.read(0);
+            OpenStegoProgress.checkCancelled();
             IIOMetadata metadata;
             try {
                 metadata = reader.getImageMetadata(0);
@@ -487,4 +712,135 @@ public class ImageUtil {
         }
     }
 
+    /**
+     * Listener to report the progress of reading / writing the image to {@link OpenStegoProgress}, and to abort it
+     * once the operation is cancelled. Caller needs to check for cancellation after reading / writing, as the aborted
+     * reader / writer returns normally
+     */
+    private static class ProgressListener implements IIOReadProgressListener, IIOWriteProgressListener {
+        @Override
+        public void imageProgress(ImageReader source, float percentageDone) {
+            try {
+                OpenStegoProgress.checkpoint((long) percentageDone, 100);
+            } catch (CancellationException e) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void imageProgress(ImageWriter source, float percentageDone) {
+            try {
+                OpenStegoProgress.checkpoint((long) percentageDone, 100);
+            } catch (CancellationException e) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void sequenceStarted(ImageReader source, int minIndex) {
+        }
+
+        @Override
+        public void sequenceComplete(ImageReader source) {
+        }
+
+        @Override
+        public void imageStarted(ImageReader source, int imageIndex) {
+        }
+
+        @Override
+        public void imageComplete(ImageReader source) {
+        }
+
+        @Override
+        public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {
+        }
+
+        @Override
+        public void thumbnailProgress(ImageReader source, float percentageDone) {
+        }
+
+        @Override
+        public void thumbnailComplete(ImageReader source) {
+        }
+
+        @Override
+        public void readAborted(ImageReader source) {
+        }
+
+        @Override
+        public void imageStarted(ImageWriter source, int imageIndex) {
+        }
+
+        @Override
+        public void imageComplete(ImageWriter source) {
+        }
+
+        @Override
+        public void thumbnailStarted(ImageWriter source, int imageIndex, int thumbnailIndex) {
+        }
+
+        @Override
+        public void thumbnailProgress(ImageWriter source, float percentageDone) {
+        }
+
+        @Override
+        public void thumbnailComplete(ImageWriter source) {
+        }
+
+        @Override
+        public void writeAborted(ImageWriter source) {
+        }
+    }
+
+    /**
+     * Listener to abort the reading of image once the given number of rows are decoded
+     */
+    private static class RowLimitListener implements IIOReadUpdateListener {
+        /**
+         * Number of rows needed
+         */
+        private final int rows;
+
+        /**
+         * Default constructor
+         *
+         * @param rows Number of rows needed
+         */
+        RowLimitListener(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width, int height, int periodX, int periodY,
+                int[] bands) {
+            // Interlaced passes do not decode complete rows, so those are not aborted
+            if (periodX == 1 && periodY == 1 && minY + height >= this.rows) {
+                source.abort();
+            }
+        }
+
+        @Override
+        public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass, int minX, int minY, int periodX,
+                int periodY, int[] bands) {
+        }
+
+        @Override
+        public void passComplete(ImageReader source, BufferedImage theImage) {
+        }
+
+        @Override
+        public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass, int maxPass, int minX, int minY,
+                int periodX, int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width, int height, int periodX,
+                int periodY, int[] bands) {
+        }
+
+        @Override
+        public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) {
+        }
+    }
 }
@@ -7,24 +7,25 @@
 package com.openstego.desktop.util;
 
 import java.text.MessageFormat;
-import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Localized label handler for OpenStego
  */
 public class LabelUtil {
     /**
-     * Static variable to hold the map of labels loaded from resource files
+     * Static variable to hold the map of labels loaded from resource files. Namespaces get added by the plugin
+     * constructors, which may run in parallel, so a concurrent map is used
      */
-    private static final Map<String, ResourceBundle> map = new HashMap<>();
+    private static final Map<String, ResourceBundle> map = new ConcurrentHashMap<>();
 
     /**
      * Static variable to store the namespace map
      */
-    private static final Map<String, LabelUtil> namespaceMap = new HashMap<>();
+    private static final Map<String, LabelUtil> namespaceMap = new ConcurrentHashMap<>();
 
     /**
      * Method to add new namespace using resource bundle
@@ -43,15 +44,7 @@ public class LabelUtil {
      * @return Instance of LabelUtil
      */
     public static LabelUtil getInstance(String namespace) {
-        LabelUtil util;
-
-        util = namespaceMap.get(namespace);
-        if (util == null) {
-            util = new LabelUtil(namespace);
-            namespaceMap.put(namespace, util);
-        }
-
-        return util;
+        return namespaceMap.computeIfAbsent(namespace, LabelUtil::new);
     }
 
     /**
@@ -0,0 +1,179 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util;
+
+import com.openstego.desktop.OpenStegoException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Cache for the file formats supported by the plugins. Finding the formats needs the ImageIO plugin registry to be
+ * scanned (and for some plugins, the image writers to be probed), which is a noticeable part of the startup time of the
+ * command line. So the formats are saved in the user config directory, and reused by later runs as long as the Java
+ * runtime, class path and application build remain the same.
+ * <p>
+ * The cache can be disabled by setting the system property {@value #ENABLED_PROPERTY} to <code>false</code>.
+ */
+public class PluginFormatCache {
+    /**
+     * System property to enable or disable the cache
+     */
+    public static final String ENABLED_PROPERTY = "openstego.formatCache";
+
+    /**
+     * Name of the cache file in the user config directory
+     */
+    private static final String CACHE_FILENAME = "formats.cache";
+
+    /**
+     * Key for the fingerprint of the runtime which produced the cache
+     */
+    private static final String FINGERPRINT_KEY = "fingerprint";
+
+    /**
+     * Cached formats (loaded on first use)
+     */
+    private static Properties cache = null;
+
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private PluginFormatCache() {
+    }
+
+    /**
+     * Method to get the list of formats for the given key. If the formats are not cached, then they are found using
+     * the given probe and saved in the cache
+     *
+     * @param key   Key for the list of formats (e.g. "image.read")
+     * @param probe Probe to find the formats
+     * @return List of formats. The list is a new copy, so it can be modified by the caller
+     * @throws OpenStegoException Processing issues
+     */
+    public static List<String> getFormats(String key, Probe probe) throws OpenStegoException {
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return probe.probe();
+        }
+
+        synchronized (PluginFormatCache.class) {
+            String value = load().getProperty(key);
+            if (value != null) {
+                return value.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(value.split(",")));
+            }
+        }
+
+        List<String> formats = probe.probe();
+        synchronized (PluginFormatCache.class) {
+            load().setProperty(key, String.join(",", formats));
+            save();
+        }
+        return formats;
+    }
+
+    /**
+     * Method to clear the cache, so that the formats are probed again
+     */
+    public static synchronized void clear() {
+        cache = new Properties();
+        cache.setProperty(FINGERPRINT_KEY, fingerprint());
+        save();
+    }
+
+    /**
+     * Method to load the cache from the user config directory. If the file does not exist, or was created by a
+     * different runtime, then an empty cache is used
+     *
+     * @return Cached formats
+     */
+    private static Properties load() {
+        if (cache != null) {
+            return cache;
+        }
+
+        Properties props = new Properties();
+        try {
+            Path cacheFile = UserPreferences.getConfigPath().resolve(CACHE_FILENAME);
+            if (Files.exists(cacheFile)) {
+                try (InputStream is = Files.newInputStream(cacheFile)) {
+                    props.load(is);
+                }
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            // Corrupt or unreadable cache is ignored, as the formats can always be probed again
+            props.clear();
+        }
+
+        String fingerprint = fingerprint();
+        if (!fingerprint.equals(props.getProperty(FINGERPRINT_KEY))) {
+            props.clear();
+            props.setProperty(FINGERPRINT_KEY, fingerprint);
+        }
+        cache = props;
+        return cache;
+    }
+
+    /**
+     * Method to save the cache to the user config directory. Failures are ignored, as the cache is only an
+     * optimization
+     */
+    private static void save() {
+        try {
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            cache.store(os, null);
+            CommonUtil.writeFileAtomic(os.toByteArray(), UserPreferences.getConfigPath().resolve(CACHE_FILENAME).toString());
+        } catch (IOException | OpenStegoException ex) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Method to get the fingerprint of the current runtime. The ImageIO plugins depend on the Java runtime and the
+     * class path, and the filtering of formats depends on the application build (identified by the timestamp of its
+     * jar or class directory)
+     *
+     * @return Fingerprint
+     */
+    private static String fingerprint() {
+        long buildTime = 0L;
+        try {
+            CodeSource source = PluginFormatCache.class.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null) {
+                buildTime = new File(source.getLocation().toURI()).lastModified();
+            }
+        } catch (URISyntaxException | IllegalArgumentException | SecurityException ex) {
+            // Ignore, as the runtime details are still part of the fingerprint
+        }
+
+        String runtime = System.getProperty("java.home") + "|" + System.getProperty("java.version") + "|"
+                + System.getProperty("java.class.path") + "|" + buildTime;
+        return Integer.toHexString(runtime.hashCode());
+    }
+
+    /**
+     * Probe to find the list of formats, when they are not cached
+     */
+    public interface Probe {
+        /**
+         * Method to find the list of formats
+         *
+         * @return List of formats
+         * @throws OpenStegoException Processing issues
+         */
+        List<String> probe() throws OpenStegoException;
+    }
+}
@@ -8,16 +8,24 @@ package com.openstego.desktop.util;
 
 import com.openstego.desktop.OpenStegoException;
 import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
 
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
- * Utility class to load and manage the available stego plugins
+ * Utility class to load and manage the available stego plugins. The plugins are discovered using
+ * {@link ServiceLoader} via their {@link OpenStegoPluginDescriptor}, and each plugin is instantiated only when it is
+ * first used. Plugin classes listed in the legacy <code>OpenStegoPlugins.internal</code> and
+ * <code>OpenStegoPlugins.external</code> resources are still supported, but those are instantiated upfront to get
+ * their names.
  */
 public class PluginManager {
     /**
@@ -27,105 +35,235 @@ public class PluginManager {
     }
 
     /**
-     * Static variable to hold the list of available plugins
+     * Name of the data hiding plugin which is used when the plugin is not specified, and more than one data hiding
+     * plugin is available
      */
-    private static final List<OpenStegoPlugin<?>> plugins = new ArrayList<>();
+    public static final String DEFAULT_DATA_HIDING_PLUGIN = "RandomLSB";
 
     /**
-     * Static variable to hold a map of available plugins
+     * Static variable to hold the available plugins (in order of discovery), keyed by the upper case name
      */
-    private static final Map<String, OpenStegoPlugin<?>> pluginsMap = new HashMap<>();
+    private static final Map<String, PluginEntry> pluginsMap = new LinkedHashMap<>();
 
     /**
-     * Method to load the stego plugin classes
+     * Flag to indicate whether the plugins have been loaded
+     */
+    private static boolean loaded = false;
+
+    /**
+     * Method to load the stego plugin descriptors. The plugins are not instantiated (except for the legacy ones).
+     * Calling it again has no effect
      *
      * @throws OpenStegoException Processing issues
      */
-    public static void loadPlugins() throws OpenStegoException {
-        List<String> pluginList = new ArrayList<>();
-        OpenStegoPlugin<?> plugin;
+    public static synchronized void loadPlugins() throws OpenStegoException {
+        if (loaded) {
+            return;
+        }
+
+        Set<String> describedClasses = new HashSet<>();
+        try {
+            for (OpenStegoPluginDescriptor descriptor : ServiceLoader.load(OpenStegoPluginDescriptor.class,
+                    PluginManager.class.getClassLoader())) {
+                pluginsMap.put(descriptor.getName().toUpperCase(), new PluginEntry(descriptor, null));
+                describedClasses.add(descriptor.getPluginClassName());
+            }
+        } catch (ServiceConfigurationError scErr) {
+            throw new OpenStegoException(scErr);
+        }
 
-        // Load internal plugins
+        // Load legacy plugins (internal and external) if available
+        List<String> pluginList = new ArrayList<>();
         try (InputStream is = PluginManager.class.getResourceAsStream("/OpenStegoPlugins.internal");
              InputStream isExt = PluginManager.class.getResourceAsStream("/OpenStegoPlugins.external")) {
 
             if (is != null) {
                 pluginList.addAll(StringUtil.getStringLines(new String(CommonUtil.streamToBytes(is))));
             }
-
-            // Load external plugins if available
             if (isExt != null) {
                 pluginList.addAll(StringUtil.getStringLines(new String(CommonUtil.streamToBytes(isExt))));
             }
 
             for (String pluginClass : pluginList) {
-                plugin = (OpenStegoPlugin<?>) Class.forName(pluginClass).getDeclaredConstructor().newInstance();
-                plugins.add(plugin);
-                pluginsMap.put(plugin.getName().toUpperCase(), plugin);
+                if (pluginClass.trim().isEmpty() || describedClasses.contains(pluginClass.trim())) {
+                    continue;
+                }
+                OpenStegoPlugin<?> plugin = (OpenStegoPlugin<?>) Class.forName(pluginClass.trim()).getDeclaredConstructor().newInstance();
+                pluginsMap.put(plugin.getName().toUpperCase(), new PluginEntry(null, plugin));
             }
         } catch (Exception ex) {
             throw new OpenStegoException(ex);
         }
+        loaded = true;
     }
 
     /**
-     * Method to get the list of names of the loaded plugins
+     * Method to get the list of names of the loaded plugins. The plugins are not instantiated
      *
      * @return List of names of the loaded plugins
      */
-    @SuppressWarnings("unused")
-    public static List<String> getPluginNames() {
-        return plugins.stream().map(OpenStegoPlugin::getName).collect(Collectors.toList());
+    public static synchronized List<String> getPluginNames() {
+        List<String> names = new ArrayList<>();
+        for (PluginEntry entry : pluginsMap.values()) {
+            names.add(entry.getName());
+        }
+        return names;
     }
 
     /**
-     * Method to get the list of the loaded plugins
+     * Method to get the list of names of the loaded plugins which support the given purpose. The plugins are not
+     * instantiated
+     *
+     * @param purpose Purpose of the plugins
+     * @return List of names of the plugins
+     */
+    public static synchronized List<String> getPluginNames(OpenStegoPlugin.Purpose purpose) {
+        List<String> names = new ArrayList<>();
+        for (PluginEntry entry : pluginsMap.values()) {
+            if (entry.getPurposes().contains(purpose)) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Method to get the name of the plugin to be used for the given purpose, when the plugin is not specified. If only
+     * one plugin supports the purpose, then that plugin is selected. Otherwise, {@link #DEFAULT_DATA_HIDING_PLUGIN} is
+     * selected for data hiding (if available)
+     *
+     * @param purpose Purpose of the plugin
+     * @return Name of the plugin, or null if the plugin can not be auto-selected
+     */
+    public static synchronized String getDefaultPluginName(OpenStegoPlugin.Purpose purpose) {
+        List<String> names = getPluginNames(purpose);
+        if (names.size() == 1) {
+            return names.get(0);
+        }
+        if (purpose == OpenStegoPlugin.Purpose.DATA_HIDING && pluginsMap.containsKey(DEFAULT_DATA_HIDING_PLUGIN.toUpperCase())) {
+            return pluginsMap.get(DEFAULT_DATA_HIDING_PLUGIN.toUpperCase()).getName();
+        }
+        return null;
+    }
+
+    /**
+     * Method to get the list of the loaded plugins. All the plugins get instantiated
      *
      * @return List of the loaded plugins
+     * @throws OpenStegoException Processing issues
      */
-    public static List<OpenStegoPlugin<?>> getPlugins() {
+    public static synchronized List<OpenStegoPlugin<?>> getPlugins() throws OpenStegoException {
+        List<OpenStegoPlugin<?>> plugins = new ArrayList<>();
+        for (PluginEntry entry : pluginsMap.values()) {
+            plugins.add(entry.getPlugin());
+        }
         return plugins;
     }
 
     /**
-     * Method to get the list of the data hiding plugins
+     * Method to get the list of the data hiding plugins. Only the data hiding plugins get instantiated
      *
      * @return List of the data hiding plugins
+     * @throws OpenStegoException Processing issues
      */
-    public static List<OpenStegoPlugin<?>> getDataHidingPlugins() {
-        List<OpenStegoPlugin<?>> dhPlugins = new ArrayList<>();
-
-        for (OpenStegoPlugin<?> plugin : plugins) {
-            if (plugin.getPurposes().contains(OpenStegoPlugin.Purpose.DATA_HIDING)) {
-                dhPlugins.add(plugin);
-            }
-        }
-        return dhPlugins;
+    public static List<OpenStegoPlugin<?>> getDataHidingPlugins() throws OpenStegoException {
+        return getPlugins(OpenStegoPlugin.Purpose.DATA_HIDING);
     }
 
     /**
-     * Method to get the list of the watermarking plugins
+     * Method to get the list of the watermarking plugins. Only the watermarking plugins get instantiated
      *
      * @return List of the watermarking plugins
+     * @throws OpenStegoException Processing issues
+     */
+    public static List<OpenStegoPlugin<?>> getWatermarkingPlugins() throws OpenStegoException {
+        return getPlugins(OpenStegoPlugin.Purpose.WATERMARKING);
+    }
+
+    /**
+     * Method to get the plugin object based on the name of the plugin. The plugin gets instantiated on first use
+     *
+     * @param name Name of the plugin
+     * @return Plugin object, or null if there is no plugin with the given name
+     * @throws OpenStegoException Processing issues
      */
-    public static List<OpenStegoPlugin<?>> getWatermarkingPlugins() {
-        List<OpenStegoPlugin<?>> dhPlugins = new ArrayList<>();
+    public static synchronized OpenStegoPlugin<?> getPluginByName(String name) throws OpenStegoException {
+        PluginEntry entry = pluginsMap.get(name.toUpperCase());
+        return entry == null ? null : entry.getPlugin();
+    }
 
-        for (OpenStegoPlugin<?> plugin : plugins) {
-            if (plugin.getPurposes().contains(OpenStegoPlugin.Purpose.WATERMARKING)) {
-                dhPlugins.add(plugin);
+    /**
+     * Method to get the list of the plugins which support the given purpose
+     *
+     * @param purpose Purpose of the plugins
+     * @return List of the plugins
+     * @throws OpenStegoException Processing issues
+     */
+    private static synchronized List<OpenStegoPlugin<?>> getPlugins(OpenStegoPlugin.Purpose purpose) throws OpenStegoException {
+        List<OpenStegoPlugin<?>> plugins = new ArrayList<>();
+        for (PluginEntry entry : pluginsMap.values()) {
+            if (entry.getPurposes().contains(purpose)) {
+                plugins.add(entry.getPlugin());
             }
         }
-        return dhPlugins;
+        return plugins;
     }
 
     /**
-     * Method to get the plugin object based on the name of the plugin
-     *
-     * @param name Name of the plugin
-     * @return Plugin object
+     * Entry for a plugin, which holds its descriptor and the plugin instance (once created). Entries are accessed only
+     * while holding the lock on {@link PluginManager}
      */
-    public static OpenStegoPlugin<?> getPluginByName(String name) {
-        return pluginsMap.get(name.toUpperCase());
+    private static class PluginEntry {
+        /**
+         * Descriptor of the plugin (null for legacy plugins)
+         */
+        private final OpenStegoPluginDescriptor descriptor;
+
+        /**
+         * Plugin instance (null until first use)
+         */
+        private OpenStegoPlugin<?> plugin;
+
+        /**
+         * Default constructor
+         *
+         * @param descriptor Descriptor of the plugin
+         * @param plugin     Plugin instance (if already created)
+         */
+        PluginEntry(OpenStegoPluginDescriptor descriptor, OpenStegoPlugin<?> plugin) {
+            this.descriptor = descriptor;
+            this.plugin = plugin;
+        }
+
+        /**
+         * Gives the name of the plugin
+         *
+         * @return Name of the plugin
+         */
+        String getName() {
+            return this.descriptor != null ? this.descriptor.getName() : this.plugin.getName();
+        }
+
+        /**
+         * Gives the purpose(s) of the plugin
+         *
+         * @return Purpose(s) of the plugin
+         */
+        List<OpenStegoPlugin.Purpose> getPurposes() {
+            return this.descriptor != null ? this.descriptor.getPurposes() : this.plugin.getPurposes();
+        }
+
+        /**
+         * Method to get the plugin instance, creating it on first use
+         *
+         * @return Plugin instance
+         * @throws OpenStegoException Processing issues
+         */
+        OpenStegoPlugin<?> getPlugin() throws OpenStegoException {
+            if (this.plugin == null) {
+                this.plugin = this.descriptor.createPlugin();
+            }
+            return this.plugin;
+        }
     }
 }
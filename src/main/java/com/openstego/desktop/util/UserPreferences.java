@@ -47,24 +47,11 @@ public class UserPreferences {
         prefs = new Properties();
 
         try {
-            // Find the path where config file should be stored
-            String userHome = System.getProperty("user.home");
-            String configHome = System.getenv("XDG_CONFIG_HOME");
-            if (configHome == null || configHome.trim().length() == 0) {
-                configHome = userHome + File.separator + ".config";
-            }
-
-            // Create config directory if it does not exist
-            Path configPath = Paths.get(configHome, "openstego");
-            if (Files.notExists(configPath)) {
-                Files.createDirectories(configPath);
-            }
-
             // Create preference file if it does not exist
-            Path prefFile = configPath.resolve(PREF_FILENAME);
+            Path prefFile = getConfigPath().resolve(PREF_FILENAME);
             if (Files.notExists(prefFile)) {
                 // First check if old style "openstego.ini" file is present in user home
-                Path oldPrefFile = Paths.get(userHome, "openstego.ini");
+                Path oldPrefFile = Paths.get(System.getProperty("user.home"), "openstego.ini");
                 if (Files.exists(oldPrefFile)) {
                     Files.copy(oldPrefFile, prefFile);
                     Files.delete(oldPrefFile);
@@ -85,6 +72,28 @@ public class UserPreferences {
         }
     }
 
+    /**
+     * Method to get the directory where the user specific files (e.g. preferences) are stored. The directory is
+     * created if it does not exist
+     *
+     * @return Path of the config directory
+     * @throws IOException Processing issues
+     */
+    public static Path getConfigPath() throws IOException {
+        // Find the path where config file should be stored
+        String configHome = System.getenv("XDG_CONFIG_HOME");
+        if (configHome == null || configHome.trim().length() == 0) {
+            configHome = System.getProperty("user.home") + File.separator + ".config";
+        }
+
+        // Create config directory if it does not exist
+        Path configPath = Paths.get(configHome, "openstego");
+        if (Files.notExists(configPath)) {
+            Files.createDirectories(configPath);
+        }
+        return configPath;
+    }
+
     /**
      * Returns the user preference in form of string
      *
@@ -9,6 +9,7 @@ package com.openstego.desktop.util.cmd;
 import com.openstego.desktop.OpenStegoException;
 
 import java.io.BufferedReader;
+import java.io.Console;
 import java.io.IOException;
 import java.io.InputStreamReader;
 
@@ -23,7 +24,8 @@ public class PasswordInput {
     }
 
     /**
-     * Method to read password from the console
+     * Method to read password from the console. The prompt and the masking are written to the console if available,
+     * else to stderr, so that stdout can carry the output data
      *
      * @param prompt Prompt for the password input
      * @return The password as entered by the user
@@ -34,6 +36,12 @@ public class PasswordInput {
         EraserThread et;
         BufferedReader in;
         Thread mask;
+        Console console = System.console();
+
+        if (console != null) {
+            char[] pwd = console.readPassword("%s", prompt);
+            return pwd == null ? null : new String(pwd);
+        }
 
         et = new EraserThread(prompt);
         mask = new Thread(et);
@@ -48,7 +56,7 @@ public class PasswordInput {
 
         // Stop masking
         et.stopMasking();
-        System.out.println();
+        System.err.println();
 
         return password;
     }
@@ -60,7 +68,7 @@ public class PasswordInput {
         /**
          * Flag for stop condition
          */
-        private boolean stop = true;
+        private volatile boolean stop = true;
 
         /**
          * Constructor
@@ -68,7 +76,7 @@ public class PasswordInput {
          * @param prompt Prompt for the password input
          */
         public EraserThread(String prompt) {
-            System.out.print(prompt);
+            System.err.print(prompt);
         }
 
         /**
@@ -77,7 +85,7 @@ public class PasswordInput {
         @Override
         public void run() {
             while (this.stop) {
-                System.out.print("\b ");
+                System.err.print("\b ");
             }
         }
 
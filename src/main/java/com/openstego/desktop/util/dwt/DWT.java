@@ -6,10 +6,10 @@
 
 package com.openstego.desktop.util.dwt;
 
+import com.openstego.desktop.OpenStegoEvents;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.util.ImageUtil;
 
-import java.util.Map;
-
 /**
  * Class to handle Discrete Wavelet Transforms (DWT).
  * <p>
@@ -20,16 +20,6 @@ import java.util.Map;
  * Master's Thesis, Department of Scientific Computing, University of Salzburg, Austria, January 2001.
  */
 public class DWT {
-    /**
-     * Master map of filters
-     */
-    private static Map<Integer, FilterGH> filterGHMap = null;
-
-    /**
-     * URI for the filter file
-     */
-    private static final String FILTER_FILE = "/dwt/filters.xml";
-
     /**
      * List of loaded filters
      */
@@ -65,14 +55,11 @@ public class DWT {
      * @param method   Wavelet filtering method
      */
     public DWT(int cols, int rows, int filterID, int level, int method) {
-        // Read the master filter file if it is not already loaded
-        if (filterGHMap == null) {
-            filterGHMap = FilterXMLReader.parse(FILTER_FILE);
-        }
+        FilterGH filterGH = FilterRegistry.getFilterGH(filterID);
 
         this.filters = new FilterGH[level + 1];
         for (int i = 0; i <= level; i++) {
-            this.filters[i] = filterGHMap.get(filterID);
+            this.filters[i] = filterGH;
         }
 
         this.level = level;
@@ -91,18 +78,44 @@ public class DWT {
         Image image;
         ImageTree tree;
 
-        image = new Image(this.cols, this.rows);
-
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.cols; j++) {
-                DWTUtil.setPixel(image, j, i, pixels[i][j]);
-            }
-        }
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
+        image = pixelsToImage(pixels);
 
         tree = DWTUtil.waveletTransform(image, this.level, this.filters, this.method);
+        OpenStegoEvents.end(event, this.cols, this.rows, 4L * this.cols * this.rows, "forwardDWT");
         return tree;
     }
 
+    /**
+     * Method to perform forward DWT on the pixel data. The largest absolute coefficient of each sub-band (ignoring the
+     * given border) is also calculated as each sub-band is generated, and is available via
+     * {@link ImageTree#getMaxCoeff()}
+     *
+     * @param pixels Image pixel data
+     * @param border No. of pixels to ignore at each border of the sub-band while finding the max coefficient
+     * @return Image tree data after DWT
+     */
+    public ImageTree forwardDWT(int[][] pixels, int border) {
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
+        ImageTree tree = DWTUtil.waveletTransform(pixelsToImage(pixels), this.level, this.filters, this.method, border);
+        OpenStegoEvents.end(event, this.cols, this.rows, 4L * this.cols * this.rows, "forwardDWT");
+        return tree;
+    }
+
+    /**
+     * Method to perform forward DWT on the pixel data, computing only the approximation (coarse) image at the
+     * decomposition level. This should be used when none of the detail sub-bands are required
+     *
+     * @param pixels Image pixel data
+     * @return Approximation image at the decomposition level
+     */
+    public Image forwardApproximation(int[][] pixels) {
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
+        Image image = DWTUtil.approximationTransform(pixelsToImage(pixels), this.level, this.filters, this.method);
+        OpenStegoEvents.end(event, this.cols, this.rows, 4L * this.cols * this.rows, "forwardApproximation");
+        return image;
+    }
+
     /**
      * Method to perform inverse DWT to get back the pixel data
      *
@@ -112,12 +125,34 @@ public class DWT {
     public void inverseDWT(ImageTree dwts, int[][] pixels) {
         Image image;
 
+        Object event = OpenStegoEvents.begin(OpenStegoEvents.Type.TRANSFORM, null);
         image = DWTUtil.inverseTransform(dwts, this.filters, this.method + 1);
 
         for (int i = 0; i < this.rows; i++) {
+            OpenStegoProgress.checkCancelled();
             for (int j = 0; j < this.cols; j++) {
                 pixels[i][j] = ImageUtil.pixelRange((int) (DWTUtil.getPixel(image, j, i) + 0.5));
             }
         }
+        OpenStegoEvents.end(event, this.cols, this.rows, 4L * this.cols * this.rows, "inverseDWT");
+    }
+
+    /**
+     * Utility method to convert the pixel data to image
+     *
+     * @param pixels Image pixel data
+     * @return Image
+     */
+    private Image pixelsToImage(int[][] pixels) {
+        Image image = new Image(this.cols, this.rows);
+
+        for (int i = 0; i < this.rows; i++) {
+            OpenStegoProgress.checkCancelled();
+            for (int j = 0; j < this.cols; j++) {
+                DWTUtil.setPixel(image, j, i, pixels[i][j]);
+            }
+        }
+
+        return image;
     }
 }
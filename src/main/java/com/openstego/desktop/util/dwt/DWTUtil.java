@@ -6,6 +6,7 @@
 
 package com.openstego.desktop.util.dwt;
 
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.util.CommonUtil;
 
 /**
@@ -34,6 +35,24 @@ public class DWTUtil {
      * @return Data after performing wavelet transform
      */
     public static ImageTree waveletTransform(Image origImg, int level, FilterGH[] filterGHList, int method) {
+        return waveletTransform(origImg, level, filterGHList, method, -1);
+    }
+
+    /**
+     * Method to perform the wavelet transform. If border is not negative, then the largest absolute coefficient of
+     * each sub-band (ignoring given number of border pixels) is also calculated, and is made available via
+     * {@link ImageTree#getMaxCoeff()}. This is done by a separate row-major scan of each sub-band right after it is
+     * generated (see {@link #findMaxCoeff(Image, int)}), which was measured to be cheaper than tracking the max inside
+     * the column-wise filter loop
+     *
+     * @param origImg      Original image
+     * @param level        Decomposition level
+     * @param filterGHList List of filters
+     * @param method       Wavelet filtering method
+     * @param border       Border to ignore while calculating max coefficients (negative value to skip calculation)
+     * @return Data after performing wavelet transform
+     */
+    public static ImageTree waveletTransform(Image origImg, int level, FilterGH[] filterGHList, int method, int border) {
         int width;
         int height;
         int min;
@@ -68,11 +87,18 @@ public class DWTUtil {
 
         if (level < 1) /* do not transform */ {
             returnTree.setImage(tempImg);
+            if (border >= 0) {
+                returnTree.setMaxCoeff(findMaxCoeff(tempImg, border));
+            }
             return returnTree;
         }
 
-        // Decomposition
+        // Decomposition. Progress is tracked by the area decomposed, as each level is a quarter of the previous one
+        long totalArea = (long) width * height * 4 / 3;
+        long doneArea = 0;
         for (int i = 0; i < level; i++) {
+            OpenStegoProgress.checkpoint(doneArea, totalArea);
+            doneArea += (long) width * height;
             width = (width + 1) / 2;
             height = (height + 1) / 2;
 
@@ -97,6 +123,12 @@ public class DWTUtil {
             tempTree.getVertical().setImage(verticalImg);
             tempTree.getDiagonal().setImage(diagonalImg);
 
+            if (border >= 0) {
+                tempTree.getHorizontal().setMaxCoeff(findMaxCoeff(horizontalImg, border));
+                tempTree.getVertical().setMaxCoeff(findMaxCoeff(verticalImg, border));
+                tempTree.getDiagonal().setMaxCoeff(findMaxCoeff(diagonalImg, border));
+            }
+
             if (i != (level - 1)) {
                 tempImg = new Image(width, height);
                 copyIntoImage(tempImg, coarseImg, 0, 0);
@@ -107,9 +139,60 @@ public class DWTUtil {
         }
 
         tempTree.setImage(coarseImg);
+        if (border >= 0) {
+            tempTree.setMaxCoeff(findMaxCoeff(coarseImg, border));
+        }
         return returnTree;
     }
 
+    /**
+     * Method to perform the wavelet transform for the approximation (coarse) sub-band only. None of the detail
+     * sub-bands are computed or retained, which makes this much cheaper than
+     * {@link #waveletTransform(Image, int, FilterGH[], int)} when only the coarse image is needed
+     *
+     * @param origImg      Original image
+     * @param level        Decomposition level
+     * @param filterGHList List of filters
+     * @param method       Wavelet filtering method
+     * @return Approximation image at the deepest decomposition level
+     */
+    public static Image approximationTransform(Image origImg, int level, FilterGH[] filterGHList, int method) {
+        int width;
+        int height;
+        int min;
+        int maxLevel;
+        Image coarseImg;
+        Image tempImg;
+
+        width = origImg.getWidth();
+        height = origImg.getHeight();
+
+        tempImg = new Image(width, height);
+        copyIntoImage(tempImg, origImg, 0, 0);
+
+        min = Math.min(width, height);
+        maxLevel = ((int) (Math.log(min) / Math.log(2))) - 2;
+        if (maxLevel < level) {
+            level = maxLevel;
+        }
+
+        // Decomposition (low-pass chain only)
+        long totalArea = (long) width * height * 4 / 3;
+        long doneArea = 0;
+        for (int i = 0; i < level; i++) {
+            OpenStegoProgress.checkpoint(doneArea, totalArea);
+            doneArea += (long) width * height;
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+
+            coarseImg = new Image(width, height);
+            coarseDecomposition(tempImg, coarseImg, filterGHList[i].getH(), method);
+            tempImg = coarseImg;
+        }
+
+        return tempImg;
+    }
+
     /**
      * Method to decompose the image
      *
@@ -143,6 +226,22 @@ public class DWTUtil {
         convoluteRows(diagonalImg, tempImg, filterG, method);
     }
 
+    /**
+     * Method to decompose the image into the coarse sub-band only
+     *
+     * @param inputImg  Input image
+     * @param coarseImg Coarse image
+     * @param filterH   H filter
+     * @param method    Wavelet filtering method
+     */
+    public static void coarseDecomposition(Image inputImg, Image coarseImg, Filter filterH, int method) {
+        Image tempImg;
+
+        tempImg = new Image(coarseImg.getWidth(), inputImg.getHeight());
+        convoluteLines(tempImg, inputImg, filterH, method);
+        convoluteRows(coarseImg, tempImg, filterH, method);
+    }
+
     /**
      * Method to convolute lines
      *
@@ -153,6 +252,7 @@ public class DWTUtil {
      */
     public static void convoluteLines(Image outputImg, Image inputImg, Filter filter, int method) {
         for (int i = 0; i < inputImg.getHeight(); i++) {
+            OpenStegoProgress.checkCancelled();
             switch (method) {
                 case Filter.METHOD_CUTOFF:
                     filterCutOff(inputImg, inputImg.getWidth() * i, inputImg.getWidth(), 1, outputImg, outputImg.getWidth() * i, outputImg.getWidth(),
@@ -197,6 +297,7 @@ public class DWTUtil {
      */
     public static void convoluteRows(Image outputImg, Image inputImg, Filter filter, int method) {
         for (int i = 0; i < inputImg.getWidth(); i++) {
+            OpenStegoProgress.checkCancelled();
             switch (method) {
                 case Filter.METHOD_CUTOFF:
                     filterCutOff(inputImg, i, inputImg.getHeight(), inputImg.getWidth(), outputImg, i, outputImg.getHeight(), outputImg.getWidth(),
@@ -254,7 +355,7 @@ public class DWTUtil {
             fEnd = Math.min((2 * i), filter.getEnd());
 
             for (int j = fStart; j <= fEnd; j++) {
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[j - filter.getStart()]
+                outputImg.getData()[outStart + i * outStep] += filter.getData(j - filter.getStart())
                         * inputImg.getData()[inStart + ((2 * i) - j) * inStep];
             }
         }
@@ -279,11 +380,11 @@ public class DWTUtil {
         int fEnd;
 
         for (int i = 0; i < outLen; i++) {
-            fStart = Math.max(CommonUtil.ceilingHalf(filter.getStart() + i), 0);
-            fEnd = Math.min(CommonUtil.floorHalf(filter.getEnd() + i), inLen - 1);
+            fStart = Math.max(filter.getInvStart(i), 0);
+            fEnd = Math.min(filter.getInvEnd(i), inLen - 1);
 
             for (int j = fStart; j <= fEnd; j++) {
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[(2 * j) - i - filter.getStart()]
+                outputImg.getData()[outStart + i * outStep] += filter.getData((2 * j) - i - filter.getStart())
                         * inputImg.getData()[inStart + j * inStep];
             }
         }
@@ -314,7 +415,7 @@ public class DWTUtil {
             iStart = CommonUtil.mod(((2 * i) - fStart), inLen);
 
             for (int j = fStart; j <= fEnd; j++) {
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[j - fStart] * inputImg.getData()[inStart + iStart * inStep];
+                outputImg.getData()[outStart + i * outStep] += filter.getData(j - fStart) * inputImg.getData()[inStart + iStart * inStep];
                 iStart--;
                 if (iStart < 0) {
                     iStart += inLen;
@@ -343,12 +444,12 @@ public class DWTUtil {
         int iStart;
 
         for (int i = 0; i < outLen; i++) {
-            fStart = CommonUtil.ceilingHalf(filter.getStart() + i);
-            fEnd = CommonUtil.floorHalf(filter.getEnd() + i);
+            fStart = filter.getInvStart(i);
+            fEnd = filter.getInvEnd(i);
             iStart = CommonUtil.mod(fStart, inLen);
 
             for (int j = fStart; j <= fEnd; j++) {
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[(2 * j) - i - filter.getStart()]
+                outputImg.getData()[outStart + i * outStep] += filter.getData((2 * j) - i - filter.getStart())
                         * inputImg.getData()[inStart + iStart * inStep];
                 iStart++;
                 if (iStart >= inLen) {
@@ -395,7 +496,7 @@ public class DWTUtil {
                         continue;
                     }
                 }
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[j - fStart] * inputImg.getData()[inStart + inPos * inStep];
+                outputImg.getData()[outStart + i * outStep] += filter.getData(j - fStart) * inputImg.getData()[inStart + inPos * inStep];
             }
         }
     }
@@ -420,8 +521,8 @@ public class DWTUtil {
         int inPos;
 
         for (int i = 0; i < outLen; i++) {
-            fStart = CommonUtil.ceilingHalf(filter.getStart() + i);
-            fEnd = CommonUtil.floorHalf(filter.getEnd() + i);
+            fStart = filter.getInvStart(i);
+            fEnd = filter.getInvEnd(i);
 
             for (int j = fStart; j <= fEnd; j++) {
                 inPos = j;
@@ -445,7 +546,7 @@ public class DWTUtil {
                         continue;
                     }
                 }
-                outputImg.getData()[outStart + i * outStep] += filter.getData()[2 * j - i - filter.getStart()]
+                outputImg.getData()[outStart + i * outStep] += filter.getData(2 * j - i - filter.getStart())
                         * inputImg.getData()[inStart + inPos * inStep];
             }
         }
@@ -557,6 +658,33 @@ public class DWTUtil {
         return level - 1;
     }
 
+    /**
+     * Method to find the largest absolute coefficient in the image, ignoring given number of pixels at the border. The
+     * image data is scanned in row-major order
+     *
+     * @param image  Image
+     * @param border No. of pixels to ignore at each border
+     * @return Largest absolute coefficient
+     */
+    public static double findMaxCoeff(Image image, int border) {
+        double[] data = image.getData();
+        int width = image.getWidth();
+        double max = 0.0;
+        double coeff;
+
+        for (int y = border; y < image.getHeight() - border; y++) {
+            int offset = y * width;
+            for (int x = border; x < width - border; x++) {
+                coeff = Math.abs(data[offset + x]);
+                if (coeff > max) {
+                    max = coeff;
+                }
+            }
+        }
+
+        return max;
+    }
+
     /**
      * Set pixel value in the image
      *
@@ -6,8 +6,10 @@
 
 package com.openstego.desktop.util.dwt;
 
+import com.openstego.desktop.util.CommonUtil;
+
 /**
- * Object to store Filter data
+ * Object to store Filter data. It is immutable, as the filters from {@link FilterRegistry} are shared by all the threads
  */
 public class Filter {
     /**
@@ -58,70 +60,94 @@ public class Filter {
     /**
      * Type of the filter
      */
-    private int type = -1;
+    private final int type;
 
     /**
      * Start value of the filter
      */
-    private int start = 0;
+    private final int start;
 
     /**
      * End value of the filter
      */
-    private int end = 0;
+    private final int end;
 
     /**
      * Flag to indicate whether this is hi-pass filter or not
      */
-    private boolean hiPass = false;
+    private final boolean hiPass;
 
     /**
      * List of associated data
      */
-    private double[] data = null;
+    private final double[] data;
 
     /**
-     * Get method for type
-     *
-     * @return type
+     * Offsets of the first tap for inverse filtering, for even and odd output positions respectively
      */
-    public int getType() {
-        return this.type;
+    private final int[] invStart = new int[2];
+
+    /**
+     * Offsets of the last tap for inverse filtering, for even and odd output positions respectively
+     */
+    private final int[] invEnd = new int[2];
+
+    /**
+     * Default constructor
+     *
+     * @param type   Type of the filter (one of the TYPE_* constants)
+     * @param start  Start value of the filter
+     * @param end    End value of the filter
+     * @param hiPass Flag to indicate whether this is hi-pass filter or not
+     * @param data   List of associated data (a copy is kept)
+     */
+    public Filter(int type, int start, int end, boolean hiPass, double[] data) {
+        this.type = type;
+        this.start = start;
+        this.end = end;
+        this.hiPass = hiPass;
+        this.data = data == null ? null : data.clone();
+
+        this.invStart[0] = CommonUtil.ceilingHalf(start);
+        this.invStart[1] = CommonUtil.ceilingHalf(start + 1);
+        this.invEnd[0] = CommonUtil.floorHalf(end);
+        this.invEnd[1] = CommonUtil.floorHalf(end + 1);
     }
 
     /**
-     * Set method for type
+     * Method to get the filter type for the given name
      *
-     * @param type Value to be set
+     * @param type Name of the type
+     * @return Type (one of the TYPE_* constants), or -1 if the name is not known
      */
-    public void setType(String type) {
+    public static int parseType(String type) {
         if (type.equalsIgnoreCase("nosymm")) {
-            this.type = TYPE_NOSYMM;
+            return TYPE_NOSYMM;
         } else if (type.equalsIgnoreCase("symm")) {
-            this.type = TYPE_SYMM;
+            return TYPE_SYMM;
         } else if (type.equalsIgnoreCase("antisymm")) {
-            this.type = TYPE_ANTISYMM;
+            return TYPE_ANTISYMM;
         } else {
-            this.type = -1;
+            return -1;
         }
     }
 
     /**
-     * Get method for start
+     * Get method for type
      *
-     * @return start
+     * @return type
      */
-    public int getStart() {
-        return this.start;
+    public int getType() {
+        return this.type;
     }
 
     /**
-     * Set method for start
+     * Get method for start
      *
-     * @param start Value to be set
+     * @return start
      */
-    public void setStart(int start) {
-        this.start = start;
+    public int getStart() {
+        return this.start;
     }
 
     /**
@@ -134,47 +160,52 @@ public class Filter {
     }
 
     /**
-     * Set method for end
+     * Get the first input position for inverse filtering at the given output position. This is same as
+     * <code>ceilingHalf(start + pos)</code>, but uses the table precomputed for the filter
      *
-     * @param end Value to be set
+     * @param pos Output position (non-negative)
+     * @return First input position
      */
-    public void setEnd(int end) {
-        this.end = end;
+    public int getInvStart(int pos) {
+        return (pos >> 1) + this.invStart[pos & 1];
     }
 
     /**
-     * Get method for hiPass
+     * Get the last input position for inverse filtering at the given output position. This is same as
+     * <code>floorHalf(end + pos)</code>, but uses the table precomputed for the filter
      *
-     * @return hiPass
+     * @param pos Output position (non-negative)
+     * @return Last input position
      */
-    public boolean isHiPass() {
-        return this.hiPass;
+    public int getInvEnd(int pos) {
+        return (pos >> 1) + this.invEnd[pos & 1];
     }
 
     /**
-     * Set method for hiPass
+     * Get method for hiPass
      *
-     * @param hiPass Value to be set
+     * @return hiPass
      */
-    public void setHiPass(boolean hiPass) {
-        this.hiPass = hiPass;
+    public boolean isHiPass() {
+        return this.hiPass;
     }
 
     /**
      * Get method for data
      *
-     * @return data
+     * @return Copy of the data (null if the filter has no data)
      */
     public double[] getData() {
-        return this.data;
+        return this.data == null ? null : this.data.clone();
     }
 
     /**
-     * Set method for data
+     * Get one value of the data without copying the whole list. This is used by the filtering loops
      *
-     * @param data Value to be set
+     * @param index Index of the value
+     * @return Value of the data at the given index
      */
-    public void setData(double[] data) {
-        this.data = data;
+    public double getData(int index) {
+        return this.data[index];
     }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class to read the precompiled binary filters file and generate corresponding Java Objects. The binary file is
+ * generated from the Filters XML at build time by {@link FilterBinaryWriter}, and is much faster to load than parsing
+ * the XML.
+ * <p>
+ * Format of the file (all values in {@link java.io.DataOutput} encoding):
+ * <pre>
+ * int     magic ({@link #MAGIC})
+ * int     version ({@link #VERSION})
+ * int     no. of filterGH entries, each of which is:
+ *   int     id
+ *   UTF     name
+ *   byte    type
+ *   byte    no. of filters (in order g, h, gi, hi), each of which is:
+ *     byte    type
+ *     int     start
+ *     int     end
+ *     int     no. of data values, followed by the values as doubles
+ * </pre>
+ */
+public class FilterBinaryReader {
+    /**
+     * Magic number at the start of the file ("OSFB")
+     */
+    public static final int MAGIC = 0x4F534642;
+
+    /**
+     * Version of the file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private FilterBinaryReader() {
+    }
+
+    /**
+     * This method reads the given binary resource into the list of objects
+     *
+     * @param fileURI URI for the binary resource
+     * @return Map of filters with key being Integer object for filter ID, or null if the resource is not available
+     */
+    public static Map<Integer, FilterGH> parse(String fileURI) {
+        InputStream is = FilterBinaryReader.class.getResourceAsStream(fileURI);
+        if (is == null) {
+            return null;
+        }
+
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(is))) {
+            return parse(dis);
+        } catch (IOException ioEx) {
+            throw new IllegalArgumentException("Invalid Filter binary file", ioEx);
+        }
+    }
+
+    /**
+     * This method reads the binary data from the stream into the list of objects
+     *
+     * @param dis Input stream for the binary data
+     * @return Map of filters with key being Integer object for filter ID
+     * @throws IOException Processing issues
+     */
+    public static Map<Integer, FilterGH> parse(DataInputStream dis) throws IOException {
+        Map<Integer, FilterGH> filterGHMap = new HashMap<>();
+        FilterGH filterGH;
+        Filter[] filters;
+        int count;
+        int id;
+        String name;
+        int type;
+
+        if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+            throw new IOException("Unsupported Filter binary file");
+        }
+
+        count = dis.readInt();
+        for (int i = 0; i < count; i++) {
+            id = dis.readInt();
+            name = dis.readUTF();
+            type = dis.readByte();
+
+            filters = new Filter[dis.readByte()];
+            for (int j = 0; j < filters.length; j++) {
+                filters[j] = readFilter(dis, !((j & 1) == 1));
+            }
+
+            filterGH = new FilterGH(id, name, type, filters);
+            filterGHMap.put(filterGH.getId(), filterGH);
+        }
+
+        return filterGHMap;
+    }
+
+    /**
+     * This method reads one filter from the stream
+     *
+     * @param dis    Input stream
+     * @param hiPass Flag to indicate whether this is hi-pass filter or not
+     * @return Filter object
+     * @throws IOException Processing issues
+     */
+    private static Filter readFilter(DataInputStream dis, boolean hiPass) throws IOException {
+        int type;
+        int start;
+        int end;
+        double[] data;
+
+        type = dis.readByte();
+        start = dis.readInt();
+        end = dis.readInt();
+
+        data = new double[dis.readInt()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = dis.readDouble();
+        }
+
+        return new Filter(type, start, end, hiPass, data);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import java.io.*;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class to convert the Filters XML into the binary format read by {@link FilterBinaryReader}. This is invoked at build
+ * time to generate the precompiled filters resource.
+ */
+public class FilterBinaryWriter {
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private FilterBinaryWriter() {
+    }
+
+    /**
+     * Main method which converts the XML file into the binary file
+     *
+     * @param args Path of the input XML file and the output binary file
+     * @throws IOException Processing issues
+     */
+    public static void main(String[] args) throws IOException {
+        Map<Integer, FilterGH> filterGHMap;
+
+        if (args.length != 2) {
+            System.err.println("Usage: FilterBinaryWriter <filters.xml> <filters.bin>");
+            System.exit(1);
+        }
+
+        try (InputStream is = new BufferedInputStream(new FileInputStream(args[0]))) {
+            filterGHMap = FilterXMLReader.parse(is);
+        }
+
+        File outFile = new File(args[1]);
+        if (outFile.getParentFile() != null) {
+            outFile.getParentFile().mkdirs();
+        }
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            write(filterGHMap, dos);
+        }
+    }
+
+    /**
+     * This method writes the filters to the stream in binary format
+     *
+     * @param filterGHMap Map of filters
+     * @param dos         Output stream
+     * @throws IOException Processing issues
+     */
+    public static void write(Map<Integer, FilterGH> filterGHMap, DataOutputStream dos) throws IOException {
+        Filter[] filters;
+        int filterCount;
+
+        dos.writeInt(FilterBinaryReader.MAGIC);
+        dos.writeInt(FilterBinaryReader.VERSION);
+        dos.writeInt(filterGHMap.size());
+
+        // Sorted for a reproducible output
+        for (FilterGH filterGH : new TreeMap<>(filterGHMap).values()) {
+            dos.writeInt(filterGH.getId());
+            dos.writeUTF(filterGH.getName());
+            dos.writeByte(filterGH.getType());
+
+            filters = new Filter[]{filterGH.getG(), filterGH.getH(), filterGH.getGi(), filterGH.getHi()};
+            filterCount = 0;
+            while (filterCount < filters.length && filters[filterCount] != null) {
+                filterCount++;
+            }
+
+            dos.writeByte(filterCount);
+            for (int i = 0; i < filterCount; i++) {
+                writeFilter(filters[i], dos);
+            }
+        }
+    }
+
+    /**
+     * This method writes one filter to the stream
+     *
+     * @param filter Filter
+     * @param dos    Output stream
+     * @throws IOException Processing issues
+     */
+    private static void writeFilter(Filter filter, DataOutputStream dos) throws IOException {
+        double[] data = filter.getData();
+
+        if (data == null) {
+            data = new double[0];
+        }
+
+        dos.writeByte(filter.getType());
+        dos.writeInt(filter.getStart());
+        dos.writeInt(filter.getEnd());
+        dos.writeInt(data.length);
+        for (double d : data) {
+            dos.writeDouble(d);
+        }
+    }
+}
@@ -7,7 +7,8 @@
 package com.openstego.desktop.util.dwt;
 
 /**
- * Object to store FilterGH data
+ * Object to store FilterGH data. It is immutable, as the filters from {@link FilterRegistry} are shared by all the
+ * threads
  */
 public class FilterGH {
     /**
@@ -28,72 +29,90 @@ public class FilterGH {
     /**
      * Identifier of the filterGH
      */
-    private Integer id = null;
+    private final Integer id;
 
     /**
      * Name of the filterGH
      */
-    private String name = null;
+    private final String name;
 
     /**
      * Type of the filterGH
      */
-    private int type = -1;
+    private final int type;
 
     /**
      * Filter G
      */
-    private Filter g = null;
+    private final Filter g;
 
     /**
      * Filter H
      */
-    private Filter h = null;
+    private final Filter h;
 
     /**
      * Filter Gi
      */
-    private Filter gi = null;
+    private final Filter gi;
 
     /**
      * Filter Hi
      */
-    private Filter hi = null;
+    private final Filter hi;
 
     /**
-     * Get method for id
+     * Default constructor
      *
-     * @return id
+     * @param id      Identifier of the filterGH
+     * @param name    Name of the filterGH
+     * @param type    Type of the filterGH (one of the TYPE_* constants)
+     * @param filters Filters G, H, Gi and Hi, in that order (missing filters are taken as null)
      */
-    public Integer getId() {
-        return this.id;
+    public FilterGH(Integer id, String name, int type, Filter... filters) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.g = filters.length > 0 ? filters[0] : null;
+        this.h = filters.length > 1 ? filters[1] : null;
+        this.gi = filters.length > 2 ? filters[2] : null;
+        this.hi = filters.length > 3 ? filters[3] : null;
     }
 
     /**
-     * Set method for id
+     * Method to get the filterGH type for the given name
      *
-     * @param id Value to be set
+     * @param type Name of the type
+     * @return Type (one of the TYPE_* constants), or -1 if the name is not known
      */
-    public void setId(Integer id) {
-        this.id = id;
+    public static int parseType(String type) {
+        if (type.equalsIgnoreCase("orthogonal")) {
+            return TYPE_ORTHOGONAL;
+        } else if (type.equalsIgnoreCase("biorthogonal")) {
+            return TYPE_BIORTHOGONAL;
+        } else if (type.equalsIgnoreCase("other")) {
+            return TYPE_OTHER;
+        } else {
+            return -1;
+        }
     }
 
     /**
-     * Get method for name
+     * Get method for id
      *
-     * @return name
+     * @return id
      */
-    public String getName() {
-        return this.name;
+    public Integer getId() {
+        return this.id;
     }
 
     /**
-     * Set method for name
+     * Get method for name
      *
-     * @param name Value to be set
+     * @return name
      */
-    public void setName(String name) {
-        this.name = name;
+    public String getName() {
+        return this.name;
     }
 
     /**
@@ -105,23 +124,6 @@ public class FilterGH {
         return this.type;
     }
 
-    /**
-     * Set method for type
-     *
-     * @param type Value to be set
-     */
-    public void setType(String type) {
-        if (type.equalsIgnoreCase("orthogonal")) {
-            this.type = TYPE_ORTHOGONAL;
-        } else if (type.equalsIgnoreCase("biorthogonal")) {
-            this.type = TYPE_BIORTHOGONAL;
-        } else if (type.equalsIgnoreCase("other")) {
-            this.type = TYPE_OTHER;
-        } else {
-            this.type = -1;
-        }
-    }
-
     /**
      * Get method for filter g
      *
@@ -131,15 +133,6 @@ public class FilterGH {
         return this.g;
     }
 
-    /**
-     * Set method for filter g
-     *
-     * @param g Value to be set
-     */
-    public void setG(Filter g) {
-        this.g = g;
-    }
-
     /**
      * Get method for filter h
      *
@@ -149,15 +142,6 @@ public class FilterGH {
         return this.h;
     }
 
-    /**
-     * Set method for filter h
-     *
-     * @param h Value to be set
-     */
-    public void setH(Filter h) {
-        this.h = h;
-    }
-
     /**
      * Get method for filter gi
      *
@@ -167,15 +151,6 @@ public class FilterGH {
         return this.gi;
     }
 
-    /**
-     * Set method for filter gi
-     *
-     * @param gi Value to be set
-     */
-    public void setGi(Filter gi) {
-        this.gi = gi;
-    }
-
     /**
      * Get method for filter hi
      *
@@ -184,13 +159,4 @@ public class FilterGH {
     public Filter getHi() {
         return this.hi;
     }
-
-    /**
-     * Set method for filter hi
-     *
-     * @param hi Value to be set
-     */
-    public void setHi(Filter hi) {
-        this.hi = hi;
-    }
 }
\ No newline at end of file
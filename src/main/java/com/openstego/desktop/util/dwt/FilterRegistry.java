@@ -0,0 +1,87 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registry of the wavelet filters available for DWT. The filters are loaded only once (on first use) using the
+ * initialization-on-demand holder idiom, so that the registry is safe to use from multiple threads without any locking.
+ * The filters themselves are immutable, so they are handed out as is.
+ * <p>
+ * Filters are read from the precompiled binary resource if it is available, else the XML file is parsed.
+ */
+public final class FilterRegistry {
+    /**
+     * URI for the filter file
+     */
+    private static final String FILTER_FILE = "/dwt/filters.xml";
+
+    /**
+     * URI for the precompiled filter file, which is generated from the XML file at build time
+     */
+    private static final String FILTER_BIN_FILE = "/dwt/filters.bin";
+
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private FilterRegistry() {
+    }
+
+    /**
+     * Method to get the filter for the given filter ID
+     *
+     * @param filterID Filter ID
+     * @return Filter
+     */
+    public static FilterGH getFilterGH(int filterID) {
+        FilterGH filterGH = Holder.FILTERS.get(filterID);
+        if (filterGH == null) {
+            throw new IllegalArgumentException("Invalid filter ID: " + filterID);
+        }
+        return filterGH;
+    }
+
+    /**
+     * Method to get the IDs of all the available filters
+     *
+     * @return Set of filter IDs
+     */
+    public static Set<Integer> getFilterIDs() {
+        return Holder.FILTERS.keySet();
+    }
+
+    /**
+     * Method to load the filters eagerly, so that the first DWT operation does not pay for it. It is safe to call this
+     * any number of times
+     */
+    public static void warmup() {
+        Holder.FILTERS.size();
+    }
+
+    /**
+     * Holder class for the filters. JVM guarantees that this is initialized exactly once, when first accessed
+     */
+    private static class Holder {
+        private static final Map<Integer, FilterGH> FILTERS = Collections.unmodifiableMap(load());
+    }
+
+    /**
+     * Method to load the filters from the binary resource, falling back to the XML file
+     *
+     * @return Map of filters with key being Integer object for filter ID
+     */
+    private static Map<Integer, FilterGH> load() {
+        Map<Integer, FilterGH> filterGHMap = FilterBinaryReader.parse(FILTER_BIN_FILE);
+        if (filterGHMap == null) {
+            filterGHMap = FilterXMLReader.parse(FILTER_FILE);
+        }
+        return filterGHMap;
+    }
+}
@@ -15,6 +15,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +36,21 @@ public class FilterXMLReader {
      * @return Map of filters with key being Integer object for filter ID
      */
     public static Map<Integer, FilterGH> parse(String fileURI) {
+        InputStream is = FilterXMLReader.class.getResourceAsStream(fileURI);
+        if (is == null) {
+            throw new IllegalArgumentException("Invalid Filter XML file");
+        }
+        return parse(is);
+    }
+
+    /**
+     * This method parses the given XML stream into the list of objects. This can be used for user-supplied filter
+     * files
+     *
+     * @param is Input stream for the XML data
+     * @return Map of filters with key being Integer object for filter ID
+     */
+    public static Map<Integer, FilterGH> parse(InputStream is) {
         Map<Integer, FilterGH> filterGHMap = new HashMap<>();
         DocumentBuilder db;
         Document dom;
@@ -46,7 +62,7 @@ public class FilterXMLReader {
             db = DocumentBuilderFactory.newInstance().newDocumentBuilder();
 
             // Parse to get DOM representation of the XML file
-            dom = db.parse(FilterXMLReader.class.getResourceAsStream(fileURI));
+            dom = db.parse(is);
 
             // Get a node list of filterGH elements
             nl = dom.getDocumentElement().getElementsByTagName("filterGH");
@@ -77,58 +93,39 @@ public class FilterXMLReader {
      * @return FilterGH object
      */
     private static FilterGH getFilterGH(Element el) {
-        FilterGH filterGH = new FilterGH();
         Element innerEl;
         NodeList nl;
-        Filter filter;
-
-        filterGH.setId(Integer.parseInt(el.getAttribute("id")));
-        filterGH.setName(el.getAttribute("name"));
-        filterGH.setType(el.getAttribute("type"));
+        Filter[] filters = new Filter[0];
 
         // Get a nodelist of filter elements
         nl = el.getElementsByTagName("filter");
         if (nl != null && nl.getLength() > 0) {
+            filters = new Filter[nl.getLength()];
             for (int i = 0; i < nl.getLength(); i++) {
                 // Get the 'filter' element
                 innerEl = (Element) nl.item(i);
 
-                // Create the object
-                filter = getFilter(innerEl);
-                filter.setHiPass(!((i & 1) == 1));
-
-                // Set the object in filterGH
-                if (i == 0) {
-                    filterGH.setG(filter);
-                } else if (i == 1) {
-                    filterGH.setH(filter);
-                } else if (i == 2) {
-                    filterGH.setGi(filter);
-                } else if (i == 3) {
-                    filterGH.setHi(filter);
-                }
+                // Create the object (filters are G, H, Gi and Hi in that order)
+                filters[i] = getFilter(innerEl, !((i & 1) == 1));
             }
         }
 
-        return filterGH;
+        return new FilterGH(Integer.parseInt(el.getAttribute("id")), el.getAttribute("name"),
+                FilterGH.parseType(el.getAttribute("type")), filters);
     }
 
     /**
      * This method reads XML node and creates corresponding Filter object
      *
-     * @param el XML node element
+     * @param el     XML node element
+     * @param hiPass Flag to indicate whether this is hi-pass filter or not
      * @return Filter object
      */
-    private static Filter getFilter(Element el) {
-        Filter filter = new Filter();
+    private static Filter getFilter(Element el, boolean hiPass) {
         Element innerEl;
         NodeList nl;
         double[] data = null;
 
-        filter.setType(el.getAttribute("type"));
-        filter.setStart(Integer.parseInt(el.getAttribute("start")));
-        filter.setEnd(Integer.parseInt(el.getAttribute("end")));
-
         // Get a nodelist of data elements
         nl = el.getElementsByTagName("data");
         if (nl != null && nl.getLength() > 0) {
@@ -142,8 +139,7 @@ public class FilterXMLReader {
             }
         }
 
-        filter.setData(data);
-
-        return filter;
+        return new Filter(Filter.parseType(el.getAttribute("type")), Integer.parseInt(el.getAttribute("start")),
+                Integer.parseInt(el.getAttribute("end")), hiPass, data);
     }
 }
@@ -24,6 +24,8 @@ public class ImageTree {
 
     private int flag = 0;
 
+    private double maxCoeff = 0.0;
+
     /**
      * Get method for coarse
      *
@@ -149,4 +151,23 @@ public class ImageTree {
     public void setFlag(int flag) {
         this.flag = flag;
     }
-}
\ No newline at end of file
+
+    /**
+     * Get method for maxCoeff. This is the largest absolute coefficient of the image (excluding the border), and is
+     * populated only when requested during the wavelet transform
+     *
+     * @return maxCoeff
+     */
+    public double getMaxCoeff() {
+        return this.maxCoeff;
+    }
+
+    /**
+     * Set method for maxCoeff
+     *
+     * @param maxCoeff Value to be set
+     */
+    public void setMaxCoeff(double maxCoeff) {
+        this.maxCoeff = maxCoeff;
+    }
+}
@@ -0,0 +1,526 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+package com.openstego.desktop.util.ui;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.OpenStegoProgress;
+import com.openstego.desktop.util.LabelUtil;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper class to process multiple files concurrently from the GUI. The files are processed on a pool of worker
+ * threads, which share the given {@link OpenStego} instance (it takes a copy of its configuration for every call). The
+ * status, time taken and result of each file are streamed into a table in a non-modal dialog as soon as they are
+ * available.
+ * <p>
+ * The task must not prompt the user from the worker threads, so any decisions (e.g. whether to overwrite the existing
+ * files) must be taken before the task is started.
+ */
+public abstract class BatchTask extends SwingWorker<Void, BatchTask.Result> {
+    /**
+     * LabelUtil instance to retrieve labels
+     */
+    private static final LabelUtil labelUtil = LabelUtil.getInstance(OpenStego.NAMESPACE);
+
+    /**
+     * Status of a file in the batch
+     */
+    public enum Status {
+        QUEUED, RUNNING, OK, SKIPPED, ERROR, CANCELLED;
+
+        /**
+         * Method to get the display label of the status
+         *
+         * @return Label
+         */
+        public String getLabel() {
+            return labelUtil.getString("gui.label.batch.status." + name().toLowerCase());
+        }
+    }
+
+    /**
+     * Parent component
+     */
+    protected final JFrame parent;
+
+    /**
+     * Files to be processed
+     */
+    private final List<File> files;
+
+    /**
+     * {@link OpenStego} instance shared by the worker threads
+     */
+    private final OpenStego stego;
+
+    /**
+     * Progress tokens of the files being processed
+     */
+    private final Set<OpenStegoProgress> activeTokens = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Table model for the results
+     */
+    private final ResultTableModel model;
+
+    /**
+     * Dialog showing the results
+     */
+    private final JDialog dialog;
+
+    /**
+     * Overall progress bar
+     */
+    private final JProgressBar progressBar;
+
+    /**
+     * Label showing the summary of the batch
+     */
+    private final JLabel summaryLabel;
+
+    /**
+     * Cancel / close button
+     */
+    private final JButton button;
+
+    /**
+     * Flag to indicate whether the batch has been cancelled. The worker itself is not cancelled, so that
+     * {@link #finished(int, int, int)} is called only after all the files have been accounted for
+     */
+    private volatile boolean cancelled = false;
+
+    /**
+     * Flag to indicate whether all the files have been accounted for (accessed only on the event dispatch thread)
+     */
+    private boolean complete = false;
+
+    /**
+     * Number of files completed so far, including the cancelled ones (accessed only on the event dispatch thread)
+     */
+    private int doneCount = 0;
+
+    /**
+     * Number of files processed successfully (accessed only on the event dispatch thread)
+     */
+    private int okCount = 0;
+
+    /**
+     * Number of files skipped (accessed only on the event dispatch thread)
+     */
+    private int skipCount = 0;
+
+    /**
+     * Number of files failed (accessed only on the event dispatch thread)
+     */
+    private int errorCount = 0;
+
+    /**
+     * Default constructor
+     *
+     * @param parent       Parent component
+     * @param title        Title of the results dialog
+     * @param resultHeader Header for the result column
+     * @param files        Files to be processed
+     * @param stego        {@link OpenStego} instance to be shared by the worker threads
+     */
+    public BatchTask(JFrame parent, String title, String resultHeader, List<File> files, OpenStego stego) {
+        this.parent = parent;
+        this.files = files;
+        this.stego = stego;
+        this.model = new ResultTableModel(files, resultHeader);
+
+        JTable table = new JTable(this.model);
+        table.setAutoCreateRowSorter(true);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_LAST_COLUMN);
+        table.setDragEnabled(false);
+        table.setPreferredScrollableViewportSize(new Dimension(600, 300));
+        table.getColumnModel().getColumn(0).setPreferredWidth(220);
+        table.getColumnModel().getColumn(1).setPreferredWidth(80);
+        table.getColumnModel().getColumn(2).setPreferredWidth(70);
+        table.getColumnModel().getColumn(3).setPreferredWidth(230);
+
+        this.progressBar = new JProgressBar(0, files.size());
+        this.progressBar.setStringPainted(true);
+        this.summaryLabel = new JLabel(" ");
+        this.button = new JButton(labelUtil.getString("gui.label.progress.cancel"));
+        this.button.addActionListener(e -> closeOrCancel());
+
+        JPanel bottom = new JPanel(new BorderLayout(10, 0));
+        bottom.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+        bottom.add(this.summaryLabel, BorderLayout.WEST);
+        bottom.add(this.button, BorderLayout.EAST);
+
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        panel.add(this.progressBar, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(bottom, BorderLayout.SOUTH);
+
+        this.dialog = new JDialog(parent, title, false);
+        this.dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        this.dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeOrCancel();
+            }
+        });
+        this.dialog.getContentPane().add(panel);
+        this.dialog.pack();
+        this.dialog.setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Method to process one file. It is called concurrently from the worker threads, so it must not access the GUI
+     * components
+     *
+     * @param stego {@link OpenStego} instance shared by the worker threads
+     * @param file  File to be processed
+     * @return Text to be shown in the result column (HTML is allowed), or null if the file was skipped
+     * @throws Exception Processing issues
+     */
+    protected abstract String processFile(OpenStego stego, File file) throws Exception;
+
+    /**
+     * Method called on the event dispatch thread once all the files have been processed (or cancelled)
+     *
+     * @param okCount    Number of files processed successfully
+     * @param skipCount  Number of files skipped
+     * @param errorCount Number of files failed
+     */
+    protected void finished(int okCount, int skipCount, int errorCount) {
+    }
+
+    /**
+     * Method to execute the task
+     */
+    public void start() {
+        this.dialog.setVisible(true);
+        execute();
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see javax.swing.SwingWorker#doInBackground()
+     */
+    @Override
+    protected Void doInBackground() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(this.files.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            for (int i = 0; i < this.files.size(); i++) {
+                final int row = i;
+                executor.execute(() -> publish(runFile(row)));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Keep waiting until all the files are processed or cancelled
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return null;
+    }
+
+    /**
+     * Method to process one file on the current worker thread
+     *
+     * @param row Index of the file
+     * @return Result of the file
+     */
+    private Result runFile(int row) {
+        File file = this.files.get(row);
+        OpenStegoProgress token = new OpenStegoProgress(null);
+        long start = System.nanoTime();
+
+        if (this.cancelled) {
+            return new Result(row, Status.CANCELLED, 0L, null);
+        }
+        publish(new Result(row, Status.RUNNING, 0L, null));
+
+        this.activeTokens.add(token);
+        if (this.cancelled) {
+            // Batch was cancelled after the check above, but possibly before the token was registered
+            token.cancel();
+        }
+        token.attach();
+        try {
+            String text = processFile(this.stego, file);
+            return new Result(row, text == null ? Status.SKIPPED : Status.OK, elapsed(start), text);
+        } catch (CancellationException | InterruptedException ex) {
+            return new Result(row, Status.CANCELLED, elapsed(start), null);
+        } catch (OpenStegoException osEx) {
+            return new Result(row, Status.ERROR, elapsed(start), osEx.getMessage());
+        } catch (OutOfMemoryError oomErr) {
+            return new Result(row, Status.ERROR, elapsed(start), labelUtil.getString("err.memory.full"));
+        } catch (Exception ex) {
+            return new Result(row, Status.ERROR, elapsed(start), ex.toString());
+        } finally {
+            token.detach();
+            this.activeTokens.remove(token);
+        }
+    }
+
+    /**
+     * Method to close the dialog if the batch is complete, or else to cancel the batch
+     */
+    private void closeOrCancel() {
+        if (this.complete) {
+            this.dialog.dispose();
+        } else {
+            cancelBatch();
+        }
+    }
+
+    /**
+     * Method to cancel the batch. Files being processed stop at their next checkpoint, and queued files are not
+     * started
+     */
+    private void cancelBatch() {
+        this.button.setEnabled(false);
+        this.cancelled = true;
+        for (OpenStegoProgress token : this.activeTokens) {
+            token.cancel();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see javax.swing.SwingWorker#process(java.util.List)
+     */
+    @Override
+    protected void process(List<Result> results) {
+        for (Result result : results) {
+            this.model.update(result);
+            switch (result.status) {
+                case OK:
+                    this.okCount++;
+                    break;
+                case SKIPPED:
+                    this.skipCount++;
+                    break;
+                case ERROR:
+                    this.errorCount++;
+                    break;
+                case CANCELLED:
+                    break;
+                default:
+                    continue;
+            }
+            this.doneCount++;
+        }
+        this.progressBar.setValue(this.doneCount);
+        this.summaryLabel.setText(labelUtil.getString("gui.msg.batch.summary", this.okCount, this.skipCount, this.errorCount,
+                this.files.size() - this.doneCount));
+
+        // Published results may be delivered after done(), so the batch is finished only when all the files are
+        // accounted for
+        if (this.doneCount == this.files.size() && !this.complete) {
+            complete();
+            finished(this.okCount, this.skipCount, this.errorCount);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see javax.swing.SwingWorker#done()
+     */
+    @Override
+    protected void done() {
+        try {
+            get();
+        } catch (InterruptedException | ExecutionException ex) {
+            // Worker threads report their own failures, so this happens only if the pool itself failed
+            this.model.cancelPending();
+            complete();
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Method to mark the batch as complete, so that the dialog can be closed
+     */
+    private void complete() {
+        this.complete = true;
+        this.button.setText(labelUtil.getString("gui.label.batch.close"));
+        this.button.setEnabled(true);
+    }
+
+    /**
+     * Utility method to get the time elapsed since the given start time
+     *
+     * @param start Start time (in nanoseconds)
+     * @return Elapsed time in milliseconds
+     */
+    private static long elapsed(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Result of a file in the batch
+     */
+    public static class Result {
+        /**
+         * Index of the file
+         */
+        private final int row;
+
+        /**
+         * Status of the file
+         */
+        private final Status status;
+
+        /**
+         * Time taken (in milliseconds)
+         */
+        private final long millis;
+
+        /**
+         * Result text (or error message)
+         */
+        private final String text;
+
+        /**
+         * Default constructor
+         *
+         * @param row    Index of the file
+         * @param status Status of the file
+         * @param millis Time taken (in milliseconds)
+         * @param text   Result text (or error message)
+         */
+        Result(int row, Status status, long millis, String text) {
+            this.row = row;
+            this.status = status;
+            this.millis = millis;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Table model for the results of the batch
+     */
+    static class ResultTableModel extends AbstractTableModel {
+        private static final long serialVersionUID = 6264125385018412047L;
+
+        /**
+         * Column headers
+         */
+        private final String[] headers;
+
+        /**
+         * Names of the files
+         */
+        private final List<String> fileNames = new ArrayList<>();
+
+        /**
+         * Status of the files
+         */
+        private final Status[] statuses;
+
+        /**
+         * Time taken for the files (in milliseconds)
+         */
+        private final Long[] millis;
+
+        /**
+         * Result text of the files
+         */
+        private final String[] texts;
+
+        /**
+         * Default constructor
+         *
+         * @param files        Files to be processed
+         * @param resultHeader Header for the result column
+         */
+        ResultTableModel(List<File> files, String resultHeader) {
+            this.headers = new String[]{labelUtil.getString("gui.label.wmVerify.result.header.fileName"),
+                    labelUtil.getString("gui.label.batch.header.status"), labelUtil.getString("gui.label.batch.header.time"),
+                    resultHeader};
+            for (File file : files) {
+                this.fileNames.add(file.getName());
+            }
+            this.statuses = new Status[files.size()];
+            this.millis = new Long[files.size()];
+            this.texts = new String[files.size()];
+            Arrays.fill(this.statuses, Status.QUEUED);
+        }
+
+        /**
+         * Method to update the row for the given result
+         *
+         * @param result Result of a file
+         */
+        void update(Result result) {
+            this.statuses[result.row] = result.status;
+            this.millis[result.row] = result.status == Status.RUNNING || result.status == Status.CANCELLED ? null : result.millis;
+            this.texts[result.row] = result.text;
+            fireTableRowsUpdated(result.row, result.row);
+        }
+
+        /**
+         * Method to mark all the files which have not completed as cancelled
+         */
+        void cancelPending() {
+            for (int i = 0; i < this.statuses.length; i++) {
+                if (this.statuses[i] == Status.QUEUED || this.statuses[i] == Status.RUNNING) {
+                    this.statuses[i] = Status.CANCELLED;
+                    fireTableRowsUpdated(i, i);
+                }
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return this.statuses.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return this.headers.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return this.headers[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0:
+                    return this.fileNames.get(row);
+                case 1:
+                    return this.statuses[row].getLabel();
+                case 2:
+                    return this.millis[row];
+                default:
+                    return this.texts[row];
+            }
+        }
+    }
+}
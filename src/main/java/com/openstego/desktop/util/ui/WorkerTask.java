@@ -6,6 +6,7 @@
 package com.openstego.desktop.util.ui;
 
 import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoProgress;
 import com.openstego.desktop.util.LabelUtil;
 
 import javax.swing.*;
@@ -16,7 +17,8 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
 /**
- * Helper class to execute tasks asynchronously
+ * Helper class to execute tasks asynchronously. The task runs with a {@link OpenStegoProgress} token attached, so that
+ * the operations report fine-grained progress and are interrupted as soon as the task is cancelled
  */
 public abstract class WorkerTask extends SwingWorker<Object, Void> {
     /**
@@ -44,6 +46,18 @@ public abstract class WorkerTask extends SwingWorker<Object, Void> {
      * Glass pane
      */
     protected final GlassPane glass;
+    /**
+     * Progress token for the operations
+     */
+    protected final OpenStegoProgress progress;
+    /**
+     * Index of the unit (e.g. file) being processed
+     */
+    private volatile int unitIndex = 0;
+    /**
+     * Total number of units to be processed
+     */
+    private volatile int unitCount = 1;
 
     /**
      * Default constructor
@@ -55,6 +69,8 @@ public abstract class WorkerTask extends SwingWorker<Object, Void> {
     public WorkerTask(JFrame parent, Object data, boolean determinate) {
         this.parent = parent;
         this.data = data;
+        this.progress = new OpenStegoProgress(
+                fraction -> setProgress((int) Math.min(100, (this.unitIndex + fraction) * 100 / this.unitCount)));
 
         this.progressBar = new JProgressBar(0, 100);
         this.progressBar.setPreferredSize(new Dimension(300, 20));
@@ -105,6 +121,42 @@ public abstract class WorkerTask extends SwingWorker<Object, Void> {
         this.parent.setGlassPane(this.glass);
     }
 
+    /**
+     * Method to run the task in background. The progress token is attached to the worker thread while the task runs
+     *
+     * @return Result of the task
+     * @throws Exception Processing issues
+     */
+    protected abstract Object runTask() throws Exception;
+
+    /*
+     * (non-Javadoc)
+     * @see javax.swing.SwingWorker#doInBackground()
+     */
+    @Override
+    protected final Object doInBackground() throws Exception {
+        this.progress.attach();
+        try {
+            return runTask();
+        } finally {
+            this.progress.detach();
+        }
+    }
+
+    /**
+     * Method to be called before processing each unit (e.g. file), so that the progress of the operations is
+     * reported within the range of the unit
+     *
+     * @param index Index of the unit
+     * @param count Total number of units
+     */
+    protected void startUnit(int index, int count) {
+        this.unitIndex = index;
+        this.unitCount = count;
+        this.progress.reset();
+        setProgress(index * 100 / count);
+    }
+
     /*
      * (non-Javadoc)
      * @see javax.swing.SwingWorker#done()
@@ -150,6 +202,8 @@ public abstract class WorkerTask extends SwingWorker<Object, Void> {
          */
         @Override
         public void actionPerformed(ActionEvent e) {
+            // Cancel the token first, so that the operation in progress stops at its next checkpoint
+            this.task.progress.cancel();
             this.task.cancel(true);
         }
     }
@@ -0,0 +1,225 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder (JFR) events for the operations of {@link OpenStego}, image decoding / encoding and the
+ * transforms done by the plugins.
+ * <p>
+ * This is the Java 11 version, which is packaged in <code>META-INF/versions/11</code> of the multi-release JAR. Events
+ * are emitted only if the {@link #ENABLED_PROPERTY} system property is set to <code>true</code> and a JFR recording
+ * (with the events enabled) is in progress. Both the versions must have the same public API.
+ */
+public class OpenStegoEvents {
+    /**
+     * System property to enable the JFR events
+     */
+    public static final String ENABLED_PROPERTY = "openstego.jfr";
+
+    /**
+     * Flag to indicate whether the events are enabled
+     */
+    private static final boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    /**
+     * Operation event in progress for the current thread
+     */
+    private static final ThreadLocal<OperationEvent> current = new ThreadLocal<>();
+
+    /**
+     * Types of events
+     */
+    public enum Type {
+        /**
+         * Embedding of message or watermark
+         */
+        EMBED,
+        /**
+         * Extraction of message
+         */
+        EXTRACT,
+        /**
+         * Checking of watermark
+         */
+        WATERMARK_CHECK,
+        /**
+         * Decoding of image
+         */
+        IMAGE_DECODE,
+        /**
+         * Encoding of image
+         */
+        IMAGE_ENCODE,
+        /**
+         * Transform of image data (e.g. DWT or YUV conversion)
+         */
+        TRANSFORM
+    }
+
+    /**
+     * Constructor is private so that this class is not instantiated
+     */
+    private OpenStegoEvents() {
+    }
+
+    /**
+     * Method to begin an event. Events nested within an operation (i.e. {@link Type#EMBED}, {@link Type#EXTRACT} or
+     * {@link Type#WATERMARK_CHECK}) inherit the plugin name from the operation
+     *
+     * @param type       Type of the event
+     * @param pluginName Name of the plugin (null to inherit it from the enclosing operation)
+     * @return Handle for the event, or null if the event is not enabled
+     */
+    public static Object begin(Type type, String pluginName) {
+        if (!enabled) {
+            return null;
+        }
+
+        OpenStegoEvent event;
+        switch (type) {
+            case EMBED:
+                event = new EmbedEvent();
+                break;
+            case EXTRACT:
+                event = new ExtractEvent();
+                break;
+            case WATERMARK_CHECK:
+                event = new WatermarkCheckEvent();
+                break;
+            case IMAGE_DECODE:
+                event = new ImageDecodeEvent();
+                break;
+            case IMAGE_ENCODE:
+                event = new ImageEncodeEvent();
+                break;
+            default:
+                event = new TransformEvent();
+        }
+        if (!event.isEnabled()) {
+            return null;
+        }
+
+        OperationEvent operation = current.get();
+        if (event instanceof OperationEvent) {
+            // Operation delegating to another one (e.g. alternate API) is recorded only once
+            if (operation != null) {
+                return null;
+            }
+            current.set((OperationEvent) event);
+        }
+        event.pluginName = (pluginName != null || operation == null) ? pluginName : operation.pluginName;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Method to end the event and commit it. For operations, this should be called in a finally block
+     *
+     * @param event       Handle for the event (null is allowed)
+     * @param width       Width of the image (0 if not known)
+     * @param height      Height of the image (0 if not known)
+     * @param payloadSize Size of the payload in bytes
+     * @param stage       Stage (e.g. name of the operation or the transform)
+     */
+    public static void end(Object event, int width, int height, long payloadSize, String stage) {
+        if (event == null) {
+            return;
+        }
+
+        OpenStegoEvent osEvent = (OpenStegoEvent) event;
+        osEvent.end();
+        if (width > 0) {
+            osEvent.width = width;
+            osEvent.height = height;
+        }
+        osEvent.payloadSize = payloadSize;
+        osEvent.stage = stage;
+
+        OperationEvent operation = current.get();
+        if (osEvent == operation) {
+            current.remove();
+        } else if (operation != null && operation.width == 0 && osEvent instanceof ImageDecodeEvent) {
+            // Operations get the image dimensions from the first image decoded by them
+            operation.width = width;
+            operation.height = height;
+        }
+        if (osEvent.shouldCommit()) {
+            osEvent.commit();
+        }
+    }
+
+    /**
+     * Base class for all the events
+     */
+    @Category("OpenStego")
+    abstract static class OpenStegoEvent extends Event {
+        @Label("Plugin")
+        String pluginName;
+
+        @Label("Image Width")
+        int width;
+
+        @Label("Image Height")
+        int height;
+
+        @Label("Payload Size")
+        @DataAmount
+        long payloadSize;
+
+        @Label("Stage")
+        String stage;
+    }
+
+    /**
+     * Base class for the operations of {@link OpenStego}
+     */
+    abstract static class OperationEvent extends OpenStegoEvent {
+    }
+
+    @Name("com.openstego.Embed")
+    @Label("Embed")
+    @Description("Embedding of message or watermark into the cover file")
+    static class EmbedEvent extends OperationEvent {
+    }
+
+    @Name("com.openstego.Extract")
+    @Label("Extract")
+    @Description("Extraction of message from the stego file")
+    static class ExtractEvent extends OperationEvent {
+    }
+
+    @Name("com.openstego.WatermarkCheck")
+    @Label("Watermark Check")
+    @Description("Checking of watermark in the stego file")
+    static class WatermarkCheckEvent extends OperationEvent {
+    }
+
+    @Name("com.openstego.ImageDecode")
+    @Label("Image Decode")
+    @Description("Decoding of image data")
+    static class ImageDecodeEvent extends OpenStegoEvent {
+    }
+
+    @Name("com.openstego.ImageEncode")
+    @Label("Image Encode")
+    @Description("Encoding of image data")
+    static class ImageEncodeEvent extends OpenStegoEvent {
+    }
+
+    @Name("com.openstego.Transform")
+    @Label("Transform")
+    @Description("Transform of image data (e.g. DWT or YUV conversion)")
+    static class TransformEvent extends OpenStegoEvent {
+    }
+}
@@ -0,0 +1,121 @@
+package com.openstego.desktop;
+
+import com.openstego.desktop.plugin.lsb.LSBPlugin;
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.LabelUtil;
+import com.openstego.desktop.util.PluginManager;
+import com.openstego.desktop.util.cmd.CmdLineOptions;
+import com.openstego.desktop.util.cmd.CmdLineParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoBatch}
+ */
+public class OpenStegoBatchTest {
+    private Path dir;
+
+    private OpenStego stego;
+
+    private CmdLineOptions options;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+        PluginManager.loadPlugins();
+
+        dir = Files.createTempDirectory("batch");
+        for (String name : new String[]{"cover1.png", "cover2.png", "cover\nnewline.png"}) {
+            ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", dir.resolve(name).toFile());
+        }
+        Files.write(dir.resolve("default.txt"), "default message".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("other.txt"), "other message".getBytes(StandardCharsets.UTF_8));
+
+        LSBPlugin plugin = new LSBPlugin();
+        options = new CmdLineParser(OpenStegoCmd.getStdCmdLineOptions(plugin), new String[]{"embed", "-a", "LSB"}).getParsedOptions();
+        stego = new OpenStego(plugin, plugin.newConfig(options));
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> assertTrue(path.toFile().delete()));
+        }
+    }
+
+    @Test
+    public void testResumeFromJournal() throws Exception {
+        String manifest = path("cover1.png") + "\t" + path("out1.png") + "\n"
+                + "\n"
+                + path("cover2.png") + "\t" + path("out2.png") + "\t" + path("other.txt") + "\r\n"
+                + "\t" + path("bad.png") + "\n";
+
+        try (OpenStegoJournal journal = new OpenStegoJournal(dir.resolve("journal.txt").toFile())) {
+            List<String> results = run(manifest, false, journal);
+            assertEquals(3, results.size());
+            assertEquals(1, count(results, "\"status\":\"OK\"", "out1.png"));
+            assertEquals(1, count(results, "\"status\":\"OK\"", "out2.png"));
+            assertEquals(1, count(results, "\"status\":\"ERROR\"", "bad.png"));
+        }
+        assertExtracted("out1.png", "default.txt", "default message");
+        assertExtracted("out2.png", "other.txt", "other message");
+
+        // Completed entries are skipped when the batch is run again
+        try (OpenStegoJournal journal = new OpenStegoJournal(dir.resolve("journal.txt").toFile())) {
+            List<String> results = run(manifest, false, journal);
+            assertEquals(2, count(results, "\"status\":\"SKIPPED\""));
+            assertEquals(1, count(results, "\"status\":\"ERROR\""));
+        }
+    }
+
+    @Test
+    public void testNullDelimited() throws Exception {
+        String manifest = path("cover\nnewline.png") + "\t" + path("out\nnewline.png") + "\0";
+
+        List<String> results = run(manifest, true, null);
+        assertEquals(1, results.size());
+        assertTrue(results.get(0).contains("out\\nnewline.png\",\"status\":\"OK\""), results.get(0));
+        assertExtracted("out\nnewline.png", "default.txt", "default message");
+    }
+
+    private List<String> run(String manifest, boolean nullDelimited, OpenStegoJournal journal) throws Exception {
+        OpenStegoBatch batch = new OpenStegoBatch(stego, options, false, dir.resolve("default.txt").toFile(), journal, 2, 1);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (PrintStream out = new PrintStream(bos, true, "UTF-8")) {
+            batch.run(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)), nullDelimited, out);
+        }
+        return Arrays.asList(new String(bos.toByteArray(), StandardCharsets.UTF_8).split("\\R"));
+    }
+
+    private void assertExtracted(String stegoFileName, String msgFileName, String msg) throws Exception {
+        List<?> output = stego.extractData(dir.resolve(stegoFileName).toFile());
+        assertEquals(msgFileName, output.get(0));
+        assertArrayEquals(msg.getBytes(StandardCharsets.UTF_8), (byte[]) output.get(1));
+    }
+
+    private String path(String name) {
+        return dir.resolve(name).toString();
+    }
+
+    private static long count(List<String> results, String... parts) {
+        return results.stream().filter(line -> Stream.of(parts).allMatch(line::contains)).count();
+    }
+}
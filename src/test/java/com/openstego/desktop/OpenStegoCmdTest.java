@@ -0,0 +1,164 @@
+package com.openstego.desktop;
+
+import com.openstego.desktop.plugin.lsb.LSBPlugin;
+import com.openstego.desktop.plugin.randlsb.RandomLSBPlugin;
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.LabelUtil;
+import com.openstego.desktop.util.PluginManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoCmd}
+ */
+public class OpenStegoCmdTest {
+    private final PrintStream stdout = System.out;
+
+    private final PrintStream stderr = System.err;
+
+    private final InputStream stdin = System.in;
+
+    private File coverFile;
+
+    private File msgFile;
+
+    private File stegoFile;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+        PluginManager.loadPlugins();
+
+        coverFile = File.createTempFile("cover", ".png");
+        msgFile = File.createTempFile("msg", ".bin");
+        stegoFile = File.createTempFile("stego", ".png");
+
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 200; x++) {
+                image.setRGB(x, y, ((x * 7) << 16) | ((y * 13) << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        ImageIO.write(image, "png", coverFile);
+
+        byte[] msg = new byte[2000];
+        new Random(1).nextBytes(msg);
+        CommonUtil.writeFile(msg, msgFile.getPath());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        System.setOut(stdout);
+        System.setErr(stderr);
+        System.setIn(stdin);
+        assertTrue(coverFile.delete());
+        assertTrue(msgFile.delete());
+        assertTrue(stegoFile.delete());
+    }
+
+    @Test
+    public void testStdoutIsDataOnly() throws Exception {
+        // Embed to stdout with insecure algorithm, which prints a warning
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        byte[] stegoData = run(err, null, "embed", "-a", "RandomLSB", "-mf", msgFile.getPath(), "-cf", coverFile.getPath(),
+                "-e", "-p", "secret", "-A", "DES");
+        assertTrue(err.toString("UTF-8").contains("DES"));
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(stegoData)));
+        CommonUtil.writeFile(stegoData, stegoFile.getPath());
+
+        // Extract to stdout with the password prompted on stdin
+        err.reset();
+        byte[] msg = run(err, "secret\n", "extract", "-a", "RandomLSB", "-sf", stegoFile.getPath(), "-xf", "-");
+        assertFalse(err.toString("UTF-8").isEmpty());
+        assertArrayEquals(CommonUtil.fileToBytes(msgFile), msg);
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        Path scanDir = Files.createTempDirectory("scan");
+        try {
+            byte[] cover = CommonUtil.fileToBytes(coverFile);
+            byte[] msg = "secret message".getBytes(StandardCharsets.UTF_8);
+            Files.write(scanDir.resolve("clean.png"), cover);
+            Files.write(scanDir.resolve("odd\tname.png"), cover);
+
+            LSBPlugin lsb = new LSBPlugin();
+            lsb.resetConfig();
+            Files.write(scanDir.resolve("lsb.png"), lsb.embedData(msg, "tab\there.txt", cover, "cover.png", "lsb.png"));
+
+            RandomLSBPlugin randomLsb = new RandomLSBPlugin();
+            randomLsb.resetConfig();
+            randomLsb.getConfig().setPassword("secret");
+            Files.write(scanDir.resolve("random.png"), randomLsb.embedData(msg, "msg.txt", cover, "cover.png", "random.png"));
+
+            // Without password, data embedded by RandomLSB can not be located, so files are not reported as clean
+            Map<String, String[]> rows = scan(scanDir);
+            assertEquals(4, rows.size());
+            assertArrayEquals(new String[]{"FOUND", "LSB", "tab\\there.txt"}, rows.get("lsb.png"));
+            assertArrayEquals(new String[]{"UNKNOWN", "RandomLSB", "NEEDS_PASSWORD"}, rows.get("random.png"));
+            assertArrayEquals(new String[]{"UNKNOWN", "RandomLSB", "NEEDS_PASSWORD"}, rows.get("clean.png"));
+            assertArrayEquals(new String[]{"UNKNOWN", "RandomLSB", "NEEDS_PASSWORD"}, rows.get("odd\\tname.png"));
+
+            rows = scan(scanDir, "-p", "secret");
+            assertArrayEquals(new String[]{"FOUND", "LSB", "tab\\there.txt"}, rows.get("lsb.png"));
+            assertArrayEquals(new String[]{"FOUND", "RandomLSB", "msg.txt"}, rows.get("random.png"));
+            assertArrayEquals(new String[]{"CLEAN", "", ""}, rows.get("clean.png"));
+        } finally {
+            try (Stream<Path> paths = Files.walk(scanDir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> assertTrue(path.toFile().delete()));
+            }
+        }
+    }
+
+    private Map<String, String[]> scan(Path scanDir, String... extraArgs) throws Exception {
+        String[] args = new String[3 + extraArgs.length];
+        args[0] = "scan";
+        args[1] = "-sd";
+        args[2] = scanDir.toString();
+        System.arraycopy(extraArgs, 0, args, 3, extraArgs.length);
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        String out = new String(run(err, null, args), StandardCharsets.UTF_8);
+
+        // One line per file with four tab-separated columns, keyed here by the (escaped) file name
+        Map<String, String[]> rows = new HashMap<>();
+        for (String line : out.split("\n")) {
+            String[] cols = line.split("\t", -1);
+            assertEquals(4, cols.length, line);
+            rows.put(cols[0].substring(cols[0].lastIndexOf(File.separatorChar) + 1), new String[]{cols[1], cols[2], cols[3]});
+        }
+        return rows;
+    }
+
+    private byte[] run(ByteArrayOutputStream err, String input, String... args) throws UnsupportedEncodingException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out, true, "UTF-8"));
+        System.setErr(new PrintStream(err, true, "UTF-8"));
+        if (input != null) {
+            System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        }
+        try {
+            OpenStegoCmd.execute(args);
+        } finally {
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,82 @@
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.LabelUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoCompressor}
+ */
+public class OpenStegoCompressorTest {
+
+    @BeforeEach
+    public void setup() {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+    }
+
+    @Test
+    public void testCompressDecompress() throws OpenStegoException {
+        byte[] text = new byte[100000];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) ('a' + (i % 7));
+        }
+
+        for (String codec : new String[]{OpenStegoCompressor.CODEC_GZIP, OpenStegoCompressor.CODEC_DEFLATE, OpenStegoCompressor.CODEC_NONE}) {
+            byte[] compressed = new OpenStegoCompressor(codec, 1, OpenStegoCompressor.STRATEGY_DEFAULT).compress(text);
+            assertArrayEquals(text, OpenStegoCompressor.decompress(compressed));
+        }
+    }
+
+    @Test
+    public void testIncompressibleDataIsStored() throws OpenStegoException {
+        byte[] random = new byte[100000];
+        new Random(1).nextBytes(random);
+
+        assertTrue(OpenStegoCompressor.isCompressed(random));
+        byte[] compressed = new OpenStegoCompressor(OpenStegoCompressor.CODEC_GZIP, 9, null).compress(random);
+        assertEquals(random.length + 1, compressed.length);
+        assertArrayEquals(random, OpenStegoCompressor.decompress(compressed));
+    }
+
+    @Test
+    public void testDecompressLegacyGzip() throws IOException, OpenStegoException {
+        byte[] text = "Data compressed by older versions".getBytes();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream zos = new GZIPOutputStream(bos)) {
+            zos.write(text);
+        }
+        assertArrayEquals(text, OpenStegoCompressor.decompress(bos.toByteArray()));
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        try {
+            new OpenStegoCompressor("LZ4", 1, null);
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.INVALID_COMPRESSION_CODEC, e.getErrorCode());
+        }
+
+        try {
+            new OpenStegoCompressor(null, 10, null);
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.INVALID_COMPRESSION_LEVEL, e.getErrorCode());
+        }
+
+        try {
+            new OpenStegoCompressor(null, 1, "RLE");
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.INVALID_COMPRESSION_STRATEGY, e.getErrorCode());
+        }
+    }
+}
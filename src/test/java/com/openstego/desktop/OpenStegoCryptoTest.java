@@ -0,0 +1,95 @@
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.LabelUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoCrypto}
+ */
+public class OpenStegoCryptoTest {
+
+    @BeforeEach
+    public void setup() {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+    }
+
+    @Test
+    public void testEncryptDecrypt() throws OpenStegoException {
+        Random rand = new Random(1);
+
+        for (String algo : new String[]{OpenStegoCrypto.ALGO_AES128, OpenStegoCrypto.ALGO_AESGCM}) {
+            // Sizes around the chunk boundary of AESGCM
+            for (int len : new int[]{0, 1, 65535, 65536, 65537, 200000}) {
+                byte[] msg = new byte[len];
+                rand.nextBytes(msg);
+
+                byte[] enc = new OpenStegoCrypto("password", algo).encrypt(msg);
+                assertArrayEquals(msg, new OpenStegoCrypto("password", algo).decrypt(enc));
+            }
+        }
+    }
+
+    @Test
+    public void testDecryptAESGCMInvalid() throws OpenStegoException {
+        byte[] msg = new byte[100000];
+        new Random(1).nextBytes(msg);
+        byte[] enc = new OpenStegoCrypto("password", OpenStegoCrypto.ALGO_AESGCM).encrypt(msg);
+
+        // Case - wrong password
+        try {
+            new OpenStegoCrypto("wrong", OpenStegoCrypto.ALGO_AESGCM).decrypt(enc);
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.INVALID_PASSWORD, e.getErrorCode());
+        }
+
+        // Case - last chunk dropped
+        try {
+            new OpenStegoCrypto("password", OpenStegoCrypto.ALGO_AESGCM).decrypt(Arrays.copyOf(enc, 25 + 4 + 65536 + 16));
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.CORRUPT_DATA, e.getErrorCode());
+        }
+
+        // Case - tampered data
+        enc[enc.length - 20] ^= 1;
+        try {
+            new OpenStegoCrypto("password", OpenStegoCrypto.ALGO_AESGCM).decrypt(enc);
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.INVALID_PASSWORD, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testStreamNotSupported() throws OpenStegoException {
+        OpenStegoCrypto crypto = new OpenStegoCrypto("password", OpenStegoCrypto.ALGO_AES128);
+        assertFalse(crypto.isStreamingSupported());
+        try {
+            crypto.encryptStream(new ByteArrayOutputStream());
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.STREAM_CRYPT_NOT_SUPPORTED, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testAESGCMSingleUse() throws OpenStegoException {
+        OpenStegoCrypto crypto = new OpenStegoCrypto("password", OpenStegoCrypto.ALGO_AESGCM);
+        crypto.encrypt(new byte[10]);
+        try {
+            crypto.encrypt(new byte[10]);
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.CRYPT_PASSWORD_CLEARED, e.getErrorCode());
+        }
+    }
+}
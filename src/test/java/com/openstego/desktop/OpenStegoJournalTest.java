@@ -0,0 +1,62 @@
+package com.openstego.desktop;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoJournal}
+ */
+public class OpenStegoJournalTest {
+    private File file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = File.createTempFile("journal", ".txt");
+        assertTrue(file.delete());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        assertTrue(!file.exists() || file.delete());
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        try (OpenStegoJournal journal = new OpenStegoJournal(file)) {
+            assertFalse(journal.isCompleted("a.png"));
+            journal.markCompleted("a.png");
+            journal.markCompleted("b.png\tline\nbreak");
+            assertTrue(journal.isCompleted("a.png"));
+        }
+
+        try (OpenStegoJournal journal = new OpenStegoJournal(file)) {
+            assertTrue(journal.isCompleted("a.png"));
+            assertTrue(journal.isCompleted("b.png\tline\nbreak"));
+            assertFalse(journal.isCompleted("c.png"));
+        }
+    }
+
+    @Test
+    public void testPartialLineDropped() throws Exception {
+        try (OpenStegoJournal journal = new OpenStegoJournal(file)) {
+            journal.markCompleted("a.png");
+        }
+        // Simulate crash while writing the line
+        Files.write(file.toPath(), "c.pn".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (OpenStegoJournal journal = new OpenStegoJournal(file)) {
+            assertFalse(journal.isCompleted("c.pn"));
+            journal.markCompleted("d.png");
+        }
+        assertEquals("a.png\nd.png\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+}
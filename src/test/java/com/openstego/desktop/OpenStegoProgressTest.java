@@ -0,0 +1,81 @@
+package com.openstego.desktop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoProgress}
+ */
+public class OpenStegoProgressTest {
+    @Test
+    public void testProgressAcrossPhases() {
+        List<Double> values = new ArrayList<>();
+        OpenStegoProgress progress = new OpenStegoProgress(values::add);
+        progress.attach();
+        try {
+            for (int phase = 0; phase < 3; phase++) {
+                for (int i = 0; i <= 10; i++) {
+                    OpenStegoProgress.checkpoint(i, 10);
+                }
+            }
+        } finally {
+            progress.detach();
+        }
+
+        assertEquals(0.0, values.get(0), 1e-9);
+        assertEquals(0.5, values.get(10), 1e-9);
+        assertEquals(0.875, values.get(values.size() - 1), 1e-9);
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i) >= values.get(i - 1));
+        }
+    }
+
+    @Test
+    public void testExpectedPhases() {
+        List<Double> values = new ArrayList<>();
+        OpenStegoProgress progress = new OpenStegoProgress(values::add);
+        progress.attach();
+        try {
+            OpenStegoProgress.expectPhases(4);
+            for (int phase = 0; phase < 5; phase++) {
+                for (int i = 0; i <= 10; i++) {
+                    OpenStegoProgress.checkpoint(i, 10 + phase);
+                }
+            }
+        } finally {
+            progress.detach();
+        }
+
+        // Declared phases get equal share, and the extra phase gets nothing as nothing remains
+        assertEquals(0.25, values.get(11), 1e-9);
+        assertEquals(0.5, values.get(22), 1e-9);
+        assertEquals(0.75, values.get(33), 1e-9);
+        assertEquals(0.75 + 0.25 * 10 / 13, values.get(43), 1e-9);
+        assertEquals(1.0, values.get(44), 1e-9);
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i) >= values.get(i - 1));
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        OpenStegoProgress progress = new OpenStegoProgress(null);
+        // No effect without attached token
+        progress.cancel();
+        OpenStegoProgress.checkpoint(1, 10);
+        OpenStegoProgress.checkCancelled();
+
+        progress.attach();
+        try {
+            assertThrows(CancellationException.class, () -> OpenStegoProgress.checkpoint(1, 10));
+            assertThrows(CancellationException.class, OpenStegoProgress::checkCancelled);
+        } finally {
+            progress.detach();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.openstego.desktop;
+
+import com.openstego.desktop.util.CommonUtil;
+import com.openstego.desktop.util.LabelUtil;
+import com.openstego.desktop.util.PluginManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoServer}
+ */
+public class OpenStegoServerTest {
+    private OpenStegoServer server;
+
+    private String token;
+
+    private File coverFile;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+        PluginManager.loadPlugins();
+
+        coverFile = File.createTempFile("cover", ".png");
+        ImageIO.write(new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB), "png", coverFile);
+
+        // One request is processed and one is queued, the rest are rejected
+        server = new OpenStegoServer(0, 1, 1);
+        server.start();
+        token = new String(CommonUtil.fileToBytes(server.getTokenFile()), StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    public void cleanup() {
+        File tokenFile = server.getTokenFile();
+        server.stop(0);
+        assertFalse(tokenFile.exists());
+        assertTrue(coverFile.delete());
+    }
+
+    @Test
+    public void testEmbed() throws Exception {
+        byte[] msg = "secret message".getBytes(StandardCharsets.UTF_8);
+        HttpURLConnection conn = post("/embed?algorithm=LSB&coverfile=" + coverFile.getPath(), msg, token);
+        assertEquals(200, conn.getResponseCode());
+        try (InputStream is = conn.getInputStream()) {
+            assertNotNull(ImageIO.read(new ByteArrayInputStream(CommonUtil.streamToBytes(is))));
+        }
+    }
+
+    @Test
+    public void testAccessDenied() throws Exception {
+        byte[] msg = "secret message".getBytes(StandardCharsets.UTF_8);
+        String path = "/embed?algorithm=LSB&coverfile=" + coverFile.getPath();
+
+        assertEquals(401, post(path, msg, null).getResponseCode());
+        assertEquals(401, post(path, msg, token + "x").getResponseCode());
+
+        // Requests from web pages are rejected even if the token is somehow known. Origin is a restricted header for
+        // HttpURLConnection, so the request is sent directly
+        try (Socket socket = sendHeaders(path, msg.length, "Origin: http://example.com\r\n")) {
+            socket.getOutputStream().write(msg);
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertTrue(statusLine.startsWith("HTTP/1.1 403"), statusLine);
+        }
+    }
+
+    @Test
+    public void testBusy() throws Exception {
+        List<Socket> pending = new ArrayList<>();
+        try {
+            // Requests which never send their body keep the worker thread and the queue busy
+            for (int i = 0; i < 2; i++) {
+                pending.add(sendHeaders("/embed?algorithm=LSB", 10, ""));
+                Thread.sleep(200);
+            }
+
+            int status = 0;
+            for (int i = 0; i < 50 && status != 503; i++) {
+                status = post("/embed?algorithm=LSB", new byte[1], token).getResponseCode();
+                Thread.sleep(100);
+            }
+            assertEquals(503, status);
+        } finally {
+            for (Socket socket : pending) {
+                socket.close();
+            }
+        }
+    }
+
+    private HttpURLConnection post(String path, byte[] body, String reqToken) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        if (reqToken != null) {
+            conn.setRequestProperty("X-OpenStego-Token", reqToken);
+        }
+        try (OutputStream os = conn.getOutputStream()) {
+            os.write(body);
+        }
+        return conn;
+    }
+
+    private Socket sendHeaders(String path, int contentLength, String extraHeaders) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        OutputStream os = socket.getOutputStream();
+        os.write(("POST " + path + " HTTP/1.1\r\nHost: localhost\r\nX-OpenStego-Token: " + token + "\r\n" + extraHeaders
+                + "Content-Length: " + contentLength + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        os.flush();
+        return socket;
+    }
+}
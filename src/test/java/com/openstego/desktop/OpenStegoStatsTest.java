@@ -0,0 +1,59 @@
+package com.openstego.desktop;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link OpenStegoStats}
+ */
+public class OpenStegoStatsTest {
+    @Test
+    public void testDisabledWithoutListener() {
+        assertNull(OpenStegoStats.begin("embed", "test"));
+        assertNull(OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN));
+    }
+
+    @Test
+    public void testNestedStages() throws Exception {
+        List<OpenStegoStats> completed = new ArrayList<>();
+        OpenStegoStatsListener listener = completed::add;
+        OpenStegoStats.addListener(listener);
+        try {
+            OpenStegoStats stats = OpenStegoStats.begin("embed", "test");
+            assertNotNull(stats);
+            // Nested operation is recorded as part of the outer one
+            assertNull(OpenStegoStats.begin("extract", "test"));
+
+            OpenStegoStats.Stage.Run plugin = OpenStegoStats.startStage(OpenStegoStats.STAGE_PLUGIN);
+            for (int i = 0; i < 2; i++) {
+                OpenStegoStats.Stage.Run decode = OpenStegoStats.startStage(OpenStegoStats.STAGE_DECODE);
+                Thread.sleep(20);
+                OpenStegoStats.endStage(decode, 100);
+            }
+            OpenStegoStats.endStage(plugin, 10);
+            OpenStegoStats.succeed(stats, 10);
+            OpenStegoStats.end(stats);
+        } finally {
+            OpenStegoStats.removeListener(listener);
+        }
+
+        assertEquals(1, completed.size());
+        OpenStegoStats stats = completed.get(0);
+        assertFalse(stats.isFailed());
+        assertEquals(2, stats.getStages().size());
+
+        OpenStegoStats.Stage plugin = stats.getStages().get(0);
+        OpenStegoStats.Stage decode = stats.getStages().get(1);
+        assertEquals(OpenStegoStats.STAGE_DECODE, decode.getName());
+        assertEquals(2, decode.getCount());
+        assertEquals(200, decode.getBytes());
+        assertTrue(decode.getNanos() >= 40000000L);
+        // Time of the nested stage is excluded from the enclosing stage
+        assertTrue(plugin.getNanos() < 20000000L);
+        assertTrue(stats.getTotalNanos() >= plugin.getNanos() + decode.getNanos());
+    }
+}
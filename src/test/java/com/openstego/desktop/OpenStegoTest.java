@@ -1,6 +1,7 @@
 package com.openstego.desktop;
 
 import com.openstego.desktop.util.CommonUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
@@ -15,6 +16,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -29,6 +31,12 @@ public class OpenStegoTest extends MockitoTest {
     @Mock
     private OpenStegoPlugin<?> mockPlugin;
 
+    @BeforeEach
+    public void setup() throws OpenStegoException {
+        // Capacity can not be estimated for the dummy cover data
+        lenient().doReturn(-1L).when(mockPlugin).estimateCapacity(any(), any(), any());
+    }
+
     @Test
     public void testConstructor() throws OpenStegoException {
         OpenStegoConfig config = new OpenStegoConfig();
@@ -73,6 +81,29 @@ public class OpenStegoTest extends MockitoTest {
         verify(mockPlugin, times(1)).embedData(msg, msgFileName, cover, coverFileName, stegoFileName);
     }
 
+    @Test
+    public void testEmbedData_capacityInsufficient() throws OpenStegoException {
+        byte[] msg = "message".getBytes(StandardCharsets.UTF_8);
+        byte[] cover = "cover data".getBytes(StandardCharsets.UTF_8);
+
+        doReturn(Collections.singletonList(OpenStegoPlugin.Purpose.DATA_HIDING)).when(mockPlugin).getPurposes();
+        doReturn(3L).when(mockPlugin).estimateCapacity(cover, "cover.in", "message.txt");
+
+        OpenStegoConfig config = new OpenStegoConfig();
+        config.setUseCompression(false);
+        config.setUseEncryption(false);
+        OpenStego os = new OpenStego(mockPlugin, config);
+        try {
+            os.embedData(msg, "message.txt", cover, "cover.in", "stego.out");
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(OpenStegoErrors.COVER_CAPACITY_INSUFFICIENT, e.getErrorCode());
+        }
+
+        // Plugin should not be called to embed the data
+        verify(mockPlugin, never()).embedData(any(), any(), any(), any(), any());
+    }
+
     @Test
     public void testEmbedData_withCompressionAndEncryption() throws OpenStegoException, IOException {
         byte[] msg = "message".getBytes(StandardCharsets.UTF_8);
@@ -104,6 +135,32 @@ public class OpenStegoTest extends MockitoTest {
         assertArrayEquals(msg, outputMsg);
     }
 
+    @Test
+    public void testEmbedData_incompressibleMessage() throws OpenStegoException {
+        byte[] msg = new byte[4000];
+        new Random(1).nextBytes(msg);
+        byte[] cover = "cover data".getBytes(StandardCharsets.UTF_8);
+
+        doReturn(Collections.singletonList(OpenStegoPlugin.Purpose.DATA_HIDING)).when(mockPlugin).getPurposes();
+
+        OpenStegoConfig config = new OpenStegoConfig();
+        config.setUseCompression(true);
+        config.setUseEncryption(false);
+        OpenStego os = new OpenStego(mockPlugin, config);
+        os.embedData(msg, "message.bin", cover, "cover.in", "stego.out");
+
+        // Message should be embedded as is, and flagged as not compressed for the call, so that older versions can
+        // extract it
+        ArgumentCaptor<OpenStegoConfig> configCaptor = ArgumentCaptor.forClass(OpenStegoConfig.class);
+        verify(mockPlugin, times(1)).bindConfig(configCaptor.capture());
+        assertFalse(configCaptor.getValue().isUseCompression());
+        assertTrue(config.isUseCompression());
+
+        ArgumentCaptor<byte[]> msgCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(mockPlugin, times(1)).embedData(msgCaptor.capture(), anyString(), any(byte[].class), anyString(), anyString());
+        assertArrayEquals(msg, msgCaptor.getValue());
+    }
+
     @Test
     public void testEmbedData_exception() throws OpenStegoException {
         byte[] msg = "message".getBytes(StandardCharsets.UTF_8);
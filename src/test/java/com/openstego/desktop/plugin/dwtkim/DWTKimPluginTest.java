@@ -0,0 +1,86 @@
+package com.openstego.desktop.plugin.dwtkim;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.util.LabelUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link DWTKimPlugin}
+ */
+public class DWTKimPluginTest {
+    private DWTKimPlugin plugin;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+        plugin = new DWTKimPlugin();
+        plugin.resetConfig();
+    }
+
+    @Test
+    public void testWatermarkLevels() throws Exception {
+        plugin.getConfig().setPassword("password");
+        OpenStego stego = new OpenStego(plugin, plugin.getConfig());
+        byte[] sig = stego.generateSignature();
+        byte[] cover = createCover();
+        byte[] marked = stego.embedMark(sig, "test.sig", cover, "cover.png", "stego.png");
+
+        // Fresh mark and lightly re-encoded mark are both reported as strong
+        assertTrue(stego.checkMark(marked, "stego.png", sig) > plugin.getHighWatermarkLevel());
+        assertTrue(stego.checkMark(reencode(marked, 0.95f), "stego.png", sig) > plugin.getHighWatermarkLevel());
+        // Heavier re-encoding weakens the mark, but it is still found
+        assertTrue(stego.checkMark(reencode(marked, 0.85f), "stego.png", sig) > plugin.getLowWatermarkLevel());
+
+        // Image which is not marked is reported as such
+        assertTrue(stego.checkMark(cover, "cover.png", sig) < plugin.getLowWatermarkLevel());
+    }
+
+    private byte[] createCover() throws Exception {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+        Random rand = new Random(1);
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                int v = (int) Math.max(0, Math.min(255, 128 + 60 * Math.sin(x / 15.0) * Math.cos(y / 20.0) + rand.nextGaussian() * 8));
+                image.setRGB(x, y, (v << 16) | (Math.min(255, v + 20) << 8) | Math.max(0, v - 20));
+            }
+        }
+        return toPng(image);
+    }
+
+    private byte[] reencode(byte[] png, float quality) throws Exception {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(bos)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(ImageIO.read(new ByteArrayInputStream(png)), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return toPng(ImageIO.read(new ByteArrayInputStream(bos.toByteArray())));
+    }
+
+    private byte[] toPng(BufferedImage image) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bos);
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStegoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.openstego.desktop.plugin.lsb.LSBDataHeader}
+ */
+public class LSBDataHeaderTest {
+
+    @BeforeEach
+    public void setup() {
+        LSBPlugin plugin = new LSBPlugin();
+        assertNotNull(plugin);
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        LSBConfig config = new LSBConfig();
+        config.setUseCompression(true);
+        config.setUseEncryption(true);
+        config.setEncryptionAlgorithm("AESGCM");
+
+        LSBDataHeader header = new LSBDataHeader(123456, 3, "message.txt", config);
+        byte[] data = header.getHeaderData();
+        assertEquals(header.getHeaderSize(), data.length);
+        assertTrue(LSBDataHeader.isDataStamp(data));
+
+        LSBConfig readConfig = new LSBConfig();
+        LSBDataHeader readHeader = new LSBDataHeader(new ByteArrayInputStream(data), readConfig);
+        assertEquals(123456, readHeader.getDataLength());
+        assertEquals(3, readHeader.getChannelBitsUsed());
+        assertEquals("message.txt", readHeader.getFileName());
+        assertTrue(readConfig.isUseCompression());
+        assertTrue(readConfig.isUseEncryption());
+        assertEquals("AESGCM", readConfig.getEncryptionAlgorithm());
+    }
+
+    @Test
+    public void testInvalidStamp() {
+        byte[] data = new byte[100];
+        int[] bytesRead = {0};
+        InputStream is = new ByteArrayInputStream(data) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int n = super.read(b, off, len);
+                bytesRead[0] += n;
+                return n;
+            }
+        };
+
+        try {
+            new LSBDataHeader(is, new LSBConfig());
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(LSBErrors.INVALID_STEGO_HEADER, e.getErrorCode());
+        }
+        // Only the stamp should have been read
+        assertEquals(LSBDataHeader.DATA_STAMP.length, bytesRead[0]);
+    }
+
+    @Test
+    public void testTruncatedHeader() {
+        byte[] data = new LSBDataHeader(10, 1, "message.txt", new LSBConfig()).getHeaderData();
+
+        try {
+            new LSBDataHeader(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 1)), new LSBConfig());
+            fail("Did not throw OpenStegoException");
+        } catch (OpenStegoException e) {
+            assertEquals(LSBErrors.INVALID_STEGO_HEADER, e.getErrorCode());
+        }
+    }
+}
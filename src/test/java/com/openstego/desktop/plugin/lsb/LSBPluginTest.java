@@ -0,0 +1,63 @@
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.util.CommonUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link LSBPlugin}
+ */
+public class LSBPluginTest {
+    private File coverFile;
+
+    private File stegoFile;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        coverFile = File.createTempFile("cover", ".png");
+        stegoFile = File.createTempFile("stego", ".png");
+        assertTrue(stegoFile.delete());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        assertTrue(!coverFile.exists() || coverFile.delete());
+        assertTrue(!stegoFile.exists() || stegoFile.delete());
+    }
+
+    @Test
+    public void testEstimatedCapacityFits() throws Exception {
+        BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+        ImageIO.write(image, "png", coverFile);
+        byte[] cover = CommonUtil.fileToBytes(coverFile);
+
+        LSBPlugin plugin = new LSBPlugin();
+        plugin.resetConfig();
+        long capacity = plugin.estimateCapacity(cover, coverFile.getName(), "msg.bin");
+        assertEquals(capacity, plugin.estimateCapacity(coverFile, "msg.bin"));
+
+        // Message of exactly the estimated capacity fits, using both in-memory and file based embedding
+        byte[] msg = new byte[(int) capacity];
+        new Random(1).nextBytes(msg);
+        byte[] stegoData = plugin.embedData(msg, "msg.bin", cover, coverFile.getName(), stegoFile.getName());
+        assertArrayEquals(msg, plugin.extractData(stegoData, stegoFile.getName(), null));
+
+        plugin.embedData(msg, "msg.bin", coverFile, stegoFile);
+        assertArrayEquals(msg, plugin.extractData(CommonUtil.fileToBytes(stegoFile), stegoFile.getName(), null));
+
+        // One more byte does not fit
+        OpenStegoException ex = assertThrows(OpenStegoException.class,
+                () -> plugin.embedData(new byte[(int) capacity + 1], "msg.bin", cover, coverFile.getName(), stegoFile.getName()));
+        assertEquals(LSBErrors.IMAGE_SIZE_INSUFFICIENT, ex.getErrorCode());
+    }
+}
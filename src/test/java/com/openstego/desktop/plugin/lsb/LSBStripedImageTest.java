@@ -0,0 +1,106 @@
+package com.openstego.desktop.plugin.lsb;
+
+import com.openstego.desktop.OpenStegoException;
+import com.openstego.desktop.util.CommonUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link LSBStripedImage}
+ */
+public class LSBStripedImageTest {
+    private File coverFile;
+
+    private File stegoFile;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        coverFile = File.createTempFile("cover", ".bmp");
+        stegoFile = File.createTempFile("stego", ".png");
+        assertTrue(stegoFile.delete());
+    }
+
+    @AfterEach
+    public void cleanup() {
+        assertTrue(!coverFile.exists() || coverFile.delete());
+        assertTrue(!stegoFile.exists() || stegoFile.delete());
+    }
+
+    @Test
+    public void testEmbedAcrossStrips() throws Exception {
+        // Image is split in two strips, and the data spills into the second one
+        int width = 4096;
+        int height = LSBStripedImage.STRIP_PIXELS / width + 6;
+        createCover(width, height, "bmp");
+        byte[] msg = new byte[width * (height - 2) * 3 * 2 / 8 - 100];
+        new Random(1).nextBytes(msg);
+
+        LSBPlugin plugin = new LSBPlugin();
+        plugin.resetConfig();
+        plugin.embedData(msg, "msg.bin", coverFile, stegoFile);
+
+        byte[] stegoData = CommonUtil.fileToBytes(stegoFile);
+        assertEquals("msg.bin", plugin.extractMsgFileName(stegoData, stegoFile.getName()));
+        assertArrayEquals(msg, plugin.extractData(stegoData, stegoFile.getName(), null));
+
+        // Pixels after the data are not changed
+        BufferedImage cover = ImageIO.read(coverFile);
+        BufferedImage stego = ImageIO.read(stegoFile);
+        assertEquals(width, stego.getWidth());
+        assertEquals(height, stego.getHeight());
+        for (int x = 0; x < width; x++) {
+            assertEquals(cover.getRGB(x, height - 1), stego.getRGB(x, height - 1));
+        }
+    }
+
+    @Test
+    public void testImageSizeInsufficient() throws Exception {
+        createCover(20, 20, "bmp");
+        LSBPlugin plugin = new LSBPlugin();
+        plugin.resetConfig();
+
+        OpenStegoException ex = assertThrows(OpenStegoException.class,
+                () -> plugin.embedData(new byte[1000], "msg.bin", coverFile, stegoFile));
+        assertEquals(LSBErrors.IMAGE_SIZE_INSUFFICIENT, ex.getErrorCode());
+        assertFalse(stegoFile.exists());
+    }
+
+    @Test
+    public void testStripsOnlyForRegionReadableFormats() throws Exception {
+        int width = 4096;
+        int height = LSBStripedImage.STRIP_PIXELS / width + 6;
+        LSBPlugin plugin = new LSBPlugin();
+        plugin.resetConfig();
+
+        createCover(width, height, "bmp");
+        try (LSBStripedImage image = new LSBStripedImage(coverFile, new byte[10], "msg.bin", plugin.getConfig())) {
+            assertEquals(2, image.getNumYTiles());
+        }
+
+        // PNG would be decoded again from the top for every strip, so it is read in one go
+        createCover(width, height, "png");
+        try (LSBStripedImage image = new LSBStripedImage(coverFile, new byte[10], "msg.bin", plugin.getConfig())) {
+            assertEquals(1, image.getNumYTiles());
+            assertEquals(height, image.getTileHeight());
+        }
+    }
+
+    private void createCover(int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x * 7) << 16) | ((y * 13) << 8) | ((x ^ y) & 0xFF));
+            }
+        }
+        assertTrue(ImageIO.write(image, format, coverFile));
+    }
+}
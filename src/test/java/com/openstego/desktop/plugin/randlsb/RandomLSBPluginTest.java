@@ -0,0 +1,67 @@
+package com.openstego.desktop.plugin.randlsb;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoConfig;
+import com.openstego.desktop.plugin.lsb.LSBConfig;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link RandomLSBPlugin}
+ */
+public class RandomLSBPluginTest {
+    @Test
+    public void testSharedPluginWithDifferentConfig() throws Exception {
+        RandomLSBPlugin plugin = new RandomLSBPlugin();
+        plugin.resetConfig();
+
+        BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", os);
+        byte[] cover = os.toByteArray();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                final int n = i;
+                results.add(executor.submit(() -> {
+                    LSBConfig config = plugin.newConfig();
+                    config.setUseEncryption(n % 2 == 0);
+                    config.setUseCompression(n % 3 == 0);
+                    config.setPassword("password" + n);
+                    OpenStego stego = new OpenStego(plugin, config);
+
+                    byte[] msg = ("message" + n).getBytes(StandardCharsets.UTF_8);
+                    byte[] stegoData = stego.embedData(msg, "msg" + n + ".txt", cover, "cover.png", "stego.png");
+                    List<?> output = stego.extractData(stegoData, "stego.png");
+                    assertEquals("msg" + n + ".txt", output.get(0));
+                    // Flags read from the header must not leak into the config of the caller
+                    assertEquals(n % 2 == 0, config.isUseEncryption());
+                    return new String((byte[]) output.get(1), StandardCharsets.UTF_8);
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("message" + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Default configuration of the plugin is not changed by the calls
+        OpenStegoConfig config = plugin.getConfig();
+        assertNull(config.getPassword());
+        assertFalse(config.isUseEncryption());
+    }
+}
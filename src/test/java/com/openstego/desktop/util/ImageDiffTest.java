@@ -0,0 +1,70 @@
+package com.openstego.desktop.util;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.OpenStegoException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ImageDiff}
+ */
+public class ImageDiffTest {
+
+    @BeforeEach
+    public void setup() {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+    }
+
+    @Test
+    public void testIdenticalImages() throws Exception {
+        BufferedImage image = createImage(20, 13);
+        ImageDiff diff = ImageDiff.compute(new ImageHolder(image, null), new ImageHolder(image, null));
+
+        assertEquals(0.0, diff.getMse());
+        assertEquals(Double.POSITIVE_INFINITY, diff.getPsnr());
+        assertEquals(1.0, diff.getSsim(), 1e-9);
+        assertEquals(0, diff.getDiffImage().getImage().getRGB(5, 5) & 0xFFFFFF);
+    }
+
+    @Test
+    public void testPerChannelDifference() throws Exception {
+        BufferedImage left = createImage(20, 13);
+        BufferedImage right = createImage(20, 13);
+        // Green of one pixel is lowered by 10 and blue of another is raised by 5
+        right.setRGB(3, 4, left.getRGB(3, 4) - (10 << 8));
+        right.setRGB(17, 12, left.getRGB(17, 12) + 5);
+
+        ImageDiff diff = ImageDiff.compute(new ImageHolder(left, null), new ImageHolder(right, null));
+        BufferedImage diffImage = diff.getDiffImage().getImage();
+
+        assertEquals(125.0 / (3 * 20 * 13), diff.getMse(), 1e-9);
+        assertEquals(10 * Math.log10(255.0 * 255.0 / diff.getMse()), diff.getPsnr(), 1e-9);
+        assertTrue(diff.getSsim() < 1.0 && diff.getSsim() > 0.9);
+        // Differences do not bleed into the other channels, and are stretched to the full range
+        assertEquals(0x00FF00, diffImage.getRGB(3, 4) & 0xFFFFFF);
+        assertEquals(0x000080, diffImage.getRGB(17, 12) & 0xFFFFFF);
+        assertEquals(0, diffImage.getRGB(0, 0) & 0xFFFFFF);
+    }
+
+    @Test
+    public void testSizeMismatch() {
+        assertThrows(OpenStegoException.class, () -> ImageDiff.compute(new ImageHolder(createImage(8, 8), null),
+                new ImageHolder(createImage(8, 9), null)));
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, ((x * 11) << 16) | ((y * 17) << 8) | ((x + y) * 5));
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,66 @@
+package com.openstego.desktop.util;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoErrors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ImageUtil}
+ */
+public class ImageUtilTest {
+
+    @BeforeEach
+    public void setup() {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+    }
+
+    @Test
+    public void testGenerateRandomImage() throws Exception {
+        for (boolean secure : new boolean[]{false, true}) {
+            // Size is chosen so that the last chunk of rows is partial
+            BufferedImage image = ImageUtil.generateRandomImage(300 * 200 + 7, secure).getImage();
+            assertTrue(image.getWidth() * image.getHeight() >= 300 * 200 + 7);
+            assertEquals(4.0 / 3.0, image.getWidth() / (double) image.getHeight(), 0.05);
+            assertNoise(image);
+
+            // Every image gets its own noise
+            int[] first = pixels(image);
+            int[] second = pixels(ImageUtil.generateRandomImage(300 * 200 + 7, secure).getImage());
+            assertFalse(Arrays.equals(first, second));
+        }
+    }
+
+    private static void assertNoise(BufferedImage image) {
+        int[] pixels = pixels(image);
+        int width = image.getWidth();
+
+        // Every row is filled, including the ones of the last (partial) chunk, and all the channels are used
+        for (int y = 0; y < image.getHeight(); y++) {
+            int[] max = new int[3];
+            for (int x = 0; x < width; x++) {
+                int pixel = pixels[y * width + x];
+                for (int c = 0; c < 3; c++) {
+                    max[c] = Math.max(max[c], (pixel >> (8 * c)) & 0xFF);
+                }
+            }
+            for (int c = 0; c < 3; c++) {
+                assertTrue(max[c] > 200, "Row " + y + ", channel " + c);
+            }
+        }
+
+        // Rows generated by different tasks do not repeat each other
+        assertFalse(Arrays.equals(Arrays.copyOfRange(pixels, 0, width), Arrays.copyOfRange(pixels, 64 * width, 65 * width)));
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
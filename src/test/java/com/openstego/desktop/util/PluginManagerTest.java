@@ -0,0 +1,62 @@
+package com.openstego.desktop.util;
+
+import com.openstego.desktop.OpenStegoPlugin;
+import com.openstego.desktop.OpenStegoPluginDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link PluginManager}
+ */
+public class PluginManagerTest {
+    @Test
+    public void testDescriptorsMatchPlugins() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (OpenStegoPluginDescriptor descriptor : ServiceLoader.load(OpenStegoPluginDescriptor.class)) {
+            OpenStegoPlugin<?> plugin = descriptor.createPlugin();
+            assertEquals(descriptor.getName(), plugin.getName());
+            assertEquals(descriptor.getPurposes(), plugin.getPurposes());
+            assertEquals(descriptor.getPluginClassName(), plugin.getClass().getName());
+            names.add(descriptor.getName());
+        }
+        assertTrue(names.contains("RandomLSB"));
+        assertTrue(names.contains("DWTDugad"));
+    }
+
+    @Test
+    public void testLoadPlugins() throws Exception {
+        PluginManager.loadPlugins();
+        // Loading again must not register the plugins twice
+        PluginManager.loadPlugins();
+
+        List<String> names = PluginManager.getPluginNames();
+        assertEquals(names.size(), new HashSet<>(names).size());
+        assertEquals(names.size(), PluginManager.getPluginNames(OpenStegoPlugin.Purpose.DATA_HIDING).size()
+                + PluginManager.getPluginNames(OpenStegoPlugin.Purpose.WATERMARKING).size());
+
+        OpenStegoPlugin<?> plugin = PluginManager.getPluginByName("randomlsb");
+        assertNotNull(plugin);
+        assertSame(plugin, PluginManager.getPluginByName("RandomLSB"));
+        assertNull(PluginManager.getPluginByName("NoSuchPlugin"));
+        for (OpenStegoPlugin<?> p : PluginManager.getDataHidingPlugins()) {
+            assertTrue(p.getPurposes().contains(OpenStegoPlugin.Purpose.DATA_HIDING));
+        }
+    }
+
+    @Test
+    public void testDefaultPluginName() throws Exception {
+        PluginManager.loadPlugins();
+        // More than one data hiding plugin is available, so RandomLSB is selected
+        assertTrue(PluginManager.getPluginNames(OpenStegoPlugin.Purpose.DATA_HIDING).size() > 1);
+        assertEquals(PluginManager.DEFAULT_DATA_HIDING_PLUGIN, PluginManager.getDefaultPluginName(OpenStegoPlugin.Purpose.DATA_HIDING));
+        if (PluginManager.getPluginNames(OpenStegoPlugin.Purpose.WATERMARKING).size() > 1) {
+            assertNull(PluginManager.getDefaultPluginName(OpenStegoPlugin.Purpose.WATERMARKING));
+        }
+    }
+}
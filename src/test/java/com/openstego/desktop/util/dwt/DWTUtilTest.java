@@ -0,0 +1,55 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.openstego.desktop.util.dwt.DWTUtil}
+ */
+public class DWTUtilTest {
+
+    @Test
+    public void testApproximationTransform() {
+        int[][] sizes = {{128, 128}, {100, 77}, {64, 256}};
+        int[] levels = {0, 1, 3, 5};
+        Random rand = new Random(1);
+
+        for (int[] size : sizes) {
+            int cols = size[0];
+            int rows = size[1];
+            int[][] pixels = new int[rows][cols];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < cols; j++) {
+                    pixels[i][j] = rand.nextInt(256);
+                }
+            }
+
+            for (int method = Filter.METHOD_CUTOFF; method <= Filter.METHOD_MIRROR; method += 2) {
+                for (int level : levels) {
+                    DWT dwt = new DWT(cols, rows, 1, level, method);
+
+                    // Approximation image must be identical to the coarse image of full transform
+                    ImageTree tree = dwt.forwardDWT(pixels);
+                    while (tree.getCoarse() != null) {
+                        tree = tree.getCoarse();
+                    }
+                    Image approxImg = dwt.forwardApproximation(pixels);
+
+                    assertEquals(tree.getImage().getWidth(), approxImg.getWidth());
+                    assertEquals(tree.getImage().getHeight(), approxImg.getHeight());
+                    assertArrayEquals(tree.getImage().getData(), approxImg.getData());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.openstego.desktop.util.dwt.FilterBinaryReader}
+ */
+public class FilterBinaryReaderTest {
+
+    @Test
+    public void testSameAsXml() throws IOException {
+        Map<Integer, FilterGH> xmlFilters = FilterXMLReader.parse("/dwt/filters.xml");
+        assertFalse(xmlFilters.isEmpty());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(bos)) {
+            FilterBinaryWriter.write(xmlFilters, dos);
+        }
+        Map<Integer, FilterGH> binFilters = FilterBinaryReader.parse(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+
+        assertEquals(xmlFilters.keySet(), binFilters.keySet());
+        for (FilterGH xml : xmlFilters.values()) {
+            FilterGH bin = binFilters.get(xml.getId());
+            assertEquals(xml.getName(), bin.getName());
+            assertEquals(xml.getType(), bin.getType());
+            assertFilterEquals(xml.getG(), bin.getG());
+            assertFilterEquals(xml.getH(), bin.getH());
+            assertFilterEquals(xml.getGi(), bin.getGi());
+            assertFilterEquals(xml.getHi(), bin.getHi());
+        }
+    }
+
+    @Test
+    public void testUnsupportedFile() {
+        byte[] data = new byte[]{'N', 'O', 'P', 'E', 0, 0, 0, 1};
+        assertThrows(IOException.class, () -> FilterBinaryReader.parse(new DataInputStream(new ByteArrayInputStream(data))));
+    }
+
+    private static void assertFilterEquals(Filter expected, Filter actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getStart(), actual.getStart());
+        assertEquals(expected.getEnd(), actual.getEnd());
+        assertEquals(expected.isHiPass(), actual.isHiPass());
+        assertArrayEquals(expected.getData(), actual.getData());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Steganography utility to hide messages into cover files
+ * Author: Samir Vaidya (mailto:syvaidya@gmail.com)
+ * Copyright (c) Samir Vaidya
+ */
+
+package com.openstego.desktop.util.dwt;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.openstego.desktop.util.dwt.FilterRegistry}
+ */
+public class FilterRegistryTest {
+
+    @Test
+    public void testSharedFiltersCannotBeModified() {
+        assertFalse(FilterRegistry.getFilterIDs().isEmpty());
+        for (int id : FilterRegistry.getFilterIDs()) {
+            FilterGH filterGH = FilterRegistry.getFilterGH(id);
+            assertSame(filterGH, FilterRegistry.getFilterGH(id));
+
+            for (Filter filter : new Filter[]{filterGH.getG(), filterGH.getH(), filterGH.getGi(), filterGH.getHi()}) {
+                if (filter == null || filter.getData() == null) {
+                    continue;
+                }
+                double[] data = filter.getData();
+                double first = data[0];
+                data[0] = first + 1.0;
+
+                assertEquals(first, filter.getData(0));
+                assertEquals(first, filter.getData()[0]);
+                assertNotSame(filter.getData(), filter.getData());
+            }
+        }
+    }
+
+    @Test
+    public void testFilterKeepsCopyOfData() {
+        double[] data = {0.5, 0.5};
+        Filter filter = new Filter(Filter.TYPE_SYMM, 0, 1, false, data);
+        data[0] = 2.0;
+
+        assertEquals(0.5, filter.getData(0));
+        assertEquals(Filter.TYPE_SYMM, Filter.parseType("Symm"));
+        assertEquals(-1, Filter.parseType("unknown"));
+    }
+
+    @Test
+    public void testInvalidFilterID() {
+        assertThrows(IllegalArgumentException.class, () -> FilterRegistry.getFilterGH(-1));
+    }
+}
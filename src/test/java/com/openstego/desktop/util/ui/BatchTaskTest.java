@@ -0,0 +1,102 @@
+package com.openstego.desktop.util.ui;
+
+import com.openstego.desktop.OpenStego;
+import com.openstego.desktop.OpenStegoConfig;
+import com.openstego.desktop.OpenStegoErrors;
+import com.openstego.desktop.plugin.randlsb.RandomLSBPlugin;
+import com.openstego.desktop.util.LabelUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link BatchTask}. The dialog can not be created in a headless environment, so the result table and
+ * the sharing of the {@link OpenStego} instance by the worker threads are tested separately
+ */
+public class BatchTaskTest {
+
+    @BeforeEach
+    public void setup() throws Exception {
+        LabelUtil.addNamespace(OpenStego.NAMESPACE, "i18n.OpenStegoLabels");
+        OpenStegoErrors.init();
+    }
+
+    @Test
+    public void testResultTableModel() {
+        List<File> files = Arrays.asList(new File("a.png"), new File("b.png"), new File("c.png"));
+        BatchTask.ResultTableModel model = new BatchTask.ResultTableModel(files, "Output");
+        assertEquals(3, model.getRowCount());
+        assertEquals("Output", model.getColumnName(3));
+        assertEquals("b.png", model.getValueAt(1, 0));
+        assertEquals(BatchTask.Status.QUEUED.getLabel(), model.getValueAt(1, 1));
+
+        model.update(new BatchTask.Result(0, BatchTask.Status.OK, 12L, "a-out.png"));
+        model.update(new BatchTask.Result(1, BatchTask.Status.RUNNING, 0L, null));
+        assertEquals(12L, model.getValueAt(0, 2));
+        assertNull(model.getValueAt(1, 2));
+
+        // Files which have not completed are cancelled, the rest keep their result
+        model.cancelPending();
+        assertEquals(BatchTask.Status.OK.getLabel(), model.getValueAt(0, 1));
+        assertEquals("a-out.png", model.getValueAt(0, 3));
+        assertEquals(BatchTask.Status.CANCELLED.getLabel(), model.getValueAt(1, 1));
+        assertEquals(BatchTask.Status.CANCELLED.getLabel(), model.getValueAt(2, 1));
+    }
+
+    @Test
+    public void testSharedStego() throws Exception {
+        RandomLSBPlugin plugin = new RandomLSBPlugin();
+        OpenStegoConfig config = plugin.newConfig();
+        config.setUseCompression(true);
+        config.setUseEncryption(true);
+        config.setPassword("secret");
+        OpenStego stego = new OpenStego(plugin, config);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            Random rand = new Random(1);
+            for (int i = 0; i < 16; i++) {
+                // Random messages are not compressed, which is changed in the configuration of the call only
+                final byte[] msg = new byte[200];
+                if (i % 2 == 0) {
+                    rand.nextBytes(msg);
+                } else {
+                    Arrays.fill(msg, (byte) 'a');
+                }
+                final String msgFileName = "msg" + i + ".txt";
+                results.add(executor.submit(() -> {
+                    byte[] stegoData = stego.embedData(msg, msgFileName, createCover(), "cover.png", "stego.png");
+                    List<?> output = stego.extractData(stegoData, "stego.png");
+                    return msgFileName.equals(output.get(0)) && Arrays.equals(msg, (byte[]) output.get(1));
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        // Configuration of the instance is not changed by the calls
+        assertTrue(config.isUseCompression());
+    }
+
+    private static byte[] createCover() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB), "png", bos);
+        return bos.toByteArray();
+    }
+}